@@ -22,11 +22,16 @@ import cn.dev33.satoken.context.SaTokenContextDefaultImpl;
 import cn.dev33.satoken.context.second.SaTokenSecondContext;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.dao.SaTokenDaoPipeline;
 import cn.dev33.satoken.error.SaErrorCode;
 import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.http.SaHttpTemplate;
+import cn.dev33.satoken.http.SaHttpTemplateDefaultImpl;
 import cn.dev33.satoken.json.SaJsonTemplate;
 import cn.dev33.satoken.json.SaJsonTemplateDefaultImpl;
 import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.lock.SaAccountLock;
+import cn.dev33.satoken.lock.SaAccountLockDefaultImpl;
 import cn.dev33.satoken.log.SaLog;
 import cn.dev33.satoken.log.SaLogForConsole;
 import cn.dev33.satoken.same.SaSameTemplate;
@@ -118,6 +123,11 @@ public class SaManager {
 				}
 			}
 		}
+		// 当前线程正处于此持久层的管道作用域中时，返回管道作用域对象，使写操作被暂存
+		SaTokenDaoPipeline pipeline = SaTokenDaoPipeline.current();
+		if (pipeline != null && pipeline.target == saTokenDao) {
+			return pipeline;
+		}
 		return saTokenDao;
 	}
 	
@@ -226,6 +236,25 @@ public class SaManager {
 		return saJsonTemplate;
 	}
 
+	/**
+	 * Http 请求处理器
+	 */
+	private volatile static SaHttpTemplate saHttpTemplate;
+	public static void setSaHttpTemplate(SaHttpTemplate saHttpTemplate) {
+		SaManager.saHttpTemplate = saHttpTemplate;
+		SaTokenEventCenter.doRegisterComponent("SaHttpTemplate", saHttpTemplate);
+	}
+	public static SaHttpTemplate getSaHttpTemplate() {
+		if (saHttpTemplate == null) {
+			synchronized (SaManager.class) {
+				if (saHttpTemplate == null) {
+					SaManager.saHttpTemplate = new SaHttpTemplateDefaultImpl();
+				}
+			}
+		}
+		return saHttpTemplate;
+	}
+
 	/**
 	 * API 参数签名
 	 */
@@ -264,6 +293,25 @@ public class SaManager {
 		return saSameTemplate;
 	}
 
+	/**
+	 * 账号会话锁
+	 */
+	private volatile static SaAccountLock saAccountLock;
+	public static void setSaAccountLock(SaAccountLock saAccountLock) {
+		SaManager.saAccountLock = saAccountLock;
+		SaTokenEventCenter.doRegisterComponent("SaAccountLock", saAccountLock);
+	}
+	public static SaAccountLock getSaAccountLock() {
+		if (saAccountLock == null) {
+			synchronized (SaManager.class) {
+				if (saAccountLock == null) {
+					SaManager.saAccountLock = new SaAccountLockDefaultImpl();
+				}
+			}
+		}
+		return saAccountLock;
+	}
+
 	/**
 	 * 日志输出器 
 	 */
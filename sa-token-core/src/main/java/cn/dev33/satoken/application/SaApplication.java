@@ -16,9 +16,13 @@
 package cn.dev33.satoken.application;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.dao.SaTokenDao;
 
 /**
@@ -79,16 +83,15 @@ public class SaApplication implements SaSetValueInterface {
 	public List<String> keys() {
 		// 从缓存中查询出所有此前缀的 key
 		String prefix = splicingDataKey("");
-		List<String> list = SaManager.getSaTokenDao().searchData(prefix, "", 0, -1, true);
+		Iterator<String> iterator = SaManager.getSaTokenDao().scanIterator(prefix, "", SaScanResult.DEFAULT_COUNT);
 		
-		// 裁减掉固定前缀，保留 key 名称，塞入新集合
+		// 裁减掉固定前缀，保留 key 名称，塞入新集合（游标式遍历可能返回重复的 key，需去重）
 		int prefixLength = prefix.length();
-		List<String> list2 = new ArrayList<>();
-		if(list != null) {
-			for (String key : list) {
-				list2.add(key.substring(prefixLength));
-			}
+		Set<String> set = new LinkedHashSet<>();
+		while (iterator.hasNext()) {
+			set.add(iterator.next().substring(prefixLength));
 		}
+		List<String> list2 = new ArrayList<>(set);
 		
 		// 返回 
 		return list2;
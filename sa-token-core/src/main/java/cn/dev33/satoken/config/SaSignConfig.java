@@ -28,6 +28,13 @@ public class SaSignConfig {
      */
     private String secretKey;
 
+    /**
+     * 签名算法，可选值：md5、sha1、sha256、sha512、hmac-sha256，默认 md5
+     *
+     * <p> 摘要算法的签名形如 md5(k1=v1&amp;k2=v2&amp;key=secretKey)，hmac-sha256 则以秘钥作为 HMAC 密钥：hmacSha256(k1=v1&amp;k2=v2, secretKey) </p>
+     */
+    private String signAlgo = "md5";
+
     /**
      * 接口调用时的时间戳允许的差距（单位：ms），-1 代表不校验差距，默认15分钟
      *
@@ -41,6 +48,18 @@ public class SaSignConfig {
      */
     private Boolean isCheckNonce = true;
 
+    /**
+     * 本地 nonce 过滤器的容量：一个 nonce 保存周期内预计收到的 nonce 数量，0 代表不开启（默认不开启）
+     *
+     * <p> 开启后，本机已经见过的 nonce 会被一个本地布隆过滤器直接拒绝，重放洪水无需再访问持久层。</p>
+     */
+    private int nonceFilterSize = 0;
+
+    /**
+     * 本地 nonce 过滤器的误判率，即一个从未使用过的 nonce 被误拒的概率，默认百万分之一
+     */
+    private double nonceFilterFpp = 0.000001;
+
 
     /**
      * 获取 API 调用签名秘钥
@@ -62,6 +81,26 @@ public class SaSignConfig {
         return this;
     }
 
+    /**
+     * 获取 签名算法，可选值：md5、sha1、sha256、sha512、hmac-sha256，默认 md5
+     *
+     * @return /
+     */
+    public String getSignAlgo() {
+        return this.signAlgo;
+    }
+
+    /**
+     * 设置 签名算法，可选值：md5、sha1、sha256、sha512、hmac-sha256，默认 md5
+     *
+     * @param signAlgo /
+     * @return 对象自身
+     */
+    public SaSignConfig setSignAlgo(String signAlgo) {
+        this.signAlgo = signAlgo;
+        return this;
+    }
+
     /**
      * 获取 接口调用时的时间戳允许的差距（单位：ms），-1 代表不校验差距，默认15分钟
      *
@@ -108,6 +147,46 @@ public class SaSignConfig {
         return this;
     }
 
+    /**
+     * 获取 本地 nonce 过滤器的容量：一个 nonce 保存周期内预计收到的 nonce 数量，0 代表不开启（默认不开启）
+     *
+     * @return /
+     */
+    public int getNonceFilterSize() {
+        return this.nonceFilterSize;
+    }
+
+    /**
+     * 设置 本地 nonce 过滤器的容量：一个 nonce 保存周期内预计收到的 nonce 数量，0 代表不开启（默认不开启）
+     *
+     * @param nonceFilterSize /
+     * @return 对象自身
+     */
+    public SaSignConfig setNonceFilterSize(int nonceFilterSize) {
+        this.nonceFilterSize = nonceFilterSize;
+        return this;
+    }
+
+    /**
+     * 获取 本地 nonce 过滤器的误判率，即一个从未使用过的 nonce 被误拒的概率，默认百万分之一
+     *
+     * @return /
+     */
+    public double getNonceFilterFpp() {
+        return this.nonceFilterFpp;
+    }
+
+    /**
+     * 设置 本地 nonce 过滤器的误判率，即一个从未使用过的 nonce 被误拒的概率，默认百万分之一
+     *
+     * @param nonceFilterFpp /
+     * @return 对象自身
+     */
+    public SaSignConfig setNonceFilterFpp(double nonceFilterFpp) {
+        this.nonceFilterFpp = nonceFilterFpp;
+        return this;
+    }
+
     /**
      * 计算保存 nonce 时应该使用的 ttl，单位：秒
      * @return /
@@ -127,8 +206,11 @@ public class SaSignConfig {
     public String toString() {
         return "SaSignConfig ["
                 + "secretKey=" + secretKey
+                + ", signAlgo=" + signAlgo
                 + ", timestampDisparity=" + timestampDisparity
                 + ", isCheckNonce=" + isCheckNonce
+                + ", nonceFilterSize=" + nonceFilterSize
+                + ", nonceFilterFpp=" + nonceFilterFpp
                 + "]";
     }
 
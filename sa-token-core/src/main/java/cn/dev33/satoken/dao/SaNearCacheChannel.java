@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+
+/**
+ * 近端缓存失效广播通道
+ *
+ * <p>
+ *     当某个节点修改了一个 key 时，通过此通道通知其它节点清除本地缓存中的同名 key。
+ *     不同实现类可基于不同的消息中间件完成广播，如：进程内总线、Redis pub/sub 等等。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public interface SaNearCacheChannel {
+
+	/**
+	 * 广播一条失效消息
+	 *
+	 * @param message 消息内容
+	 */
+	void publish(String message);
+
+	/**
+	 * 订阅失效消息
+	 *
+	 * @param listener 收到消息时执行的函数
+	 */
+	void subscribe(SaParamFunction<String> listener);
+
+	/**
+	 * 取消订阅
+	 *
+	 * @param listener 订阅时传入的函数
+	 */
+	void unsubscribe(SaParamFunction<String> listener);
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 近端缓存失效广播通道，进程内实现（同步回调所有订阅者）
+ *
+ * <p> 多个 SaTokenDaoForNearCache 共用同一个此对象时，可在单个进程内模拟多节点部署，一般用于单元测试 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaNearCacheChannelForMemory implements SaNearCacheChannel {
+
+	/**
+	 * 所有订阅者
+	 */
+	public final List<SaParamFunction<String>> listenerList = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void publish(String message) {
+		for (SaParamFunction<String> listener : listenerList) {
+			listener.run(message);
+		}
+	}
+
+	@Override
+	public void subscribe(SaParamFunction<String> listener) {
+		listenerList.add(listener);
+	}
+
+	@Override
+	public void unsubscribe(SaParamFunction<String> listener) {
+		listenerList.remove(listener);
+	}
+
+}
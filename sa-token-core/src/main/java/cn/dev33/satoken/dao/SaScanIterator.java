@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于 {@link SaTokenDao#scanData(String, String, String, int)} 的惰性迭代器：用完一页才去加载下一页
+ *
+ * <p> 游标式遍历不保证顺序，遍历期间新增或删除的数据可能被返回、也可能不被返回，少数实现下同一条数据可能被返回多次 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaScanIterator implements Iterator<String> {
+
+	final SaTokenDao dao;
+	final String prefix;
+	final String keyword;
+	final int count;
+
+	/**
+	 * 当前页数据
+	 */
+	List<String> page;
+
+	/**
+	 * 当前页的读取位置
+	 */
+	int index;
+
+	/**
+	 * 下一页的游标，null 代表已没有下一页
+	 */
+	String cursor = SaScanResult.START_CURSOR;
+
+	public SaScanIterator(SaTokenDao dao, String prefix, String keyword, int count) {
+		this.dao = dao;
+		this.prefix = prefix;
+		this.keyword = keyword;
+		this.count = count;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (page == null || index >= page.size()) {
+			if(cursor == null) {
+				return false;
+			}
+			SaScanResult result = dao.scanData(prefix, keyword, cursor, count);
+			page = result.list;
+			index = 0;
+			cursor = result.cursor;
+		}
+		return true;
+	}
+
+	@Override
+	public String next() {
+		if( ! hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return page.get(index++);
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标式搜索的一页结果
+ *
+ * <p>
+ *     将 {@link #cursor} 原样传回 {@link SaTokenDao#scanData(String, String, String, int)} 即可获取下一页，
+ *     cursor 为 null 时代表已遍历完毕。
+ *     <br> 每页返回的数据量只是一个参考值，可能多于或少于请求的数量，甚至为空集合（此时 cursor 仍可能不为 null）。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaScanResult {
+
+	/**
+	 * 起始游标
+	 */
+	public static final String START_CURSOR = "0";
+
+	/**
+	 * 遍历全部数据时，每一批次的默认 COUNT 参数
+	 */
+	public static final int DEFAULT_COUNT = 1000;
+
+	/**
+	 * 本页数据
+	 */
+	public final List<String> list;
+
+	/**
+	 * 下一页的游标，null 代表已遍历完毕
+	 */
+	public final String cursor;
+
+	public SaScanResult(List<String> list, String cursor) {
+		this.list = list == null ? new ArrayList<>() : list;
+		this.cursor = isStartCursor(cursor) ? null : cursor;
+	}
+
+	/**
+	 * @return 本页数据
+	 */
+	public List<String> getList() {
+		return list;
+	}
+
+	/**
+	 * @return 下一页的游标，null 代表已遍历完毕
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * @return 是否已遍历完毕
+	 */
+	public boolean isFinished() {
+		return cursor == null;
+	}
+
+	/**
+	 * 判断一个游标是否代表从头开始遍历（null、空字符串、"0"）
+	 *
+	 * @param cursor 游标
+	 * @return /
+	 */
+	public static boolean isStartCursor(String cursor) {
+		return cursor == null || cursor.isEmpty() || START_CURSOR.equals(cursor);
+	}
+
+	/**
+	 * 将 Redis SCAN 命令的原始回复 [下一页游标, [key1, key2, ...]] 转换为 SaScanResult
+	 *
+	 * @param reply SCAN 命令的原始回复（元素已反序列化为字符串）
+	 * @return /
+	 */
+	public static SaScanResult ofReply(List<?> reply) {
+		if(reply == null || reply.size() < 2) {
+			return new SaScanResult(null, null);
+		}
+		List<String> list = new ArrayList<>();
+		for (Object key : (List<?>) reply.get(1)) {
+			list.add(String.valueOf(key));
+		}
+		return new SaScanResult(list, String.valueOf(reply.get(0)));
+	}
+
+	/**
+	 * 拼接 Redis 集群模式下的游标：&lt;分片槽位&gt;:&lt;此分片上 SCAN 命令返回的游标&gt;
+	 *
+	 * <p>
+	 *     集群中每个主节点的 SCAN 游标相互独立，因此需要同时记录当前遍历到的分片；分片以其负责的最小槽位标识，
+	 *     不依赖节点 id，主从切换后仍可定位到同一分片。一个分片遍历完毕后，从下一个分片的起始游标继续。
+	 * </p>
+	 *
+	 * @param slot 分片负责的最小槽位
+	 * @param nodeCursor 此分片上 SCAN 命令返回的游标
+	 * @return /
+	 */
+	public static String toClusterCursor(int slot, String nodeCursor) {
+		return slot + ":" + nodeCursor;
+	}
+
+	/**
+	 * 解析 {@link #toClusterCursor(int, String)} 生成的游标中的分片槽位
+	 *
+	 * @param cursor 游标（不能是起始游标）
+	 * @return 分片槽位
+	 */
+	public static int parseClusterSlot(String cursor) {
+		return Integer.parseInt(cursor.substring(0, checkClusterCursor(cursor)));
+	}
+
+	/**
+	 * 解析 {@link #toClusterCursor(int, String)} 生成的游标中，此分片上 SCAN 命令的游标
+	 *
+	 * @param cursor 游标（不能是起始游标）
+	 * @return SCAN 命令的游标
+	 */
+	public static String parseClusterNodeCursor(String cursor) {
+		return cursor.substring(checkClusterCursor(cursor) + 1);
+	}
+
+	/**
+	 * 校验集群游标的格式，返回分隔符的位置
+	 */
+	static int checkClusterCursor(String cursor) {
+		int index = cursor.indexOf(':');
+		if(index <= 0 || index > 5 || index == cursor.length() - 1 || ! isDigits(cursor, 0, index) || ! isDigits(cursor, index + 1, cursor.length())) {
+			throw new SaTokenException("无效的游标：" + cursor).setCode(SaErrorCode.CODE_12501);
+		}
+		return index;
+	}
+
+	static boolean isDigits(String str, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if( ! Character.isDigit(str.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 将以数据偏移量作为游标的字符串解析为偏移量
+	 *
+	 * @param cursor 游标
+	 * @return 已遍历过的数据数量
+	 */
+	public static long parseOffset(String cursor) {
+		if(isStartCursor(cursor)) {
+			return 0;
+		}
+		long offset;
+		try {
+			offset = Long.parseLong(cursor);
+		} catch (NumberFormatException e) {
+			throw new SaTokenException("无效的游标：" + cursor).setCode(SaErrorCode.CODE_12501);
+		}
+		if(offset < 0) {
+			throw new SaTokenException("无效的游标：" + cursor).setCode(SaErrorCode.CODE_12501);
+		}
+		return offset;
+	}
+
+	@Override
+	public String toString() {
+		return "SaScanResult [list=" + list + ", cursor=" + cursor + "]";
+	}
+
+}
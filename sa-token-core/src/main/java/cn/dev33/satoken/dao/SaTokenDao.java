@@ -15,9 +15,14 @@
  */
 package cn.dev33.satoken.dao;
 
+import cn.dev33.satoken.fun.SaFunction;
 import cn.dev33.satoken.session.SaSession;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Sa-Token 持久层接口
@@ -58,6 +63,27 @@ public interface SaTokenDao {
 	 */
 	void set(String key, String value, long timeout);
 
+	/**
+	 * 仅当 key 不存在时写入 value，并设定存活时间（单位: 秒）
+	 *
+	 * <p>
+	 *     默认实现为先 get 再 set，并发写入同一 key 时可能多个调用方同时成功；
+	 *     框架内置的内存实现与 Redis 实现均已重写为原子操作（Redis 中对应 SET NX EX 命令，一次网络往返）。
+	 * </p>
+	 *
+	 * @param key 键名称
+	 * @param value 值
+	 * @param timeout 数据有效期（值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储）
+	 * @return 是否写入成功（key 已存在或有效期无效时返回 false）
+	 */
+	default boolean setIfAbsent(String key, String value, long timeout) {
+		if(timeout == 0 || timeout <= NOT_VALUE_EXPIRE || get(key) != null) {
+			return false;
+		}
+		set(key, value, timeout);
+		return true;
+	}
+
 	/**
 	 * 更新 value （过期时间不变）
 	 * @param key 键名称 
@@ -70,6 +96,26 @@ public interface SaTokenDao {
 	 * @param key 键名称 
 	 */
 	void delete(String key);
+
+	/**
+	 * 仅当 key 当前的 value 与指定值相等时删除
+	 *
+	 * <p>
+	 *     默认实现为先 get 再 delete，两步之间 key 可能已被其它调用方改写，此时会误删对方写入的值；
+	 *     框架内置的内存实现与 Redis 实现均已重写为原子操作（Redis 中对应一段 get 比较后 del 的 Lua 脚本，一次网络往返）。
+	 * </p>
+	 *
+	 * @param key 键名称
+	 * @param value 期望的值
+	 * @return 是否删除成功（key 不存在或值不相等时返回 false）
+	 */
+	default boolean deleteIfEquals(String key, String value) {
+		if(value == null || ! value.equals(get(key))) {
+			return false;
+		}
+		delete(key);
+		return true;
+	}
 	
 	/**
 	 * 获取 value 的剩余存活时间（单位: 秒）
@@ -184,8 +230,171 @@ public interface SaTokenDao {
 	default void updateSessionTimeout(String sessionId, long timeout) {
 		updateObjectTimeout(sessionId, timeout);
 	}
+
+
+	// --------------------- SaSession 字段级读写 （默认整体读写 SaSession，以 Hash 结构存储 SaSession 的实现类应重写为只读写单个字段） ---------------------
+
+	/**
+	 * 获取 SaSession 上的一个挂载数据
+	 * @param sessionId sessionId
+	 * @param key 挂载数据的 key
+	 * @return 值，SaSession 或此 key 不存在时返回 null
+	 */
+	default Object getSessionField(String sessionId, String key) {
+		SaSession session = getSession(sessionId);
+		return session == null ? null : session.get(key);
+	}
+
+	/**
+	 * SaSession 写入了一个挂载数据后，同步到持久层
+	 * @param session SaSession（已经写入了此数据）
+	 * @param key 挂载数据的 key
+	 * @param value 值
+	 */
+	default void updateSessionField(SaSession session, String key, Object value) {
+		updateSession(session);
+	}
+
+	/**
+	 * SaSession 删除了一个挂载数据后，同步到持久层
+	 * @param session SaSession（已经删除了此数据）
+	 * @param key 挂载数据的 key
+	 */
+	default void deleteSessionField(SaSession session, String key) {
+		updateSession(session);
+	}
+
+	/**
+	 * SaSession 的 Token 签名列表发生变化后，同步到持久层
+	 * @param session SaSession
+	 */
+	default void updateSessionTokenSignList(SaSession session) {
+		updateSession(session);
+	}
 	
 	
+	// --------------------- 批量操作 （默认逐条执行，可连接远程存储的实现类应重写为一次网络往返） ---------------------
+
+	/**
+	 * 批量获取 value，返回集合与 keys 一一对应，不存在的 key 对应 null
+	 * @param keys 键名称集合
+	 * @return values
+	 */
+	default List<String> getMulti(List<String> keys) {
+		List<String> list = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			list.add(get(key));
+		}
+		return list;
+	}
+
+	/**
+	 * 批量获取 Object，返回集合与 keys 一一对应，不存在的 key 对应 null
+	 * @param keys 键名称集合
+	 * @return objects
+	 */
+	default List<Object> getObjectMulti(List<String> keys) {
+		List<Object> list = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			list.add(getObject(key));
+		}
+		return list;
+	}
+
+	/**
+	 * 批量写入 value，并设定相同的存活时间（单位: 秒）
+	 * @param map 键值对
+	 * @param timeout 存活时间（值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储）
+	 */
+	default void setMulti(Map<String, String> map, long timeout) {
+		List<SaTokenDaoOperation> operations = new ArrayList<>(map.size());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			operations.add(SaTokenDaoOperation.set(entry.getKey(), entry.getValue(), timeout));
+		}
+		batch(operations);
+	}
+
+	/**
+	 * 批量删除 value
+	 * @param keys 键名称集合
+	 */
+	default void deleteMulti(Collection<String> keys) {
+		List<SaTokenDaoOperation> operations = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			operations.add(SaTokenDaoOperation.delete(key));
+		}
+		batch(operations);
+	}
+
+	/**
+	 * 批量执行写操作（每条操作可指定各自的存活时间），默认按顺序逐条执行
+	 * @param operations 操作集合
+	 */
+	default void batch(List<SaTokenDaoOperation> operations) {
+		for (SaTokenDaoOperation operation : operations) {
+			operation.applyTo(this);
+		}
+	}
+
+	/**
+	 * 批量执行写操作，并保证这些操作作为一个整体生效（不会只执行其中一部分），默认与 batch 方法相同
+	 *
+	 * <p> 可连接远程存储的实现类应重写为事务或脚本，例如 Redis 的 MULTI/EXEC </p>
+	 *
+	 * @param operations 操作集合
+	 */
+	default void batchAtomic(List<SaTokenDaoOperation> operations) {
+		batch(operations);
+	}
+
+	/**
+	 * 批量写操作是否支持 {@link SaTokenDaoOperation.Type#SESSION_FIELD} 操作，默认 false
+	 *
+	 * <p> 以 Hash 结构存储 SaSession 的实现类应返回 true，使管道作用域内对 SaSession 单个字段的修改仍以字段级操作提交；
+	 * 返回 false 时，管道作用域将其合并为整体写入 SaSession </p>
+	 *
+	 * @return /
+	 */
+	default boolean supportSessionFieldOperation() {
+		return false;
+	}
+
+	/**
+	 * 在当前线程上开启一个管道作用域：作用域内的写操作先暂存起来，关闭作用域时通过 batch 方法一次性提交
+	 *
+	 * <p> 请配合 try-with-resources 使用，作用域可以嵌套，最外层关闭时才会提交 </p>
+	 * <pre>
+	 *     try (SaTokenDaoPipeline pipeline = SaManager.getSaTokenDao().openPipeline()) {
+	 *         ...
+	 *     }
+	 * </pre>
+	 *
+	 * @return 管道作用域
+	 */
+	default SaTokenDaoPipeline openPipeline() {
+		return SaTokenDaoPipeline.open(this);
+	}
+
+	/**
+	 * 在当前线程上开启一个原子管道作用域：关闭时通过 batchAtomic 方法提交，可调用 discard 放弃已暂存的写操作
+	 *
+	 * @return 管道作用域
+	 */
+	default SaTokenDaoPipeline openAtomicPipeline() {
+		return SaTokenDaoPipeline.openAtomic(this);
+	}
+
+	/**
+	 * 在管道作用域中执行一段代码，执行完毕后一次性提交其中所有写操作
+	 * @param fun 要执行的代码
+	 */
+	default void pipeline(SaFunction fun) {
+		try (SaTokenDaoPipeline pipeline = openPipeline()) {
+			fun.run();
+		}
+	}
+
+
 	// --------------------- 会话管理 ---------------------
 
 	/**
@@ -200,6 +409,41 @@ public interface SaTokenDao {
 	 */
 	List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType);
 
+	/**
+	 * 游标式搜索数据：每次只返回一页，将返回的 cursor 传回即可继续获取下一页
+	 *
+	 * <p>
+	 *     默认实现以数据偏移量作为游标，每页仍会调用一次 searchData；连接 Redis 的实现类应重写为 SCAN 命令，避免 KEYS 阻塞服务端。
+	 *     <br> 游标式搜索不保证顺序，每页的数据量也只是一个参考值。
+	 * </p>
+	 *
+	 * @param prefix 前缀
+	 * @param keyword 关键字
+	 * @param cursor 游标（null、空字符串或 "0" 代表从头开始）
+	 * @param count 每页期望获取的数量
+	 *
+	 * @return 本页数据与下一页的游标
+	 */
+	default SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		int start = SaScanResult.isStartCursor(cursor) ? 0 : Integer.parseInt(cursor);
+		List<String> list = searchData(prefix, keyword, start, count, true);
+		String next = (list == null || list.size() < count) ? null : String.valueOf(start + list.size());
+		return new SaScanResult(list, next);
+	}
+
+	/**
+	 * 惰性遍历所有符合条件的数据，每读完一页才通过 scanData 加载下一页
+	 *
+	 * @param prefix 前缀
+	 * @param keyword 关键字
+	 * @param count 每页期望获取的数量
+	 *
+	 * @return 迭代器
+	 */
+	default Iterator<String> scanIterator(String prefix, String keyword, int count) {
+		return new SaScanIterator(this, prefix, keyword, count);
+	}
+
 
 	// --------------------- 生命周期 ---------------------
 
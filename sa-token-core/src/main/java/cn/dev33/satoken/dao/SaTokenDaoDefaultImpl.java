@@ -17,10 +17,12 @@ package cn.dev33.satoken.dao;
 
 
 import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.util.SaFoxUtil;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -51,11 +53,21 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void set(String key, String value, long timeout) {
+		putKey(key, value, timeout);
+	}
+
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
 		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
-			return;
+			return false;
 		}
-		dataMap.put(key, value);
-		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+		clearKeyByTimeout(key);
+		// 先通过 putIfAbsent 抢占此 key，并发写入时只有一个线程可以抢占成功，之后再补齐过期时间
+		if(dataMap.putIfAbsent(key, value) != null) {
+			return false;
+		}
+		putKey(key, value, timeout);
+		return true;
 	}
 
 	@Override
@@ -68,8 +80,25 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void delete(String key) {
-		dataMap.remove(key);
-		expireMap.remove(key);
+		removeKey(key);
+	}
+
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		if(value == null) {
+			return false;
+		}
+		clearKeyByTimeout(key);
+		// 通过 ConcurrentHashMap 的 remove(key, value) 比较并删除，删除成功后再清理其过期时间（过期时间已被新写入的数据覆盖时不清理）
+		Long expire = expireMap.get(key);
+		if( ! dataMap.remove(key, value)) {
+			return false;
+		}
+		if(expire != null) {
+			expireMap.remove(key, expire);
+		}
+		onKeyRemoved(key);
+		return true;
 	}
 	
 	@Override
@@ -93,11 +122,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void setObject(String key, Object object, long timeout) {
-		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
-			return;
-		}
-		dataMap.put(key, object);
-		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+		putKey(key, object, timeout);
 	}
 
 	@Override
@@ -110,8 +135,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void deleteObject(String key) {
-		dataMap.remove(key);
-		expireMap.remove(key);
+		removeKey(key);
 	}
 
 	@Override
@@ -126,7 +150,55 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 	
 	
 	// ------------------------ Session 读写操作 
-	// 使用接口默认实现 
+	// 使用接口默认实现，字段级写入重写如下：
+
+	/**
+	 * 内存中存储的就是 SaSession 对象本身，其字段已经修改完毕，无需再次写入；
+	 * 传入的是一个副本时（例如经过近端缓存读出），只把这一个字段同步到存储的 SaSession 上
+	 */
+	@Override
+	public void updateSessionField(SaSession session, String key, Object value) {
+		SaSession stored = getDetachedSession(session);
+		if(stored != null) {
+			if(value == null) {
+				stored.getDataMap().remove(key);
+			} else {
+				stored.getDataMap().put(key, value);
+			}
+		}
+	}
+
+	@Override
+	public void deleteSessionField(SaSession session, String key) {
+		SaSession stored = getDetachedSession(session);
+		if(stored != null) {
+			stored.getDataMap().remove(key);
+		}
+	}
+
+	@Override
+	public void updateSessionTokenSignList(SaSession session) {
+		SaSession stored = getDetachedSession(session);
+		if(stored != null) {
+			stored.setTokenSignList(new Vector<>(session.getTokenSignList()));
+		}
+	}
+
+	/**
+	 * 获取与传入对象不是同一个实例的已存储 SaSession，用于把字段修改同步过去；
+	 * 存储的就是此对象、或者不存在时返回 null，存储的不是 SaSession 对象时整体更新后返回 null
+	 */
+	protected SaSession getDetachedSession(SaSession session) {
+		Object stored = getObject(session.getId());
+		if(stored == null || stored == session) {
+			return null;
+		}
+		if(stored instanceof SaSession) {
+			return (SaSession) stored;
+		}
+		updateSession(session);
+		return null;
+	}
 
 
 	// --------- 会话管理
@@ -139,6 +211,39 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	// ------------------------ 以下是一个定时缓存的简单实现，采用：惰性检查 + 异步循环扫描
 
+	// --------- 数据读写
+
+	/**
+	 * 写入数据，并设定存活时间（单位: 秒）
+	 * @param key 键名称
+	 * @param value 值
+	 * @param timeout 存活时间（值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储）
+	 */
+	protected void putKey(String key, Object value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		dataMap.put(key, value);
+		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+	}
+
+	/**
+	 * 移除数据（主动删除与过期清除都会经过此方法）
+	 * @param key 键名称
+	 */
+	protected void removeKey(String key) {
+		dataMap.remove(key);
+		expireMap.remove(key);
+		onKeyRemoved(key);
+	}
+
+	/**
+	 * 数据被移除后的回调（removeKey 与 deleteIfEquals 删除成功后都会触发），子类可重写此方法清理附加的索引数据
+	 * @param key 键名称
+	 */
+	protected void onKeyRemoved(String key) {
+	}
+
 	// --------- 过期时间相关操作
 
 	/**
@@ -152,8 +257,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 		// 		2、不是 [ 永不过期 ]。
 		// 		3、已经超过过期时间。
 		if(expirationTime != null && expirationTime != SaTokenDao.NEVER_EXPIRE && expirationTime < System.currentTimeMillis()) {
-			dataMap.remove(key);
-			expireMap.remove(key);
+			removeKey(key);
 		}
 	}
 
@@ -186,8 +290,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 		// 小于零时，视为不存在 
 		if(timeout < 0) {
-			dataMap.remove(key);
-			expireMap.remove(key);
+			removeKey(key);
 			return SaTokenDao.NOT_VALUE_EXPIRE;
 		}
 		return timeout;
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sa-Token 持久层接口，基于内存 Map 的另一种实现（系统重启后数据丢失）
+ *
+ * <p>
+ *     与 {@link SaTokenDaoDefaultImpl} 的区别：
+ *     <br> 1、值与到期时间存储在同一个 Entry 对象中，不再使用两个并行的 Map，到期时间以 long 基本类型保存，不产生装箱对象。
+ *     <br> 2、所有限时 Entry 额外按照到期时间排序存放在一个跳表中，定时清理时只需从表头弹出已过期的数据，
+ *          清理开销与过期 key 的数量成正比，而不是与存活 key 的总数成正比。
+ * </p>
+ *
+ * <p> 适合存储大量 token 的单机场景，使用方式：SaManager.setSaTokenDao(new SaTokenDaoForExpireQueue()); </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForExpireQueue implements SaTokenDao {
+
+	/**
+	 * 存储数据的集合
+	 */
+	public final Map<String, Entry> dataMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 所有限时数据，按照到期时间从早到晚排序（永不过期的数据不进入此集合）
+	 */
+	public final ConcurrentSkipListSet<Entry> expireQueue = new ConcurrentSkipListSet<>();
+
+	/**
+	 * 自增序号，用于区分到期时间相同的 Entry
+	 */
+	private final AtomicLong seq = new AtomicLong();
+
+	/**
+	 * 一条数据：值 + 到期时间
+	 */
+	public static class Entry implements Comparable<Entry> {
+
+		/** 键名称 */
+		public final String key;
+
+		/** 值 （Entry 创建后不再修改，update 时整体替换为一个到期时间相同的新 Entry） */
+		public final Object value;
+
+		/** 到期时间（13位时间戳，-1 代表永不过期） */
+		public final long expireTime;
+
+		/** 序号 */
+		final long seq;
+
+		Entry(String key, Object value, long expireTime, long seq) {
+			this.key = key;
+			this.value = value;
+			this.expireTime = expireTime;
+			this.seq = seq;
+		}
+
+		/**
+		 * @param now 当前时间戳
+		 * @return 在指定时间是否已经过期
+		 */
+		public boolean isExpired(long now) {
+			return expireTime != SaTokenDao.NEVER_EXPIRE && expireTime < now;
+		}
+
+		@Override
+		public int compareTo(Entry o) {
+			int c = Long.compare(expireTime, o.expireTime);
+			return c != 0 ? c : Long.compare(seq, o.seq);
+		}
+
+	}
+
+
+	// ------------------------ String 读写操作
+
+	@Override
+	public String get(String key) {
+		return (String) getValue(key);
+	}
+
+	@Override
+	public void set(String key, String value, long timeout) {
+		putValue(key, value, timeout);
+	}
+
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return false;
+		}
+		Entry entry = new Entry(key, value, toExpireTime(timeout), seq.incrementAndGet());
+		for (;;) {
+			Entry old = dataMap.putIfAbsent(key, entry);
+			if(old == null) {
+				break;
+			}
+			// 已有未过期的数据，写入失败；已过期的数据则视为不存在，替换之（替换失败说明被其它线程抢先，重新判断）
+			if( ! old.isExpired(System.currentTimeMillis())) {
+				return false;
+			}
+			if(dataMap.replace(key, old, entry)) {
+				expireQueue.remove(old);
+				break;
+			}
+		}
+		if(entry.expireTime != SaTokenDao.NEVER_EXPIRE) {
+			expireQueue.add(entry);
+		}
+		return true;
+	}
+
+	@Override
+	public void update(String key, String value) {
+		updateValue(key, value);
+	}
+
+	@Override
+	public void delete(String key) {
+		removeEntry(key);
+	}
+
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		if(value == null) {
+			return false;
+		}
+		for (;;) {
+			Entry entry = getEntry(key);
+			if(entry == null || ! value.equals(entry.value)) {
+				return false;
+			}
+			// 仅当当前值仍是这个 Entry 时删除（删除失败说明被其它线程改写，重新判断）
+			if(dataMap.remove(key, entry)) {
+				expireQueue.remove(entry);
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public long getTimeout(String key) {
+		return getKeyTimeout(key);
+	}
+
+	@Override
+	public void updateTimeout(String key, long timeout) {
+		updateKeyTimeout(key, timeout);
+	}
+
+
+	// ------------------------ Object 读写操作
+
+	@Override
+	public Object getObject(String key) {
+		return getValue(key);
+	}
+
+	@Override
+	public void setObject(String key, Object object, long timeout) {
+		putValue(key, object, timeout);
+	}
+
+	@Override
+	public void updateObject(String key, Object object) {
+		updateValue(key, object);
+	}
+
+	@Override
+	public void deleteObject(String key) {
+		removeEntry(key);
+	}
+
+	@Override
+	public long getObjectTimeout(String key) {
+		return getKeyTimeout(key);
+	}
+
+	@Override
+	public void updateObjectTimeout(String key, long timeout) {
+		updateKeyTimeout(key, timeout);
+	}
+
+
+	// ------------------------ Session 读写操作
+	// 使用接口默认实现，字段级写入重写如下：
+
+	/**
+	 * 与 {@link SaTokenDaoDefaultImpl} 相同：存储的就是 SaSession 对象本身时无需再次写入，传入的是副本时只同步这一个字段
+	 */
+	@Override
+	public void updateSessionField(SaSession session, String key, Object value) {
+		SaSession stored = getDetachedSession(session);
+		if(stored != null) {
+			if(value == null) {
+				stored.getDataMap().remove(key);
+			} else {
+				stored.getDataMap().put(key, value);
+			}
+		}
+	}
+
+	@Override
+	public void deleteSessionField(SaSession session, String key) {
+		SaSession stored = getDetachedSession(session);
+		if(stored != null) {
+			stored.getDataMap().remove(key);
+		}
+	}
+
+	@Override
+	public void updateSessionTokenSignList(SaSession session) {
+		SaSession stored = getDetachedSession(session);
+		if(stored != null) {
+			stored.setTokenSignList(new Vector<>(session.getTokenSignList()));
+		}
+	}
+
+	protected SaSession getDetachedSession(SaSession session) {
+		Object stored = getValue(session.getId());
+		if(stored == null || stored == session) {
+			return null;
+		}
+		if(stored instanceof SaSession) {
+			return (SaSession) stored;
+		}
+		updateSession(session);
+		return null;
+	}
+
+
+	// --------- 会话管理
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+		return SaFoxUtil.searchList(dataMap.keySet(), prefix, keyword, start, size, sortType);
+	}
+
+
+	// ------------------------ 内部读写
+
+	/**
+	 * 获取一个未过期的 Entry，如果已过期则立即清除并返回 null
+	 *
+	 * @param key 键名称
+	 * @return /
+	 */
+	protected Entry getEntry(String key) {
+		Entry entry = dataMap.get(key);
+		if(entry != null && entry.isExpired(System.currentTimeMillis())) {
+			removeEntry(key, entry);
+			return null;
+		}
+		return entry;
+	}
+
+	protected Object getValue(String key) {
+		Entry entry = getEntry(key);
+		return entry == null ? null : entry.value;
+	}
+
+	protected void putValue(String key, Object value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		putEntry(key, value, toExpireTime(timeout));
+	}
+
+	protected void updateValue(String key, Object value) {
+		for (;;) {
+			Entry old = getEntry(key);
+			if(old == null) {
+				return;
+			}
+			if(replaceEntry(key, old, new Entry(key, value, old.expireTime, seq.incrementAndGet()))) {
+				return;
+			}
+		}
+	}
+
+	protected void updateKeyTimeout(String key, long timeout) {
+		long expireTime = toExpireTime(timeout);
+		for (;;) {
+			Entry old = getEntry(key);
+			if(old == null) {
+				return;
+			}
+			if(replaceEntry(key, old, new Entry(key, old.value, expireTime, seq.incrementAndGet()))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 仅当 key 的当前值仍是 old 时，才替换为新的 Entry，并维护到期队列
+	 * <p> 替换失败说明期间有其它线程修改了这个 key，调用方应重新读取后再试，避免并发的 update 与 updateTimeout 互相覆盖 </p>
+	 *
+	 * @return 是否替换成功
+	 */
+	protected boolean replaceEntry(String key, Entry old, Entry entry) {
+		if(entry.expireTime != SaTokenDao.NEVER_EXPIRE) {
+			expireQueue.add(entry);
+		}
+		if(dataMap.replace(key, old, entry)) {
+			expireQueue.remove(old);
+			return true;
+		}
+		expireQueue.remove(entry);
+		return false;
+	}
+
+	/**
+	 * 写入一个新的 Entry，并维护到期队列
+	 */
+	protected void putEntry(String key, Object value, long expireTime) {
+		Entry entry = new Entry(key, value, expireTime, seq.incrementAndGet());
+		if(expireTime != SaTokenDao.NEVER_EXPIRE) {
+			expireQueue.add(entry);
+		}
+		Entry old = dataMap.put(key, entry);
+		if(old != null) {
+			expireQueue.remove(old);
+		}
+	}
+
+	/**
+	 * 删除指定 key
+	 */
+	protected void removeEntry(String key) {
+		Entry old = dataMap.remove(key);
+		if(old != null) {
+			expireQueue.remove(old);
+		}
+	}
+
+	/**
+	 * 删除指定 key（仅当其当前值仍是指定 Entry 时）
+	 */
+	protected void removeEntry(String key, Entry entry) {
+		dataMap.remove(key, entry);
+		expireQueue.remove(entry);
+	}
+
+	/**
+	 * 将剩余存活时间（单位：秒）换算为到期时间戳
+	 */
+	protected long toExpireTime(long timeout) {
+		return (timeout == SaTokenDao.NEVER_EXPIRE) ? SaTokenDao.NEVER_EXPIRE : (System.currentTimeMillis() + timeout * 1000);
+	}
+
+	/**
+	 * 获取指定 key 的剩余存活时间 （单位：秒）
+	 * @param key 指定 key
+	 * @return 这个 key 的剩余存活时间
+	 */
+	protected long getKeyTimeout(String key) {
+		Entry entry = getEntry(key);
+		if(entry == null) {
+			return SaTokenDao.NOT_VALUE_EXPIRE;
+		}
+		if(entry.expireTime == SaTokenDao.NEVER_EXPIRE) {
+			return SaTokenDao.NEVER_EXPIRE;
+		}
+		long timeout = (entry.expireTime - System.currentTimeMillis()) / 1000;
+		if(timeout < 0) {
+			removeEntry(key, entry);
+			return SaTokenDao.NOT_VALUE_EXPIRE;
+		}
+		return timeout;
+	}
+
+
+	// --------- 定时清理过期数据
+
+	/**
+	 * 执行数据清理的线程引用
+	 */
+	public Thread refreshThread;
+
+	/**
+	 * 是否继续执行数据清理的线程标记
+	 */
+	public volatile boolean refreshFlag;
+
+	/**
+	 * 清理所有已经过期的 key：从到期队列表头依次弹出，直到遇见第一个未过期的数据为止
+	 *
+	 * @return 本次清理的 key 数量
+	 */
+	public int refreshDataMap() {
+		long now = System.currentTimeMillis();
+		int count = 0;
+		Iterator<Entry> iterator = expireQueue.iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if( ! entry.isExpired(now)) {
+				break;
+			}
+			iterator.remove();
+			dataMap.remove(entry.key, entry);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * 初始化定时任务，定时清理过期数据
+	 */
+	public void initRefreshThread() {
+
+		// 如果开发者配置了 <=0 的值，则不启动定时清理
+		if(SaManager.getConfig().getDataRefreshPeriod() <= 0) {
+			return;
+		}
+
+		// 启动定时刷新
+		this.refreshFlag = true;
+		this.refreshThread = new Thread(() -> {
+			for (;;) {
+				try {
+					try {
+						// 如果已经被标记为结束
+						if( ! refreshFlag) {
+							return;
+						}
+						// 执行清理
+						refreshDataMap();
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+					// 休眠N秒
+					int dataRefreshPeriod = SaManager.getConfig().getDataRefreshPeriod();
+					if(dataRefreshPeriod <= 0) {
+						dataRefreshPeriod = 1;
+					}
+					Thread.sleep(dataRefreshPeriod * 1000L);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		this.refreshThread.start();
+	}
+
+	/**
+	 * 组件被安装时，开始刷新数据线程
+	 */
+	@Override
+	public void init() {
+		initRefreshThread();
+	}
+
+	/**
+	 * 组件被卸载时，结束定时任务，不再定时清理过期数据
+	 */
+	@Override
+	public void destroy() {
+		this.refreshFlag = false;
+	}
+
+}
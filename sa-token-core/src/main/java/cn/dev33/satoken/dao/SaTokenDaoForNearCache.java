@@ -0,0 +1,736 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionHashMapper;
+import cn.dev33.satoken.strategy.SaStrategy;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sa-Token 持久层装饰器：在任意 SaTokenDao 前面加一层有界、带过期时间的本地近端缓存（二级缓存）
+ *
+ * <p>
+ *     读操作优先命中本地缓存，未命中时再回源到被装饰的 SaTokenDao（一般为 Redis），写操作同时写穿到被装饰对象，
+ *     并通过 {@link SaNearCacheChannel} 广播失效消息，通知其它节点清除同名 key。
+ * </p>
+ *
+ * <p> 使用示例：</p>
+ * <pre>
+ *     SaNearCacheChannel channel = ...;  // 例如基于 Redis pub/sub 的实现
+ *     SaManager.setSaTokenDao(new SaTokenDaoForNearCache(redisDao, channel));
+ * </pre>
+ *
+ * <p>
+ *     注意：本地缓存中的数据最长可能滞后 localTimeout 毫秒（例如失效广播丢失时），
+ *     请根据业务对一致性的要求合理配置此值。本地存活时间不会超过该 key 在远端的剩余存活时间。
+ * </p>
+ *
+ * <p>
+ *     本地缓存的 SaSession 每次读取时都会返回一份副本，不同线程拿到的不是同一个对象，与直接读取远端存储时的行为一致。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForNearCache implements SaTokenDao {
+
+	/**
+	 * 被装饰的持久层对象（远端存储）
+	 */
+	public SaTokenDao target;
+
+	/**
+	 * 失效广播通道，为 null 时代表不进行跨节点失效通知（仅适用于单节点部署）
+	 */
+	public SaNearCacheChannel channel;
+
+	/**
+	 * 本地缓存最多存储的 key 数量
+	 */
+	public int maxSize = 10000;
+
+	/**
+	 * 本地缓存的存活时间（单位: 毫秒），同时也是跨节点数据不一致的最大时长
+	 */
+	public long localTimeout = 10000;
+
+	/**
+	 * 不进入本地缓存的 key 特征，key 中包含其中任意一段时，读写都直接透传到远端，也不广播失效消息。
+	 * <p> 默认排除 token 最后活跃时间，此值在开启自动续签时每次请求都会写入，缓存它只会带来频繁的失效广播 </p>
+	 */
+	public String[] excludeKeywords = { ":last-active:" };
+
+	/**
+	 * 当前节点的唯一标识，用于在收到广播消息时忽略自己发出的消息
+	 */
+	public final String nodeId = SaFoxUtil.getRandomString(16);
+
+	/**
+	 * 本地缓存数据
+	 */
+	public final Map<String, LocalEntry> localMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 失效序号，每次本地数据被修改或清除时自增，用于防止回源期间读到的旧值覆盖掉新值
+	 */
+	private final AtomicLong invalidateSeq = new AtomicLong();
+
+	/**
+	 * 是否正在执行淘汰
+	 */
+	private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+	/**
+	 * 统计指标：命中次数、未命中次数、淘汰次数、收到远端失效消息的次数
+	 */
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictCount = new LongAdder();
+	private final LongAdder invalidateCount = new LongAdder();
+
+	/**
+	 * 订阅广播时使用的回调函数
+	 */
+	private final SaParamFunction<String> channelListener = this::onMessage;
+
+	/**
+	 * 构建一个近端缓存装饰器（不进行跨节点失效通知）
+	 * @param target 被装饰的持久层对象
+	 */
+	public SaTokenDaoForNearCache(SaTokenDao target) {
+		this(target, null);
+	}
+
+	/**
+	 * 构建一个近端缓存装饰器
+	 * @param target 被装饰的持久层对象
+	 * @param channel 失效广播通道
+	 */
+	public SaTokenDaoForNearCache(SaTokenDao target, SaNearCacheChannel channel) {
+		this.target = target;
+		this.channel = channel;
+	}
+
+	/**
+	 * @param maxSize 本地缓存最多存储的 key 数量
+	 * @return 对象自身
+	 */
+	public SaTokenDaoForNearCache setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * @param localTimeout 本地缓存的存活时间（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaTokenDaoForNearCache setLocalTimeout(long localTimeout) {
+		this.localTimeout = localTimeout;
+		return this;
+	}
+
+	/**
+	 * @param excludeKeywords 不进入本地缓存的 key 特征
+	 * @return 对象自身
+	 */
+	public SaTokenDaoForNearCache setExcludeKeywords(String... excludeKeywords) {
+		this.excludeKeywords = excludeKeywords;
+		return this;
+	}
+
+
+	// ------------------------ String 读写操作
+
+	@Override
+	public String get(String key) {
+		Object value = readThrough(key, () -> target.get(key), () -> target.getTimeout(key));
+		return (String) value;
+	}
+
+	@Override
+	public void set(String key, String value, long timeout) {
+		target.set(key, value, timeout);
+		afterSet(key, value, timeout);
+	}
+
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
+		if( ! target.setIfAbsent(key, value, timeout)) {
+			return false;
+		}
+		afterSet(key, value, timeout);
+		return true;
+	}
+
+	@Override
+	public void update(String key, String value) {
+		target.update(key, value);
+		afterUpdate(key, value);
+	}
+
+	@Override
+	public void delete(String key) {
+		target.delete(key);
+		afterDelete(key);
+	}
+
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		if( ! target.deleteIfEquals(key, value)) {
+			return false;
+		}
+		afterDelete(key);
+		return true;
+	}
+
+	@Override
+	public long getTimeout(String key) {
+		return target.getTimeout(key);
+	}
+
+	@Override
+	public void updateTimeout(String key, long timeout) {
+		target.updateTimeout(key, timeout);
+		afterUpdateTimeout(key, timeout);
+	}
+
+
+	// ------------------------ Object 读写操作
+
+	@Override
+	public Object getObject(String key) {
+		return readThrough(key, () -> target.getObject(key), () -> target.getObjectTimeout(key));
+	}
+
+	@Override
+	public void setObject(String key, Object object, long timeout) {
+		target.setObject(key, object, timeout);
+		afterSet(key, object, timeout);
+	}
+
+	@Override
+	public void updateObject(String key, Object object) {
+		target.updateObject(key, object);
+		afterUpdate(key, object);
+	}
+
+	@Override
+	public void deleteObject(String key) {
+		target.deleteObject(key);
+		afterDelete(key);
+	}
+
+	@Override
+	public long getObjectTimeout(String key) {
+		return target.getObjectTimeout(key);
+	}
+
+	@Override
+	public void updateObjectTimeout(String key, long timeout) {
+		target.updateObjectTimeout(key, timeout);
+		afterUpdateTimeout(key, timeout);
+	}
+
+
+	// ------------------------ Session 读写操作（委托给被装饰对象，以保留其可能重写的 Session 存储逻辑）
+
+	@Override
+	public SaSession getSession(String sessionId) {
+		return (SaSession) readThrough(sessionId, () -> target.getSession(sessionId), () -> target.getSessionTimeout(sessionId));
+	}
+
+	@Override
+	public void setSession(SaSession session, long timeout) {
+		target.setSession(session, timeout);
+		afterSet(session.getId(), session, timeout);
+	}
+
+	@Override
+	public void updateSession(SaSession session) {
+		target.updateSession(session);
+		afterUpdate(session.getId(), session);
+	}
+
+	@Override
+	public void deleteSession(String sessionId) {
+		target.deleteSession(sessionId);
+		afterDelete(sessionId);
+	}
+
+	@Override
+	public void updateSessionField(SaSession session, String key, Object value) {
+		target.updateSessionField(session, key, value);
+		afterUpdate(session.getId(), session);
+	}
+
+	@Override
+	public void deleteSessionField(SaSession session, String key) {
+		target.deleteSessionField(session, key);
+		afterUpdate(session.getId(), session);
+	}
+
+	@Override
+	public void updateSessionTokenSignList(SaSession session) {
+		target.updateSessionTokenSignList(session);
+		afterUpdate(session.getId(), session);
+	}
+
+	@Override
+	public long getSessionTimeout(String sessionId) {
+		return target.getSessionTimeout(sessionId);
+	}
+
+	@Override
+	public void updateSessionTimeout(String sessionId, long timeout) {
+		target.updateSessionTimeout(sessionId, timeout);
+		afterUpdateTimeout(sessionId, timeout);
+	}
+
+
+	// ------------------------ 批量操作（委托给被装饰对象，保留其一次网络往返、原子提交等特性）
+
+	@Override
+	public List<String> getMulti(List<String> keys) {
+		List<Object> list = readMulti(keys, target::getMulti);
+		List<String> values = new ArrayList<>(list.size());
+		for (Object value : list) {
+			values.add((String) value);
+		}
+		return values;
+	}
+
+	@Override
+	public List<Object> getObjectMulti(List<String> keys) {
+		return readMulti(keys, target::getObjectMulti);
+	}
+
+	@Override
+	public void batch(List<SaTokenDaoOperation> operations) {
+		target.batch(operations);
+		afterBatch(operations);
+	}
+
+	@Override
+	public void batchAtomic(List<SaTokenDaoOperation> operations) {
+		target.batchAtomic(operations);
+		afterBatch(operations);
+	}
+
+	@Override
+	public boolean supportSessionFieldOperation() {
+		return target.supportSessionFieldOperation();
+	}
+
+
+	// ------------------------ 会话管理
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+		return target.searchData(prefix, keyword, start, size, sortType);
+	}
+
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		return target.scanData(prefix, keyword, cursor, count);
+	}
+
+
+	// ------------------------ 本地缓存操作
+
+	/**
+	 * 本地缓存的一条数据
+	 */
+	public static class LocalEntry {
+
+		/** 值 */
+		public final Object value;
+
+		/** 到期时间（13位时间戳） */
+		public final long expireTime;
+
+		public LocalEntry(Object value, long expireTime) {
+			this.value = value;
+			this.expireTime = expireTime;
+		}
+
+	}
+
+	/**
+	 * 读取数据：优先读本地缓存，未命中时回源并写入本地缓存
+	 *
+	 * @param key 键名称
+	 * @param loader 回源函数
+	 * @param timeoutLoader 回源查询此 key 在远端的剩余存活时间，本地存活时间不会超过此值
+	 * @return /
+	 */
+	protected Object readThrough(String key, Supplier<Object> loader, LongSupplier timeoutLoader) {
+		if(isExclude(key)) {
+			return loader.get();
+		}
+		LocalEntry entry = localMap.get(key);
+		if(entry != null) {
+			if(entry.expireTime >= System.currentTimeMillis()) {
+				hitCount.increment();
+				return copyValue(entry.value);
+			}
+			localMap.remove(key, entry);
+		}
+		missCount.increment();
+
+		// 记录回源前的失效序号，如果回源期间有任何 key 被修改，则放弃写入本地缓存，避免旧值覆盖新值
+		long seq = invalidateSeq.get();
+		Object value = loader.get();
+		if(value != null && seq == invalidateSeq.get()) {
+			long timeout = timeoutLoader.getAsLong();
+			if(timeout != SaTokenDao.NOT_VALUE_EXPIRE && seq == invalidateSeq.get()) {
+				putLocal(key, copyValue(value), timeout);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * 批量读取数据：本地缓存命中的直接返回，其余 key 通过一次批量回源读取（批量回源的结果不写入本地缓存）
+	 *
+	 * @param keys 键名称集合
+	 * @param loader 批量回源函数
+	 * @return 与 keys 一一对应的值
+	 */
+	protected <T> List<Object> readMulti(List<String> keys, Function<List<String>, List<T>> loader) {
+		long now = System.currentTimeMillis();
+		List<Object> values = new ArrayList<>(keys.size());
+		List<String> missKeys = new ArrayList<>();
+		List<Integer> missIndexes = new ArrayList<>();
+		for (String key : keys) {
+			LocalEntry entry = isExclude(key) ? null : localMap.get(key);
+			if(entry != null && entry.expireTime >= now) {
+				hitCount.increment();
+				values.add(copyValue(entry.value));
+			} else {
+				missCount.increment();
+				missIndexes.add(values.size());
+				missKeys.add(key);
+				values.add(null);
+			}
+		}
+		if( ! missKeys.isEmpty()) {
+			List<T> loaded = loader.apply(missKeys);
+			for (int i = 0; i < missIndexes.size(); i++) {
+				values.set(missIndexes.get(i), loaded.get(i));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * 远端批量写入后，清除本地缓存中受影响的 key，每个 key 只清除、广播一次
+	 *
+	 * @param operations 操作集合
+	 */
+	protected void afterBatch(List<SaTokenDaoOperation> operations) {
+		Set<String> keys = new LinkedHashSet<>();
+		for (SaTokenDaoOperation operation : operations) {
+			if( ! isExclude(operation.key)) {
+				keys.add(operation.key);
+			}
+		}
+		if(keys.isEmpty()) {
+			return;
+		}
+		invalidateSeq.incrementAndGet();
+		for (String key : keys) {
+			localMap.remove(key);
+		}
+		for (String key : keys) {
+			publish(key);
+		}
+	}
+
+	/**
+	 * 判断一个 key 是否不进入本地缓存
+	 *
+	 * @param key 键名称
+	 * @return /
+	 */
+	protected boolean isExclude(String key) {
+		if(excludeKeywords != null) {
+			for (String keyword : excludeKeywords) {
+				if(key.contains(keyword)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 复制可变的缓存值：SaSession 会被调用方直接修改，本地缓存中只保存副本，读取时也只返回副本
+	 *
+	 * @param value 值
+	 * @return 不可变的值原样返回，SaSession 返回一份副本
+	 */
+	protected Object copyValue(Object value) {
+		if(value instanceof SaSession) {
+			SaSession session = (SaSession) value;
+			SaSession copy = SaStrategy.instance.createSession.apply(session.getId());
+			return SaSessionHashMapper.fillSession(copy, SaSessionHashMapper.toFieldMap(session));
+		}
+		return value;
+	}
+
+	/**
+	 * 写入本地缓存
+	 *
+	 * @param key 键名称
+	 * @param value 值
+	 * @param timeout 这个 key 在远端的存活时间（单位: 秒），本地存活时间不会超过此值
+	 */
+	protected void putLocal(String key, Object value, long timeout) {
+		long ttl = localTimeout;
+		if(timeout > 0) {
+			ttl = Math.min(ttl, timeout * 1000);
+		}
+		if(localMap.size() >= maxSize) {
+			evict();
+		}
+		localMap.put(key, new LocalEntry(value, System.currentTimeMillis() + ttl));
+	}
+
+	/**
+	 * 清除本地缓存中的指定 key
+	 *
+	 * @param key 键名称
+	 */
+	protected void removeLocal(String key) {
+		invalidateSeq.incrementAndGet();
+		localMap.remove(key);
+	}
+
+	/**
+	 * 本地缓存数量超过上限时，先清除已过期的数据，仍然超过时再清除部分数据，直至降到上限的 3/4
+	 */
+	protected void evict() {
+		if( ! evicting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			long now = System.currentTimeMillis();
+			localMap.entrySet().removeIf(e -> {
+				if(e.getValue().expireTime < now) {
+					evictCount.increment();
+					return true;
+				}
+				return false;
+			});
+			int threshold = maxSize / 4 * 3;
+			Iterator<String> iterator = localMap.keySet().iterator();
+			while (localMap.size() > threshold && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+				evictCount.increment();
+			}
+		} finally {
+			evicting.set(false);
+		}
+	}
+
+	/**
+	 * 远端写入后，同步本地缓存并广播
+	 */
+	protected void afterSet(String key, Object value, long timeout) {
+		// 与 SaTokenDao 约定保持一致：timeout=0 或小于 -2 时不存储
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE || isExclude(key))  {
+			return;
+		}
+		invalidateSeq.incrementAndGet();
+		putLocal(key, copyValue(value), timeout);
+		publish(key);
+	}
+
+	/**
+	 * 远端修改后，同步本地缓存并广播（本地存在时才替换值，过期时间不变）
+	 */
+	protected void afterUpdate(String key, Object value) {
+		if(isExclude(key)) {
+			return;
+		}
+		invalidateSeq.incrementAndGet();
+		LocalEntry entry = localMap.get(key);
+		if(entry != null) {
+			localMap.replace(key, entry, new LocalEntry(copyValue(value), entry.expireTime));
+		}
+		publish(key);
+	}
+
+	/**
+	 * 远端删除后，同步本地缓存并广播
+	 */
+	protected void afterDelete(String key) {
+		if(isExclude(key)) {
+			return;
+		}
+		removeLocal(key);
+		publish(key);
+	}
+
+	/**
+	 * 远端修改存活时间后，同步本地缓存并广播（本地存活时间不会超过远端存活时间）
+	 */
+	protected void afterUpdateTimeout(String key, long timeout) {
+		if(isExclude(key)) {
+			return;
+		}
+		LocalEntry entry = localMap.get(key);
+		if(entry != null && timeout != SaTokenDao.NEVER_EXPIRE) {
+			long expireTime = System.currentTimeMillis() + timeout * 1000;
+			if(expireTime < entry.expireTime) {
+				localMap.replace(key, entry, new LocalEntry(entry.value, expireTime));
+			}
+		}
+		publish(key);
+	}
+
+	/**
+	 * 广播失效消息，格式为：nodeId@key
+	 *
+	 * @param key 键名称
+	 */
+	protected void publish(String key) {
+		if(channel != null) {
+			channel.publish(nodeId + "@" + key);
+		}
+	}
+
+	/**
+	 * 收到广播消息时触发
+	 *
+	 * @param message 消息内容
+	 */
+	protected void onMessage(String message) {
+		int index = message.indexOf('@');
+		if(index == -1) {
+			return;
+		}
+		// 忽略自己发出的消息
+		if(message.startsWith(nodeId) && index == nodeId.length()) {
+			return;
+		}
+		removeLocal(message.substring(index + 1));
+		invalidateCount.increment();
+	}
+
+
+	// ------------------------ 统计指标
+
+	/**
+	 * @return 本地缓存命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * @return 本地缓存未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * @return 本地缓存命中率（0 ~ 1，尚无读取记录时返回 0）
+	 */
+	public double getHitRate() {
+		long hit = getHitCount();
+		long total = hit + getMissCount();
+		return total == 0 ? 0 : (double) hit / total;
+	}
+
+	/**
+	 * @return 因容量或过期被淘汰的数据数量
+	 */
+	public long getEvictCount() {
+		return evictCount.sum();
+	}
+
+	/**
+	 * @return 收到其它节点失效消息的次数
+	 */
+	public long getInvalidateCount() {
+		return invalidateCount.sum();
+	}
+
+	/**
+	 * @return 本地缓存当前存储的 key 数量
+	 */
+	public int getLocalSize() {
+		return localMap.size();
+	}
+
+	/**
+	 * 重置所有统计指标
+	 */
+	public void resetStats() {
+		hitCount.reset();
+		missCount.reset();
+		evictCount.reset();
+		invalidateCount.reset();
+	}
+
+	/**
+	 * 清空本地缓存（不影响远端数据）
+	 */
+	public void clearLocal() {
+		invalidateSeq.incrementAndGet();
+		localMap.clear();
+	}
+
+
+	// ------------------------ 生命周期
+
+	@Override
+	public void init() {
+		target.init();
+		if(channel != null) {
+			channel.subscribe(channelListener);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if(channel != null) {
+			channel.unsubscribe(channelListener);
+		}
+		target.destroy();
+		clearLocal();
+	}
+
+}
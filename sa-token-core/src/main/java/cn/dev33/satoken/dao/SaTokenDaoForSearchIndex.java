@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sa-Token 持久层接口，基于内存 Map 的实现，额外为搜索前缀维护有序索引（系统重启后数据丢失）
+ *
+ * <p>
+ *     {@link SaTokenDaoDefaultImpl} 的 searchData 每次都要遍历全部 key，并对结果集整体反转来实现倒序。此实现类：
+ *     <br> 1、为每个被搜索过的前缀（如 splicingKeyTokenValue("")、splicingKeySession("")）建立一个跳表索引，按 key 的写入顺序排列。
+ *     <br> 2、索引建立后随写入、删除、过期清除同步维护，搜索时只遍历对应前缀下的 key，正序、倒序都无需排序或反转。
+ *     <br> 3、游标式搜索 scanData 以写入序号作为游标，翻页时直接定位到上一页末尾，开销为 O(log n + 每页数量)。
+ * </p>
+ *
+ * <p> 使用方式：SaManager.setSaTokenDao(new SaTokenDaoForSearchIndex()); </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForSearchIndex extends SaTokenDaoDefaultImpl {
+
+	/**
+	 * 所有索引，key 为前缀，value 为此前缀下的所有 key（按写入序号排序）
+	 */
+	public final Map<String, ConcurrentSkipListMap<Long, String>> indexMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 被索引覆盖的 key 的写入序号，同一个 key 被覆盖写入时保持原序号（不属于任何索引前缀的 key 不分配序号）
+	 */
+	public final Map<String, Long> sequenceMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 是否在第一次搜索某个前缀时自动为其建立索引（关闭后，只有通过 addIndex 注册的前缀才会走索引）
+	 */
+	public boolean autoIndex = true;
+
+	/**
+	 * 写入序号生成器
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+
+	// ------------------------ 索引维护
+
+	/**
+	 * 为指定前缀建立索引，已建立时不做任何处理
+	 *
+	 * @param prefix 前缀
+	 * @return 对象自身
+	 */
+	public SaTokenDaoForSearchIndex addIndex(String prefix) {
+		getIndex(prefix, true);
+		return this;
+	}
+
+	/**
+	 * 移除指定前缀的索引
+	 *
+	 * @param prefix 前缀
+	 * @return 对象自身
+	 */
+	public SaTokenDaoForSearchIndex removeIndex(String prefix) {
+		indexMap.remove(prefix);
+		return this;
+	}
+
+	/**
+	 * 获取指定前缀的索引
+	 *
+	 * @param prefix 前缀
+	 * @param create 不存在时是否建立
+	 * @return 索引，不存在且不建立时返回 null
+	 */
+	protected ConcurrentSkipListMap<Long, String> getIndex(String prefix, boolean create) {
+		ConcurrentSkipListMap<Long, String> index = indexMap.get(prefix);
+		if(index != null || ! create) {
+			return index;
+		}
+		// 先注册空索引，之后的写入会同步进入此索引；再补齐注册之前已存在的 key（重复放入同一序号不影响结果）
+		ConcurrentSkipListMap<Long, String> newIndex = new ConcurrentSkipListMap<>();
+		index = indexMap.putIfAbsent(prefix, newIndex);
+		if(index != null) {
+			return index;
+		}
+		for (String key : dataMap.keySet()) {
+			if(key.startsWith(prefix)) {
+				newIndex.put(getSequence(key), key);
+			}
+		}
+		return newIndex;
+	}
+
+	/**
+	 * 获取 key 的写入序号，没有时分配一个新的
+	 */
+	protected Long getSequence(String key) {
+		return sequenceMap.computeIfAbsent(key, k -> sequence.incrementAndGet());
+	}
+
+	@Override
+	protected void putKey(String key, Object value, long timeout) {
+		super.putKey(key, value, timeout);
+		if(indexMap.isEmpty() || ! dataMap.containsKey(key)) {
+			return;
+		}
+		Long seq = null;
+		for (Map.Entry<String, ConcurrentSkipListMap<Long, String>> entry : indexMap.entrySet()) {
+			if(key.startsWith(entry.getKey())) {
+				if(seq == null) {
+					seq = getSequence(key);
+				}
+				entry.getValue().put(seq, key);
+			}
+		}
+	}
+
+	@Override
+	protected void onKeyRemoved(String key) {
+		Long seq = sequenceMap.remove(key);
+		if(seq == null) {
+			return;
+		}
+		for (ConcurrentSkipListMap<Long, String> index : indexMap.values()) {
+			index.remove(seq);
+		}
+	}
+
+	/**
+	 * 判断索引中的一条记录是否仍然有效，无效时顺便将其从索引中移除
+	 */
+	protected boolean isAlive(ConcurrentSkipListMap<Long, String> index, Long seq, String key) {
+		clearKeyByTimeout(key);
+		if(dataMap.containsKey(key)) {
+			return true;
+		}
+		index.remove(seq, key);
+		return false;
+	}
+
+
+	// ------------------------ 会话管理
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+		ConcurrentSkipListMap<Long, String> index = getIndex(prefix == null ? "" : prefix, autoIndex);
+		if(index == null) {
+			return super.searchData(prefix, keyword, start, size, sortType);
+		}
+		if(keyword == null) {
+			keyword = "";
+		}
+		NavigableMap<Long, String> view = sortType ? index : index.descendingMap();
+		int skip = Math.max(start, 0);
+		List<String> list = new ArrayList<>();
+		for (Map.Entry<Long, String> entry : view.entrySet()) {
+			if(size != -1 && list.size() >= size) {
+				break;
+			}
+			String key = entry.getValue();
+			if( ! key.contains(keyword) || ! isAlive(index, entry.getKey(), key)) {
+				continue;
+			}
+			if(skip > 0) {
+				skip--;
+				continue;
+			}
+			list.add(key);
+		}
+		return list;
+	}
+
+	/**
+	 * 游标式搜索数据：游标为上一页最后一条数据的写入序号
+	 */
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		ConcurrentSkipListMap<Long, String> index = getIndex(prefix == null ? "" : prefix, autoIndex);
+		if(index == null) {
+			return super.scanData(prefix, keyword, cursor, count);
+		}
+		if(keyword == null) {
+			keyword = "";
+		}
+		// 写入序号从 1 开始，起始游标解析为 0 即从头遍历；无效游标抛出 CODE_12501 异常
+		NavigableMap<Long, String> view = index.tailMap(SaScanResult.parseOffset(cursor), false);
+		List<String> list = new ArrayList<>();
+		Long last = null;
+		for (Map.Entry<Long, String> entry : view.entrySet()) {
+			if(last != null && list.size() >= count) {
+				return new SaScanResult(list, String.valueOf(last));
+			}
+			String key = entry.getValue();
+			if(key.contains(keyword) && isAlive(index, entry.getKey(), key)) {
+				list.add(key);
+				last = entry.getKey();
+			}
+		}
+		return new SaScanResult(list, null);
+	}
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.secure.SaBase64Util;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.codec.SaSessionBinaryCodec;
+import cn.dev33.satoken.session.codec.SaSessionCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sa-Token 持久层装饰器：使用指定的 {@link SaSessionCodec} 存储 SaSession，其它数据原样委托给被装饰对象
+ *
+ * <p>
+ *     SaSession 编码后以 Base64 字符串的形式，通过被装饰对象的字符串读写方法存储，因此可以装饰任意一个 SaTokenDao
+ *     （内存实现、各个 Redis 实现均可），并且与管道作用域、近端缓存装饰器、批量写操作组合使用。
+ * </p>
+ *
+ * <p> 使用示例：</p>
+ * <pre>
+ *     SaManager.setSaTokenDao(new SaTokenDaoForSessionCodec(redisDao));
+ * </pre>
+ *
+ * <p>
+ *     兼容性：读取到非此编码格式的数据（例如切换之前以原序列化方式存储的 SaSession）时，回退到被装饰对象的 getSession 方法读取，
+ *     这些旧数据在下一次写入时会自动转换为新格式。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForSessionCodec implements SaTokenDao {
+
+	/**
+	 * 被装饰的持久层对象
+	 */
+	public SaTokenDao target;
+
+	/**
+	 * SaSession 编解码器
+	 */
+	public SaSessionCodec codec;
+
+	/**
+	 * 构建一个装饰器，使用默认的二进制编解码器
+	 * @param target 被装饰的持久层对象
+	 */
+	public SaTokenDaoForSessionCodec(SaTokenDao target) {
+		this(target, new SaSessionBinaryCodec());
+	}
+
+	/**
+	 * 构建一个装饰器
+	 * @param target 被装饰的持久层对象
+	 * @param codec SaSession 编解码器
+	 */
+	public SaTokenDaoForSessionCodec(SaTokenDao target, SaSessionCodec codec) {
+		this.target = target;
+		this.codec = codec;
+	}
+
+
+	// ------------------------ String 读写操作
+
+	@Override
+	public String get(String key) {
+		return target.get(key);
+	}
+
+	@Override
+	public void set(String key, String value, long timeout) {
+		target.set(key, value, timeout);
+	}
+
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
+		return target.setIfAbsent(key, value, timeout);
+	}
+
+	@Override
+	public void update(String key, String value) {
+		target.update(key, value);
+	}
+
+	@Override
+	public void delete(String key) {
+		target.delete(key);
+	}
+
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		return target.deleteIfEquals(key, value);
+	}
+
+	@Override
+	public long getTimeout(String key) {
+		return target.getTimeout(key);
+	}
+
+	@Override
+	public void updateTimeout(String key, long timeout) {
+		target.updateTimeout(key, timeout);
+	}
+
+
+	// ------------------------ Object 读写操作（值为 SaSession 时同样转换为编码后的字符串，例如管道作用域提交时）
+
+	@Override
+	public Object getObject(String key) {
+		return target.getObject(key);
+	}
+
+	@Override
+	public void setObject(String key, Object object, long timeout) {
+		if(object instanceof SaSession) {
+			target.set(key, encode((SaSession) object), timeout);
+			return;
+		}
+		target.setObject(key, object, timeout);
+	}
+
+	@Override
+	public void updateObject(String key, Object object) {
+		if(object instanceof SaSession) {
+			target.update(key, encode((SaSession) object));
+			return;
+		}
+		target.updateObject(key, object);
+	}
+
+	@Override
+	public void deleteObject(String key) {
+		target.deleteObject(key);
+	}
+
+	@Override
+	public long getObjectTimeout(String key) {
+		return target.getObjectTimeout(key);
+	}
+
+	@Override
+	public void updateObjectTimeout(String key, long timeout) {
+		target.updateObjectTimeout(key, timeout);
+	}
+
+
+	// ------------------------ Session 读写操作
+
+	@Override
+	public SaSession getSession(String sessionId) {
+		String value;
+		try {
+			value = target.get(sessionId);
+		} catch (ClassCastException e) {
+			// 内存实现中以对象形式存储的旧数据
+			return target.getSession(sessionId);
+		}
+		if(value == null) {
+			return null;
+		}
+		byte[] bytes = decodeBase64(value);
+		if(bytes == null || ! codec.isEncoded(bytes)) {
+			return target.getSession(sessionId);
+		}
+		return codec.decode(bytes);
+	}
+
+	@Override
+	public void setSession(SaSession session, long timeout) {
+		target.set(session.getId(), encode(session), timeout);
+	}
+
+	@Override
+	public void updateSession(SaSession session) {
+		target.update(session.getId(), encode(session));
+	}
+
+	@Override
+	public void deleteSession(String sessionId) {
+		target.delete(sessionId);
+	}
+
+	@Override
+	public long getSessionTimeout(String sessionId) {
+		return target.getTimeout(sessionId);
+	}
+
+	@Override
+	public void updateSessionTimeout(String sessionId, long timeout) {
+		target.updateTimeout(sessionId, timeout);
+	}
+
+
+	// ------------------------ 批量操作
+
+	@Override
+	public List<String> getMulti(List<String> keys) {
+		return target.getMulti(keys);
+	}
+
+	@Override
+	public List<Object> getObjectMulti(List<String> keys) {
+		return target.getObjectMulti(keys);
+	}
+
+	/**
+	 * 将其中写入 SaSession 的操作转换为写入字符串，再一次性交给被装饰对象执行
+	 */
+	@Override
+	public void batch(List<SaTokenDaoOperation> operations) {
+		target.batch(encodeOperations(operations));
+	}
+
+	@Override
+	public void batchAtomic(List<SaTokenDaoOperation> operations) {
+		target.batchAtomic(encodeOperations(operations));
+	}
+
+	/**
+	 * 将写入 SaSession 的操作转换为写入编码后的字符串，其它操作保持不变
+	 * @param operations 操作集合
+	 * @return /
+	 */
+	protected List<SaTokenDaoOperation> encodeOperations(List<SaTokenDaoOperation> operations) {
+		List<SaTokenDaoOperation> list = new ArrayList<>(operations.size());
+		for (SaTokenDaoOperation op : operations) {
+			if(op.type == SaTokenDaoOperation.Type.SET && op.value instanceof SaSession) {
+				list.add(SaTokenDaoOperation.set(op.key, encode((SaSession) op.value), op.timeout));
+			} else if(op.type == SaTokenDaoOperation.Type.UPDATE && op.value instanceof SaSession) {
+				list.add(SaTokenDaoOperation.update(op.key, encode((SaSession) op.value)));
+			} else {
+				list.add(op);
+			}
+		}
+		return list;
+	}
+
+
+	// ------------------------ 会话管理
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+		return target.searchData(prefix, keyword, start, size, sortType);
+	}
+
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		return target.scanData(prefix, keyword, cursor, count);
+	}
+
+
+	// ------------------------ 编解码
+
+	/**
+	 * 编码 SaSession 为字符串
+	 * @param session /
+	 * @return /
+	 */
+	public String encode(SaSession session) {
+		return SaBase64Util.encodeBytesToString(codec.encode(session));
+	}
+
+	/**
+	 * Base64 解码，格式不正确时返回 null
+	 */
+	protected byte[] decodeBase64(String value) {
+		try {
+			return SaBase64Util.decodeStringToBytes(value);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+
+	// ------------------------ 生命周期
+
+	@Override
+	public void init() {
+		target.init();
+	}
+
+	@Override
+	public void destroy() {
+		target.destroy();
+	}
+
+}
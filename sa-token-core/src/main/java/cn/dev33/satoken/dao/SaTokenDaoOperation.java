@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionHashMapper;
+
+import java.util.Map;
+
+/**
+ * 持久层批量写操作中的一条操作：写入、修改值（保持剩余存活时间）、删除、修改剩余存活时间、修改 SaSession 的部分字段
+ *
+ * <p> 由 {@link SaTokenDao#batch(java.util.List)} 批量执行，每条操作可以拥有各自不同的存活时间 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoOperation {
+
+	/**
+	 * 操作类型
+	 */
+	public enum Type {
+
+		/** 写入值，并设定存活时间 */
+		SET,
+
+		/** 修改值，剩余存活时间不变，key 不存在时不做任何处理 */
+		UPDATE,
+
+		/** 删除值 */
+		DELETE,
+
+		/** 修改剩余存活时间 */
+		EXPIRE,
+
+		/**
+		 * 修改 SaSession 的部分字段（以 Hash 结构存储 SaSession 时对应 HSET、HDEL 命令），
+		 * 仅当持久层的 supportSessionFieldOperation() 返回 true 时，才会由管道作用域产生
+		 */
+		SESSION_FIELD
+
+	}
+
+	/**
+	 * 操作类型
+	 */
+	public final Type type;
+
+	/**
+	 * 是否为 Object 数据（false 代表字符串数据，不同的持久层实现可能对二者采用不同的序列化方式）
+	 */
+	public final boolean object;
+
+	/**
+	 * 键名称
+	 */
+	public final String key;
+
+	/**
+	 * 值（SET、UPDATE 操作有效；SESSION_FIELD 操作时为字段所属的 SaSession）
+	 */
+	public final Object value;
+
+	/**
+	 * 存活时间（单位: 秒，SET 与 EXPIRE 操作有效）
+	 */
+	public final long timeout;
+
+	/**
+	 * 要修改的字段，field -> value，value 为 null 代表删除此 field（仅 SESSION_FIELD 操作有效，field 名称见 {@link SaSessionHashMapper}）
+	 */
+	public final Map<String, Object> fieldMap;
+
+	public SaTokenDaoOperation(Type type, boolean object, String key, Object value, long timeout) {
+		this(type, object, key, value, timeout, null);
+	}
+
+	public SaTokenDaoOperation(Type type, boolean object, String key, Object value, long timeout, Map<String, Object> fieldMap) {
+		this.type = type;
+		this.object = object;
+		this.key = key;
+		this.value = value;
+		this.timeout = timeout;
+		this.fieldMap = fieldMap;
+	}
+
+	/**
+	 * 写入 value，并设定存活时间（单位: 秒）
+	 * @param key 键名称
+	 * @param value 值
+	 * @param timeout 存活时间
+	 * @return /
+	 */
+	public static SaTokenDaoOperation set(String key, String value, long timeout) {
+		return new SaTokenDaoOperation(Type.SET, false, key, value, timeout);
+	}
+
+	/**
+	 * 修改 value，剩余存活时间不变
+	 * @param key 键名称
+	 * @param value 值
+	 * @return /
+	 */
+	public static SaTokenDaoOperation update(String key, String value) {
+		return new SaTokenDaoOperation(Type.UPDATE, false, key, value, 0);
+	}
+
+	/**
+	 * 删除 value
+	 * @param key 键名称
+	 * @return /
+	 */
+	public static SaTokenDaoOperation delete(String key) {
+		return new SaTokenDaoOperation(Type.DELETE, false, key, null, 0);
+	}
+
+	/**
+	 * 修改 value 的剩余存活时间（单位: 秒）
+	 * @param key 键名称
+	 * @param timeout 存活时间
+	 * @return /
+	 */
+	public static SaTokenDaoOperation updateTimeout(String key, long timeout) {
+		return new SaTokenDaoOperation(Type.EXPIRE, false, key, null, timeout);
+	}
+
+	/**
+	 * 写入 Object，并设定存活时间（单位: 秒）
+	 * @param key 键名称
+	 * @param object 值
+	 * @param timeout 存活时间
+	 * @return /
+	 */
+	public static SaTokenDaoOperation setObject(String key, Object object, long timeout) {
+		return new SaTokenDaoOperation(Type.SET, true, key, object, timeout);
+	}
+
+	/**
+	 * 修改 Object，剩余存活时间不变
+	 * @param key 键名称
+	 * @param object 值
+	 * @return /
+	 */
+	public static SaTokenDaoOperation updateObject(String key, Object object) {
+		return new SaTokenDaoOperation(Type.UPDATE, true, key, object, 0);
+	}
+
+	/**
+	 * 删除 Object
+	 * @param key 键名称
+	 * @return /
+	 */
+	public static SaTokenDaoOperation deleteObject(String key) {
+		return new SaTokenDaoOperation(Type.DELETE, true, key, null, 0);
+	}
+
+	/**
+	 * 修改 Object 的剩余存活时间（单位: 秒）
+	 * @param key 键名称
+	 * @param timeout 存活时间
+	 * @return /
+	 */
+	public static SaTokenDaoOperation updateObjectTimeout(String key, long timeout) {
+		return new SaTokenDaoOperation(Type.EXPIRE, true, key, null, timeout);
+	}
+
+	/**
+	 * 修改 SaSession 的部分字段
+	 * @param session SaSession（已经写入了这些字段）
+	 * @param fieldMap 要修改的字段，field -> value，value 为 null 代表删除此 field
+	 * @return /
+	 */
+	public static SaTokenDaoOperation sessionField(SaSession session, Map<String, Object> fieldMap) {
+		return new SaTokenDaoOperation(Type.SESSION_FIELD, true, session.getId(), session, 0, fieldMap);
+	}
+
+	/**
+	 * 在指定持久层上逐条执行此操作（批量写操作的默认实现）
+	 *
+	 * @param dao 持久层
+	 */
+	public void applyTo(SaTokenDao dao) {
+		switch (type) {
+			case SET:
+				if(object) {
+					dao.setObject(key, value, timeout);
+				} else {
+					dao.set(key, (String) value, timeout);
+				}
+				break;
+			case UPDATE:
+				if(object) {
+					dao.updateObject(key, value);
+				} else {
+					dao.update(key, (String) value);
+				}
+				break;
+			case DELETE:
+				if(object) {
+					dao.deleteObject(key);
+				} else {
+					dao.delete(key);
+				}
+				break;
+			case EXPIRE:
+				if(object) {
+					dao.updateObjectTimeout(key, timeout);
+				} else {
+					dao.updateTimeout(key, timeout);
+				}
+				break;
+			case SESSION_FIELD:
+				SaSession session = (SaSession) value;
+				for (Map.Entry<String, Object> entry : fieldMap.entrySet()) {
+					String field = entry.getKey();
+					if(field.equals(SaSessionHashMapper.FIELD_TOKEN_SIGN_LIST)) {
+						dao.updateSessionTokenSignList(session);
+					} else if(entry.getValue() == null) {
+						dao.deleteSessionField(session, field.substring(SaSessionHashMapper.DATA_PREFIX.length()));
+					} else {
+						dao.updateSessionField(session, field.substring(SaSessionHashMapper.DATA_PREFIX.length()), entry.getValue());
+					}
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * @return 此 SET 操作的存活时间是否有效（值=0或小于-2时不存储）
+	 */
+	public boolean isValidTimeout() {
+		return ! (timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE);
+	}
+
+	@Override
+	public String toString() {
+		return "SaTokenDaoOperation [type=" + type + ", object=" + object + ", key=" + key + ", timeout=" + timeout
+				+ (fieldMap == null ? "" : ", fields=" + fieldMap.keySet()) + "]";
+	}
+
+}
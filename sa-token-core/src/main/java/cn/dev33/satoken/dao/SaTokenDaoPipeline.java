@@ -0,0 +1,556 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionHashMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 持久层管道作用域：暂存作用域内的所有写操作，关闭时通过 {@link SaTokenDao#batch(List)} 一次性提交
+ *
+ * <p>
+ *     1、作用域与当前线程绑定，作用域内通过 SaManager.getSaTokenDao() 获取到的即是此对象，因此 SaSession 等组件的写操作也会被暂存。
+ *     <br> 2、作用域内的读操作优先读取暂存的数据，保证读到自己写入的值；暂存中没有的数据才去底层持久层读取。
+ *     <br> 3、同一个 key 只保留最后一次写操作，例如多次 update 同一个 SaSession 最终只提交一次。
+ *     <br> 4、作用域内抛出异常时，close 仍然会提交已暂存的写操作，与不开启管道时的行为保持一致；需要放弃时，由调用方在异常分支中调用 discard()。
+ *     <br> 5、通过 afterCommit 注册的回调在最外层作用域提交成功后执行，适合用来发布依赖于写入结果的事件。
+ *     <br> 6、searchData、scanData 不感知暂存数据，直接查询底层持久层。
+ *     <br> 7、底层持久层支持 SESSION_FIELD 操作时（例如以 Hash 结构存储 SaSession），对 SaSession 单个字段的修改按字段暂存，
+ *     同一个 SaSession 的多个字段合并为一条操作提交；否则合并为整体写入 SaSession。
+ *     <br> 8、update、updateObject 暂存为 UPDATE 操作，提交时由底层持久层原子地修改值并保持剩余存活时间（例如 Redis 的 PTTL + SET PX 脚本），
+ *     暂存时不读取剩余存活时间，也不会覆盖提交之前其它线程对存活时间的修改。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoPipeline implements SaTokenDao, AutoCloseable {
+
+	/**
+	 * 当前线程上正在生效的管道作用域
+	 */
+	static final ThreadLocal<SaTokenDaoPipeline> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * 底层持久层
+	 */
+	public final SaTokenDao target;
+
+	/**
+	 * 开启此作用域之前，当前线程上正在生效的管道作用域（用于关闭时还原）
+	 */
+	final SaTokenDaoPipeline previous;
+
+	/**
+	 * 嵌套层数
+	 */
+	int depth = 1;
+
+	/**
+	 * 是否以原子方式提交（通过 batchAtomic 方法提交）
+	 */
+	boolean atomic;
+
+	/**
+	 * 暂存的写操作，key 为键名称
+	 */
+	final Map<String, SaTokenDaoOperation> pendingMap = new LinkedHashMap<>();
+
+	/**
+	 * 最外层作用域提交成功后执行的回调
+	 */
+	final List<Runnable> afterCommitList = new ArrayList<>();
+
+	SaTokenDaoPipeline(SaTokenDao target, SaTokenDaoPipeline previous) {
+		this.target = target;
+		this.previous = previous;
+	}
+
+	/**
+	 * 在当前线程上开启一个管道作用域，如果当前线程已经在同一个持久层的作用域中，则加入该作用域
+	 *
+	 * @param dao 底层持久层
+	 * @return /
+	 */
+	public static SaTokenDaoPipeline open(SaTokenDao dao) {
+		if(dao instanceof SaTokenDaoPipeline) {
+			dao = ((SaTokenDaoPipeline) dao).target;
+		}
+		SaTokenDaoPipeline current = CURRENT.get();
+		if(current != null && current.target == dao) {
+			current.depth++;
+			return current;
+		}
+		SaTokenDaoPipeline pipeline = new SaTokenDaoPipeline(dao, current);
+		CURRENT.set(pipeline);
+		return pipeline;
+	}
+
+	/**
+	 * 在当前线程上开启一个原子管道作用域（关闭时通过 batchAtomic 方法提交），如果当前线程已经在同一个持久层的作用域中，
+	 * 则加入该作用域，并将其升级为原子提交
+	 *
+	 * @param dao 底层持久层
+	 * @return /
+	 */
+	public static SaTokenDaoPipeline openAtomic(SaTokenDao dao) {
+		SaTokenDaoPipeline pipeline = open(dao);
+		pipeline.atomic = true;
+		return pipeline;
+	}
+
+	/**
+	 * 获取当前线程上正在生效的管道作用域，没有则返回 null
+	 *
+	 * @return /
+	 */
+	public static SaTokenDaoPipeline current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * 立即提交所有暂存的写操作
+	 */
+	public void flush() {
+		if(pendingMap.isEmpty()) {
+			return;
+		}
+		List<SaTokenDaoOperation> operations = new ArrayList<>(pendingMap.values());
+		pendingMap.clear();
+		if(atomic) {
+			target.batchAtomic(operations);
+		} else {
+			target.batch(operations);
+		}
+	}
+
+	/**
+	 * 放弃所有暂存的写操作（嵌套作用域中调用时，外层作用域暂存的写操作同样被放弃）
+	 */
+	public void discard() {
+		pendingMap.clear();
+		afterCommitList.clear();
+	}
+
+	/**
+	 * 注册一个回调，在最外层作用域关闭、暂存的写操作提交成功后执行（调用 discard 时一并放弃）
+	 *
+	 * @param callback 回调
+	 */
+	public void afterCommit(Runnable callback) {
+		afterCommitList.add(callback);
+	}
+
+	/**
+	 * 关闭作用域：最外层关闭时，还原当前线程的作用域，提交所有暂存的写操作，然后执行 afterCommit 回调
+	 */
+	@Override
+	public void close() {
+		if(--depth > 0) {
+			return;
+		}
+		if(previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+		flush();
+		List<Runnable> callbackList = new ArrayList<>(afterCommitList);
+		afterCommitList.clear();
+		for (Runnable callback : callbackList) {
+			callback.run();
+		}
+	}
+
+	/**
+	 * @return 暂存的写操作数量
+	 */
+	public int getPendingSize() {
+		return pendingMap.size();
+	}
+
+
+	// ------------------------ 暂存读写
+
+	/**
+	 * 记录一条写操作，覆盖此 key 之前的写操作
+	 */
+	protected void record(SaTokenDaoOperation operation) {
+		pendingMap.remove(operation.key);
+		pendingMap.put(operation.key, operation);
+	}
+
+	/**
+	 * 读取值：暂存中有 SET 操作时返回其值，有 DELETE 操作时返回 null，否则回源读取（暂存中有 UPDATE 操作时，底层持久层存在此 key 才返回暂存的值）
+	 */
+	protected Object getValue(String key, boolean object) {
+		SaTokenDaoOperation op = pendingMap.get(key);
+		if(op != null && op.type == SaTokenDaoOperation.Type.SET) {
+			return op.value;
+		}
+		if(op != null && op.type == SaTokenDaoOperation.Type.DELETE) {
+			return null;
+		}
+		// 暂存中有字段级修改时，其记录的 SaSession 即是修改后的数据
+		if(op != null && op.type == SaTokenDaoOperation.Type.SESSION_FIELD) {
+			return op.value;
+		}
+		Object value = object ? target.getObject(key) : target.get(key);
+		if(op != null && op.type == SaTokenDaoOperation.Type.UPDATE && value != null) {
+			return op.value;
+		}
+		return value;
+	}
+
+	protected void setValue(String key, Object value, long timeout, boolean object) {
+		SaTokenDaoOperation op = new SaTokenDaoOperation(SaTokenDaoOperation.Type.SET, object, key, value, timeout);
+		if( ! op.isValidTimeout()) {
+			return;
+		}
+		record(op);
+	}
+
+	/**
+	 * 修改值：暂存中没有此 key 的写操作（或只有 UPDATE、SESSION_FIELD 操作）时暂存为 UPDATE 操作；
+	 * 已有 SET、DELETE、EXPIRE 操作时，按其记录的存活时间合并为一次 SET
+	 */
+	protected void updateValue(String key, Object value, boolean object) {
+		SaTokenDaoOperation op = pendingMap.get(key);
+		if(op == null || op.type == SaTokenDaoOperation.Type.UPDATE || op.type == SaTokenDaoOperation.Type.SESSION_FIELD) {
+			record(new SaTokenDaoOperation(SaTokenDaoOperation.Type.UPDATE, object, key, value, 0));
+			return;
+		}
+		long timeout = getKeyTimeout(key, object);
+		// -2 = 无此键
+		if(timeout == SaTokenDao.NOT_VALUE_EXPIRE) {
+			return;
+		}
+		setValue(key, value, timeout, object);
+	}
+
+	protected void deleteValue(String key, boolean object) {
+		record(new SaTokenDaoOperation(SaTokenDaoOperation.Type.DELETE, object, key, null, 0));
+	}
+
+	/**
+	 * 读取剩余存活时间：暂存中的 SET、EXPIRE 操作以其记录的存活时间为准
+	 */
+	protected long getKeyTimeout(String key, boolean object) {
+		SaTokenDaoOperation op = pendingMap.get(key);
+		if(op != null) {
+			switch (op.type) {
+				case SET:
+					return op.timeout;
+				case DELETE:
+					return SaTokenDao.NOT_VALUE_EXPIRE;
+				case EXPIRE:
+					long timeout = object ? target.getObjectTimeout(key) : target.getTimeout(key);
+					return timeout == SaTokenDao.NOT_VALUE_EXPIRE ? timeout : op.timeout;
+				default:
+					break;
+			}
+		}
+		return object ? target.getObjectTimeout(key) : target.getTimeout(key);
+	}
+
+	protected void updateKeyTimeout(String key, long timeout, boolean object) {
+		SaTokenDaoOperation op = pendingMap.get(key);
+		if(op != null && op.type == SaTokenDaoOperation.Type.DELETE) {
+			return;
+		}
+		// 暂存的 UPDATE 只在 key 存在时生效，key 不存在时 EXPIRE 同样不生效，无需暂存
+		if(op != null && op.type == SaTokenDaoOperation.Type.UPDATE) {
+			long current = object ? target.getObjectTimeout(key) : target.getTimeout(key);
+			if(current == SaTokenDao.NOT_VALUE_EXPIRE) {
+				return;
+			}
+		}
+		// 暂存中已有值时，直接将其与新的存活时间合并为一次 SET（字段级修改、UPDATE 同样合并为整体写入，避免被 EXPIRE 覆盖而丢失）
+		if(op != null && op.type != SaTokenDaoOperation.Type.EXPIRE) {
+			record(new SaTokenDaoOperation(SaTokenDaoOperation.Type.SET, op.object, key, op.value, timeout));
+			return;
+		}
+		record(new SaTokenDaoOperation(SaTokenDaoOperation.Type.EXPIRE, object, key, null, timeout));
+	}
+
+
+	// ------------------------ String 读写操作
+
+	@Override
+	public String get(String key) {
+		return (String) getValue(key, false);
+	}
+
+	@Override
+	public void set(String key, String value, long timeout) {
+		setValue(key, value, timeout, false);
+	}
+
+	/**
+	 * 需要立即得到结果，不做暂存，直接在底层持久层上原子执行：
+	 * 暂存中已有此 key 的 SET 操作时直接返回 false；暂存中有此 key 的 DELETE 操作时，先单独提交这个 DELETE，再执行 setIfAbsent，
+	 * 避免在暂存中判断“不存在”后，与其它节点同时写入成功
+	 */
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
+		SaTokenDaoOperation op = pendingMap.get(key);
+		if(op != null && op.type == SaTokenDaoOperation.Type.SET) {
+			return false;
+		}
+		if(op != null && op.type == SaTokenDaoOperation.Type.DELETE) {
+			pendingMap.remove(key);
+			op.applyTo(target);
+		}
+		if( ! target.setIfAbsent(key, value, timeout)) {
+			return false;
+		}
+		// 暂存的 EXPIRE 操作针对的是写入之前的旧数据，不应再作用于刚写入的新数据
+		pendingMap.remove(key);
+		return true;
+	}
+
+	@Override
+	public void update(String key, String value) {
+		updateValue(key, value, false);
+	}
+
+	@Override
+	public void delete(String key) {
+		deleteValue(key, false);
+	}
+
+	/**
+	 * 暂存中已有此 key 的 SET 操作时，按暂存中的值比较，相等则将其改为 DELETE；暂存中有此 key 的 DELETE 操作时直接返回 false；
+	 * 暂存中有 UPDATE 操作时，按暂存中的值比较，且底层持久层存在此 key 才改为 DELETE；其它情况直接在底层持久层上原子执行
+	 */
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		SaTokenDaoOperation op = pendingMap.get(key);
+		if(op != null && op.type == SaTokenDaoOperation.Type.DELETE) {
+			return false;
+		}
+		if(op != null && op.type == SaTokenDaoOperation.Type.SET) {
+			if(value == null || ! value.equals(op.value)) {
+				return false;
+			}
+			deleteValue(key, false);
+			return true;
+		}
+		if(op != null && op.type == SaTokenDaoOperation.Type.UPDATE) {
+			if(value == null || ! value.equals(op.value) || target.get(key) == null) {
+				return false;
+			}
+			deleteValue(key, false);
+			return true;
+		}
+		if( ! target.deleteIfEquals(key, value)) {
+			return false;
+		}
+		// 数据已被删除，暂存的 EXPIRE 操作不再需要
+		pendingMap.remove(key);
+		return true;
+	}
+
+	@Override
+	public long getTimeout(String key) {
+		return getKeyTimeout(key, false);
+	}
+
+	@Override
+	public void updateTimeout(String key, long timeout) {
+		updateKeyTimeout(key, timeout, false);
+	}
+
+
+	// ------------------------ Object 读写操作
+
+	@Override
+	public Object getObject(String key) {
+		return getValue(key, true);
+	}
+
+	@Override
+	public void setObject(String key, Object object, long timeout) {
+		setValue(key, object, timeout, true);
+	}
+
+	@Override
+	public void updateObject(String key, Object object) {
+		updateValue(key, object, true);
+	}
+
+	@Override
+	public void deleteObject(String key) {
+		deleteValue(key, true);
+	}
+
+	@Override
+	public long getObjectTimeout(String key) {
+		return getKeyTimeout(key, true);
+	}
+
+	@Override
+	public void updateObjectTimeout(String key, long timeout) {
+		updateKeyTimeout(key, timeout, true);
+	}
+
+
+	// ------------------------ Session 读写操作
+
+	/**
+	 * 暂存中没有此 Session 时交由底层持久层读取（部分实现类重写了 Session 的反序列化方式）
+	 */
+	@Override
+	public SaSession getSession(String sessionId) {
+		SaTokenDaoOperation op = pendingMap.get(sessionId);
+		if(op != null && (op.type == SaTokenDaoOperation.Type.SET || op.type == SaTokenDaoOperation.Type.SESSION_FIELD)) {
+			return (SaSession) op.value;
+		}
+		if(op != null && op.type == SaTokenDaoOperation.Type.DELETE) {
+			return null;
+		}
+		SaSession session = target.getSession(sessionId);
+		if(op != null && op.type == SaTokenDaoOperation.Type.UPDATE && session != null) {
+			return (SaSession) op.value;
+		}
+		return session;
+	}
+
+	@Override
+	public long getSessionTimeout(String sessionId) {
+		SaTokenDaoOperation op = pendingMap.get(sessionId);
+		if(op == null) {
+			return target.getSessionTimeout(sessionId);
+		}
+		return getKeyTimeout(sessionId, true);
+	}
+
+	@Override
+	public void updateSessionField(SaSession session, String key, Object value) {
+		recordSessionField(session, SaSessionHashMapper.dataField(key), value);
+	}
+
+	@Override
+	public void deleteSessionField(SaSession session, String key) {
+		recordSessionField(session, SaSessionHashMapper.dataField(key), null);
+	}
+
+	@Override
+	public void updateSessionTokenSignList(SaSession session) {
+		recordSessionField(session, SaSessionHashMapper.FIELD_TOKEN_SIGN_LIST, SaSessionHashMapper.tokenSignListValue(session));
+	}
+
+	@Override
+	public boolean supportSessionFieldOperation() {
+		return target.supportSessionFieldOperation();
+	}
+
+	/**
+	 * 记录 SaSession 的一个字段修改：与此 SaSession 已暂存的字段级修改合并；暂存中已有整体写入（或 EXPIRE）时合并为整体写入；
+	 * 已暂存删除时不再处理（与不开启管道时修改一个不存在的 SaSession 行为一致）
+	 *
+	 * @param session SaSession（已经写入了此字段）
+	 * @param field field 名称
+	 * @param value 值，null 代表删除此 field
+	 */
+	protected void recordSessionField(SaSession session, String field, Object value) {
+		if( ! target.supportSessionFieldOperation()) {
+			updateSession(session);
+			return;
+		}
+		SaTokenDaoOperation op = pendingMap.get(session.getId());
+		if(op != null && op.type == SaTokenDaoOperation.Type.DELETE) {
+			return;
+		}
+		if(op != null && op.type != SaTokenDaoOperation.Type.SESSION_FIELD) {
+			updateSession(session);
+			return;
+		}
+		Map<String, Object> fieldMap = new LinkedHashMap<>();
+		if(op != null) {
+			fieldMap.putAll(op.fieldMap);
+		}
+		fieldMap.put(field, value);
+		record(SaTokenDaoOperation.sessionField(session, fieldMap));
+	}
+
+
+	// ------------------------ 批量操作
+
+	@Override
+	public List<String> getMulti(List<String> keys) {
+		List<String> list = new ArrayList<>(target.getMulti(keys));
+		for (int i = 0; i < keys.size(); i++) {
+			SaTokenDaoOperation op = pendingMap.get(keys.get(i));
+			if(op != null && (op.type == SaTokenDaoOperation.Type.SET || op.type == SaTokenDaoOperation.Type.DELETE)) {
+				list.set(i, (String) op.value);
+			}
+			if(op != null && op.type == SaTokenDaoOperation.Type.UPDATE && list.get(i) != null) {
+				list.set(i, (String) op.value);
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public List<Object> getObjectMulti(List<String> keys) {
+		List<Object> list = new ArrayList<>(target.getObjectMulti(keys));
+		for (int i = 0; i < keys.size(); i++) {
+			SaTokenDaoOperation op = pendingMap.get(keys.get(i));
+			if(op == null || op.type == SaTokenDaoOperation.Type.EXPIRE) {
+				continue;
+			}
+			if(op.type != SaTokenDaoOperation.Type.UPDATE || list.get(i) != null) {
+				list.set(i, op.value);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * 作用域内的批量写操作同样只做暂存
+	 */
+	@Override
+	public void batch(List<SaTokenDaoOperation> operations) {
+		for (SaTokenDaoOperation operation : operations) {
+			operation.applyTo(this);
+		}
+	}
+
+	@Override
+	public void batchAtomic(List<SaTokenDaoOperation> operations) {
+		batch(operations);
+	}
+
+
+	// ------------------------ 会话管理
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+		return target.searchData(prefix, keyword, start, size, sortType);
+	}
+
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		return target.scanData(prefix, keyword, cursor, count);
+	}
+
+}
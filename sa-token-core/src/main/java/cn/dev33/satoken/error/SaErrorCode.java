@@ -37,6 +37,9 @@ public interface SaErrorCode {
 	/** JSON 转换器未实现 */
 	int CODE_10003 = 10003;
 
+	/** 从输入流中读取 JSON 数据失败 */
+	int CODE_10004 = 10004;
+
 	/** 未能从全局 StpLogic 集合中找到对应 type 的 StpLogic */
 	int CODE_10011 = 10011;
 
@@ -118,6 +121,9 @@ public interface SaErrorCode {
 
 	/** 二级认证校验未通过 */
 	int CODE_11071 = 11071;
+
+	/** 等待账号会话锁超时 */
+	int CODE_11081 = 11081;
 	
 
 	// ------------ 
@@ -189,4 +195,31 @@ public interface SaErrorCode {
 	/** timestamp 超出允许的范围 */
 	int CODE_12203 = 12203;
 
+	/** 不支持的签名算法 */
+	int CODE_12204 = 12204;
+
+	// ------------ 
+
+	/** Http 请求失败 */
+	int CODE_12301 = 12301;
+
+	/** Http 请求返回了非 2xx 状态码 */
+	int CODE_12302 = 12302;
+
+	// ------------ 
+
+	/** SaSession 编码失败（存在不支持的值类型） */
+	int CODE_12401 = 12401;
+
+	/** SaSession 解码失败（数据格式错误或版本不受支持） */
+	int CODE_12402 = 12402;
+
+	// ------------ 
+
+	/** 游标式搜索时提供的游标无效 */
+	int CODE_12501 = 12501;
+
+	/** 游标式搜索时每页数量必须大于 0 */
+	int CODE_12502 = 12502;
+
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.http;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import cn.dev33.satoken.SaManager;
+
+/**
+ * Http 请求处理器，供 SSO、OAuth2 等模块调用远程接口
+ *
+ * <p>
+ *     默认实现 {@link SaHttpTemplateDefaultImpl} 基于 JDK 自带的 HttpURLConnection，复用 keep-alive 长连接；
+ *     如需使用 OkHttp、Apache HttpClient 等客户端，实现此接口并通过 SaManager.setSaHttpTemplate 注入即可。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public interface SaHttpTemplate {
+
+	/**
+	 * 发送 GET 请求，返回响应体
+	 *
+	 * @param url 请求地址
+	 * @return 响应体
+	 */
+	String get(String url);
+
+	/**
+	 * 发送 GET 请求，并将响应体解析为 Map（默认先读取为字符串再解析，实现类可重写为边读取边解析）
+	 *
+	 * @param url 请求地址
+	 * @return /
+	 */
+	default Map<String, Object> getForMap(String url) {
+		return SaManager.getSaJsonTemplate().parseJsonToMap(get(url));
+	}
+
+	/**
+	 * 异步发送 GET 请求
+	 *
+	 * @param url 请求地址
+	 * @return 响应体
+	 */
+	default CompletableFuture<String> getAsync(String url) {
+		return CompletableFuture.supplyAsync(() -> get(url));
+	}
+
+	/**
+	 * 异步发送 GET 请求，并将响应体解析为 Map
+	 *
+	 * @param url 请求地址
+	 * @return /
+	 */
+	default CompletableFuture<Map<String, Object>> getForMapAsync(String url) {
+		return CompletableFuture.supplyAsync(() -> getForMap(url));
+	}
+
+}
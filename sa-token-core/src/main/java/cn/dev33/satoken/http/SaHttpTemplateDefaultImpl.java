@@ -0,0 +1,283 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+
+/**
+ * Http 请求处理器，默认实现类（基于 HttpURLConnection）
+ *
+ * <p>
+ *     1、JDK 会在响应体被完整读取并关闭后，将底层连接放回 keep-alive 连接池，同一主机的后续请求直接复用，省去 TCP、TLS 握手；
+ *        因此这里无论成功失败都会读完响应体（包括错误流），并且不调用 disconnect()。
+ *        每个主机保留的空闲连接数由 JDK 系统属性 http.maxConnections 控制（默认 5）。
+ *     <br> 2、getForMap 直接把响应流交给 SaJsonTemplate 解析，支持流式解析的 JSON 转换器不需要先把响应体拼成字符串。
+ *     <br> 3、异步方法在固定大小的守护线程池中执行，等待队列有界，队列已满时返回的 CompletableFuture 直接以异常结束（CODE_12301）。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaHttpTemplateDefaultImpl implements SaHttpTemplate {
+
+	/**
+	 * 连接超时时间（单位: 毫秒）
+	 */
+	public int connectTimeout = 3000;
+
+	/**
+	 * 读取超时时间（单位: 毫秒）
+	 */
+	public int readTimeout = 10000;
+
+	/**
+	 * 异步请求的线程数
+	 */
+	public int asyncThreads = 8;
+
+	/**
+	 * 异步请求等待队列的容量
+	 */
+	public int asyncQueueSize = 1024;
+
+	/**
+	 * 执行异步请求的线程池，第一次使用时创建
+	 */
+	private volatile ExecutorService executor;
+
+	@Override
+	public String get(String url) {
+		return execute(url, in -> readString(in, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public Map<String, Object> getForMap(String url) {
+		return execute(url, in -> SaManager.getSaJsonTemplate().parseJsonToMap(in, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public CompletableFuture<String> getAsync(String url) {
+		return supplyAsync(url, () -> get(url));
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Object>> getForMapAsync(String url) {
+		return supplyAsync(url, () -> getForMap(url));
+	}
+
+	/**
+	 * 在异步线程池中执行请求，等待队列已满时返回以异常结束的 CompletableFuture
+	 */
+	protected <T> CompletableFuture<T> supplyAsync(String url, Supplier<T> supplier) {
+		try {
+			return CompletableFuture.supplyAsync(supplier, getExecutor());
+		} catch (RejectedExecutionException e) {
+			CompletableFuture<T> future = new CompletableFuture<>();
+			future.completeExceptionally(new SaTokenException("Http 异步请求队列已满：" + url, e).setCode(SaErrorCode.CODE_12301));
+			return future;
+		}
+	}
+
+	/**
+	 * 发送 GET 请求，并用指定函数处理响应流
+	 *
+	 * @param url 请求地址
+	 * @param handler 响应流处理函数
+	 * @param <T> 返回值类型
+	 * @return /
+	 */
+	public <T> T execute(String url, Function<InputStream, T> handler) {
+		HttpURLConnection conn = null;
+		try {
+			conn = (HttpURLConnection) new URL(url).openConnection();
+			conn.setRequestMethod("GET");
+			conn.setConnectTimeout(connectTimeout);
+			conn.setReadTimeout(readTimeout);
+			conn.setUseCaches(false);
+			conn.setRequestProperty("Accept", "application/json, text/plain, */*");
+			int status = conn.getResponseCode();
+			if(status < 200 || status >= 300) {
+				String body = readError(conn);
+				throw new SaTokenException("Http 请求失败，状态码：" + status + "，url：" + url + "，响应：" + body)
+						.setCode(SaErrorCode.CODE_12302);
+			}
+			try (InputStream in = conn.getInputStream()) {
+				T result = handler.apply(in);
+				// 读完剩余内容，连接才能被复用 
+				drain(in);
+				return result;
+			}
+		} catch (IOException e) {
+			// 出现 IO 异常时连接状态未知，不再复用 
+			if(conn != null) {
+				readError(conn);
+				conn.disconnect();
+			}
+			throw new SaTokenException("Http 请求失败：" + url, e).setCode(SaErrorCode.CODE_12301);
+		}
+	}
+
+	/**
+	 * 读取错误响应体，读完后底层连接仍可复用
+	 */
+	protected String readError(HttpURLConnection conn) {
+		try (InputStream err = conn.getErrorStream()) {
+			return err == null ? null : readString(err, StandardCharsets.UTF_8);
+		} catch (IOException | SaTokenException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 将输入流读取为字符串
+	 */
+	protected static String readString(InputStream in, Charset charset) {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int len;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return new String(out.toByteArray(), charset);
+		} catch (IOException e) {
+			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12301);
+		}
+	}
+
+	/**
+	 * 丢弃输入流中剩余的内容（输入流已被处理函数关闭时忽略）
+	 */
+	protected static void drain(InputStream in) {
+		byte[] buffer = new byte[1024];
+		try {
+			while (in.read(buffer) != -1) {
+				// 丢弃 
+			}
+		} catch (IOException e) {
+			// 忽略 
+		}
+	}
+
+	/**
+	 * 获取执行异步请求的线程池
+	 *
+	 * @return /
+	 */
+	public ExecutorService getExecutor() {
+		if(executor == null) {
+			synchronized (this) {
+				if(executor == null) {
+					AtomicInteger index = new AtomicInteger();
+					ThreadPoolExecutor pool = new ThreadPoolExecutor(asyncThreads, asyncThreads, 60, TimeUnit.SECONDS,
+							new LinkedBlockingQueue<>(asyncQueueSize), runnable -> {
+								Thread thread = new Thread(runnable, "sa-http-" + index.incrementAndGet());
+								thread.setDaemon(true);
+								return thread;
+							}, new ThreadPoolExecutor.AbortPolicy());
+					pool.allowCoreThreadTimeOut(true);
+					executor = pool;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * @param connectTimeout 连接超时时间（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaHttpTemplateDefaultImpl setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+		return this;
+	}
+
+	/**
+	 * @return 连接超时时间（单位: 毫秒）
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * @param readTimeout 读取超时时间（单位: 毫秒）
+	 * @return 对象自身
+	 */
+	public SaHttpTemplateDefaultImpl setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+		return this;
+	}
+
+	/**
+	 * @return 读取超时时间（单位: 毫秒）
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * @param asyncThreads 异步请求的线程数（需在第一次发送异步请求之前设置）
+	 * @return 对象自身
+	 */
+	public SaHttpTemplateDefaultImpl setAsyncThreads(int asyncThreads) {
+		this.asyncThreads = asyncThreads;
+		return this;
+	}
+
+	/**
+	 * @return 异步请求的线程数
+	 */
+	public int getAsyncThreads() {
+		return asyncThreads;
+	}
+
+	/**
+	 * @param asyncQueueSize 异步请求等待队列的容量（需在第一次发送异步请求之前设置）
+	 * @return 对象自身
+	 */
+	public SaHttpTemplateDefaultImpl setAsyncQueueSize(int asyncQueueSize) {
+		this.asyncQueueSize = asyncQueueSize;
+		return this;
+	}
+
+	/**
+	 * @return 异步请求等待队列的容量
+	 */
+	public int getAsyncQueueSize() {
+		return asyncQueueSize;
+	}
+
+}
@@ -15,8 +15,15 @@
  */
 package cn.dev33.satoken.json;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.Map;
 
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaJsonConvertException;
+
 /**
  * JSON 转换器 
  * 
@@ -39,5 +46,25 @@ public interface SaJsonTemplate {
 	 * @return map 对象
 	 */
 	Map<String, Object> parseJsonToMap(String jsonStr);
+
+	/**
+	 * 从输入流中解析 json 为 map 对象（默认先完整读取为字符串，支持流式解析的实现类可以重写此方法，边读边解析）
+	 * @param in 输入流（由调用方负责关闭）
+	 * @param charset 字符集
+	 * @return map 对象
+	 */
+	default Map<String, Object> parseJsonToMap(InputStream in, Charset charset) {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int len;
+			while ((len = in.read(buffer)) != -1) {
+				out.write(buffer, 0, len);
+			}
+			return parseJsonToMap(new String(out.toByteArray(), charset));
+		} catch (IOException e) {
+			throw new SaJsonConvertException(e).setCode(SaErrorCode.CODE_10004);
+		}
+	}
 	
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.lock;
+
+/**
+ * 账号会话锁
+ *
+ * <p>
+ *     登录、注销、踢人、顶人下线等操作都需要对 Account-Session 做 "读取 -> 修改 -> 写回"，
+ *     同一账号的多个此类操作并发执行时，后写回的会覆盖先写回的，造成 token 签名丢失、登录数量超出 maxLoginCount 等问题。
+ *     此组件以 [ 账号类型 + 账号id ] 为粒度提供互斥，同一账号的写操作串行执行，不同账号之间互不影响。
+ * </p>
+ *
+ * <p>
+ *     实现类必须支持同一线程重入，因为登录流程中会嵌套调用顶人下线、按最大登录数量注销等同样需要加锁的方法。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public interface SaAccountLock {
+
+	/**
+	 * 获取指定账号的会话锁，阻塞直到获取成功
+	 *
+	 * <p> 请使用 try-with-resources 语法，保证锁一定会被释放：</p>
+	 * <pre>
+	 *     try (SaAccountLockScope scope = lock.lock(loginType, loginId)) {
+	 *         // ... 修改 Account-Session
+	 *     }
+	 * </pre>
+	 *
+	 * @param loginType 账号类型
+	 * @param loginId 账号id
+	 * @return 锁作用域，关闭此作用域即释放锁
+	 */
+	SaAccountLockScope lock(String loginType, Object loginId);
+
+	/**
+	 * 获取当前线程对指定账号会话锁的持有次数（重入几次即为几），未持有时返回 0
+	 *
+	 * <p> 调用方据此判断即将关闭的是否为最外层作用域；实现类无法统计时返回 1，即每次释放锁都按最外层处理 </p>
+	 *
+	 * @param loginType 账号类型
+	 * @param loginId 账号id
+	 * @return /
+	 */
+	default int getHoldCount(String loginType, Object loginId) {
+		return 1;
+	}
+
+}
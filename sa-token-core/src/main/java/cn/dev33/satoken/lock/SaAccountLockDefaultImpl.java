@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.lock;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 账号会话锁 默认实现类，基于进程内的分段锁表
+ *
+ * <p>
+ *     预先创建固定数量的 ReentrantLock，账号按哈希值落到其中一个锁上，锁表大小不随账号数量增长，
+ *     不同账号仅在哈希碰撞时才会互相等待。此实现只能保证单个进程内的互斥，多节点共享同一持久层时请使用 {@link SaAccountLockForDao}。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaAccountLockDefaultImpl implements SaAccountLock {
+
+	/**
+	 * 默认分段数量
+	 */
+	public static final int DEFAULT_STRIPES = 256;
+
+	/**
+	 * 分段锁表
+	 */
+	public final ReentrantLock[] stripes;
+
+	/**
+	 * 分段下标掩码
+	 */
+	private final int mask;
+
+	public SaAccountLockDefaultImpl() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param stripeCount 分段数量，会被向上取整为 2 的幂
+	 */
+	public SaAccountLockDefaultImpl(int stripeCount) {
+		int size = 1;
+		while (size < stripeCount && size < (1 << 16)) {
+			size <<= 1;
+		}
+		this.stripes = new ReentrantLock[size];
+		for (int i = 0; i < size; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+		this.mask = size - 1;
+	}
+
+	@Override
+	public SaAccountLockScope lock(String loginType, Object loginId) {
+		ReentrantLock stripe = getStripe(loginType, loginId);
+		stripe.lock();
+		return stripe::unlock;
+	}
+
+	/**
+	 * 获取当前线程对指定账号所在分段锁的持有次数（哈希碰撞的账号共用同一分段，其持有次数会合并计算）
+	 */
+	@Override
+	public int getHoldCount(String loginType, Object loginId) {
+		return getStripe(loginType, loginId).getHoldCount();
+	}
+
+	/**
+	 * 获取指定账号落在的分段锁
+	 *
+	 * @param loginType 账号类型
+	 * @param loginId 账号id
+	 * @return /
+	 */
+	public ReentrantLock getStripe(String loginType, Object loginId) {
+		// 账号id 按字符串取哈希，保证 10001 与 "10001" 落在同一个分段上
+		int h = String.valueOf(loginType).hashCode() * 31 + String.valueOf(loginId).hashCode();
+		h ^= (h >>> 16);
+		return stripes[h & mask];
+	}
+
+}
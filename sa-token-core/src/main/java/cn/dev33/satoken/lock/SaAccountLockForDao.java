@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.lock;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoPipeline;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 账号会话锁 基于持久层的实现，适用于多个节点共享同一持久层（如 Redis）的集群部署
+ *
+ * <p>
+ *     先获取进程内的分段锁，使同一节点的线程在本地排队，再通过 {@link SaTokenDao#setIfAbsent} 在持久层写入一个带租期的锁标记，
+ *     写入成功即代表获得锁，释放时通过 {@link SaTokenDao#deleteIfEquals} 原子地校验锁标记仍属于自己并删除。持有锁的节点宕机时，锁标记会在租期结束后自动过期。
+ * </p>
+ *
+ * <p>
+ *     同一线程重复加锁时只在持久层写入一次，最外层作用域关闭时才会删除锁标记。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaAccountLockForDao implements SaAccountLock {
+
+	/**
+	 * 锁标记的租期（单位：秒），应大于一次登录或注销操作的最长耗时
+	 */
+	public long leaseTimeout = 10;
+
+	/**
+	 * 等待获取锁的最长时间（单位：毫秒），超时后抛出异常
+	 */
+	public long waitTimeout = 3000;
+
+	/**
+	 * 进程内的分段锁，同一节点的线程先在此排队，避免对持久层的无效争抢
+	 */
+	public final SaAccountLockDefaultImpl localLock;
+
+	/**
+	 * 当前线程已在持久层持有的锁，key=锁标记的键，value=持有记录
+	 */
+	private final ThreadLocal<Map<String, Holder>> holderMap = ThreadLocal.withInitial(HashMap::new);
+
+	public SaAccountLockForDao() {
+		this(new SaAccountLockDefaultImpl());
+	}
+
+	/**
+	 * 构造
+	 *
+	 * @param localLock 进程内的分段锁
+	 */
+	public SaAccountLockForDao(SaAccountLockDefaultImpl localLock) {
+		this.localLock = localLock;
+	}
+
+	@Override
+	public SaAccountLockScope lock(String loginType, Object loginId) {
+		SaAccountLockScope localScope = localLock.lock(loginType, loginId);
+		String key = splicingLockKey(loginType, loginId);
+		Map<String, Holder> map = holderMap.get();
+		Holder holder = map.get(key);
+
+		// 当前线程首次获取此锁时才需要写入持久层，重入时只增加重入次数
+		if(holder == null) {
+			String owner = SaFoxUtil.getRandomString(32);
+			try {
+				acquire(key, owner);
+			} catch (RuntimeException e) {
+				localScope.close();
+				throw e;
+			}
+			holder = new Holder(owner);
+			map.put(key, holder);
+		}
+		holder.count++;
+
+		Holder current = holder;
+		return () -> {
+			try {
+				if(--current.count == 0) {
+					map.remove(key);
+					release(key, current.owner);
+				}
+			} finally {
+				localScope.close();
+			}
+		};
+	}
+
+	@Override
+	public int getHoldCount(String loginType, Object loginId) {
+		Holder holder = holderMap.get().get(splicingLockKey(loginType, loginId));
+		return holder == null ? 0 : holder.count;
+	}
+
+	/**
+	 * 在持久层写入锁标记，直到成功或等待超时
+	 *
+	 * @param key 锁标记的键
+	 * @param owner 锁标记的值，用于释放时确认归属
+	 */
+	protected void acquire(String key, String owner) {
+		SaTokenDao dao = getSaTokenDao();
+		long deadline = System.currentTimeMillis() + waitTimeout;
+		long sleep = 5;
+		while ( ! dao.setIfAbsent(key, owner, leaseTimeout)) {
+			long remaining = deadline - System.currentTimeMillis();
+			if(remaining <= 0) {
+				throw new SaTokenException("等待账号会话锁超时：" + key).setCode(SaErrorCode.CODE_11081);
+			}
+			try {
+				Thread.sleep(Math.min(sleep, remaining));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SaTokenException("等待账号会话锁时线程被中断：" + key).setCode(SaErrorCode.CODE_11081);
+			}
+			sleep = Math.min(sleep * 2, 100);
+		}
+	}
+
+	/**
+	 * 删除锁标记，若锁标记已因租期结束被他人重新写入，则不做处理
+	 *
+	 * @param key 锁标记的键
+	 * @param owner 加锁时写入的值
+	 */
+	protected void release(String key, String owner) {
+		getSaTokenDao().deleteIfEquals(key, owner);
+	}
+
+	/**
+	 * 获取持久层对象，锁标记必须直接读写持久层，不能被暂存在调用方开启的管道作用域中
+	 *
+	 * @return /
+	 */
+	protected SaTokenDao getSaTokenDao() {
+		SaTokenDao dao = SaManager.getSaTokenDao();
+		if(dao instanceof SaTokenDaoPipeline) {
+			return ((SaTokenDaoPipeline) dao).target;
+		}
+		return dao;
+	}
+
+	/**
+	 * 拼接：锁标记的键
+	 *
+	 * @param loginType 账号类型
+	 * @param loginId 账号id
+	 * @return /
+	 */
+	public String splicingLockKey(String loginType, Object loginId) {
+		return SaManager.getConfig().getTokenName() + ":" + loginType + ":account-lock:" + loginId;
+	}
+
+	/**
+	 * 锁的持有记录
+	 */
+	static class Holder {
+
+		/**
+		 * 写入持久层的锁标记值
+		 */
+		final String owner;
+
+		/**
+		 * 重入次数
+		 */
+		int count;
+
+		Holder(String owner) {
+			this.owner = owner;
+		}
+
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.lock;
+
+/**
+ * 账号会话锁的作用域，关闭即释放锁
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+@FunctionalInterface
+public interface SaAccountLockScope extends AutoCloseable {
+
+	/**
+	 * 不做任何事情的作用域，用于无需加锁的场景
+	 */
+	SaAccountLockScope NONE = () -> {};
+
+	/**
+	 * 释放锁
+	 */
+	@Override
+	void close();
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.secure;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 加密算法对象的复用层：SaSecureUtil 中的各个算法均通过此类获取 MessageDigest、Cipher 与密钥对象
+ *
+ * <p>
+ *     1、MessageDigest、Cipher 不是线程安全的，每个线程按照算法名称各自缓存一份，取出时已经重置为初始状态。
+ *     <br> 2、AES 密钥、RSA 公私钥按照密钥字符串缓存解析结果，同一个密钥不会重复执行 Base64 解码与 KeyFactory 解析。
+ *     <br> 3、密钥缓存数量超过 {@link #maxKeyCacheSize} 时整体清空，防止调用方传入大量一次性密钥导致内存无限增长。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaCryptoProvider {
+
+	private SaCryptoProvider() {
+	}
+
+	/**
+	 * 密钥缓存的最大数量（每一类密钥分别计算）
+	 */
+	public static int maxKeyCacheSize = 1024;
+
+	/**
+	 * 每个线程缓存的 MessageDigest，key 为算法名称
+	 */
+	private static final ThreadLocal<Map<String, MessageDigest>> DIGEST_CACHE = ThreadLocal.withInitial(HashMap::new);
+
+	/**
+	 * 每个线程缓存的 Cipher，key 为 transformation
+	 */
+	private static final ThreadLocal<Map<String, Cipher>> CIPHER_CACHE = ThreadLocal.withInitial(HashMap::new);
+
+	/**
+	 * AES 密钥缓存，key 为密码字符串
+	 */
+	private static final Map<String, SecretKeySpec> AES_KEY_CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * RSA 公钥缓存，key 为公钥字符串
+	 */
+	private static final Map<String, PublicKey> PUBLIC_KEY_CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * RSA 私钥缓存，key 为私钥字符串
+	 */
+	private static final Map<String, PrivateKey> PRIVATE_KEY_CACHE = new ConcurrentHashMap<>();
+
+
+	// ----------------------- 摘要与密码对象
+
+	/**
+	 * 获取当前线程缓存的 MessageDigest（已重置）
+	 *
+	 * @param algorithm 算法名称，如：MD5、SHA-256
+	 * @return /
+	 * @throws NoSuchAlgorithmException 算法不存在时抛出
+	 */
+	public static MessageDigest getDigest(String algorithm) throws NoSuchAlgorithmException {
+		Map<String, MessageDigest> map = DIGEST_CACHE.get();
+		MessageDigest digest = map.get(algorithm);
+		if(digest == null) {
+			digest = MessageDigest.getInstance(algorithm);
+			map.put(algorithm, digest);
+		} else {
+			digest.reset();
+		}
+		return digest;
+	}
+
+	/**
+	 * 获取当前线程缓存的 Cipher（调用方在使用前需要重新 init）
+	 *
+	 * @param transformation 如：AES/ECB/PKCS5Padding、RSA
+	 * @return /
+	 * @throws NoSuchAlgorithmException 算法不存在时抛出
+	 * @throws NoSuchPaddingException 填充方式不存在时抛出
+	 */
+	public static Cipher getCipher(String transformation) throws NoSuchAlgorithmException, NoSuchPaddingException {
+		Map<String, Cipher> map = CIPHER_CACHE.get();
+		Cipher cipher = map.get(transformation);
+		if(cipher == null) {
+			cipher = Cipher.getInstance(transformation);
+			map.put(transformation, cipher);
+		}
+		return cipher;
+	}
+
+
+	// ----------------------- 密钥
+
+	/**
+	 * 获取 AES 密钥：以密码作为 SHA1PRNG 的种子生成 128 位密钥，同一密码的生成结果会被缓存
+	 *
+	 * @param password 密码
+	 * @return /
+	 * @throws NoSuchAlgorithmException 算法不存在时抛出
+	 */
+	public static SecretKeySpec getAesKey(String password) throws NoSuchAlgorithmException {
+		SecretKeySpec key = AES_KEY_CACHE.get(password);
+		if(key == null) {
+			KeyGenerator kg = KeyGenerator.getInstance("AES");
+			SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+			random.setSeed(password.getBytes());
+			kg.init(128, random);
+			key = new SecretKeySpec(kg.generateKey().getEncoded(), "AES");
+			putCache(AES_KEY_CACHE, password, key);
+		}
+		return key;
+	}
+
+	/**
+	 * 获取 RSA 公钥：解析 Base64 格式的 X509 公钥字符串，解析结果会被缓存
+	 *
+	 * @param key 公钥字符串
+	 * @return /
+	 * @throws GeneralSecurityException 解析失败时抛出
+	 */
+	public static PublicKey getRsaPublicKey(String key) throws GeneralSecurityException {
+		PublicKey publicKey = PUBLIC_KEY_CACHE.get(key);
+		if(publicKey == null) {
+			X509EncodedKeySpec keySpec = new X509EncodedKeySpec(Base64.getDecoder().decode(key.replace("\r\n", "")));
+			publicKey = KeyFactory.getInstance("RSA").generatePublic(keySpec);
+			putCache(PUBLIC_KEY_CACHE, key, publicKey);
+		}
+		return publicKey;
+	}
+
+	/**
+	 * 获取 RSA 私钥：解析 Base64 格式的 PKCS8 私钥字符串，解析结果会被缓存
+	 *
+	 * @param key 私钥字符串
+	 * @return /
+	 * @throws GeneralSecurityException 解析失败时抛出
+	 */
+	public static PrivateKey getRsaPrivateKey(String key) throws GeneralSecurityException {
+		PrivateKey privateKey = PRIVATE_KEY_CACHE.get(key);
+		if(privateKey == null) {
+			PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Base64.getDecoder().decode(key.replace("\r\n", "")));
+			privateKey = KeyFactory.getInstance("RSA").generatePrivate(keySpec);
+			putCache(PRIVATE_KEY_CACHE, key, privateKey);
+		}
+		return privateKey;
+	}
+
+	/**
+	 * 清空所有密钥缓存
+	 */
+	public static void clearKeyCache() {
+		AES_KEY_CACHE.clear();
+		PUBLIC_KEY_CACHE.clear();
+		PRIVATE_KEY_CACHE.clear();
+	}
+
+	private static <V> void putCache(Map<String, V> cache, String key, V value) {
+		if(cache.size() >= maxKeyCacheSize) {
+			cache.clear();
+		}
+		cache.put(key, value);
+	}
+
+}
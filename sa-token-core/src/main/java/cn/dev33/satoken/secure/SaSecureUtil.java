@@ -19,16 +19,11 @@ import cn.dev33.satoken.error.SaErrorCode;
 import cn.dev33.satoken.exception.SaTokenException;
 
 import javax.crypto.Cipher;
-import javax.crypto.KeyGenerator;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.UUID;
@@ -56,6 +51,11 @@ public class SaSecureUtil {
 
 	// ----------------------- 摘要加密 -----------------------
 
+	/**
+	 * 十六进制字符表
+	 */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
 	/**
 	 * md5加密
 	 * @param str 指定字符串
@@ -63,23 +63,25 @@ public class SaSecureUtil {
 	 */
 	public static String md5(String str) {
 		str = (str == null ? "" : str);
-		char[] hexDigits = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
-		try {
-			byte[] btInput = str.getBytes();
-			MessageDigest mdInst = MessageDigest.getInstance("MD5");
-			mdInst.update(btInput);
-			byte[] md = mdInst.digest();
-			int j = md.length;
-			char[] strA = new char[j * 2];
-			int k = 0;
-			for (byte byte0 : md) {
-				strA[k++] = hexDigits[byte0 >>> 4 & 0xf];
-				strA[k++] = hexDigits[byte0 & 0xf];
-			}
-			return new String(strA);
-		} catch (Exception e) {
-			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12111);
-		}
+		return md5(str.getBytes());
+	}
+
+	/**
+	 * md5加密
+	 * @param bytes 指定字节数组
+	 * @return 加密后的字符串
+	 */
+	public static String md5(byte[] bytes) {
+		return digestHex("MD5", bytes, SaErrorCode.CODE_12111);
+	}
+
+	/**
+	 * md5加密（读取 buffer 中 position 至 limit 之间的数据）
+	 * @param buffer 指定字节缓冲区
+	 * @return 加密后的字符串
+	 */
+	public static String md5(ByteBuffer buffer) {
+		return digestHex("MD5", buffer, SaErrorCode.CODE_12111);
 	}
 
 	/**
@@ -89,13 +91,26 @@ public class SaSecureUtil {
 	 * @return 加密后的字符串
 	 */
 	public static String sha1(String str) {
-		try {
-			str = (str == null ? "" : str);
-			MessageDigest messageDigest = MessageDigest.getInstance("SHA1");
-			return getShaHexString(str, messageDigest);
-		} catch (Exception e) {
-			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12112);
-		}
+		str = (str == null ? "" : str);
+		return sha1(str.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * sha1加密
+	 * @param bytes 指定字节数组
+	 * @return 加密后的字符串
+	 */
+	public static String sha1(byte[] bytes) {
+		return digestHex("SHA1", bytes, SaErrorCode.CODE_12112);
+	}
+
+	/**
+	 * sha1加密（读取 buffer 中 position 至 limit 之间的数据）
+	 * @param buffer 指定字节缓冲区
+	 * @return 加密后的字符串
+	 */
+	public static String sha1(ByteBuffer buffer) {
+		return digestHex("SHA1", buffer, SaErrorCode.CODE_12112);
 	}
 
 	/**
@@ -105,13 +120,26 @@ public class SaSecureUtil {
 	 * @return 加密后的字符串
 	 */
 	public static String sha256(String str) {
-		try {
-			str = (str == null ? "" : str);
-			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-			return getShaHexString(str, messageDigest);
-		} catch (Exception e) {
-			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12113);
-		}
+		str = (str == null ? "" : str);
+		return sha256(str.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * sha256加密
+	 * @param bytes 指定字节数组
+	 * @return 加密后的字符串
+	 */
+	public static String sha256(byte[] bytes) {
+		return digestHex("SHA-256", bytes, SaErrorCode.CODE_12113);
+	}
+
+	/**
+	 * sha256加密（读取 buffer 中 position 至 limit 之间的数据）
+	 * @param buffer 指定字节缓冲区
+	 * @return 加密后的字符串
+	 */
+	public static String sha256(ByteBuffer buffer) {
+		return digestHex("SHA-256", buffer, SaErrorCode.CODE_12113);
 	}
 
 	/**
@@ -121,13 +149,26 @@ public class SaSecureUtil {
 	 * @return 加密后的字符串
 	 */
 	public static String sha384(String str) {
-		try {
-			str = (str == null ? "" : str);
-			MessageDigest messageDigest = MessageDigest.getInstance("SHA-384");
-			return getShaHexString(str, messageDigest);
-		} catch (Exception e) {
-			throw new SaTokenException(e).setCode(SaErrorCode.CODE_121131);
-		}
+		str = (str == null ? "" : str);
+		return sha384(str.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * sha384加密
+	 * @param bytes 指定字节数组
+	 * @return 加密后的字符串
+	 */
+	public static String sha384(byte[] bytes) {
+		return digestHex("SHA-384", bytes, SaErrorCode.CODE_121131);
+	}
+
+	/**
+	 * sha384加密（读取 buffer 中 position 至 limit 之间的数据）
+	 * @param buffer 指定字节缓冲区
+	 * @return 加密后的字符串
+	 */
+	public static String sha384(ByteBuffer buffer) {
+		return digestHex("SHA-384", buffer, SaErrorCode.CODE_121131);
 	}
 
 	/**
@@ -137,36 +178,73 @@ public class SaSecureUtil {
 	 * @return 加密后的字符串
 	 */
 	public static String sha512(String str) {
+		str = (str == null ? "" : str);
+		return sha512(str.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * sha512加密
+	 * @param bytes 指定字节数组
+	 * @return 加密后的字符串
+	 */
+	public static String sha512(byte[] bytes) {
+		return digestHex("SHA-512", bytes, SaErrorCode.CODE_121132);
+	}
+
+	/**
+	 * sha512加密（读取 buffer 中 position 至 limit 之间的数据）
+	 * @param buffer 指定字节缓冲区
+	 * @return 加密后的字符串
+	 */
+	public static String sha512(ByteBuffer buffer) {
+		return digestHex("SHA-512", buffer, SaErrorCode.CODE_121132);
+	}
+
+	/**
+	 * 摘要加密 公共方法：使用当前线程缓存的 MessageDigest 计算摘要，并转为十六进制小写字符串
+	 *
+	 * @param algorithm 算法名称
+	 * @param bytes 字节数组
+	 * @param errorCode 计算失败时的异常码
+	 * @return 加密后的字符串
+	 */
+	private static String digestHex(String algorithm, byte[] bytes, int errorCode) {
 		try {
-			str = (str == null ? "" : str);
-			MessageDigest messageDigest = MessageDigest.getInstance("SHA-512");
-			return getShaHexString(str, messageDigest);
+			MessageDigest messageDigest = SaCryptoProvider.getDigest(algorithm);
+			return toHex(messageDigest.digest(bytes));
 		} catch (Exception e) {
-			throw new SaTokenException(e).setCode(SaErrorCode.CODE_121132);
+			throw new SaTokenException(e).setCode(errorCode);
 		}
 	}
 
 	/**
-	 * sha (Secure Hash Algorithm)加密 公共方法
+	 * 摘要加密 公共方法（ByteBuffer 版本，读取后 buffer 的 position 移动至 limit）
 	 *
-	 * @param str 指定字符串
-	 * @param messageDigest 消息摘要
+	 * @param algorithm 算法名称
+	 * @param buffer 字节缓冲区
+	 * @param errorCode 计算失败时的异常码
 	 * @return 加密后的字符串
 	 */
-	private static String getShaHexString(String str, MessageDigest messageDigest) {
-		messageDigest.update(str.getBytes(StandardCharsets.UTF_8));
-		byte[] bytes = messageDigest.digest();
-		StringBuilder builder = new StringBuilder();
-		String temp;
-		for (byte aByte : bytes) {
-			temp = Integer.toHexString(aByte & 0xFF); // 获取无符号整数十六进制字符串
-			if (temp.length() == 1) {
-				builder.append("0"); // 确保每个字节都用两个字符表示
-			}
-			builder.append(temp);
+	private static String digestHex(String algorithm, ByteBuffer buffer, int errorCode) {
+		try {
+			MessageDigest messageDigest = SaCryptoProvider.getDigest(algorithm);
+			messageDigest.update(buffer);
+			return toHex(messageDigest.digest());
+		} catch (Exception e) {
+			throw new SaTokenException(e).setCode(errorCode);
 		}
+	}
 
-		return builder.toString();
+	/**
+	 * 将摘要结果转为十六进制小写字符串
+	 */
+	private static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX_DIGITS[bytes[i] >>> 4 & 0xf];
+			chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+		}
+		return new String(chars);
 	}
 
 	/**
@@ -204,12 +282,22 @@ public class SaSecureUtil {
      * @return 返回Base64转码后的加密数据
      */
     public static String aesEncrypt(String key, String text) {
+        byte[] result = aesEncrypt(key, text.getBytes(StandardCharsets.UTF_8));
+        return encoder.encodeToString(result);
+    }
+
+    /**
+     * AES加密
+     *
+     * @param key 加密的密钥
+     * @param bytes 需要加密的数据
+     * @return 加密后的数据
+     */
+    public static byte[] aesEncrypt(String key, byte[] bytes) {
         try {
-            Cipher cipher = Cipher.getInstance(DEFAULT_CIPHER_ALGORITHM);
-            byte[] byteContent = text.getBytes(StandardCharsets.UTF_8);
-            cipher.init(Cipher.ENCRYPT_MODE, getSecretKey(key));
-            byte[] result = cipher.doFinal(byteContent);
-            return encoder.encodeToString(result);
+            Cipher cipher = SaCryptoProvider.getCipher(DEFAULT_CIPHER_ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, SaCryptoProvider.getAesKey(key));
+            return cipher.doFinal(bytes);
  		} catch (Exception e) {
  			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12114);
  		}
@@ -222,30 +310,26 @@ public class SaSecureUtil {
      * @return 返回解密后的数据
      */
     public static String aesDecrypt(String key, String text) {
+        byte[] result = aesDecrypt(key, decoder.decode(text));
+        return new String(result, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * AES解密
+     * @param key 加密的密钥
+     * @param bytes 已加密的数据
+     * @return 解密后的数据
+     */
+    public static byte[] aesDecrypt(String key, byte[] bytes) {
        try {
-    	   Cipher cipher = Cipher.getInstance(DEFAULT_CIPHER_ALGORITHM);
-           cipher.init(Cipher.DECRYPT_MODE, getSecretKey(key));
-           byte[] result = cipher.doFinal(decoder.decode(text));
-           return new String(result, StandardCharsets.UTF_8);
+    	   Cipher cipher = SaCryptoProvider.getCipher(DEFAULT_CIPHER_ALGORITHM);
+           cipher.init(Cipher.DECRYPT_MODE, SaCryptoProvider.getAesKey(key));
+           return cipher.doFinal(bytes);
 		} catch (Exception e) {
 			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12115);
 		}
     }
 
-    /**
-     * 生成加密秘钥
-     * @param password 秘钥
-     * @return SecretKeySpec
-	 */
-    private static SecretKeySpec getSecretKey(final String password) throws NoSuchAlgorithmException {
-        KeyGenerator kg = KeyGenerator.getInstance("AES");
-        SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
-        random.setSeed(password.getBytes());
-        kg.init(128, random);
-        SecretKey secretKey = kg.generateKey();
-        return new SecretKeySpec(secretKey.getEncoded(), "AES");
-    }
-
 
 	// ----------------------- 非对称加密 RSA -----------------------
 
@@ -290,7 +374,7 @@ public class SaSecureUtil {
 			// 获得公钥对象
 			PublicKey publicKey = getPublicKeyFromString(publicKeyString);
 
-			Cipher cipher = Cipher.getInstance("RSA");
+			Cipher cipher = SaCryptoProvider.getCipher(ALGORITHM);
 			cipher.init(Cipher.ENCRYPT_MODE, publicKey);
 			// 该密钥能够加密的最大字节长度
 			int splitLength = ((RSAPublicKey) publicKey).getModulus().bitLength() / 8 - 11;
@@ -315,7 +399,7 @@ public class SaSecureUtil {
 		try {
 			PrivateKey privateKey = getPrivateKeyFromString(privateKeyString);
 
-			Cipher cipher = Cipher.getInstance("RSA");
+			Cipher cipher = SaCryptoProvider.getCipher(ALGORITHM);
 			cipher.init(Cipher.ENCRYPT_MODE, privateKey);
 			// 该密钥能够加密的最大字节长度
 			int splitLength = ((RSAPrivateKey) privateKey).getModulus().bitLength() / 8 - 11;
@@ -341,7 +425,7 @@ public class SaSecureUtil {
 		try {
 			PublicKey publicKey = getPublicKeyFromString(publicKeyString);
 
-			Cipher cipher = Cipher.getInstance("RSA");
+			Cipher cipher = SaCryptoProvider.getCipher(ALGORITHM);
 			cipher.init(Cipher.DECRYPT_MODE, publicKey);
 			// 该密钥能够加密的最大字节长度
 			int splitLength = ((RSAPublicKey) publicKey).getModulus().bitLength() / 8;
@@ -367,7 +451,7 @@ public class SaSecureUtil {
 		try {
 			PrivateKey privateKey = getPrivateKeyFromString(privateKeyString);
 
-			Cipher cipher = Cipher.getInstance("RSA");
+			Cipher cipher = SaCryptoProvider.getCipher(ALGORITHM);
 			cipher.init(Cipher.DECRYPT_MODE, privateKey);
 			// 该密钥能够加密的最大字节长度
 			int splitLength = ((RSAPrivateKey) privateKey).getModulus().bitLength() / 8;
@@ -386,34 +470,14 @@ public class SaSecureUtil {
 
 	// ---------- 获取*钥
 
-	/** 根据公钥字符串获取 公钥对象 */
-	private static PublicKey getPublicKeyFromString(String key)
-			throws NoSuchAlgorithmException, InvalidKeySpecException {
-
-		// 过滤掉\r\n
-		key = key.replace("\r\n", "");
-
-		// 取得公钥
-		X509EncodedKeySpec x509KeySpec = new X509EncodedKeySpec(decoder.decode(key));
-
-		KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM);
-
-		return keyFactory.generatePublic(x509KeySpec);
+	/** 根据公钥字符串获取 公钥对象（解析结果会被缓存） */
+	private static PublicKey getPublicKeyFromString(String key) throws GeneralSecurityException {
+		return SaCryptoProvider.getRsaPublicKey(key);
 	}
 
-	/** 根据私钥字符串获取 私钥对象 */
-	private static PrivateKey getPrivateKeyFromString(String key)
-			throws NoSuchAlgorithmException, InvalidKeySpecException {
-
-		// 过滤掉\r\n
-		key = key.replace("\r\n", "");
-
-		// 取得私钥
-		PKCS8EncodedKeySpec x509KeySpec = new PKCS8EncodedKeySpec(decoder.decode(key));
-
-		KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM);
-
-		return keyFactory.generatePrivate(x509KeySpec);
+	/** 根据私钥字符串获取 私钥对象（解析结果会被缓存） */
+	private static PrivateKey getPrivateKeyFromString(String key) throws GeneralSecurityException {
+		return SaCryptoProvider.getRsaPrivateKey(key);
 	}
 
 
@@ -332,14 +332,13 @@ public class SaSession implements SaSetValueInterface, Serializable {
 		TokenSign oldTokenSign = getTokenSign(tokenSign.getValue());
 		if(oldTokenSign == null) {
 			tokenSignList.add(tokenSign);
-			update();
 		} else {
 			// 如果存在，则更新
 			oldTokenSign.setValue(tokenSign.getValue());
 			oldTokenSign.setDevice(tokenSign.getDevice());
 			oldTokenSign.setTag(tokenSign.getTag());
-			update();
 		}
+		SaManager.getSaTokenDao().updateSessionTokenSignList(this);
 	}
 
 	/**
@@ -361,7 +360,7 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	public void removeTokenSign(String tokenValue) {
 		TokenSign tokenSign = getTokenSign(tokenValue);
 		if (tokenSignList.remove(tokenSign)) {
-			update();
+			SaManager.getSaTokenDao().updateSessionTokenSignList(this);
 		}
 	}
 
@@ -462,7 +461,7 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	@Override
 	public SaSession set(String key, Object value) {
 		dataMap.put(key, value);
-		update();
+		SaManager.getSaTokenDao().updateSessionField(this, key, value);
 		return this;
 	}
 
@@ -476,7 +475,7 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	public SaSession setByNull(String key, Object value) {
 		if( ! has(key)) {
 			dataMap.put(key, value);
-			update();
+			SaManager.getSaTokenDao().updateSessionField(this, key, value);
 		}
 		return this;
 	}
@@ -489,7 +488,7 @@ public class SaSession implements SaSetValueInterface, Serializable {
 	@Override
 	public SaSession delete(String key) {
 		dataMap.remove(key);
-		update();
+		SaManager.getSaTokenDao().deleteSessionField(this, key);
 		return this;
 	}
 
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * SaSession 与 Hash 结构之间的映射：固定字段与每个挂载数据各占 Hash 的一个 field
+ *
+ * <p>
+ *     固定字段以 "$" 开头（如 $id、$loginId、$tokenSignList），挂载数据以 "#" + key 作为 field 名称，二者互不冲突。
+ *     <br> field 值的序列化由各个持久层实现类自行负责（与其 Object 读写使用相同的序列化方式）。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSessionHashMapper {
+
+	public static final String FIELD_ID = "$id";
+	public static final String FIELD_TYPE = "$type";
+	public static final String FIELD_LOGIN_TYPE = "$loginType";
+	public static final String FIELD_LOGIN_ID = "$loginId";
+	public static final String FIELD_TOKEN = "$token";
+	public static final String FIELD_CREATE_TIME = "$createTime";
+	public static final String FIELD_TOKEN_SIGN_LIST = "$tokenSignList";
+
+	/** 挂载数据 field 名称的前缀 */
+	public static final String DATA_PREFIX = "#";
+
+	/**
+	 * Lua 脚本：整体写入 Session，KEYS[1]=sessionId，ARGV[1]=存活时间（秒，-1 代表永不过期），ARGV[2..]=field、value 交替排列
+	 */
+	public static final String SET_SCRIPT =
+			"redis.call('del', KEYS[1]) " +
+			"redis.call('hmset', KEYS[1], unpack(ARGV, 2)) " +
+			"if tonumber(ARGV[1]) > 0 then redis.call('expire', KEYS[1], ARGV[1]) end " +
+			"return 1";
+
+	/**
+	 * Lua 脚本：整体替换 Session 并保持其剩余存活时间不变，Session 不存在时不做任何处理，ARGV=field、value 交替排列
+	 */
+	public static final String UPDATE_SCRIPT =
+			"local ttl = redis.call('pttl', KEYS[1]) " +
+			"if ttl == -2 then return 0 end " +
+			"redis.call('del', KEYS[1]) " +
+			"redis.call('hmset', KEYS[1], unpack(ARGV)) " +
+			"if ttl > 0 then redis.call('pexpire', KEYS[1], ttl) end " +
+			"return 1";
+
+	/**
+	 * Lua 脚本：修改一个 field，仅当 Session 以 Hash 结构存在时生效（返回 0 代表需要整体写入，例如旧格式数据）
+	 */
+	public static final String FIELD_SET_SCRIPT =
+			"if redis.call('type', KEYS[1]).ok ~= 'hash' then return 0 end " +
+			"redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) " +
+			"return 1";
+
+	/**
+	 * Lua 脚本：删除一个 field，仅当 Session 以 Hash 结构存在时生效（返回 0 代表需要整体写入，例如旧格式数据）
+	 */
+	public static final String FIELD_DELETE_SCRIPT =
+			"if redis.call('type', KEYS[1]).ok ~= 'hash' then return 0 end " +
+			"redis.call('hdel', KEYS[1], ARGV[1]) " +
+			"return 1";
+
+	/**
+	 * Lua 脚本：一次修改多个 field（批量写操作中使用），仅当 Session 以 Hash 结构存在时生效，
+	 * ARGV[1]=Session 不是 Hash 结构时（旧格式数据）的返回值，ARGV[2]=要写入的 field 数量 n，
+	 * ARGV[3..2+2n]=要写入的 field、value 交替排列，其后为要删除的 field；Session 不存在时返回 0，修改成功时返回 1
+	 */
+	public static final String FIELD_BATCH_SCRIPT =
+			"local t = redis.call('type', KEYS[1]).ok " +
+			"if t == 'none' then return 0 end " +
+			"if t ~= 'hash' then return tonumber(ARGV[1]) end " +
+			"local n = tonumber(ARGV[2]) " +
+			"for i = 3, 2 + n * 2, 2 do redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+			"for i = 3 + n * 2, #ARGV do redis.call('hdel', KEYS[1], ARGV[i]) end " +
+			"return 1";
+
+	/**
+	 * 获取挂载数据对应的 field 名称
+	 * @param key 挂载数据的 key
+	 * @return /
+	 */
+	public static String dataField(String key) {
+		return DATA_PREFIX + key;
+	}
+
+	/**
+	 * 将 SaSession 转换为 field -> value 集合（值为 null 的固定字段不写入）
+	 * @param session /
+	 * @return /
+	 */
+	public static Map<String, Object> toFieldMap(SaSession session) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		putIfNotNull(map, FIELD_ID, session.getId());
+		putIfNotNull(map, FIELD_TYPE, session.getType());
+		putIfNotNull(map, FIELD_LOGIN_TYPE, session.getLoginType());
+		putIfNotNull(map, FIELD_LOGIN_ID, session.getLoginId());
+		putIfNotNull(map, FIELD_TOKEN, session.getToken());
+		map.put(FIELD_CREATE_TIME, session.getCreateTime());
+		map.put(FIELD_TOKEN_SIGN_LIST, tokenSignListValue(session));
+		for (Map.Entry<String, Object> entry : session.getDataMap().entrySet()) {
+			map.put(dataField(entry.getKey()), entry.getValue());
+		}
+		return map;
+	}
+
+	/**
+	 * 获取 TokenSign 列表要写入的值（复制一份，避免序列化期间其它线程修改）
+	 * @param session /
+	 * @return /
+	 */
+	public static List<TokenSign> tokenSignListValue(SaSession session) {
+		List<TokenSign> list = session.getTokenSignList();
+		return list == null ? new ArrayList<>() : new ArrayList<>(list);
+	}
+
+	/**
+	 * 将 field -> value 集合填充到 SaSession 对象中
+	 * @param session 空的 SaSession 对象
+	 * @param fieldMap /
+	 * @return 对象自身
+	 * @param <T> SaSession 类型
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends SaSession> T fillSession(T session, Map<String, Object> fieldMap) {
+		for (Map.Entry<String, Object> entry : fieldMap.entrySet()) {
+			String field = entry.getKey();
+			Object value = entry.getValue();
+			if(value == null) {
+				continue;
+			}
+			if(field.startsWith(DATA_PREFIX)) {
+				session.getDataMap().put(field.substring(DATA_PREFIX.length()), value);
+				continue;
+			}
+			switch (field) {
+				case FIELD_ID:
+					session.setId((String) value);
+					break;
+				case FIELD_TYPE:
+					session.setType((String) value);
+					break;
+				case FIELD_LOGIN_TYPE:
+					session.setLoginType((String) value);
+					break;
+				case FIELD_LOGIN_ID:
+					session.setLoginId(value);
+					break;
+				case FIELD_TOKEN:
+					session.setToken((String) value);
+					break;
+				case FIELD_CREATE_TIME:
+					session.setCreateTime(((Number) value).longValue());
+					break;
+				case FIELD_TOKEN_SIGN_LIST:
+					session.setTokenSignList(new Vector<>((Collection<TokenSign>) value));
+					break;
+				default:
+					break;
+			}
+		}
+		return session;
+	}
+
+	static void putIfNotNull(Map<String, Object> map, String field, Object value) {
+		if(value != null) {
+			map.put(field, value);
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session.codec;
+
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 二进制读取器：与 {@link SaBinaryWriter} 的编码一一对应
+ *
+ * <p> 数据不完整或格式错误时抛出 SaTokenException，异常码为 {@link SaErrorCode#CODE_12402} </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaBinaryReader {
+
+	final byte[] buffer;
+
+	int position;
+
+	final int limit;
+
+	public SaBinaryReader(byte[] buffer) {
+		this(buffer, 0, buffer.length);
+	}
+
+	/**
+	 * @param buffer 数据
+	 * @param offset 起始位置
+	 * @param length 可读取的长度
+	 */
+	public SaBinaryReader(byte[] buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+
+	/**
+	 * 读取一个字节（无符号，0-255）
+	 * @return /
+	 */
+	public int readByte() {
+		require(1);
+		return buffer[position++] & 0xFF;
+	}
+
+	/**
+	 * 读取指定长度的字节数组
+	 * @param length 长度
+	 * @return /
+	 */
+	public byte[] readRaw(int length) {
+		require(length);
+		byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+		position += length;
+		return bytes;
+	}
+
+	/**
+	 * 读取带变长整数长度前缀的字节数组
+	 * @return /
+	 */
+	public byte[] readBytes() {
+		return readRaw(readVarInt());
+	}
+
+	/**
+	 * 读取无符号变长整数
+	 * @return /
+	 */
+	public int readVarInt() {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				if(value < 0) {
+					throw error("变长整数超出范围");
+				}
+				return value;
+			}
+		}
+		throw error("变长整数格式错误");
+	}
+
+	/**
+	 * 读取无符号变长长整数
+	 * @return /
+	 */
+	public long readVarLong() {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw error("变长长整数格式错误");
+	}
+
+	/**
+	 * 读取 zigzag 编码的有符号长整数
+	 * @return /
+	 */
+	public long readZigZagLong() {
+		long value = readVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * 读取 8 字节定长长整数
+	 * @return /
+	 */
+	public long readLong() {
+		require(8);
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | (buffer[position++] & 0xFF);
+		}
+		return value;
+	}
+
+	/**
+	 * 读取可为 null 的字符串
+	 * @return /
+	 */
+	public String readString() {
+		int length = readVarInt();
+		if(length == 0) {
+			return null;
+		}
+		length--;
+		require(length);
+		String str = new String(buffer, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return str;
+	}
+
+	/**
+	 * @return 剩余可读取的字节数
+	 */
+	public int remaining() {
+		return limit - position;
+	}
+
+	void require(int length) {
+		if(length < 0 || position + length > limit) {
+			throw error("数据不完整");
+		}
+	}
+
+	/**
+	 * 构建一个解码失败的异常
+	 * @param message 异常描述
+	 * @return /
+	 */
+	public SaTokenException error(String message) {
+		return new SaTokenException("SaSession 解码失败：" + message).setCode(SaErrorCode.CODE_12402);
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 二进制写入器：可自动扩容的字节缓冲区，提供变长整数、字符串等紧凑编码
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaBinaryWriter {
+
+	byte[] buffer;
+
+	int position;
+
+	public SaBinaryWriter() {
+		this(256);
+	}
+
+	/**
+	 * @param initialCapacity 初始容量
+	 */
+	public SaBinaryWriter(int initialCapacity) {
+		this.buffer = new byte[Math.max(16, initialCapacity)];
+	}
+
+	/**
+	 * 写入一个字节
+	 * @param b /
+	 * @return 对象自身
+	 */
+	public SaBinaryWriter writeByte(int b) {
+		ensureCapacity(1);
+		buffer[position++] = (byte) b;
+		return this;
+	}
+
+	/**
+	 * 写入字节数组（不含长度）
+	 * @param bytes /
+	 * @return 对象自身
+	 */
+	public SaBinaryWriter writeRaw(byte[] bytes) {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+		return this;
+	}
+
+	/**
+	 * 写入字节数组（变长整数长度前缀）
+	 * @param bytes /
+	 * @return 对象自身
+	 */
+	public SaBinaryWriter writeBytes(byte[] bytes) {
+		writeVarInt(bytes.length);
+		return writeRaw(bytes);
+	}
+
+	/**
+	 * 写入无符号变长整数（每字节 7 位，小于 128 的值只占 1 字节）
+	 * @param value 非负整数
+	 * @return 对象自身
+	 */
+	public SaBinaryWriter writeVarInt(int value) {
+		ensureCapacity(5);
+		while ((value & ~0x7F) != 0) {
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+		return this;
+	}
+
+	/**
+	 * 写入无符号变长长整数
+	 * @param value 非负长整数
+	 * @return 对象自身
+	 */
+	public SaBinaryWriter writeVarLong(long value) {
+		ensureCapacity(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+		return this;
+	}
+
+	/**
+	 * 写入有符号长整数（zigzag 编码，绝对值较小的负数同样只占少量字节）
+	 * @param value /
+	 * @return 对象自身
+	 */
+	public SaBinaryWriter writeZigZagLong(long value) {
+		return writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * 写入 8 字节定长长整数
+	 * @param value /
+	 * @return 对象自身
+	 */
+	public SaBinaryWriter writeLong(long value) {
+		ensureCapacity(8);
+		for (int i = 56; i >= 0; i -= 8) {
+			buffer[position++] = (byte) (value >>> i);
+		}
+		return this;
+	}
+
+	/**
+	 * 写入可为 null 的字符串：长度前缀为 UTF-8 字节数 + 1，0 代表 null
+	 * @param str /
+	 * @return 对象自身
+	 */
+	public SaBinaryWriter writeString(String str) {
+		if(str == null) {
+			return writeVarInt(0);
+		}
+		// 纯 ASCII 字符串直接逐字节写入，避免 getBytes 产生临时数组
+		int length = str.length();
+		boolean ascii = true;
+		for (int i = 0; i < length; i++) {
+			if(str.charAt(i) >= 0x80) {
+				ascii = false;
+				break;
+			}
+		}
+		if( ! ascii) {
+			byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length + 1);
+			return writeRaw(bytes);
+		}
+		writeVarInt(length + 1);
+		ensureCapacity(length);
+		for (int i = 0; i < length; i++) {
+			buffer[position++] = (byte) str.charAt(i);
+		}
+		return this;
+	}
+
+	/**
+	 * @return 已写入的字节数
+	 */
+	public int size() {
+		return position;
+	}
+
+	/**
+	 * @return 已写入数据的副本
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, position);
+	}
+
+	void ensureCapacity(int length) {
+		if(position + length > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+		}
+	}
+
+}
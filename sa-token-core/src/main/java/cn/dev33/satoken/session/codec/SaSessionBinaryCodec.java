@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session.codec;
+
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.TokenSign;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.function.Supplier;
+
+/**
+ * SaSession 二进制编解码器：按照固定的字段顺序紧凑编码，不写入字段名与类名
+ *
+ * <p> 格式（版本 1）：</p>
+ * <pre>
+ *     magic(1) version(1)
+ *     id type loginType        -- 可为 null 的字符串：varint(UTF-8 长度 + 1) + UTF-8 字节
+ *     loginId                  -- 值编码器
+ *     token                    -- 字符串
+ *     createTime               -- zigzag varlong
+ *     tokenSignList            -- varint(数量) + [ value device tag(值编码器) ] * n
+ *     dataMap                  -- varint(数量) + [ key value(值编码器) ] * n
+ * </pre>
+ *
+ * <p> 新增字段时递增版本号，解码时按版本号分支读取，旧版本的数据仍可正常解码 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSessionBinaryCodec implements SaSessionCodec {
+
+	/** 格式标记，用于与其它序列化方式产生的数据区分 */
+	public static final int MAGIC = 0xB5;
+
+	/** 当前格式版本 */
+	public static final int VERSION = 1;
+
+	/**
+	 * 值编码器
+	 */
+	public SaSessionValueCodec valueCodec = new SaSessionValueCodecDefault();
+
+	/**
+	 * 解码时创建 SaSession 对象的方式（默认使用无参构造，不会触发 Session 创建事件）
+	 */
+	public Supplier<SaSession> sessionFactory = SaSession::new;
+
+	/**
+	 * 编码时写入缓冲区的初始容量
+	 */
+	public int initialCapacity = 256;
+
+	@Override
+	public byte[] encode(SaSession session) {
+		SaBinaryWriter writer = new SaBinaryWriter(initialCapacity);
+		writer.writeByte(MAGIC).writeByte(VERSION);
+		writer.writeString(session.getId());
+		writer.writeString(session.getType());
+		writer.writeString(session.getLoginType());
+		valueCodec.write(writer, session.getLoginId());
+		writer.writeString(session.getToken());
+		writer.writeZigZagLong(session.getCreateTime());
+
+		List<TokenSign> tokenSignList = session.getTokenSignList();
+		if(tokenSignList == null) {
+			writer.writeVarInt(0);
+		} else {
+			// 先复制一份，避免编码期间其它线程增删元素导致数量与实际写入的条数不一致
+			Object[] signs = tokenSignList.toArray();
+			writer.writeVarInt(signs.length);
+			for (Object item : signs) {
+				TokenSign sign = (TokenSign) item;
+				writer.writeString(sign.getValue());
+				writer.writeString(sign.getDevice());
+				valueCodec.write(writer, sign.getTag());
+			}
+		}
+
+		Object[] entries = session.getDataMap().entrySet().toArray();
+		writer.writeVarInt(entries.length);
+		for (Object item : entries) {
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) item;
+			writer.writeString((String) entry.getKey());
+			valueCodec.write(writer, entry.getValue());
+		}
+		return writer.toByteArray();
+	}
+
+	@Override
+	public SaSession decode(byte[] bytes) {
+		SaBinaryReader reader = new SaBinaryReader(bytes);
+		if(reader.readByte() != MAGIC) {
+			throw reader.error("格式标记不匹配");
+		}
+		int version = reader.readByte();
+		if(version != VERSION) {
+			throw reader.error("不支持的版本号 " + version);
+		}
+
+		SaSession session = sessionFactory.get();
+		session.setId(reader.readString());
+		session.setType(reader.readString());
+		session.setLoginType(reader.readString());
+		session.setLoginId(valueCodec.read(reader));
+		session.setToken(reader.readString());
+		session.setCreateTime(reader.readZigZagLong());
+
+		int signCount = reader.readVarInt();
+		List<TokenSign> tokenSignList = new Vector<>(SaSessionValueCodecDefault.capacity(signCount, reader));
+		for (int i = 0; i < signCount; i++) {
+			TokenSign sign = new TokenSign();
+			sign.setValue(reader.readString());
+			sign.setDevice(reader.readString());
+			sign.setTag(valueCodec.read(reader));
+			tokenSignList.add(sign);
+		}
+		session.setTokenSignList(tokenSignList);
+
+		int dataCount = reader.readVarInt();
+		Map<String, Object> dataMap = session.getDataMap();
+		for (int i = 0; i < dataCount; i++) {
+			String key = reader.readString();
+			Object value = valueCodec.read(reader);
+			// dataMap 为 ConcurrentHashMap，不接受 null
+			if(key != null && value != null) {
+				dataMap.put(key, value);
+			}
+		}
+
+		if(reader.remaining() != 0) {
+			throw reader.error("存在多余的数据");
+		}
+		return session;
+	}
+
+	@Override
+	public boolean isEncoded(byte[] bytes) {
+		return bytes != null && bytes.length >= 2 && (bytes[0] & 0xFF) == MAGIC;
+	}
+
+	/**
+	 * 设置值编码器
+	 *
+	 * @param valueCodec /
+	 * @return 对象自身
+	 */
+	public SaSessionBinaryCodec setValueCodec(SaSessionValueCodec valueCodec) {
+		this.valueCodec = valueCodec;
+		return this;
+	}
+
+	/**
+	 * 设置解码时创建 SaSession 对象的方式（自定义了 SaSession 子类时使用）
+	 *
+	 * @param sessionFactory /
+	 * @return 对象自身
+	 */
+	public SaSessionBinaryCodec setSessionFactory(Supplier<SaSession> sessionFactory) {
+		this.sessionFactory = sessionFactory;
+		return this;
+	}
+
+}
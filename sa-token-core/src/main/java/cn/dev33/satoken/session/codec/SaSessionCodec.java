@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session.codec;
+
+import cn.dev33.satoken.session.SaSession;
+
+/**
+ * SaSession 编解码器：将 SaSession 转换为字节数组，以及还原
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public interface SaSessionCodec {
+
+	/**
+	 * 编码
+	 *
+	 * @param session SaSession
+	 * @return 字节数组
+	 */
+	byte[] encode(SaSession session);
+
+	/**
+	 * 解码
+	 *
+	 * @param bytes 字节数组
+	 * @return SaSession
+	 */
+	SaSession decode(byte[] bytes);
+
+	/**
+	 * 判断一段数据是否为此编解码器产生的格式（用于兼容切换编解码器之前已经存储的旧数据）
+	 *
+	 * @param bytes 字节数组
+	 * @return /
+	 */
+	boolean isEncoded(byte[] bytes);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session.codec;
+
+/**
+ * SaSession 值编码器：负责 dataMap 中的值、loginId、TokenSign 的 tag 等任意类型字段的二进制编码
+ *
+ * <p> 可自行实现此接口，替换为 Kryo、Protobuf 等序列化方式，再通过 {@link SaSessionBinaryCodec#setValueCodec(SaSessionValueCodec)} 注入 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public interface SaSessionValueCodec {
+
+	/**
+	 * 将一个值写入到二进制流
+	 *
+	 * @param writer 写入器
+	 * @param value 值（可能为 null）
+	 */
+	void write(SaBinaryWriter writer, Object value);
+
+	/**
+	 * 从二进制流中读取一个值
+	 *
+	 * @param reader 读取器
+	 * @return 值
+	 */
+	Object read(SaBinaryReader reader);
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.session.codec;
+
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SaSession 值编码器，默认实现
+ *
+ * <p>
+ *     每个值以 1 个字节的类型标记开头：常见的基本类型、字符串、集合以紧凑格式写入；
+ *     其它实现了 Serializable 的对象回退为 JDK 序列化，既不支持紧凑格式也未实现 Serializable 的对象编码时抛出异常。
+ * </p>
+ *
+ * <p> 注意：List、Set、Map 解码后分别为 ArrayList、LinkedHashSet、LinkedHashMap </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSessionValueCodecDefault implements SaSessionValueCodec {
+
+	public static final int TAG_NULL = 0;
+	public static final int TAG_STRING = 1;
+	public static final int TAG_INT = 2;
+	public static final int TAG_LONG = 3;
+	public static final int TAG_TRUE = 4;
+	public static final int TAG_FALSE = 5;
+	public static final int TAG_DOUBLE = 6;
+	public static final int TAG_FLOAT = 7;
+	public static final int TAG_SHORT = 8;
+	public static final int TAG_BYTE = 9;
+	public static final int TAG_CHAR = 10;
+	public static final int TAG_BYTES = 11;
+	public static final int TAG_LIST = 12;
+	public static final int TAG_SET = 13;
+	public static final int TAG_MAP = 14;
+	public static final int TAG_BIG_DECIMAL = 15;
+	public static final int TAG_BIG_INTEGER = 16;
+	public static final int TAG_DATE = 17;
+	public static final int TAG_SERIALIZABLE = 127;
+
+	@Override
+	public void write(SaBinaryWriter writer, Object value) {
+		if(value == null) {
+			writer.writeByte(TAG_NULL);
+		} else if(value instanceof String) {
+			writer.writeByte(TAG_STRING).writeString((String) value);
+		} else if(value instanceof Integer) {
+			writer.writeByte(TAG_INT).writeZigZagLong((Integer) value);
+		} else if(value instanceof Long) {
+			writer.writeByte(TAG_LONG).writeZigZagLong((Long) value);
+		} else if(value instanceof Boolean) {
+			writer.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+		} else if(value instanceof Double) {
+			writer.writeByte(TAG_DOUBLE).writeLong(Double.doubleToLongBits((Double) value));
+		} else if(value instanceof Float) {
+			writer.writeByte(TAG_FLOAT).writeZigZagLong(Float.floatToIntBits((Float) value));
+		} else if(value instanceof Short) {
+			writer.writeByte(TAG_SHORT).writeZigZagLong((Short) value);
+		} else if(value instanceof Byte) {
+			writer.writeByte(TAG_BYTE).writeByte((Byte) value);
+		} else if(value instanceof Character) {
+			writer.writeByte(TAG_CHAR).writeVarInt((Character) value);
+		} else if(value instanceof byte[]) {
+			writer.writeByte(TAG_BYTES).writeBytes((byte[]) value);
+		} else if(value instanceof BigDecimal) {
+			writer.writeByte(TAG_BIG_DECIMAL).writeString(value.toString());
+		} else if(value instanceof BigInteger) {
+			writer.writeByte(TAG_BIG_INTEGER).writeString(value.toString());
+		} else if(value.getClass() == Date.class) {
+			writer.writeByte(TAG_DATE).writeZigZagLong(((Date) value).getTime());
+		} else if(value instanceof List) {
+			writer.writeByte(TAG_LIST);
+			writeCollection(writer, (List<?>) value);
+		} else if(value instanceof Set) {
+			writer.writeByte(TAG_SET);
+			writeCollection(writer, (Set<?>) value);
+		} else if(value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			writer.writeByte(TAG_MAP).writeVarInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				write(writer, entry.getKey());
+				write(writer, entry.getValue());
+			}
+		} else if(value instanceof Serializable) {
+			writer.writeByte(TAG_SERIALIZABLE).writeBytes(serialize(value));
+		} else {
+			throw new SaTokenException("SaSession 编码失败：不支持的值类型 " + value.getClass().getName()).setCode(SaErrorCode.CODE_12401);
+		}
+	}
+
+	@Override
+	public Object read(SaBinaryReader reader) {
+		int tag = reader.readByte();
+		switch (tag) {
+			case TAG_NULL:
+				return null;
+			case TAG_STRING:
+				return reader.readString();
+			case TAG_INT:
+				return (int) reader.readZigZagLong();
+			case TAG_LONG:
+				return reader.readZigZagLong();
+			case TAG_TRUE:
+				return Boolean.TRUE;
+			case TAG_FALSE:
+				return Boolean.FALSE;
+			case TAG_DOUBLE:
+				return Double.longBitsToDouble(reader.readLong());
+			case TAG_FLOAT:
+				return Float.intBitsToFloat((int) reader.readZigZagLong());
+			case TAG_SHORT:
+				return (short) reader.readZigZagLong();
+			case TAG_BYTE:
+				return (byte) reader.readByte();
+			case TAG_CHAR:
+				return (char) reader.readVarInt();
+			case TAG_BYTES:
+				return reader.readBytes();
+			case TAG_BIG_DECIMAL:
+				return new BigDecimal(reader.readString());
+			case TAG_BIG_INTEGER:
+				return new BigInteger(reader.readString());
+			case TAG_DATE:
+				return new Date(reader.readZigZagLong());
+			case TAG_LIST:
+				return readCollection(reader, new ArrayList<>());
+			case TAG_SET:
+				return readCollection(reader, new LinkedHashSet<>());
+			case TAG_MAP:
+				int size = reader.readVarInt();
+				Map<Object, Object> map = new LinkedHashMap<>(capacity(size, reader));
+				for (int i = 0; i < size; i++) {
+					map.put(read(reader), read(reader));
+				}
+				return map;
+			case TAG_SERIALIZABLE:
+				return deserialize(reader);
+			default:
+				throw reader.error("未知的值类型标记 " + tag);
+		}
+	}
+
+	protected void writeCollection(SaBinaryWriter writer, Collection<?> collection) {
+		writer.writeVarInt(collection.size());
+		for (Object item : collection) {
+			write(writer, item);
+		}
+	}
+
+	protected <T extends Collection<Object>> T readCollection(SaBinaryReader reader, T collection) {
+		int size = reader.readVarInt();
+		for (int i = 0; i < size; i++) {
+			collection.add(read(reader));
+		}
+		return collection;
+	}
+
+	/**
+	 * 根据声明的元素数量计算初始容量（每个元素至少占 1 个字节，声明数量超出剩余字节数说明数据已损坏）
+	 */
+	static int capacity(int size, SaBinaryReader reader) {
+		if(size > reader.remaining()) {
+			throw reader.error("集合长度超出数据范围");
+		}
+		return size < 12 ? 16 : (int) (size / 0.75f) + 1;
+	}
+
+	/**
+	 * JDK 序列化
+	 */
+	protected byte[] serialize(Object value) {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+				oos.writeObject(value);
+			}
+			return out.toByteArray();
+		} catch (Exception e) {
+			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12401);
+		}
+	}
+
+	/**
+	 * JDK 反序列化
+	 */
+	protected Object deserialize(SaBinaryReader reader) {
+		byte[] bytes = reader.readBytes();
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return ois.readObject();
+		} catch (Exception e) {
+			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12402);
+		}
+	}
+
+}
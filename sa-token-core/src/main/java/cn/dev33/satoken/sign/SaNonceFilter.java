@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sign;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 本地 nonce 过滤器：记录本机已经见过的 nonce，在访问持久层之前拒绝明显的重放请求
+ *
+ * <p>
+ *     1、基于布隆过滤器实现，判断结果只有 “一定没见过” 与 “可能见过” 两种，后者存在极小的误判率，即一个全新的 nonce 可能被误拒。
+ *     <br> 2、布隆过滤器无法删除元素，因此采用新、旧两代过滤器轮换：每隔一个轮换周期丢弃旧的一代，
+ *          一个 nonce 在本地被记住的时长介于一个与两个轮换周期之间。
+ *     <br> 3、轮换周期应取持久层中 nonce 存活时间的一半，保证本地记住的时长不超过持久层，本地过滤器只做预判，最终以持久层为准。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaNonceFilter {
+
+	/**
+	 * 每一代过滤器的位数组长度
+	 */
+	final int bitSize;
+
+	/**
+	 * 每个元素需要计算的哈希次数
+	 */
+	final int hashCount;
+
+	/**
+	 * 轮换周期（单位：ms）
+	 */
+	final long rotatePeriod;
+
+	/**
+	 * 当前一代
+	 */
+	volatile AtomicLongArray current;
+
+	/**
+	 * 上一代
+	 */
+	volatile AtomicLongArray previous;
+
+	/**
+	 * 下一次轮换的时间（13位时间戳）
+	 */
+	volatile long nextRotateTime;
+
+	/**
+	 * 构建一个本地 nonce 过滤器
+	 *
+	 * @param expectedSize 一个轮换周期内预计写入的 nonce 数量
+	 * @param fpp 期望的误判率
+	 * @param rotatePeriod 轮换周期（单位：ms）
+	 */
+	public SaNonceFilter(int expectedSize, double fpp, long rotatePeriod) {
+		if(expectedSize <= 0) {
+			throw new IllegalArgumentException("expectedSize 必须大于 0");
+		}
+		if(fpp <= 0 || fpp >= 1) {
+			throw new IllegalArgumentException("fpp 必须介于 0 与 1 之间");
+		}
+		// 最优位数 m = -n * ln(p) / (ln2)^2，最优哈希次数 k = m / n * ln2
+		long bits = (long) Math.ceil(-expectedSize * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+		this.bitSize = (int) Math.max(64, Math.min(bits, Integer.MAX_VALUE - 63L));
+		this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedSize * Math.log(2)));
+		this.rotatePeriod = Math.max(1, rotatePeriod);
+		this.current = newGeneration();
+		this.previous = newGeneration();
+		this.nextRotateTime = System.currentTimeMillis() + this.rotatePeriod;
+	}
+
+	/**
+	 * 判断：此 nonce 是否可能已经见过（返回 false 代表一定没见过）
+	 *
+	 * @param nonce /
+	 * @return /
+	 */
+	public boolean mightContain(String nonce) {
+		rotateIfNecessary();
+		long hash = hash64(nonce);
+		return contains(current, hash) || contains(previous, hash);
+	}
+
+	/**
+	 * 记录一个 nonce
+	 *
+	 * @param nonce /
+	 */
+	public void put(String nonce) {
+		rotateIfNecessary();
+		long hash = hash64(nonce);
+		AtomicLongArray bits = current;
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			int index = indexOf(h1 + i * h2);
+			long mask = 1L << index;
+			int slot = index >>> 6;
+			long old;
+			do {
+				old = bits.get(slot);
+				if((old & mask) != 0) {
+					break;
+				}
+			} while ( ! bits.compareAndSet(slot, old, old | mask));
+		}
+	}
+
+	/**
+	 * 清空所有记录
+	 */
+	public synchronized void clear() {
+		this.current = newGeneration();
+		this.previous = newGeneration();
+		this.nextRotateTime = System.currentTimeMillis() + rotatePeriod;
+	}
+
+
+	// ------------------------ 内部实现
+
+	/**
+	 * 到达轮换时间时：当前一代降为上一代，新建一个空的当前一代；超过两个周期无访问时两代均丢弃
+	 */
+	protected void rotateIfNecessary() {
+		long now = System.currentTimeMillis();
+		if(now < nextRotateTime) {
+			return;
+		}
+		synchronized (this) {
+			if(now < nextRotateTime) {
+				return;
+			}
+			this.previous = (now < nextRotateTime + rotatePeriod) ? current : newGeneration();
+			this.current = newGeneration();
+			this.nextRotateTime = now + rotatePeriod;
+		}
+	}
+
+	protected boolean contains(AtomicLongArray bits, long hash) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= hashCount; i++) {
+			int index = indexOf(h1 + i * h2);
+			if((bits.get(index >>> 6) & (1L << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	protected AtomicLongArray newGeneration() {
+		return new AtomicLongArray((bitSize + 63) >>> 6);
+	}
+
+	/**
+	 * 将组合哈希值映射为位数组下标
+	 */
+	protected int indexOf(int combinedHash) {
+		return (combinedHash & Integer.MAX_VALUE) % bitSize;
+	}
+
+	/**
+	 * 计算字符串的 64 位哈希值（FNV-1a，再经过一轮混淆使高低 32 位均匀分布）
+	 */
+	protected static long hash64(String str) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < str.length(); i++) {
+			h ^= str.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= (h >>> 33);
+		h *= 0xff51afd7ed558ccdL;
+		h ^= (h >>> 33);
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= (h >>> 33);
+		return h;
+	}
+
+}
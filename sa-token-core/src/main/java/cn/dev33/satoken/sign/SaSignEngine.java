@@ -0,0 +1,352 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sign;
+
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaSignException;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+
+/**
+ * API 参数签名引擎：将排序后的参数逐段写入线程缓存的摘要对象，不拼接中间字符串
+ *
+ * <p>
+ *     1、计算结果与 “先拼接 k1=v1&amp;k2=v2&amp;key=secretKey 再做摘要” 完全一致，只是省去了参数 Map 的复制与整段字符串的拼接。
+ *     <br> 2、每个线程持有一份 MessageDigest / Mac 与一块字节缓冲区，纯 ASCII 的参数直接写入缓冲区，含非 ASCII 字符时才转换为字节数组。
+ *     <br> 3、一个引擎对象对应一组固定的 [算法 + 秘钥]，配置变化时应重新创建。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSignEngine {
+
+	/** 签名算法：md5 */
+	public static final String MD5 = "md5";
+
+	/** 签名算法：sha1 */
+	public static final String SHA1 = "sha1";
+
+	/** 签名算法：sha256 */
+	public static final String SHA256 = "sha256";
+
+	/** 签名算法：sha512 */
+	public static final String SHA512 = "sha512";
+
+	/** 签名算法：hmac-sha256 */
+	public static final String HMAC_SHA256 = "hmac-sha256";
+
+	/**
+	 * 字节缓冲区大小
+	 */
+	static final int BUFFER_SIZE = 512;
+
+	static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * 签名算法
+	 */
+	public final String algorithm;
+
+	/**
+	 * 秘钥
+	 */
+	public final String secretKey;
+
+	/**
+	 * 秘钥参数的名称（摘要算法下秘钥以 &amp;key=secretKey 的形式拼接在末尾）
+	 */
+	public final String keyName;
+
+	/**
+	 * 是否为 HMAC 算法
+	 */
+	final boolean hmac;
+
+	/**
+	 * JCA 算法名称
+	 */
+	final String jcaName;
+
+	/**
+	 * 字符串转字节时使用的字符集（md5 沿用 SaSecureUtil.md5 的平台默认字符集，其余算法为 UTF-8）
+	 */
+	final Charset charset;
+
+	/**
+	 * 每个线程各自持有的摘要对象与缓冲区
+	 */
+	final ThreadLocal<Sink> sinkCache = ThreadLocal.withInitial(this::createSink);
+
+	/**
+	 * 构建一个签名引擎
+	 *
+	 * @param algorithm 签名算法
+	 * @param secretKey 秘钥
+	 * @param keyName 秘钥参数的名称
+	 */
+	public SaSignEngine(String algorithm, String secretKey, String keyName) {
+		this.algorithm = SaFoxUtil.isEmpty(algorithm) ? MD5 : algorithm.toLowerCase();
+		this.secretKey = secretKey;
+		this.keyName = keyName;
+		this.hmac = HMAC_SHA256.equals(this.algorithm);
+		this.jcaName = getJcaName(this.algorithm);
+		this.charset = MD5.equals(this.algorithm) ? Charset.defaultCharset() : StandardCharsets.UTF_8;
+		// 提前创建一次，算法不可用时尽早报错
+		createSink();
+	}
+
+	/**
+	 * 获取签名算法对应的 JCA 算法名称
+	 *
+	 * @param algorithm 签名算法
+	 * @return /
+	 */
+	public static String getJcaName(String algorithm) {
+		switch (algorithm) {
+			case MD5: return "MD5";
+			case SHA1: return "SHA-1";
+			case SHA256: return "SHA-256";
+			case SHA512: return "SHA-512";
+			case HMAC_SHA256: return "HmacSHA256";
+			default: throw new SaSignException("不支持的签名算法：" + algorithm).setCode(SaErrorCode.CODE_12204);
+		}
+	}
+
+	/**
+	 * 对参数列表签名：参数按照 key 的字典顺序排列，跳过空值与 excludeKey
+	 *
+	 * @param paramsMap 参数列表
+	 * @param excludeKey 不参与签名的参数名称（一般为 sign），可为 null
+	 * @return 签名（十六进制小写）
+	 */
+	public String sign(Map<String, ?> paramsMap, String excludeKey) {
+		Sink sink = sinkCache.get();
+		sink.reset();
+		boolean first = true;
+
+		// 自然排序的 SortedMap 可以直接遍历，否则只对 key 排序，不复制整个 Map
+		if(paramsMap instanceof SortedMap && ((SortedMap<String, ?>) paramsMap).comparator() == null) {
+			for (Map.Entry<String, ?> entry : paramsMap.entrySet()) {
+				first = writeParam(sink, entry.getKey(), entry.getValue(), excludeKey, first);
+			}
+		} else {
+			String[] keys = paramsMap.keySet().toArray(new String[0]);
+			Arrays.sort(keys);
+			for (String key : keys) {
+				first = writeParam(sink, key, paramsMap.get(key), excludeKey, first);
+			}
+		}
+
+		// 摘要算法将秘钥拼接在末尾，HMAC 算法的秘钥已作为 Mac 的密钥
+		if( ! hmac) {
+			sink.write('&');
+			sink.write(keyName);
+			sink.write('=');
+			sink.write(secretKey);
+		}
+		return sink.finish();
+	}
+
+	/**
+	 * 对一个已经拼接好的参数字符串签名
+	 *
+	 * @param paramsStr 形如 k1=v1&amp;k2=v2 的参数字符串（不含秘钥）
+	 * @return 签名（十六进制小写）
+	 */
+	public String sign(String paramsStr) {
+		Sink sink = sinkCache.get();
+		sink.reset();
+		sink.write(paramsStr);
+		if( ! hmac) {
+			sink.write('&');
+			sink.write(keyName);
+			sink.write('=');
+			sink.write(secretKey);
+		}
+		return sink.finish();
+	}
+
+	/**
+	 * 对任意字符串做摘要（不附加秘钥，HMAC 算法下以秘钥作为密钥）
+	 *
+	 * @param str 字符串
+	 * @return 摘要（十六进制小写）
+	 */
+	public String digest(String str) {
+		Sink sink = sinkCache.get();
+		sink.reset();
+		sink.write(str);
+		return sink.finish();
+	}
+
+	/**
+	 * 判断：当前引擎是否由指定的 [算法 + 秘钥 + 秘钥参数名称] 构建
+	 *
+	 * @param algorithm 签名算法
+	 * @param secretKey 秘钥
+	 * @param keyName 秘钥参数的名称
+	 * @return /
+	 */
+	public boolean matches(String algorithm, String secretKey, String keyName) {
+		String algo = SaFoxUtil.isEmpty(algorithm) ? MD5 : algorithm;
+		return this.algorithm.equalsIgnoreCase(algo) && Objects.equals(this.secretKey, secretKey) && Objects.equals(this.keyName, keyName);
+	}
+
+	/**
+	 * 以固定耗时比较两个签名字符串，避免通过响应时间逐字节猜测签名
+	 *
+	 * @param a /
+	 * @param b /
+	 * @return 是否相等
+	 */
+	public static boolean constantTimeEquals(String a, String b) {
+		if(a == null || b == null) {
+			return false;
+		}
+		int diff = a.length() ^ b.length();
+		int length = Math.max(a.length(), b.length());
+		for (int i = 0; i < length; i++) {
+			char ca = i < a.length() ? a.charAt(i) : 0;
+			char cb = i < b.length() ? b.charAt(i) : 0;
+			diff |= ca ^ cb;
+		}
+		return diff == 0;
+	}
+
+
+	// ------------------------ 内部实现
+
+	boolean writeParam(Sink sink, String key, Object value, String excludeKey, boolean first) {
+		if(SaFoxUtil.isEmpty(value) || key.equals(excludeKey)) {
+			return first;
+		}
+		if( ! first) {
+			sink.write('&');
+		}
+		sink.write(key);
+		sink.write('=');
+		sink.write(value instanceof String ? (String) value : String.valueOf(value));
+		return false;
+	}
+
+	Sink createSink() {
+		try {
+			if(hmac) {
+				Mac mac = Mac.getInstance(jcaName);
+				mac.init(new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), jcaName));
+				return new Sink(null, mac, charset);
+			}
+			return new Sink(MessageDigest.getInstance(jcaName), null, charset);
+		} catch (Exception e) {
+			throw new SaTokenException(e).setCode(SaErrorCode.CODE_12204);
+		}
+	}
+
+	/**
+	 * 单个线程的写入目标：摘要对象 + 字节缓冲区
+	 */
+	static class Sink {
+
+		final MessageDigest digest;
+		final Mac mac;
+		final Charset charset;
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		int position;
+
+		Sink(MessageDigest digest, Mac mac, Charset charset) {
+			this.digest = digest;
+			this.mac = mac;
+			this.charset = charset;
+		}
+
+		void reset() {
+			position = 0;
+			if(digest != null) {
+				digest.reset();
+			} else {
+				mac.reset();
+			}
+		}
+
+		void write(char c) {
+			if(position == buffer.length) {
+				flush();
+			}
+			buffer[position++] = (byte) c;
+		}
+
+		void write(String str) {
+			int length = str.length();
+			// 含非 ASCII 字符时，此字符串整体交由字符集转换
+			for (int i = 0; i < length; i++) {
+				if(str.charAt(i) >= 0x80) {
+					flush();
+					update(str.getBytes(charset));
+					return;
+				}
+			}
+			for (int i = 0; i < length; i++) {
+				if(position == buffer.length) {
+					flush();
+				}
+				buffer[position++] = (byte) str.charAt(i);
+			}
+		}
+
+		void flush() {
+			if(position > 0) {
+				update(buffer, 0, position);
+				position = 0;
+			}
+		}
+
+		void update(byte[] bytes) {
+			update(bytes, 0, bytes.length);
+		}
+
+		void update(byte[] bytes, int offset, int length) {
+			if(digest != null) {
+				digest.update(bytes, offset, length);
+			} else {
+				mac.update(bytes, offset, length);
+			}
+		}
+
+		String finish() {
+			flush();
+			byte[] result = digest != null ? digest.digest() : mac.doFinal();
+			char[] chars = new char[result.length * 2];
+			for (int i = 0; i < result.length; i++) {
+				chars[i * 2] = HEX_DIGITS[result[i] >>> 4 & 0xf];
+				chars[i * 2 + 1] = HEX_DIGITS[result[i] & 0xf];
+			}
+			return new String(chars);
+		}
+
+	}
+
+}
@@ -20,7 +20,6 @@ import cn.dev33.satoken.config.SaSignConfig;
 import cn.dev33.satoken.context.model.SaRequest;
 import cn.dev33.satoken.error.SaErrorCode;
 import cn.dev33.satoken.exception.SaSignException;
-import cn.dev33.satoken.secure.SaSecureUtil;
 import cn.dev33.satoken.util.SaFoxUtil;
 
 import java.util.Map;
@@ -84,6 +83,48 @@ public class SaSignTemplate {
 	 */
 	public SaSignTemplate setSignConfig(SaSignConfig signConfig) {
 		this.signConfig = signConfig;
+		this.nonceFilter = null;
+		return this;
+	}
+
+
+	// ----------- 本地 nonce 过滤器
+
+	/**
+	 * 本地 nonce 过滤器（首次使用时根据签名配置创建）
+	 */
+	volatile SaNonceFilter nonceFilter;
+
+	/**
+	 * 获取：本地 nonce 过滤器，签名配置中未开启时返回 null
+	 *
+	 * @return /
+	 */
+	public SaNonceFilter getNonceFilter() {
+		SaSignConfig config = getSignConfigOrGlobal();
+		if(config.getNonceFilterSize() <= 0) {
+			return null;
+		}
+		if(nonceFilter == null) {
+			synchronized (this) {
+				if(nonceFilter == null) {
+					// 轮换周期取 nonce 存活时间的一半，保证本地记住 nonce 的时长不超过持久层
+					long rotatePeriod = getSaveNonceTimeout() * 1000 / 2;
+					nonceFilter = new SaNonceFilter(config.getNonceFilterSize(), config.getNonceFilterFpp(), rotatePeriod);
+				}
+			}
+		}
+		return nonceFilter;
+	}
+
+	/**
+	 * 设置：本地 nonce 过滤器
+	 *
+	 * @param nonceFilter /
+	 * @return 对象自身
+	 */
+	public SaSignTemplate setNonceFilter(SaNonceFilter nonceFilter) {
+		this.nonceFilter = nonceFilter;
 		return this;
 	}
 
@@ -142,7 +183,33 @@ public class SaSignTemplate {
 	// ----------- 创建签名
 
 	/**
-	 * 创建签名：md5(paramsStr + keyStr)
+	 * 签名引擎（随签名配置中的算法与秘钥变化而重建）
+	 */
+	volatile SaSignEngine signEngine;
+
+	/**
+	 * 子类是否重写了参与计算签名的方法（abstractStr、joinParams、joinParamsDictSort）
+	 */
+	Boolean signMethodOverridden;
+
+	/**
+	 * 获取：与当前签名配置对应的签名引擎
+	 *
+	 * @return /
+	 */
+	public SaSignEngine getSignEngine() {
+		SaSignConfig config = getSignConfigOrGlobal();
+		SaSignEngine engine = signEngine;
+		String secretKey = getSecretKey();
+		if(engine == null || ! engine.matches(config.getSignAlgo(), secretKey, key)) {
+			engine = new SaSignEngine(config.getSignAlgo(), secretKey, key);
+			signEngine = engine;
+		}
+		return engine;
+	}
+
+	/**
+	 * 创建签名：digest(paramsStr + keyStr)，默认 md5，可通过签名配置切换为 sha256、hmac-sha256 等算法
 	 * @param paramsMap 参数列表
 	 * @return 签名 
 	 */
@@ -150,26 +217,58 @@ public class SaSignTemplate {
 		String secretKey = getSecretKey();
 		SaSignException.throwByNull(secretKey, "参与参数签名的秘钥不可为空", SaErrorCode.CODE_12201);
 
-		// 如果调用者不小心传入了 sign 参数，则此处需要将 sign 参数排除在外
-		if(paramsMap.containsKey(sign)) {
-			// 为了保证不影响原有的 paramsMap，此处需要再复制一份
-			paramsMap = new TreeMap<>(paramsMap);
-			paramsMap.remove(sign);
+		// 子类重写了拼接参数或摘要的方法时，仍然按原流程拼接出完整字符串交由其计算，保证自定义的逻辑生效
+		if(isSignMethodOverridden()) {
+			// 如果调用者不小心传入了 sign 参数，则此处需要将 sign 参数排除在外
+			if(paramsMap.containsKey(sign)) {
+				// 为了保证不影响原有的 paramsMap，此处需要再复制一份
+				paramsMap = new TreeMap<>(paramsMap);
+				paramsMap.remove(sign);
+			}
+			String paramsStr = joinParamsDictSort(paramsMap);
+			String fullStr = paramsStr + "&" + key + "=" + secretKey;
+			return abstractStr(fullStr);
 		}
 
-		// 计算签名
-		String paramsStr = joinParamsDictSort(paramsMap);
-		String fullStr = paramsStr + "&" + key + "=" + secretKey;
-		return abstractStr(fullStr);
+		// 排序后的参数逐段写入摘要对象，sign 参数在遍历时跳过，不复制 paramsMap
+		return getSignEngine().sign(paramsMap, sign);
 	}
 
 	/**
-	 * 使用摘要算法创建签名
+	 * 使用摘要算法创建签名（按照签名配置中的算法计算，hmac 类算法以秘钥作为密钥）
+	 *
+	 * <p> hmac 类算法下，会先去掉 fullStr 末尾拼接的 &amp;key=秘钥，保证与 createSign 的计算结果一致 </p>
+	 *
 	 * @param fullStr 待摘要的字符串
 	 * @return 签名
 	 */
 	public String abstractStr(String fullStr) {
-		return SaSecureUtil.md5(fullStr);
+		SaSignEngine engine = getSignEngine();
+		if(engine.hmac) {
+			String keySuffix = "&" + key + "=" + engine.secretKey;
+			if(fullStr.endsWith(keySuffix)) {
+				fullStr = fullStr.substring(0, fullStr.length() - keySuffix.length());
+			}
+		}
+		return engine.digest(fullStr);
+	}
+
+	/**
+	 * 判断：子类是否重写了参与计算签名的方法（abstractStr、joinParams、joinParamsDictSort）
+	 * @return /
+	 */
+	protected boolean isSignMethodOverridden() {
+		if(signMethodOverridden == null) {
+			try {
+				Class<?> cls = getClass();
+				signMethodOverridden = cls.getMethod("abstractStr", String.class).getDeclaringClass() != SaSignTemplate.class
+						|| cls.getMethod("joinParams", Map.class).getDeclaringClass() != SaSignTemplate.class
+						|| cls.getMethod("joinParamsDictSort", Map.class).getDeclaringClass() != SaSignTemplate.class;
+			} catch (NoSuchMethodException e) {
+				signMethodOverridden = false;
+			}
+		}
+		return signMethodOverridden;
 	}
 
 	/**
@@ -234,6 +333,12 @@ public class SaSignTemplate {
 			return false;
 		}
 
+		// 本机已经见过此 nonce，直接判定无效
+		SaNonceFilter filter = getNonceFilter();
+		if(filter != null && filter.mightContain(nonce)) {
+			return false;
+		}
+
 		// 校验此 nonce 是否已被使用过
 		String key = splicingNonceSaveKey(nonce);
 		return SaManager.getSaTokenDao().get(key) == null;
@@ -250,14 +355,30 @@ public class SaSignTemplate {
 			throw new SaSignException("nonce 为空，无效");
 		}
 
-		// 校验此 nonce 是否已被使用过
+		// 本机已经见过此 nonce，无需再访问持久层
+		SaNonceFilter filter = getNonceFilter();
+		if(filter != null && filter.mightContain(nonce)) {
+			throw new SaSignException("此 nonce 已被使用过，不可重复使用：" + nonce);
+		}
+
+		// 仅当此 nonce 未被使用过时才能保存成功，判断与保存是同一个原子操作，并发的重复请求只有一个可以通过
 		String key = splicingNonceSaveKey(nonce);
-		if(SaManager.getSaTokenDao().get(key) != null) {
+		boolean success = SaManager.getSaTokenDao().setIfAbsent(key, nonce, getSaveNonceTimeout());
+		if(filter != null) {
+			filter.put(nonce);
+		}
+		if( ! success) {
 			throw new SaSignException("此 nonce 已被使用过，不可重复使用：" + nonce);
 		}
+	}
 
-		// 校验通过后，将此 nonce 保存在缓存中，保证下次校验无法通过
-		SaManager.getSaTokenDao().set(key, nonce, getSignConfigOrGlobal().getSaveNonceExpire() * 2 + 2);
+	/**
+	 * 获取：nonce 在持久层中的存活时间（单位：秒）
+	 *
+	 * @return /
+	 */
+	public long getSaveNonceTimeout() {
+		return getSignConfigOrGlobal().getSaveNonceExpire() * 2 + 2;
 	}
 
 	/**
@@ -268,7 +389,7 @@ public class SaSignTemplate {
 	 */
 	public boolean isValidSign(Map<String, ?> paramsMap, String sign) {
 		String theSign = createSign(paramsMap);
-		return theSign.equals(sign);
+		return SaSignEngine.constantTimeEquals(theSign, sign);
 	}
 
 	/**
@@ -320,12 +441,12 @@ public class SaSignTemplate {
 		// SaSignException.throwByNull(nonceValue, "缺少 nonce 字段"); // 配置isCheckNonce=false时，可以不传 nonce
 		SaSignException.throwByNull(signValue, "缺少 sign 字段");
 
-		// 依次校验三个参数
+		// 依次校验三个参数（nonce 放在最后，签名无效的请求不会占用 nonce）
 		checkTimestamp(Long.parseLong(timestampValue));
+		checkSign(paramMap, signValue);
 		if(getSignConfigOrGlobal().getIsCheckNonce()) {
 			checkNonce(nonceValue);
 		}
-		checkSign(paramMap, signValue);
 
 		// 通过 √
 	}
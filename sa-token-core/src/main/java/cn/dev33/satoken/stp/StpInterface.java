@@ -22,7 +22,8 @@ import java.util.List;
  *
  * <p>
  *     在使用权限校验 API 之前，你必须实现此接口，告诉框架哪些用户拥有哪些权限。<br>
- *     框架默认不对数据进行缓存，如果你的数据是从数据库中读取的，一般情况下你需要手动实现数据的缓存读写。
+ *     框架默认不对数据进行缓存，如果你的数据是从数据库中读取的，一般情况下你需要手动实现数据的缓存读写，
+ *     或者使用 {@link StpInterfaceForCache} 对你的实现进行包装。
  * </p>
  * 
  * @author click33
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.stp;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.context.model.SaStorage;
+import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.listener.SaTokenListener;
+import cn.dev33.satoken.listener.SaTokenListenerForSimple;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 权限数据加载源接口，带缓存的包装实现
+ *
+ * <p>
+ *     对开发者实现的 StpInterface 进行包装，提供两级缓存：
+ *     <br> 1、请求级缓存：同一次请求内，同一账号的权限码、角色集合只加载一次（存放在 SaStorage 中，请求结束后自动失效）。
+ *     <br> 2、跨请求缓存（可选）：在内存中缓存指定毫秒数，超过 maxSize 时自动淘汰。
+ *     <br> 注册侦听器后，账号注销、被踢下线、被顶下线、被封禁时自动清除其缓存。
+ *     <br> 缓存的集合以只读视图返回；加载期间缓存被清除时（例如加载过程中修改了账号权限），加载结果不写入跨请求缓存。
+ * </p>
+ *
+ * <p> 使用示例：</p>
+ * <pre>
+ *     SaManager.setStpInterface(new StpInterfaceForCache(new StpInterfaceImpl()).setTimeout(60000).registerListener());
+ *
+ *     // 修改了账号的权限后，手动清除缓存
+ *     ((StpInterfaceForCache) SaManager.getStpInterface()).invalidate("login", 10001);
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class StpInterfaceForCache implements StpInterface {
+
+	/**
+	 * 在 SaStorage 中存储缓存数据时使用的 key 前缀
+	 */
+	public static final String STORAGE_KEY_PREFIX = "SA_STP_INTERFACE_CACHE_";
+
+	/**
+	 * 被包装的权限数据加载源
+	 */
+	public StpInterface target;
+
+	/**
+	 * 是否开启请求级缓存
+	 */
+	public boolean requestCache = true;
+
+	/**
+	 * 跨请求缓存的有效期（单位：毫秒），<=0 代表不开启跨请求缓存
+	 */
+	public long timeout = 0;
+
+	/**
+	 * 跨请求缓存的最大数据量
+	 */
+	public int maxSize = 10000;
+
+	/**
+	 * 跨请求缓存数据
+	 */
+	public final Map<String, CacheEntry> cacheMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 账号注销、被踢下线、被顶下线、被封禁时清除缓存的侦听器
+	 */
+	public final SaTokenListener listener = new SaTokenListenerForSimple() {
+		@Override
+		public void doLogout(String loginType, Object loginId, String tokenValue) {
+			invalidate(loginType, loginId);
+		}
+		@Override
+		public void doKickout(String loginType, Object loginId, String tokenValue) {
+			invalidate(loginType, loginId);
+		}
+		@Override
+		public void doReplaced(String loginType, Object loginId, String tokenValue) {
+			invalidate(loginType, loginId);
+		}
+		@Override
+		public void doDisable(String loginType, Object loginId, String service, int level, long disableTime) {
+			invalidate(loginType, loginId);
+		}
+	};
+
+	/**
+	 * 是否正在淘汰数据
+	 */
+	private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+	/**
+	 * 失效版本号的分段数量（必须为 2 的幂）
+	 */
+	static final int GENERATION_STRIPES = 1024;
+
+	/**
+	 * 失效版本号：按 key 的哈希值分段，清除缓存时递增对应分段，加载期间版本号发生变化的数据不写入跨请求缓存
+	 * （分段数量固定，不随账号数量增长，哈希碰撞时只会让另一个 key 少缓存一次）
+	 */
+	private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+	/**
+	 * 缓存数据：集合 + 到期时间
+	 */
+	public static class CacheEntry {
+
+		/** 集合 */
+		public final List<String> list;
+
+		/** 到期时间（13位时间戳） */
+		public final long expireTime;
+
+		public CacheEntry(List<String> list, long expireTime) {
+			this.list = list;
+			this.expireTime = expireTime;
+		}
+
+	}
+
+	public StpInterfaceForCache(StpInterface target) {
+		this.target = target;
+	}
+
+
+	// ------------------------ 实现接口
+
+	@Override
+	public List<String> getPermissionList(Object loginId, String loginType) {
+		return getList("permission:", loginId, loginType);
+	}
+
+	@Override
+	public List<String> getRoleList(Object loginId, String loginType) {
+		return getList("role:", loginId, loginType);
+	}
+
+
+	// ------------------------ 缓存读写
+
+	/**
+	 * 依次从请求级缓存、跨请求缓存、被包装的加载源中获取数据
+	 *
+	 * @param kind 数据类型，permission: 或 role:
+	 * @param loginId 账号id
+	 * @param loginType 账号类型
+	 * @return /
+	 */
+	protected List<String> getList(String kind, Object loginId, String loginType) {
+		String key = kind + loginType + ":" + loginId;
+
+		// 1、请求级缓存
+		SaStorage storage = getStorage();
+		if(storage != null) {
+			@SuppressWarnings("unchecked")
+			List<String> list = (List<String>) storage.get(STORAGE_KEY_PREFIX + key);
+			if(list != null) {
+				return list;
+			}
+		}
+
+		// 2、跨请求缓存
+		List<String> list = null;
+		if(timeout > 0) {
+			CacheEntry entry = cacheMap.get(key);
+			if(entry != null) {
+				if(entry.expireTime >= System.currentTimeMillis()) {
+					list = entry.list;
+				} else {
+					cacheMap.remove(key, entry);
+				}
+			}
+		}
+
+		// 3、从加载源获取
+		if(list == null) {
+			long generation = getGeneration(key);
+			list = kind.equals("role:") ? target.getRoleList(loginId, loginType) : target.getPermissionList(loginId, loginType);
+			if(list == null) {
+				return null;
+			}
+			if(timeout > 0 || storage != null) {
+				// 缓存的集合会被多个调用方共享，以只读视图返回，避免被调用方修改
+				list = Collections.unmodifiableList(list);
+			}
+			if(timeout > 0 && getGeneration(key) == generation) {
+				if(cacheMap.size() >= maxSize) {
+					evict();
+				}
+				CacheEntry entry = new CacheEntry(list, System.currentTimeMillis() + timeout);
+				cacheMap.put(key, entry);
+				// 写入之后再校验一次：写入前后恰好有清除操作时，撤回此次写入
+				if(getGeneration(key) != generation) {
+					cacheMap.remove(key, entry);
+				}
+			}
+		}
+
+		if(storage != null) {
+			storage.set(STORAGE_KEY_PREFIX + key, list);
+		}
+		return list;
+	}
+
+	/**
+	 * 获取指定 key 所在分段的失效版本号
+	 *
+	 * @param key 缓存 key
+	 * @return /
+	 */
+	protected long getGeneration(String key) {
+		return generations.get(getGenerationIndex(key));
+	}
+
+	/**
+	 * 获取指定 key 所在的失效版本号分段
+	 *
+	 * @param key 缓存 key
+	 * @return /
+	 */
+	protected int getGenerationIndex(String key) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+	}
+
+	/**
+	 * 获取当前请求的 SaStorage，请求上下文不可用或未开启请求级缓存时返回 null
+	 *
+	 * @return /
+	 */
+	protected SaStorage getStorage() {
+		if( ! requestCache) {
+			return null;
+		}
+		SaTokenContext context = SaManager.getSaTokenContextOrSecond();
+		if( ! context.isValid()) {
+			return null;
+		}
+		return context.getStorage();
+	}
+
+	/**
+	 * 缓存数量超过上限时，先清除已过期的数据，仍然超过时再清除部分数据，直至降到上限的 3/4
+	 */
+	protected void evict() {
+		if( ! evicting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			long now = System.currentTimeMillis();
+			cacheMap.values().removeIf(entry -> entry.expireTime < now);
+			int threshold = maxSize / 4 * 3;
+			Iterator<String> iterator = cacheMap.keySet().iterator();
+			while (cacheMap.size() > threshold && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		} finally {
+			evicting.set(false);
+		}
+	}
+
+
+	// ------------------------ 缓存清除
+
+	/**
+	 * 清除指定账号的缓存（跨请求缓存 + 当前请求的请求级缓存）
+	 *
+	 * @param loginType 账号类型
+	 * @param loginId 账号id
+	 */
+	public void invalidate(String loginType, Object loginId) {
+		String suffix = loginType + ":" + loginId;
+		// 先递增版本号再清除，使正在进行中的加载不会把旧数据写回缓存
+		generations.incrementAndGet(getGenerationIndex("permission:" + suffix));
+		generations.incrementAndGet(getGenerationIndex("role:" + suffix));
+		cacheMap.remove("permission:" + suffix);
+		cacheMap.remove("role:" + suffix);
+		SaStorage storage = getStorage();
+		if(storage != null) {
+			storage.delete(STORAGE_KEY_PREFIX + "permission:" + suffix);
+			storage.delete(STORAGE_KEY_PREFIX + "role:" + suffix);
+		}
+	}
+
+	/**
+	 * 清除所有账号的跨请求缓存
+	 */
+	public void invalidateAll() {
+		for (int i = 0; i < GENERATION_STRIPES; i++) {
+			generations.incrementAndGet(i);
+		}
+		cacheMap.clear();
+	}
+
+	/**
+	 * 将缓存清除侦听器注册到事件中心
+	 *
+	 * @return 对象自身
+	 */
+	public StpInterfaceForCache registerListener() {
+		if( ! SaTokenEventCenter.hasListener(listener)) {
+			SaTokenEventCenter.registerListener(listener);
+		}
+		return this;
+	}
+
+	/**
+	 * 从事件中心移除缓存清除侦听器
+	 *
+	 * @return 对象自身
+	 */
+	public StpInterfaceForCache removeListener() {
+		SaTokenEventCenter.removeListener(listener);
+		return this;
+	}
+
+
+	// ------------------------ get / set
+
+	/**
+	 * @return 被包装的权限数据加载源
+	 */
+	public StpInterface getTarget() {
+		return target;
+	}
+
+	/**
+	 * @param target 被包装的权限数据加载源
+	 * @return 对象自身
+	 */
+	public StpInterfaceForCache setTarget(StpInterface target) {
+		this.target = target;
+		return this;
+	}
+
+	/**
+	 * @return 是否开启请求级缓存
+	 */
+	public boolean getRequestCache() {
+		return requestCache;
+	}
+
+	/**
+	 * @param requestCache 是否开启请求级缓存
+	 * @return 对象自身
+	 */
+	public StpInterfaceForCache setRequestCache(boolean requestCache) {
+		this.requestCache = requestCache;
+		return this;
+	}
+
+	/**
+	 * @return 跨请求缓存的有效期（单位：毫秒），<=0 代表不开启跨请求缓存
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * @param timeout 跨请求缓存的有效期（单位：毫秒），<=0 代表不开启跨请求缓存
+	 * @return 对象自身
+	 */
+	public StpInterfaceForCache setTimeout(long timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * @return 跨请求缓存的最大数据量
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @param maxSize 跨请求缓存的最大数据量
+	 * @return 对象自身
+	 */
+	public StpInterfaceForCache setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+}
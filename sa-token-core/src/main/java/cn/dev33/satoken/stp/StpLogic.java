@@ -24,11 +24,15 @@ import cn.dev33.satoken.context.model.SaCookie;
 import cn.dev33.satoken.context.model.SaRequest;
 import cn.dev33.satoken.context.model.SaResponse;
 import cn.dev33.satoken.context.model.SaStorage;
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoPipeline;
 import cn.dev33.satoken.error.SaErrorCode;
 import cn.dev33.satoken.exception.*;
 import cn.dev33.satoken.fun.SaFunction;
 import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.lock.SaAccountLock;
+import cn.dev33.satoken.lock.SaAccountLockScope;
 import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.session.TokenSign;
 import cn.dev33.satoken.strategy.SaStrategy;
@@ -36,6 +40,7 @@ import cn.dev33.satoken.util.SaFoxUtil;
 import cn.dev33.satoken.util.SaTokenConsts;
 import cn.dev33.satoken.util.SaValue2Box;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -467,33 +472,49 @@ public class StpLogic {
 		SaTokenConfig config = getConfigOrGlobal();
 		loginModel.build(config);
 
-		// 3、给这个账号分配一个可用的 token
-		String tokenValue = distUsableToken(id, loginModel);
-		
-		// 4、获取此账号的 Account-Session , 续期
-		SaSession session = getSessionByLoginId(id, true);
-		session.updateMinTimeout(loginModel.getTimeout());
-		
-		// 5、在 Account-Session 上记录本次登录的 token 签名
-		TokenSign tokenSign = new TokenSign(tokenValue, loginModel.getDeviceOrDefault(), loginModel.getTokenSignTag());
-		session.addTokenSign(tokenSign);
+		// 3 ~ 9 步在账号会话锁内执行，同一账号的并发登录、注销在此排队，避免 Account-Session 上的 token 签名被相互覆盖
+		String tokenValue;
+		try (SaAccountLockScope lockScope = lockAccount(id)) {
 
-		// 6、保存 token -> id 的映射关系，方便日后根据 token 找账号 id
-		saveTokenToIdMapping(tokenValue, id, loginModel.getTimeout());
+			// 3 ~ 7 步在持久层管道作用域中执行，其中所有写操作在作用域结束时一次性提交
+			SaSession session;
+			try (SaTokenDaoPipeline pipeline = getSaTokenDao().openPipeline()) {
+				try {
 
-		// 7、写入这个 token 的最后活跃时间 token-last-active
-		if(isOpenCheckActiveTimeout()) {
-			setLastActiveToNow(tokenValue, loginModel.getActiveTimeout(), loginModel.getTimeoutOrGlobalConfig());
-		}
+					// 3、给这个账号分配一个可用的 token
+					tokenValue = distUsableToken(id, loginModel);
 
-		// 8、$$ 发布全局事件：账号 xxx 登录成功
-		SaTokenEventCenter.doLogin(loginType, id, tokenValue, loginModel);
+					// 4、获取此账号的 Account-Session , 续期
+					session = getSessionByLoginId(id, true);
+					session.updateMinTimeout(loginModel.getTimeout());
 
-		// 9、检查此账号会话数量是否超出最大值，如果超过，则按照登录时间顺序，把最开始登录的给注销掉
-		if(config.getMaxLoginCount() != -1) {
-			logoutByMaxLoginCount(id, session, null, config.getMaxLoginCount());
+					// 5、在 Account-Session 上记录本次登录的 token 签名
+					TokenSign tokenSign = new TokenSign(tokenValue, loginModel.getDeviceOrDefault(), loginModel.getTokenSignTag());
+					session.addTokenSign(tokenSign);
+
+					// 6、保存 token -> id 的映射关系，方便日后根据 token 找账号 id
+					saveTokenToIdMapping(tokenValue, id, loginModel.getTimeout());
+
+					// 7、写入这个 token 的最后活跃时间 token-last-active
+					if(isOpenCheckActiveTimeout()) {
+						setLastActiveToNow(tokenValue, loginModel.getActiveTimeout(), loginModel.getTimeoutOrGlobalConfig());
+					}
+				} catch (RuntimeException | Error e) {
+					// 中途出现异常时放弃暂存的写操作，避免只提交一半
+					pipeline.discard();
+					throw e;
+				}
+			}
+
+			// 8、$$ 发布全局事件：账号 xxx 登录成功
+			SaTokenEventCenter.doLogin(loginType, id, tokenValue, loginModel);
+
+			// 9、检查此账号会话数量是否超出最大值，如果超过，则按照登录时间顺序，把最开始登录的给注销掉
+			if(config.getMaxLoginCount() != -1) {
+				logoutByMaxLoginCount(id, session, null, config.getMaxLoginCount());
+			}
 		}
-		
+
 		// 10、一切处理完毕，返回会话凭证 token
 		return tokenValue;
 	}
@@ -646,36 +667,44 @@ public class StpLogic {
 	 * @param device 设备类型 (填 null 代表注销该账号的所有设备类型)
 	 */
 	public void logout(Object loginId, String device) {
-		// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
-		SaSession session = getSessionByLoginId(loginId, false);
-		if(session != null) {
+		try (SaAccountLockScope lockScope = lockAccount(loginId); SaTokenDaoPipeline pipeline = getSaTokenDao().openPipeline()) {
+			try {
+				// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
+				SaSession session = getSessionByLoginId(loginId, false);
+				if(session != null) {
 
-			// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
-			for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+					// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
+					for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
 
-				// 2.1、获取此客户端的 token 值
-				String tokenValue = tokenSign.getValue();
+						// 2.1、获取此客户端的 token 值
+						String tokenValue = tokenSign.getValue();
 
-				// 2.2、从 Account-Session 上清除 token 签名
-				session.removeTokenSign(tokenValue);
+						// 2.2、从 Account-Session 上清除 token 签名
+						session.removeTokenSign(tokenValue);
 
-				// 2.3、清除这个 token 的最后活跃时间记录
-				if(isOpenCheckActiveTimeout()) {
-					clearLastActive(tokenValue);
-				}
+						// 2.3、清除这个 token 的最后活跃时间记录
+						if(isOpenCheckActiveTimeout()) {
+							clearLastActive(tokenValue);
+						}
 
-		 		// 2.4、清除 token -> id 的映射关系
-				deleteTokenToIdMapping(tokenValue);
+				 		// 2.4、清除 token -> id 的映射关系
+						deleteTokenToIdMapping(tokenValue);
 
-				// 2.5、清除这个 token 的 Token-Session 对象
-				deleteTokenSession(tokenValue);
+						// 2.5、清除这个 token 的 Token-Session 对象
+						deleteTokenSession(tokenValue);
 
-				// 2.6、$$ 发布事件：xx 账号的 xx 客户端注销了
-				SaTokenEventCenter.doLogout(loginType, loginId, tokenValue);
-			}
+						// 2.6、$$ 发布事件：xx 账号的 xx 客户端注销了
+						pipeline.afterCommit(() -> SaTokenEventCenter.doLogout(loginType, loginId, tokenValue));
+					}
 
-			// 3、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
-			session.logoutByTokenSignCountToZero();
+					// 3、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
+					session.logoutByTokenSignCountToZero();
+				}
+			} catch (RuntimeException | Error e) {
+				// 中途出现异常时放弃暂存的写操作，避免只提交一半
+				pipeline.discard();
+				throw e;
+			}
 		}
 	}
 	
@@ -688,44 +717,52 @@ public class StpLogic {
 	 * @param maxLoginCount 最大登录数量，超过此数量的将被注销
 	 */
 	public void logoutByMaxLoginCount(Object loginId, SaSession session, String device, int maxLoginCount) {
+		try (SaAccountLockScope lockScope = lockAccount(loginId); SaTokenDaoPipeline pipeline = getSaTokenDao().openPipeline()) {
+			try {
+
+				// 1、如果调用者提供的  Account-Session 对象为空，则我们先手动获取一下
+				if(session == null) {
+					session = getSessionByLoginId(loginId, false);
+					if(session == null) {
+						return;
+					}
+				}
 
-		// 1、如果调用者提供的  Account-Session 对象为空，则我们先手动获取一下
-		if(session == null) {
-			session = getSessionByLoginId(loginId, false);
-			if(session == null) {
-				return;
-			}
-		}
+				// 2、获取这个账号指定设备类型下的所有登录客户端
+				List<TokenSign> list = session.getTokenSignListByDevice(device);
 
-		// 2、获取这个账号指定设备类型下的所有登录客户端
-		List<TokenSign> list = session.getTokenSignListByDevice(device);
+				// 3、按照登录时间倒叙，超过 maxLoginCount 数量的，全部注销掉
+				for (int i = 0; i < list.size() - maxLoginCount; i++) {
 
-		// 3、按照登录时间倒叙，超过 maxLoginCount 数量的，全部注销掉
-		for (int i = 0; i < list.size() - maxLoginCount; i++) {
+					// 3.1、获取此客户端的 token 值
+					String tokenValue = list.get(i).getValue();
 
-			// 3.1、获取此客户端的 token 值
-			String tokenValue = list.get(i).getValue();
+					// 3.2、从 Account-Session 上清除 token 签名
+					session.removeTokenSign(tokenValue);
 
-			// 3.2、从 Account-Session 上清除 token 签名
-			session.removeTokenSign(tokenValue);
+					// 3.3、清除这个 token 的最后活跃时间记录
+					if(isOpenCheckActiveTimeout()) {
+						clearLastActive(tokenValue);
+					}
 
-			// 3.3、清除这个 token 的最后活跃时间记录
-			if(isOpenCheckActiveTimeout()) {
-				clearLastActive(tokenValue);
-			}
+			 		// 3.4、清除 token -> id 的映射关系
+					deleteTokenToIdMapping(tokenValue);
 
-	 		// 3.4、清除 token -> id 的映射关系
-			deleteTokenToIdMapping(tokenValue);
+					// 3.5、清除这个 token 的 Token-Session 对象
+					deleteTokenSession(tokenValue);
 
-			// 3.5、清除这个 token 的 Token-Session 对象
-			deleteTokenSession(tokenValue);
+					// 3.6、$$ 发布事件：xx 账号的 xx 客户端注销了
+					pipeline.afterCommit(() -> SaTokenEventCenter.doLogout(loginType, loginId, tokenValue));
+				}
 
-			// 3.6、$$ 发布事件：xx 账号的 xx 客户端注销了
-			SaTokenEventCenter.doLogout(loginType, loginId, tokenValue);
+				// 4、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
+				session.logoutByTokenSignCountToZero();
+			} catch (RuntimeException | Error e) {
+				// 中途出现异常时放弃暂存的写操作，避免只提交一半
+				pipeline.discard();
+				throw e;
+			}
 		}
-
-		// 4、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
-		session.logoutByTokenSignCountToZero();
 	}
 	
 	/**
@@ -734,34 +771,44 @@ public class StpLogic {
 	 * @param tokenValue 指定 token
 	 */
 	public void logoutByTokenValue(String tokenValue) {
-		// 1、清除这个 token 的最后活跃时间记录
-		if(isOpenCheckActiveTimeout()) {
-			clearLastActive(tokenValue);
-		}
+		// 先根据 token 找到对应的账号 id，对此账号加锁后再清理数据（锁内直接沿用此值，不再重复读取持久层）
+		String loginId = getLoginIdNotHandle(tokenValue);
+		try (SaAccountLockScope lockScope = lockAccount(isValidLoginId(loginId) ? loginId : null);
+				SaTokenDaoPipeline pipeline = getSaTokenDao().openPipeline()) {
+			try {
+				// 1、清除这个 token 的最后活跃时间记录
+				if(isOpenCheckActiveTimeout()) {
+					clearLastActive(tokenValue);
+				}
 		
-		// 2、清除这个 token 的 Token-Session 对象
-		deleteTokenSession(tokenValue);
+				// 2、清除这个 token 的 Token-Session 对象
+				deleteTokenSession(tokenValue);
 
-		// 3、清除 token -> id 的映射关系
- 		String loginId = getLoginIdNotHandle(tokenValue);
- 		if(loginId != null) {
- 			deleteTokenToIdMapping(tokenValue);
- 		}
+				// 3、清除 token -> id 的映射关系
+		 		if(loginId != null) {
+		 			deleteTokenToIdMapping(tokenValue);
+		 		}
 
-		// 4、判断一下：如果此 token 映射的是一个无效 loginId，则此处立即返回，不需要再往下处理了
- 	 	if( ! isValidLoginId(loginId) ) {
- 			return;
- 		}
+				// 4、判断一下：如果此 token 映射的是一个无效 loginId，则此处立即返回，不需要再往下处理了
+		 	 	if( ! isValidLoginId(loginId) ) {
+		 			return;
+		 		}
  	 	
- 	 	// 5、$$ 发布事件：某某账号的某某 token 注销下线了
- 		SaTokenEventCenter.doLogout(loginType, loginId, tokenValue);
+		 	 	// 5、$$ 发布事件：某某账号的某某 token 注销下线了
+		 		pipeline.afterCommit(() -> SaTokenEventCenter.doLogout(loginType, loginId, tokenValue));
  		
-		// 6、清理这个账号的 Account-Session 上的 token 签名，并且尝试注销掉 Account-Session
- 	 	SaSession session = getSessionByLoginId(loginId, false);
- 	 	if(session != null) {
- 	 	 	session.removeTokenSign(tokenValue); 
- 			session.logoutByTokenSignCountToZero();
- 	 	}
+				// 6、清理这个账号的 Account-Session 上的 token 签名，并且尝试注销掉 Account-Session
+		 	 	SaSession session = getSessionByLoginId(loginId, false);
+		 	 	if(session != null) {
+		 	 	 	session.removeTokenSign(tokenValue); 
+		 			session.logoutByTokenSignCountToZero();
+		 	 	}
+			} catch (RuntimeException | Error e) {
+				// 中途出现异常时放弃暂存的写操作，避免只提交一半
+				pipeline.discard();
+				throw e;
+			}
+		}
 	}
 	
 	/**
@@ -782,36 +829,44 @@ public class StpLogic {
 	 * @param device 设备类型 (填 null 代表踢出该账号的所有设备类型)
 	 */
 	public void kickout(Object loginId, String device) {
-		// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
-		SaSession session = getSessionByLoginId(loginId, false);
-		if(session != null) {
+		try (SaAccountLockScope lockScope = lockAccount(loginId); SaTokenDaoPipeline pipeline = getSaTokenDao().openPipeline()) {
+			try {
+				// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
+				SaSession session = getSessionByLoginId(loginId, false);
+				if(session != null) {
 
-			// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
-			for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+					// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
+					for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
 
-				// 2.1、获取此客户端的 token 值
-				String tokenValue = tokenSign.getValue();
+						// 2.1、获取此客户端的 token 值
+						String tokenValue = tokenSign.getValue();
 
-				// 2.2、从 Account-Session 上清除 token 签名
-				session.removeTokenSign(tokenValue);
+						// 2.2、从 Account-Session 上清除 token 签名
+						session.removeTokenSign(tokenValue);
 
-				// 2.3、清除这个 token 的最后活跃时间记录
-				if(isOpenCheckActiveTimeout()) {
-					clearLastActive(tokenValue);
-				}
+						// 2.3、清除这个 token 的最后活跃时间记录
+						if(isOpenCheckActiveTimeout()) {
+							clearLastActive(tokenValue);
+						}
 
-				// 2.4、将此 token 标记为：已被踢下线
-				updateTokenToIdMapping(tokenValue, NotLoginException.KICK_OUT);
+						// 2.4、将此 token 标记为：已被踢下线
+						updateTokenToIdMapping(tokenValue, NotLoginException.KICK_OUT);
 
-				// 2.5、此处不需要清除它的 Token-Session 对象
-				// deleteTokenSession(tokenValue);
+						// 2.5、此处不需要清除它的 Token-Session 对象
+						// deleteTokenSession(tokenValue);
 
-				// 2.6、$$ 发布事件：xx 账号的 xx 客户端被踢下线了
-				SaTokenEventCenter.doKickout(loginType, loginId, tokenValue);
-			}
+						// 2.6、$$ 发布事件：xx 账号的 xx 客户端被踢下线了
+						pipeline.afterCommit(() -> SaTokenEventCenter.doKickout(loginType, loginId, tokenValue));
+					}
 
-			// 3、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
-			session.logoutByTokenSignCountToZero();
+					// 3、如果代码走到这里的时候，此账号已经没有客户端在登录了，则直接注销掉这个 Account-Session
+					session.logoutByTokenSignCountToZero();
+				}
+			} catch (RuntimeException | Error e) {
+				// 中途出现异常时放弃暂存的写操作，避免只提交一半
+				pipeline.discard();
+				throw e;
+			}
 		}
 	}
 
@@ -822,32 +877,42 @@ public class StpLogic {
 	 * @param tokenValue 指定 token
 	 */
 	public void kickoutByTokenValue(String tokenValue) {
-		// 1、清除这个 token 的最后活跃时间记录
-		if(isOpenCheckActiveTimeout()) {
-			clearLastActive(tokenValue);
-		}
+		// 先根据 token 找到对应的账号 id，对此账号加锁后再清理数据（锁内直接沿用此值，不再重复读取持久层）
+		String loginId = getLoginIdNotHandle(tokenValue);
+		try (SaAccountLockScope lockScope = lockAccount(isValidLoginId(loginId) ? loginId : null);
+				SaTokenDaoPipeline pipeline = getSaTokenDao().openPipeline()) {
+			try {
+				// 1、清除这个 token 的最后活跃时间记录
+				if(isOpenCheckActiveTimeout()) {
+					clearLastActive(tokenValue);
+				}
 		
-		// 2、此处不需要清除它的 Token-Session 对象
-		// deleteTokenSession(tokenValue);
+				// 2、此处不需要清除它的 Token-Session 对象
+				// deleteTokenSession(tokenValue);
 
-		// 3、判断一下：如果此 token 映射的是一个无效 loginId，则此处立即返回，不需要再往下处理了
- 		String loginId = getLoginIdNotHandle(tokenValue);
- 	 	if( ! isValidLoginId(loginId) ) {
- 			return;
- 		}
+				// 3、判断一下：如果此 token 映射的是一个无效 loginId，则此处立即返回，不需要再往下处理了
+		 	 	if( ! isValidLoginId(loginId) ) {
+		 			return;
+		 		}
  	 	
- 		// 4、将此 token 标记为：已被踢下线
- 	 	updateTokenToIdMapping(tokenValue, NotLoginException.KICK_OUT);
+		 		// 4、将此 token 标记为：已被踢下线
+		 	 	updateTokenToIdMapping(tokenValue, NotLoginException.KICK_OUT);
 		
- 	 	// 5、$$. 发布事件：某某 token 被踢下线了
- 		SaTokenEventCenter.doKickout(loginType, loginId, tokenValue);
-
-		// 6、清理这个账号的 Account-Session 上的 token 签名，并且尝试注销掉 Account-Session
- 	 	SaSession session = getSessionByLoginId(loginId, false);
- 	 	if(session != null) {
- 	 	 	session.removeTokenSign(tokenValue); 
- 			session.logoutByTokenSignCountToZero();
- 	 	}
+		 	 	// 5、$$. 发布事件：某某 token 被踢下线了
+		 		pipeline.afterCommit(() -> SaTokenEventCenter.doKickout(loginType, loginId, tokenValue));
+
+				// 6、清理这个账号的 Account-Session 上的 token 签名，并且尝试注销掉 Account-Session
+		 	 	SaSession session = getSessionByLoginId(loginId, false);
+		 	 	if(session != null) {
+		 	 	 	session.removeTokenSign(tokenValue); 
+		 			session.logoutByTokenSignCountToZero();
+		 	 	}
+			} catch (RuntimeException | Error e) {
+				// 中途出现异常时放弃暂存的写操作，避免只提交一半
+				pipeline.discard();
+				throw e;
+			}
+		}
 	}
 	
 	/**
@@ -858,36 +923,44 @@ public class StpLogic {
 	 * @param device 设备类型 （填 null 代表顶替该账号的所有设备类型）
 	 */
 	public void replaced(Object loginId, String device) {
-		// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
-		SaSession session = getSessionByLoginId(loginId, false);
-		if(session != null) {
+		try (SaAccountLockScope lockScope = lockAccount(loginId); SaTokenDaoPipeline pipeline = getSaTokenDao().openPipeline()) {
+			try {
+				// 1、获取此账号的 Account-Session，上面记录了此账号的所有登录客户端数据
+				SaSession session = getSessionByLoginId(loginId, false);
+				if(session != null) {
 
-			// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
-			for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
+					// 2、遍历此账号所有从这个 device 设备上登录的客户端，清除相关数据
+					for (TokenSign tokenSign: session.getTokenSignListByDevice(device)) {
 
-				// 2.1、获取此客户端的 token 值
-				String tokenValue = tokenSign.getValue();
+						// 2.1、获取此客户端的 token 值
+						String tokenValue = tokenSign.getValue();
 
-				// 2.2、从 Account-Session 上清除 token 签名
-				session.removeTokenSign(tokenValue);
+						// 2.2、从 Account-Session 上清除 token 签名
+						session.removeTokenSign(tokenValue);
 
-				// 2.3、清除这个 token 的最后活跃时间记录
-				if(isOpenCheckActiveTimeout()) {
-					clearLastActive(tokenValue);
-				}
+						// 2.3、清除这个 token 的最后活跃时间记录
+						if(isOpenCheckActiveTimeout()) {
+							clearLastActive(tokenValue);
+						}
 
-				// 2.4、将此 token 标记为：已被顶下线
-				updateTokenToIdMapping(tokenValue, NotLoginException.BE_REPLACED);
+						// 2.4、将此 token 标记为：已被顶下线
+						updateTokenToIdMapping(tokenValue, NotLoginException.BE_REPLACED);
 
-				// 2.5、此处不需要清除它的 Token-Session 对象
-				// deleteTokenSession(tokenValue);
+						// 2.5、此处不需要清除它的 Token-Session 对象
+						// deleteTokenSession(tokenValue);
 
-				// 2.6、$$ 发布事件：xx 账号的 xx 客户端注销了
-				SaTokenEventCenter.doReplaced(loginType, loginId, tokenValue);
-			}
+						// 2.6、$$ 发布事件：xx 账号的 xx 客户端注销了
+						pipeline.afterCommit(() -> SaTokenEventCenter.doReplaced(loginType, loginId, tokenValue));
+					}
 
-			// 3、因为调用顶替下线时，一般都是在新客户端正在登录，所以此处不需要清除该账号的 Account-Session
-			// session.logoutByTokenSignCountToZero();
+					// 3、因为调用顶替下线时，一般都是在新客户端正在登录，所以此处不需要清除该账号的 Account-Session
+					// session.logoutByTokenSignCountToZero();
+				}
+			} catch (RuntimeException | Error e) {
+				// 中途出现异常时放弃暂存的写操作，避免只提交一半
+				pipeline.discard();
+				throw e;
+			}
 		}
 	}
 	
@@ -2150,6 +2223,71 @@ public class StpLogic {
 	public List<String> searchTokenSessionId(String keyword, int start, int size, boolean sortType) {
 		return getSaTokenDao().searchData(splicingKeyTokenSession(""), keyword, start, size, sortType);
 	}
+
+	/**
+	 * 游标式分页查询缓存中的 token：首次查询传入 null 作为游标，之后传入上一页返回的 cursor，直至返回的 cursor 为 null
+	 *
+	 * <p> 与 searchTokenValue(keyword, start, size, sortType) 不同，此方法不会一次性加载全部数据，但也不保证顺序 </p>
+	 *
+	 * @param keyword 关键字
+	 * @param cursor 游标（null 代表从头开始）
+	 * @param size 每页期望获取的数量（实际数量可能略多于此值）
+	 *
+	 * @return 本页 token 集合与下一页的游标
+	 */
+	public SaScanResult searchTokenValue(String keyword, String cursor, int size) {
+		return scanKeys(splicingKeyTokenValue(""), keyword, cursor, size);
+	}
+
+	/**
+	 * 游标式分页查询缓存中的 SessionId
+	 *
+	 * @param keyword 关键字
+	 * @param cursor 游标（null 代表从头开始）
+	 * @param size 每页期望获取的数量（实际数量可能略多于此值）
+	 *
+	 * @return 本页 sessionId 集合与下一页的游标
+	 */
+	public SaScanResult searchSessionId(String keyword, String cursor, int size) {
+		return scanKeys(splicingKeySession(""), keyword, cursor, size);
+	}
+
+	/**
+	 * 游标式分页查询缓存中的 Token-Session-Id
+	 *
+	 * @param keyword 关键字
+	 * @param cursor 游标（null 代表从头开始）
+	 * @param size 每页期望获取的数量（实际数量可能略多于此值）
+	 *
+	 * @return 本页 sessionId 集合与下一页的游标
+	 */
+	public SaScanResult searchTokenSessionId(String keyword, String cursor, int size) {
+		return scanKeys(splicingKeyTokenSession(""), keyword, cursor, size);
+	}
+
+	/**
+	 * 连续调用 SaTokenDao#scanData，直至凑满一页或遍历完毕（SCAN 命令的单次返回可能为空，不能直接作为一页）
+	 *
+	 * @param prefix 前缀
+	 * @param keyword 关键字
+	 * @param cursor 游标
+	 * @param size 每页期望获取的数量
+	 * @return /
+	 */
+	protected SaScanResult scanKeys(String prefix, String keyword, String cursor, int size) {
+		if(size <= 0) {
+			throw new SaTokenException("每页数量必须大于 0：" + size).setCode(SaErrorCode.CODE_12502);
+		}
+		SaTokenDao dao = getSaTokenDao();
+		List<String> list = new ArrayList<>();
+		String next = cursor;
+		do {
+			SaScanResult result = dao.scanData(prefix, keyword, next, size - list.size());
+			list.addAll(result.list);
+			next = result.cursor;
+		} while (next != null && list.size() < size);
+		return new SaScanResult(list, next);
+	}
 	
 
 	// ------------------- 注解鉴权 -------------------  
@@ -2781,6 +2919,37 @@ public class StpLogic {
 		return SaManager.getSaTokenDao();
 	}
 
+	/**
+	 * 获取指定账号的会话锁，同一账号对 Account-Session 的修改在锁内串行执行
+	 *
+	 * <p>
+	 *     锁作用域应在持久层管道作用域之外开启，使管道中暂存的写操作在释放锁之前提交；
+	 *     调用方已处于外层管道作用域时，锁内的写操作会并入外层作用域暂存，因此释放最外层锁之前会先提交外层作用域当前暂存的所有写操作
+	 *     （此后外层作用域再调用 discard 也无法撤回这部分写操作，afterCommit 回调仍在外层作用域关闭时执行）。
+	 *     同一线程重入加锁时（如登录流程中的顶人下线），内层锁释放时不提交，锁仍由当前线程持有，写操作留给最外层一并提交
+	 * </p>
+	 *
+	 * @param loginId 账号id，为 null 时不加锁
+	 * @return 锁作用域，关闭即释放锁
+	 */
+	public SaAccountLockScope lockAccount(Object loginId) {
+		if(loginId == null) {
+			return SaAccountLockScope.NONE;
+		}
+		SaAccountLock accountLock = SaManager.getSaAccountLock();
+		SaAccountLockScope lockScope = accountLock.lock(loginType, loginId);
+		return () -> {
+			try {
+				SaTokenDaoPipeline pipeline = SaTokenDaoPipeline.current();
+				if(pipeline != null && accountLock.getHoldCount(loginType, loginId) <= 1) {
+					pipeline.flush();
+				}
+			} finally {
+				lockScope.close();
+			}
+		};
+	}
+
 	/**
 	 * 返回全局配置对象的 isShare 属性
 	 *
@@ -16,6 +16,7 @@
 package cn.dev33.satoken.stp;
 
 import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.fun.SaFunction;
 import cn.dev33.satoken.listener.SaTokenEventCenter;
 import cn.dev33.satoken.session.SaSession;
@@ -889,6 +890,45 @@ public class StpUtil {
 		return stpLogic.searchTokenSessionId(keyword, start, size, sortType);
 	}
 
+	/**
+	 * 游标式分页查询缓存中的 token：首次查询传入 null 作为游标，之后传入上一页返回的 cursor，直至返回的 cursor 为 null
+	 *
+	 * @param keyword 关键字
+	 * @param cursor 游标（null 代表从头开始）
+	 * @param size 每页期望获取的数量（实际数量可能略多于此值）
+	 *
+	 * @return 本页 token 集合与下一页的游标
+	 */
+	public static SaScanResult searchTokenValue(String keyword, String cursor, int size) {
+		return stpLogic.searchTokenValue(keyword, cursor, size);
+	}
+
+	/**
+	 * 游标式分页查询缓存中的 SessionId
+	 *
+	 * @param keyword 关键字
+	 * @param cursor 游标（null 代表从头开始）
+	 * @param size 每页期望获取的数量（实际数量可能略多于此值）
+	 *
+	 * @return 本页 sessionId 集合与下一页的游标
+	 */
+	public static SaScanResult searchSessionId(String keyword, String cursor, int size) {
+		return stpLogic.searchSessionId(keyword, cursor, size);
+	}
+
+	/**
+	 * 游标式分页查询缓存中的 Token-Session-Id
+	 *
+	 * @param keyword 关键字
+	 * @param cursor 游标（null 代表从头开始）
+	 * @param size 每页期望获取的数量（实际数量可能略多于此值）
+	 *
+	 * @return 本页 sessionId 集合与下一页的游标
+	 */
+	public static SaScanResult searchTokenSessionId(String keyword, String cursor, int size) {
+		return stpLogic.searchTokenSessionId(keyword, cursor, size);
+	}
+
 	
 	// ------------------- 账号封禁 -------------------  
 
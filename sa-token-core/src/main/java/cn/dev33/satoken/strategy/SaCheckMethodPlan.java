@@ -0,0 +1,238 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.strategy;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.annotation.*;
+import cn.dev33.satoken.basic.SaBasicUtil;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.fun.strategy.SaCheckElementAnnotationFunction;
+import cn.dev33.satoken.fun.strategy.SaCheckOrAnnotationFunction;
+import cn.dev33.satoken.fun.strategy.SaGetAnnotationFunction;
+import cn.dev33.satoken.fun.strategy.SaIsAnnotationPresentFunction;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 注解鉴权的预编译校验计划
+ *
+ * <p>
+ *     在一个 Method 第一次被鉴权时，将其所属 Class 与其自身上的鉴权注解解析为一组不可变的校验步骤，
+ *     之后每次请求只需按顺序执行这些步骤，不再进行任何反射查找。
+ * </p>
+ *
+ * <p>
+ *     计划中记录了编译时所用的 getAnnotation、isAnnotationPresent、checkElementAnnotation、checkOrAnnotation 策略，
+ *     开发者重写了其中任意一个策略后，旧计划会自动失效并重新编译。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaCheckMethodPlan {
+
+	/**
+	 * 没有任何校验步骤时使用的空数组
+	 */
+	static final SaFunction[] EMPTY_STEPS = new SaFunction[0];
+
+	/**
+	 * 对应的 Method
+	 */
+	public final Method method;
+
+	/**
+	 * 此 Method 或其所属 Class 是否标注了 @SaIgnore
+	 */
+	public final boolean ignore;
+
+	/**
+	 * 所有校验步骤，按照 [ Class 上的注解, Method 上的注解 ] 的顺序排列
+	 */
+	public final SaFunction[] steps;
+
+	// 编译时使用的策略
+	final SaGetAnnotationFunction getAnnotation;
+	final SaIsAnnotationPresentFunction isAnnotationPresent;
+	final SaCheckElementAnnotationFunction checkElementAnnotation;
+	final SaCheckOrAnnotationFunction checkOrAnnotation;
+	final boolean defaultCheckOr;
+
+	SaCheckMethodPlan(Method method, SaStrategy strategy) {
+		this.method = method;
+		this.getAnnotation = strategy.getAnnotation;
+		this.isAnnotationPresent = strategy.isAnnotationPresent;
+		this.checkElementAnnotation = strategy.checkElementAnnotation;
+		this.checkOrAnnotation = strategy.checkOrAnnotation;
+		this.defaultCheckOr = checkOrAnnotation == strategy.defaultCheckOrAnnotation;
+		this.ignore = isAnnotationPresent.apply(method, SaIgnore.class);
+
+		List<SaFunction> stepList = new ArrayList<>();
+		if(checkElementAnnotation == strategy.defaultCheckElementAnnotation) {
+			compileElement(method.getDeclaringClass(), stepList);
+			compileElement(method, stepList);
+		} else {
+			// 开发者重写了 [元素] 注解校验策略，则每次仍交由其处理
+			SaCheckElementAnnotationFunction check = checkElementAnnotation;
+			Class<?> cls = method.getDeclaringClass();
+			stepList.add(() -> check.accept(cls));
+			stepList.add(() -> check.accept(method));
+		}
+		this.steps = stepList.isEmpty() ? EMPTY_STEPS : stepList.toArray(new SaFunction[0]);
+	}
+
+	/**
+	 * 编译一个 Method 的校验计划
+	 *
+	 * @param method /
+	 * @return /
+	 */
+	public static SaCheckMethodPlan compile(Method method) {
+		return new SaCheckMethodPlan(method, SaStrategy.instance);
+	}
+
+	/**
+	 * 按顺序执行所有校验步骤，任意一步不通过都会抛出异常
+	 */
+	public void check() {
+		for (SaFunction step : steps) {
+			step.run();
+		}
+	}
+
+	/**
+	 * 判断：编译此计划时所用的策略，是否已被开发者重写
+	 *
+	 * @param strategy /
+	 * @return /
+	 */
+	public boolean isStale(SaStrategy strategy) {
+		return getAnnotation != strategy.getAnnotation
+				|| isAnnotationPresent != strategy.isAnnotationPresent
+				|| checkElementAnnotation != strategy.checkElementAnnotation
+				|| checkOrAnnotation != strategy.checkOrAnnotation;
+	}
+
+
+	// ------------------------ 编译
+
+	/**
+	 * 将一个 [元素] 上的鉴权注解编译为校验步骤，顺序与 SaStrategy#checkElementAnnotation 保持一致
+	 */
+	void compileElement(AnnotatedElement element, List<SaFunction> stepList) {
+
+		// @SaCheckLogin
+		SaCheckLogin checkLogin = (SaCheckLogin) getAnnotation.apply(element, SaCheckLogin.class);
+		if(checkLogin != null) {
+			stepList.add(() -> SaManager.getStpLogic(checkLogin.type(), false).checkByAnnotation(checkLogin));
+		}
+
+		// @SaCheckRole
+		SaCheckRole checkRole = (SaCheckRole) getAnnotation.apply(element, SaCheckRole.class);
+		if(checkRole != null) {
+			stepList.add(() -> SaManager.getStpLogic(checkRole.type(), false).checkByAnnotation(checkRole));
+		}
+
+		// @SaCheckPermission
+		SaCheckPermission checkPermission = (SaCheckPermission) getAnnotation.apply(element, SaCheckPermission.class);
+		if(checkPermission != null) {
+			stepList.add(() -> SaManager.getStpLogic(checkPermission.type(), false).checkByAnnotation(checkPermission));
+		}
+
+		// @SaCheckSafe
+		SaCheckSafe checkSafe = (SaCheckSafe) getAnnotation.apply(element, SaCheckSafe.class);
+		if(checkSafe != null) {
+			stepList.add(() -> SaManager.getStpLogic(checkSafe.type(), false).checkByAnnotation(checkSafe));
+		}
+
+		// @SaCheckDisable
+		SaCheckDisable checkDisable = (SaCheckDisable) getAnnotation.apply(element, SaCheckDisable.class);
+		if(checkDisable != null) {
+			stepList.add(() -> SaManager.getStpLogic(checkDisable.type(), false).checkByAnnotation(checkDisable));
+		}
+
+		// @SaCheckBasic
+		SaCheckBasic checkBasic = (SaCheckBasic) getAnnotation.apply(element, SaCheckBasic.class);
+		if(checkBasic != null) {
+			stepList.add(() -> SaBasicUtil.check(checkBasic.realm(), checkBasic.account()));
+		}
+
+		// @SaCheckOr
+		SaCheckOr checkOr = (SaCheckOr) getAnnotation.apply(element, SaCheckOr.class);
+		if(checkOr != null) {
+			stepList.add(compileCheckOr(checkOr));
+		}
+	}
+
+	/**
+	 * 将一个 @SaCheckOr 注解编译为一个校验步骤：其下所有分支只要有一个校验通过即可
+	 */
+	SaFunction compileCheckOr(SaCheckOr at) {
+
+		// 开发者重写了 @SaCheckOr 校验策略，则每次仍交由其处理
+		if( ! defaultCheckOr) {
+			SaCheckOrAnnotationFunction check = checkOrAnnotation;
+			return () -> check.accept(at);
+		}
+
+		List<SaFunction> branchList = new ArrayList<>();
+		for (SaCheckLogin item : at.login()) {
+			branchList.add(() -> SaManager.getStpLogic(item.type(), false).checkByAnnotation(item));
+		}
+		for (SaCheckRole item : at.role()) {
+			branchList.add(() -> SaManager.getStpLogic(item.type(), false).checkByAnnotation(item));
+		}
+		for (SaCheckPermission item : at.permission()) {
+			branchList.add(() -> SaManager.getStpLogic(item.type(), false).checkByAnnotation(item));
+		}
+		for (SaCheckSafe item : at.safe()) {
+			branchList.add(() -> SaManager.getStpLogic(item.type(), false).checkByAnnotation(item));
+		}
+		for (SaCheckDisable item : at.disable()) {
+			branchList.add(() -> SaManager.getStpLogic(item.type(), false).checkByAnnotation(item));
+		}
+		for (SaCheckBasic item : at.basic()) {
+			branchList.add(() -> SaBasicUtil.check(item.realm(), item.account()));
+		}
+
+		// SaCheckOr 注解上不包含任何注解校验时，直接跳过
+		if(branchList.isEmpty()) {
+			return () -> {};
+		}
+
+		SaFunction[] branches = branchList.toArray(new SaFunction[0]);
+		return () -> {
+			// 所有分支都校验不通过时，抛出第一个分支的异常
+			SaTokenException firstError = null;
+			for (SaFunction branch : branches) {
+				try {
+					branch.run();
+					return;
+				} catch (SaTokenException e) {
+					if(firstError == null) {
+						firstError = e;
+					}
+				}
+			}
+			throw firstError;
+		};
+	}
+
+}
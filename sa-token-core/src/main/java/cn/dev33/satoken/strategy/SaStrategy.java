@@ -23,12 +23,16 @@ import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.fun.strategy.*;
 import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.stp.StpLogic;
+import cn.dev33.satoken.util.SaElementMatcher;
 import cn.dev33.satoken.util.SaFoxUtil;
 import cn.dev33.satoken.util.SaTokenConsts;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Sa-Token 策略对象
@@ -116,38 +120,33 @@ public final class SaStrategy {
 			return false;
 		}
 
-		// 先尝试一下简单匹配，如果可以匹配成功则无需继续模糊匹配
-		if (list.contains(element)) {
-			return true;
-		}
-
-		// 开始模糊匹配
-		for (String patt : list) {
-			if(SaFoxUtil.vagueMatch(patt, element)) {
-				return true;
-			}
-		}
-
-		// 走出for循环说明没有一个元素可以匹配成功
-		return false;
+		// 元素较少时逐个模糊匹配，元素较多时使用编译后的匹配器（精确码哈希集合 + 通配符前缀树）
+		return SaElementMatcher.match(list, element);
 	};
 
+	/**
+	 * hasElement 策略的默认实现（用于判断 hasElement 策略是否被重写）
+	 */
+	private final SaHasElementFunction defaultHasElement = hasElement;
+
 	/**
 	 * 对一个 [Method] 对象进行注解校验 （注解鉴权内部实现）
 	 */
 	public SaCheckMethodAnnotationFunction checkMethodAnnotation = (method) -> {
 
-		// 先校验 Method 所属 Class 上的注解
-		instance.checkElementAnnotation.accept(method.getDeclaringClass());
-
-		// 再校验 Method 上的注解
-		instance.checkElementAnnotation.accept(method);
+		// 按顺序执行预编译的校验计划：先校验 Method 所属 Class 上的注解，再校验 Method 上的注解
+		instance.getCheckMethodPlan(method).check();
 	};
 
 	/**
 	 * 对一个 [元素] 对象进行注解校验 （注解鉴权内部实现）
 	 */
-	public SaCheckElementAnnotationFunction checkElementAnnotation = (element) -> {
+	public SaCheckElementAnnotationFunction checkElementAnnotation;
+
+	/**
+	 * 对一个 [元素] 对象进行注解校验的默认实现
+	 */
+	final SaCheckElementAnnotationFunction defaultCheckElementAnnotation = (element) -> {
 
 		// 校验 @SaCheckLogin 注解
 		SaCheckLogin checkLogin = (SaCheckLogin) SaStrategy.instance.getAnnotation.apply(element, SaCheckLogin.class);
@@ -195,7 +194,12 @@ public final class SaStrategy {
 	/**
 	 * 对一个 @SaCheckOr 进行注解校验
 	 */
-	public SaCheckOrAnnotationFunction checkOrAnnotation = (at) -> {
+	public SaCheckOrAnnotationFunction checkOrAnnotation;
+
+	/**
+	 * 对一个 @SaCheckOr 进行注解校验的默认实现
+	 */
+	final SaCheckOrAnnotationFunction defaultCheckOrAnnotation = (at) -> {
 
 		// 记录校验过程中所有的异常
 		List<SaTokenException> errorList = new ArrayList<>();
@@ -278,6 +282,11 @@ public final class SaStrategy {
 		}
 	};
 
+	{
+		checkElementAnnotation = defaultCheckElementAnnotation;
+		checkOrAnnotation = defaultCheckOrAnnotation;
+	}
+
 	/**
 	 * 从元素上获取注解
 	 */
@@ -294,6 +303,26 @@ public final class SaStrategy {
 				instance.getAnnotation.apply(method.getDeclaringClass(), annotationClass) != null;
 	};
 
+	/**
+	 * 所有 Method 的注解鉴权预编译校验计划
+	 */
+	public final Map<Method, SaCheckMethodPlan> checkMethodPlanCache = new ConcurrentHashMap<>();
+
+	/**
+	 * 获取一个 Method 的注解鉴权预编译校验计划，首次获取或相关策略被重写后重新编译
+	 *
+	 * @param method /
+	 * @return /
+	 */
+	public SaCheckMethodPlan getCheckMethodPlan(Method method) {
+		SaCheckMethodPlan plan = checkMethodPlanCache.get(method);
+		if(plan == null || plan.isStale(this)) {
+			plan = new SaCheckMethodPlan(method, this);
+			checkMethodPlanCache.put(method, plan);
+		}
+		return plan;
+	}
+
 	/**
 	 * 生成唯一式 token 的算法
 	 */
@@ -409,6 +438,15 @@ public final class SaStrategy {
 		return this;
 	}
 
+	/**
+	 * 判断：hasElement 策略是否仍为默认实现（未被重写时，可以直接使用编译后的 {@link SaElementMatcher} 进行匹配）
+	 *
+	 * @return /
+	 */
+	public boolean isDefaultHasElement() {
+		return hasElement == defaultHasElement;
+	}
+
 	/**
 	 * 对一个 [Method] 对象进行注解校验 （注解鉴权内部实现）
 	 *
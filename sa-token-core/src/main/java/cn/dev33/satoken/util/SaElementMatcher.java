@@ -0,0 +1,349 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 编译后的元素匹配器：将一组权限码（或角色标识）预先编译为 [ 精确码哈希集合 + 通配符前缀树 ]，
+ * 使 hasPermission / hasRole 的判断不再逐个模糊匹配，精确匹配过程不分配内存。
+ *
+ * <p> 匹配规则与 {@link SaFoxUtil#vagueMatch(String, String)} 完全一致：* 号可匹配任意长度的任意字符 </p>
+ *
+ * <p>
+ *     通配符匹配时会用一个位图记录已经失败过的 [ * 号节点, 字符位置 ] 组合，每个组合最多尝试一次，
+ *     即使表达式中有很多 * 号，匹配耗时也只与 * 号数量和字符串长度的平方成正比，不会出现指数级回溯。
+ *     位图由每个线程复用（超过 SCRATCH_WORDS 时才临时分配），通配符匹配过程同样不分配内存。
+ * </p>
+ *
+ * <p>
+ *     编译结果按照集合对象的引用进行缓存：同一个 List 对象第二次参与匹配时才进行编译，之后的匹配直接复用编译结果。
+ *     <br> 注意：集合被编译后不应再修改其内容（仅做了元素数量的校验），StpInterface 返回的集合一般满足此条件。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaElementMatcher {
+
+	/**
+	 * 集合元素数量小于此值时，不进行编译，直接逐个匹配
+	 */
+	static final int COMPILE_THRESHOLD = 16;
+
+	/**
+	 * 每个线程复用的失败位图的最大长度（单位：long），所需长度超过此值时临时分配，避免线程长期持有过大的数组
+	 */
+	static final int SCRATCH_WORDS = 1024;
+
+	/**
+	 * 每个线程复用的失败位图
+	 */
+	static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[SCRATCH_WORDS]);
+
+	/**
+	 * 编译结果缓存槽数量（必须为 2 的幂）
+	 */
+	static final int CACHE_SIZE = 256;
+
+	/**
+	 * 编译结果缓存，按照集合对象的 identityHashCode 定位槽位，冲突时直接覆盖
+	 */
+	static final CacheSlot[] cache = new CacheSlot[CACHE_SIZE];
+
+	/**
+	 * 所有不带 * 号的元素
+	 */
+	final Set<String> exactSet;
+
+	/**
+	 * 所有带 * 号的元素组成的前缀树
+	 */
+	final Node root;
+
+	/**
+	 * 是否存在通配符元素
+	 */
+	final boolean hasWildcard;
+
+	/**
+	 * 集合中是否包含 null 元素
+	 */
+	final boolean hasNull;
+
+	/**
+	 * 前缀树中 * 号节点的数量
+	 */
+	final int starCount;
+
+	/**
+	 * 构建一个匹配器
+	 * @param list 元素集合
+	 */
+	public SaElementMatcher(List<String> list) {
+		this.exactSet = new HashSet<>(list.size() * 4 / 3 + 1);
+		this.root = new Node();
+		boolean hasWildcard = false;
+		boolean hasNull = false;
+		int starCount = 0;
+		for (String patt : list) {
+			if(patt == null) {
+				hasNull = true;
+			} else if(patt.indexOf('*') == -1) {
+				exactSet.add(patt);
+			} else {
+				// 带 * 号的元素同时也能精确匹配自身，例如 user* 可匹配 user*，此处无需单独处理
+				starCount = root.insert(patt, starCount);
+				hasWildcard = true;
+			}
+		}
+		this.hasWildcard = hasWildcard;
+		this.hasNull = hasNull;
+		this.starCount = starCount;
+	}
+
+	/**
+	 * 判断指定元素是否可以被匹配
+	 * @param element 元素
+	 * @return /
+	 */
+	public boolean match(String element) {
+		if(element == null) {
+			return hasNull;
+		}
+		if(exactSet.contains(element)) {
+			return true;
+		}
+		if( ! hasWildcard) {
+			return false;
+		}
+		long words = ((long) starCount * (element.length() + 1) + 63) >>> 6;
+		if(words > SCRATCH_WORDS) {
+			return root.match(element, 0, new long[(int) words]);
+		}
+		long[] failed = SCRATCH.get();
+		Arrays.fill(failed, 0, (int) words, 0L);
+		return root.match(element, 0, failed);
+	}
+
+
+	// ------------------------ 静态入口
+
+	/**
+	 * 判断：集合中是否包含指定元素（模糊匹配），集合元素较多时自动使用编译后的匹配器
+	 *
+	 * @param list 元素集合
+	 * @param element 元素
+	 * @return /
+	 */
+	public static boolean match(List<String> list, String element) {
+		if(list == null || list.size() == 0) {
+			return false;
+		}
+		if(list.size() < COMPILE_THRESHOLD) {
+			return matchByLoop(list, element);
+		}
+		SaElementMatcher matcher = getCompiled(list);
+		if(matcher == null) {
+			return matchByLoop(list, element);
+		}
+		return matcher.match(element);
+	}
+
+	/**
+	 * 逐个模糊匹配
+	 *
+	 * @param list 元素集合
+	 * @param element 元素
+	 * @return /
+	 */
+	public static boolean matchByLoop(List<String> list, String element) {
+		// 先尝试一下简单匹配，如果可以匹配成功则无需继续模糊匹配
+		if (list.contains(element)) {
+			return true;
+		}
+		for (String patt : list) {
+			if(SaFoxUtil.vagueMatch(patt, element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 获取指定集合的编译结果：首次出现的集合只做登记并返回 null，第二次出现时才真正编译
+	 *
+	 * @param list 元素集合
+	 * @return /
+	 */
+	static SaElementMatcher getCompiled(List<String> list) {
+		int index = System.identityHashCode(list) & (CACHE_SIZE - 1);
+		CacheSlot slot = cache[index];
+		if(slot != null && slot.ref.get() == list && slot.size == list.size()) {
+			if(slot.matcher != null) {
+				return slot.matcher;
+			}
+			SaElementMatcher matcher = new SaElementMatcher(list);
+			cache[index] = new CacheSlot(list, matcher);
+			return matcher;
+		}
+		cache[index] = new CacheSlot(list, null);
+		return null;
+	}
+
+	/**
+	 * 清空编译结果缓存
+	 */
+	public static void clearCache() {
+		Arrays.fill(cache, null);
+	}
+
+	/**
+	 * 缓存槽：弱引用持有集合对象，不影响其被回收
+	 */
+	static final class CacheSlot {
+		final WeakReference<List<String>> ref;
+		final int size;
+		final SaElementMatcher matcher;
+		CacheSlot(List<String> list, SaElementMatcher matcher) {
+			this.ref = new WeakReference<>(list);
+			this.size = list.size();
+			this.matcher = matcher;
+		}
+	}
+
+
+	// ------------------------ 前缀树
+
+	/**
+	 * 前缀树节点，子节点按字符升序存放在数组中，查找时二分
+	 */
+	static final class Node {
+
+		static final char[] EMPTY_CHARS = new char[0];
+		static final Node[] EMPTY_NODES = new Node[0];
+
+		char[] chars = EMPTY_CHARS;
+		Node[] nodes = EMPTY_NODES;
+
+		/** 此节点之后紧跟一个 * 号时，对应的子节点 */
+		Node star;
+
+		/** 作为 * 号节点时的编号，用于在失败位图中定位 */
+		int starId;
+
+		/** 是否有表达式在此节点结束 */
+		boolean end;
+
+		/**
+		 * 插入一个表达式（连续的多个 * 号视为一个）
+		 *
+		 * @param patt 表达式
+		 * @param starCount 插入前的 * 号节点数量
+		 * @return 插入后的 * 号节点数量
+		 */
+		int insert(String patt, int starCount) {
+			Node node = this;
+			for (int i = 0; i < patt.length(); i++) {
+				char c = patt.charAt(i);
+				if(c == '*') {
+					if(node.star == null) {
+						node.star = new Node();
+						node.star.starId = starCount++;
+					}
+					node = node.star;
+					while (i + 1 < patt.length() && patt.charAt(i + 1) == '*') {
+						i++;
+					}
+				} else {
+					node = node.getOrCreateChild(c);
+				}
+			}
+			node.end = true;
+			return starCount;
+		}
+
+		Node getOrCreateChild(char c) {
+			int index = Arrays.binarySearch(chars, c);
+			if(index >= 0) {
+				return nodes[index];
+			}
+			int at = -index - 1;
+			Node child = new Node();
+			char[] newChars = new char[chars.length + 1];
+			Node[] newNodes = new Node[nodes.length + 1];
+			System.arraycopy(chars, 0, newChars, 0, at);
+			System.arraycopy(nodes, 0, newNodes, 0, at);
+			newChars[at] = c;
+			newNodes[at] = child;
+			System.arraycopy(chars, at, newChars, at + 1, chars.length - at);
+			System.arraycopy(nodes, at, newNodes, at + 1, nodes.length - at);
+			chars = newChars;
+			nodes = newNodes;
+			return child;
+		}
+
+		Node getChild(char c) {
+			int index = Arrays.binarySearch(chars, c);
+			return index >= 0 ? nodes[index] : null;
+		}
+
+		/**
+		 * 从字符串的第 i 位开始，判断能否匹配到任意一个以此节点为起点的表达式后缀
+		 *
+		 * @param failed 失败位图：第 (starId * (len + 1) + k) 位为 1 代表从 * 号节点 starId、字符位置 k 出发已确定无法匹配
+		 */
+		boolean match(String str, int i, long[] failed) {
+			Node node = this;
+			int len = str.length();
+			for (;;) {
+				Node star = node.star;
+				if(star != null) {
+					// 以 * 号结尾的表达式可匹配任意剩余字符
+					if(star.end) {
+						return true;
+					}
+					// 让 * 号依次吞掉 0 ~ n 个字符
+					int base = star.starId * (len + 1);
+					for (int k = i; k <= len; k++) {
+						int bit = base + k;
+						if((failed[bit >>> 6] & (1L << bit)) != 0) {
+							continue;
+						}
+						if(star.match(str, k, failed)) {
+							return true;
+						}
+						failed[bit >>> 6] |= 1L << bit;
+					}
+				}
+				if(i == len) {
+					return node.end;
+				}
+				node = node.getChild(str.charAt(i));
+				if(node == null) {
+					return false;
+				}
+				i++;
+			}
+		}
+
+	}
+
+}
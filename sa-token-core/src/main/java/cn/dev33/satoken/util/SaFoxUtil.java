@@ -256,7 +256,7 @@ public class SaFoxUtil {
 	}
 
 	/**
-	 * 字符串模糊匹配
+	 * 字符串模糊匹配（贪心回溯，不分配额外内存）
 	 *
 	 * @param pattern /
 	 * @param str    /
@@ -265,25 +265,28 @@ public class SaFoxUtil {
 	private static boolean vagueMatchMethod( String pattern, String str) {
 		int m = str.length();
 		int n = pattern.length();
-		boolean[][] dp = new boolean[m + 1][n + 1];
-		dp[0][0] = true;
-		for (int i = 1; i <= n; ++i) {
-			if (pattern.charAt(i - 1) == '*') {
-				dp[0][i] = true;
+		int i = 0, j = 0;
+		// 最近一个 * 号在表达式中的位置，以及它当前匹配到的字符串位置
+		int starJ = -1, starI = 0;
+		while (i < m) {
+			if (j < n && pattern.charAt(j) != '*' && pattern.charAt(j) == str.charAt(i)) {
+				i++;
+				j++;
+			} else if (j < n && pattern.charAt(j) == '*') {
+				starJ = j++;
+				starI = i;
+			} else if (starJ != -1) {
+				// 回溯：让上一个 * 号多吞掉一个字符
+				j = starJ + 1;
+				i = ++starI;
 			} else {
-				break;
+				return false;
 			}
 		}
-		for (int i = 1; i <= m; ++i) {
-			for (int j = 1; j <= n; ++j) {
-				if (pattern.charAt(j - 1) == '*') {
-					dp[i][j] = dp[i][j - 1] || dp[i - 1][j];
-				} else if (str.charAt(i - 1) == pattern.charAt(j - 1)) {
-					dp[i][j] = dp[i - 1][j - 1];
-				}
-			}
+		while (j < n && pattern.charAt(j) == '*') {
+			j++;
 		}
-		return dp[m][n];
+		return j == n;
 	}
 
 	/**
@@ -508,7 +511,22 @@ public class SaFoxUtil {
 		if(isEmpty(str)) {
 			return false;
 		}
-        return str.toLowerCase().matches(URL_REGEX);
+		return getUrlPattern().matcher(str.toLowerCase()).matches();
+	}
+
+	/**
+	 * URL_REGEX 编译后的正则（URL_REGEX 被修改时重新编译）
+	 */
+	private static volatile Pattern urlPattern;
+
+	private static Pattern getUrlPattern() {
+		Pattern pattern = urlPattern;
+		String regex = URL_REGEX;
+		if(pattern == null || ! pattern.pattern().equals(regex)) {
+			pattern = Pattern.compile(regex);
+			urlPattern = pattern;
+		}
+		return pattern;
 	}
 
 	/**
@@ -15,18 +15,27 @@
  */
 package cn.dev33.satoken.jwt;
 
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.context.model.SaStorage;
 import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.jwt.codec.SaJwtClaims;
+import cn.dev33.satoken.jwt.codec.SaJwtCodec;
 import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
 import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.dev33.satoken.jwt.signer.SaJwtKey;
+import cn.dev33.satoken.jwt.signer.SaJwtSignerRegistry;
 import cn.dev33.satoken.util.SaFoxUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.jwt.JWT;
-import cn.hutool.jwt.JWTException;
+import cn.hutool.jwt.JWTHeader;
 import cn.hutool.jwt.signers.JWTSigner;
-import cn.hutool.jwt.signers.JWTSignerUtil;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * jwt 操作模板方法封装
@@ -70,6 +79,79 @@ public class SaJwtTemplate {
 	 * 表示一个值不存在 
 	 */ 
 	public static final long NOT_VALUE_EXPIRE = SaTokenDao.NOT_VALUE_EXPIRE;
+
+	/**
+	 * 在 SaStorage 中存储请求级缓存时使用的 key 前缀
+	 */
+	public static final String STORAGE_KEY_PREFIX = "SA_JWT_VERIFIED_";
+
+	/**
+	 * header key：密钥 id
+	 */
+	public static final String KID = "kid";
+
+	/**
+	 * 签名器注册表：签名算法、签名器复用、多密钥轮换
+	 */
+	public SaJwtSignerRegistry signerRegistry = new SaJwtSignerRegistry();
+
+	/**
+	 * 是否开启请求级缓存：同一次请求内，同一个 jwt 只解析、验签一次
+	 */
+	public boolean requestCache = true;
+
+	/**
+	 * 跨请求缓存的最大数据量，<=0 代表不开启跨请求缓存
+	 */
+	public int cacheMaxSize = 0;
+
+	/**
+	 * 跨请求缓存：已通过验签的 jwt，key 为 jwt 的签名部分
+	 */
+	public final Map<String, VerifiedJwt> cacheMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 是否正在淘汰数据
+	 */
+	private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+	/**
+	 * 一个已通过验签的 jwt
+	 */
+	public static class VerifiedJwt {
+
+		/** jwt 字符串 */
+		public final String token;
+
+		/** 验签时使用的秘钥 */
+		public final String keyt;
+
+		/** 解码后的 jwt */
+		public final SaJwtClaims claims;
+
+		/** 缓存到期时间（13位时间戳），取 jwt 的 eff 字段，永不过期的 jwt 为 Long.MAX_VALUE */
+		public final long expireTime;
+
+		public VerifiedJwt(String token, String keyt, SaJwtClaims claims, long expireTime) {
+			this.token = token;
+			this.keyt = keyt;
+			this.claims = claims;
+			this.expireTime = expireTime;
+		}
+
+		/**
+		 * 判断此缓存是否可用于指定的 jwt 与秘钥
+		 *
+		 * @param token jwt 字符串
+		 * @param keyt 秘钥
+		 * @param now 当前时间戳
+		 * @return /
+		 */
+		public boolean matches(String token, String keyt, long now) {
+			return expireTime >= now && this.token.equals(token) && this.keyt.equals(keyt);
+		}
+
+	}
 	
 	// ------ 创建
 
@@ -141,17 +223,45 @@ public class SaJwtTemplate {
 	 * @return 根据 JWT 对象和 keyt 秘钥，生成的 token 字符串
 	 */
 	public String generateToken (JWT jwt, String keyt) {
-		return jwt.setKey(keyt.getBytes()).setSigner(createSigner(keyt)).sign();
+		// 指定了签名密钥时，使用该密钥签名，并在 header 中写入 kid
+		SaJwtKey key = signerRegistry.getCurrentKey();
+		JWTSigner signer;
+		if(key != null) {
+			jwt.setHeader(KID, key.kid);
+			signer = key.signer;
+		} else {
+			signer = createSigner(keyt);
+		}
+		jwt.setHeader(JWTHeader.ALGORITHM, signer.getAlgorithmId());
+		return jwt.sign(signer);
 	}
 
 	/**
-	 * 返回 jwt 使用的签名算法
+	 * 返回 jwt 使用的签名算法（默认从签名器注册表中获取，相同秘钥复用同一个签名器）
 	 *
 	 * @param keyt 秘钥
 	 * @return /
 	 */
 	public JWTSigner createSigner (String keyt) {
-		return JWTSignerUtil.hs256(keyt.getBytes());
+		return signerRegistry.getSigner(keyt);
+	}
+
+	/**
+	 * 获取验签使用的签名器：header 中带有 kid 时使用注册表中对应的密钥，否则使用 keyt 秘钥
+	 *
+	 * @param kid header 中的 kid
+	 * @param keyt 秘钥
+	 * @return /
+	 */
+	public JWTSigner getVerifySigner(String kid, String keyt) {
+		if(kid == null) {
+			return createSigner(keyt);
+		}
+		SaJwtKey key = signerRegistry.getKey(kid);
+		if(key == null) {
+			throw new SaJwtException("jwt kid 未注册：" + kid).setCode(SaJwtErrorCode.CODE_30207);
+		}
+		return key.signer;
 	}
 
 	// ------ 解析 
@@ -166,6 +276,19 @@ public class SaJwtTemplate {
      * @return 解析后的jwt 对象 
      */
     public JWT parseToken(String token, String loginType, String keyt, boolean isCheckTimeout) {
+    	return parseClaims(token, loginType, keyt, isCheckTimeout).getJwt();
+    }
+
+    /**
+     * jwt 解析，只解码 Sa-Token 固定使用的字段，完整的载荷在第一次用到时才构建
+	 *
+     * @param token Jwt-Token值 
+     * @param loginType 登录类型 
+     * @param keyt 秘钥
+     * @param isCheckTimeout 是否校验 timeout 字段
+     * @return 解码后的 jwt 
+     */
+    public SaJwtClaims parseClaims(String token, String loginType, String keyt, boolean isCheckTimeout) {
 
     	// 秘钥不可以为空
     	if(SaFoxUtil.isEmpty(keyt)) {
@@ -177,38 +300,148 @@ public class SaJwtTemplate {
     		throw new SaJwtException("jwt 字符串不可为空");
     	}
     	
-    	// 解析 
-    	JWT jwt;
-    	try {
-    		jwt = JWT.of(token);
-		} catch (JWTException e) {
-    		throw new SaJwtException("jwt 解析失败：" + token, e).setCode(SaJwtErrorCode.CODE_30201);
-		}
-    	JSONObject payloads = jwt.getPayloads();
-    	
-    	// 校验 Token 签名
-		boolean verify = jwt.setKey(keyt.getBytes()).setSigner(createSigner(keyt)).verify();
-    	if( ! verify) {
-    		throw new SaJwtException("jwt 签名无效：" + token).setCode(SaJwtErrorCode.CODE_30202);
-    	}
+    	// 解析并校验 Token 签名 
+    	SaJwtClaims claims = verifyClaims(token, keyt);
 
     	// 校验 loginType 
-    	if( ! Objects.equals(loginType, payloads.getStr(LOGIN_TYPE))) {
+    	if( ! Objects.equals(loginType, claims.loginType)) {
     		throw new SaJwtException("jwt loginType 无效：" + token).setCode(SaJwtErrorCode.CODE_30203);
     	}
     	
     	// 校验 Token 有效期
-    	if(isCheckTimeout) {
-    		Long effTime = payloads.getLong(EFF, 0L);
-        	if(effTime != NEVER_EXPIRE) {
-        		if(effTime == null || effTime < System.currentTimeMillis()) {
-        			throw new SaJwtException("jwt 已过期：" + token).setCode(SaJwtErrorCode.CODE_30204);
-        		}
-        	}
+    	if(isCheckTimeout && claims.isExpired(System.currentTimeMillis())) {
+    		throw new SaJwtException("jwt 已过期：" + token).setCode(SaJwtErrorCode.CODE_30204);
     	}
     	
         // 返回 
-        return jwt;
+        return claims;
+    }
+
+    /**
+     * 解析 jwt 并校验签名（不校验 loginType、timeout），依次查询请求级缓存、跨请求缓存，都没有命中时才真正解析、验签
+     *
+     * <p> 返回的 JWT 对象可能被多个请求共享，请勿修改其中的数据 </p>
+     *
+     * @param token Jwt-Token值
+     * @param keyt 秘钥
+     * @return 解析后的jwt 对象
+     */
+    public JWT verifyToken(String token, String keyt) {
+    	return verifyClaims(token, keyt).getJwt();
+    }
+
+    /**
+     * 解码 jwt 并校验签名（不校验 loginType、timeout），依次查询请求级缓存、跨请求缓存，都没有命中时才真正解码、验签
+     *
+     * @param token Jwt-Token值
+     * @param keyt 秘钥
+     * @return 解码后的 jwt 
+     */
+    public SaJwtClaims verifyClaims(String token, String keyt) {
+    	long now = System.currentTimeMillis();
+
+    	// 1、请求级缓存 
+    	SaStorage storage = getStorage();
+    	if(storage != null) {
+    		VerifiedJwt verified = (VerifiedJwt) storage.get(STORAGE_KEY_PREFIX + token);
+    		if(verified != null && verified.keyt.equals(keyt)) {
+    			return verified.claims;
+    		}
+    	}
+
+    	// 2、跨请求缓存，命中时还需比对完整的 jwt 字符串与秘钥，防止签名部分被拼接到伪造的载荷上 
+    	String signature = cacheMaxSize > 0 ? getSignature(token) : null;
+    	VerifiedJwt verified = null;
+    	if(signature != null) {
+    		VerifiedJwt entry = cacheMap.get(signature);
+    		if(entry != null) {
+    			if(entry.matches(token, keyt, now)) {
+    				verified = entry;
+    			} else if(entry.expireTime < now) {
+    				cacheMap.remove(signature, entry);
+    			}
+    		}
+    	}
+
+    	// 3、解码并验签 
+    	if(verified == null) {
+    		SaJwtClaims claims = SaJwtCodec.decode(token);
+    		if( ! SaJwtCodec.verify(claims, getVerifySigner(claims.kid, keyt))) {
+    			throw new SaJwtException("jwt 签名无效：" + token).setCode(SaJwtErrorCode.CODE_30202);
+    		}
+    		Long effTime = claims.eff;
+    		long expireTime = (effTime == null || effTime == NEVER_EXPIRE) ? Long.MAX_VALUE : effTime;
+    		verified = new VerifiedJwt(token, keyt, claims, expireTime);
+    		if(signature != null && expireTime >= now) {
+    			if(cacheMap.size() >= cacheMaxSize) {
+    				evict();
+    			}
+    			cacheMap.put(signature, verified);
+    		}
+    	}
+
+    	if(storage != null) {
+    		storage.set(STORAGE_KEY_PREFIX + token, verified);
+    	}
+    	return verified.claims;
+    }
+
+    /**
+     * 获取 jwt 的签名部分，格式不正确时返回 null
+     *
+     * @param token Jwt-Token值
+     * @return /
+     */
+    protected String getSignature(String token) {
+    	int index = token.lastIndexOf('.');
+    	if(index < 0 || index == token.length() - 1) {
+    		return null;
+    	}
+    	return token.substring(index + 1);
+    }
+
+    /**
+     * 获取当前请求的 SaStorage，请求上下文不可用或未开启请求级缓存时返回 null
+     *
+     * @return /
+     */
+    protected SaStorage getStorage() {
+    	if( ! requestCache) {
+    		return null;
+    	}
+    	SaTokenContext context = SaManager.getSaTokenContextOrSecond();
+    	if( ! context.isValid()) {
+    		return null;
+    	}
+    	return context.getStorage();
+    }
+
+    /**
+     * 跨请求缓存数量超过上限时，先清除已过期的数据，仍然超过时再清除部分数据，直至降到上限的 3/4
+     */
+    protected void evict() {
+    	if( ! evicting.compareAndSet(false, true)) {
+    		return;
+    	}
+    	try {
+    		long now = System.currentTimeMillis();
+    		cacheMap.values().removeIf(entry -> entry.expireTime < now);
+    		int threshold = cacheMaxSize / 4 * 3;
+    		Iterator<String> iterator = cacheMap.keySet().iterator();
+    		while (cacheMap.size() > threshold && iterator.hasNext()) {
+    			iterator.next();
+    			iterator.remove();
+    		}
+    	} finally {
+    		evicting.set(false);
+    	}
+    }
+
+    /**
+     * 清除所有跨请求缓存
+     */
+    public void clearCache() {
+    	cacheMap.clear();
     }
 
     /**
@@ -219,7 +452,7 @@ public class SaJwtTemplate {
      * @return 载荷 
      */
     public JSONObject getPayloads(String token, String loginType, String keyt) {
-    	return parseToken(token, loginType, keyt, true).getPayloads();
+    	return parseClaims(token, loginType, keyt, true).getPayloads();
     }
 
     /**
@@ -230,7 +463,7 @@ public class SaJwtTemplate {
      * @return 载荷 
      */
     public JSONObject getPayloadsNotCheck(String token, String loginType, String keyt) {
-    	return parseToken(token, loginType, keyt, false).getPayloads();
+    	return parseClaims(token, loginType, keyt, false).getPayloads();
     }
     
     /**
@@ -241,7 +474,7 @@ public class SaJwtTemplate {
      * @return 值 
      */
     public Object getLoginId(String token, String loginType, String keyt) {
-    	return getPayloads(token, loginType, keyt).get(LOGIN_ID);
+    	return parseClaims(token, loginType, keyt, true).loginId;
     }
 
     /**
@@ -253,7 +486,7 @@ public class SaJwtTemplate {
      */
     public Object getLoginIdOrNull(String token, String loginType, String keyt) {
     	try {
-    		return getPayloads(token, loginType, keyt).get(LOGIN_ID);
+    		return parseClaims(token, loginType, keyt, true).loginId;
 		} catch (SaJwtException e) {
 			return null;
 		}
@@ -273,30 +506,22 @@ public class SaJwtTemplate {
     		return NOT_VALUE_EXPIRE;
     	}
     	
-    	// 取出数据 
-    	JWT jwt;
+    	// 取出数据，解析失败或签名无效时返回 NOT_VALUE_EXPIRE 
+    	SaJwtClaims claims;
     	try {
-    		jwt = JWT.of(token);
-		} catch (JWTException e) {
-			// 解析失败 
+    		claims = verifyClaims(token, keyt);
+		} catch (SaJwtException e) {
 			return NOT_VALUE_EXPIRE;
 		}
-    	JSONObject payloads = jwt.getPayloads();
-    	
-    	// 如果签名无效 
-    	boolean verify = jwt.setKey(keyt.getBytes()).verify();
-    	if( ! verify) {
-    		return NOT_VALUE_EXPIRE;
-    	}
 
     	// 如果 loginType  无效 
-    	if( ! Objects.equals(loginType, payloads.getStr(LOGIN_TYPE))) {
+    	if( ! Objects.equals(loginType, claims.loginType)) {
     		return NOT_VALUE_EXPIRE;
     	}
     	
     	// 如果被设置为：永不过期 
-    	Long effTime = payloads.get(EFF, Long.class);
-    	if(effTime == NEVER_EXPIRE) {
+    	Long effTime = claims.eff;
+    	if(effTime != null && effTime == NEVER_EXPIRE) {
     		return NEVER_EXPIRE;
     	}
     	// 如果已经超时 
@@ -308,4 +533,54 @@ public class SaJwtTemplate {
         return (effTime - System.currentTimeMillis()) / 1000;
     }
 
+	// ------ get / set
+
+	/**
+	 * @return 是否开启请求级缓存
+	 */
+	public boolean getRequestCache() {
+		return requestCache;
+	}
+
+	/**
+	 * @param requestCache 是否开启请求级缓存
+	 * @return 对象自身
+	 */
+	public SaJwtTemplate setRequestCache(boolean requestCache) {
+		this.requestCache = requestCache;
+		return this;
+	}
+
+	/**
+	 * @return 跨请求缓存的最大数据量，<=0 代表不开启跨请求缓存
+	 */
+	public int getCacheMaxSize() {
+		return cacheMaxSize;
+	}
+
+	/**
+	 * @param cacheMaxSize 跨请求缓存的最大数据量，<=0 代表不开启跨请求缓存
+	 * @return 对象自身
+	 */
+	public SaJwtTemplate setCacheMaxSize(int cacheMaxSize) {
+		this.cacheMaxSize = cacheMaxSize;
+		return this;
+	}
+
+	/**
+	 * @return 签名器注册表
+	 */
+	public SaJwtSignerRegistry getSignerRegistry() {
+		return signerRegistry;
+	}
+
+	/**
+	 * @param signerRegistry 签名器注册表
+	 * @return 对象自身
+	 */
+	public SaJwtTemplate setSignerRegistry(SaJwtSignerRegistry signerRegistry) {
+		this.signerRegistry = signerRegistry;
+		return this;
+	}
+
 }
@@ -17,6 +17,7 @@ package cn.dev33.satoken.jwt;
 
 import java.util.Map;
 
+import cn.dev33.satoken.jwt.codec.SaJwtClaims;
 import cn.hutool.json.JSONObject;
 import cn.hutool.jwt.JWT;
 
@@ -140,6 +141,18 @@ public class SaJwtUtil {
 		return saJwtTemplate.parseToken(token, loginType, keyt, isCheckTimeout);
     }
 
+    /**
+     * jwt 解析，只解码 Sa-Token 固定使用的字段
+     * @param token Jwt-Token值 
+     * @param loginType 登录类型 
+     * @param keyt 秘钥
+     * @param isCheckTimeout 是否校验 timeout 字段
+     * @return 解码后的 jwt 
+     */
+    public static SaJwtClaims parseClaims(String token, String loginType, String keyt, boolean isCheckTimeout) {
+		return saJwtTemplate.parseClaims(token, loginType, keyt, isCheckTimeout);
+    }
+
     /**
      * 获取 jwt 数据载荷 （校验 sign、loginType、timeout） 
      * @param token token值
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 
 import cn.dev33.satoken.context.SaHolder;
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.exception.ApiDisabledException;
 import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
@@ -223,6 +224,14 @@ public class StpLogicJwtForMixin extends StpLogic {
 	public List<String> searchTokenValue(String keyword, int start, int size, boolean sortType) {
 		throw new ApiDisabledException(); 
 	}
+
+	/**
+	 * [禁用] 游标式分页查询Token
+	 */
+	@Override
+	public SaScanResult searchTokenValue(String keyword, String cursor, int size) {
+		throw new ApiDisabledException();
+	}
 	
 
 	// ------------------- Bean对象代理 -------------------  
@@ -202,7 +202,7 @@ public class StpLogicJwtForStateless extends StpLogic {
 			return null;
 		}
 		// 获取
-		return SaJwtUtil.getPayloadsNotCheck(tokenValue, loginType, jwtSecretKey()).getStr(SaJwtUtil.DEVICE); 
+		return SaJwtUtil.parseClaims(tokenValue, loginType, jwtSecretKey(), false).device;
 	}
 
 	
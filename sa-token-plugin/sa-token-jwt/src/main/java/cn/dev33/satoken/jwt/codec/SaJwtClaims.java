@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt.codec;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.jwt.JWT;
+
+/**
+ * 已解码的 jwt：只包含 Sa-Token 固定使用的几个字段，完整的载荷在第一次用到时才构建
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtClaims {
+
+	/**
+	 * jwt 字符串
+	 */
+	public final String token;
+
+	/**
+	 * header：签名算法
+	 */
+	public String alg;
+
+	/**
+	 * header：密钥 id
+	 */
+	public String kid;
+
+	/**
+	 * 载荷：账号类型
+	 */
+	public String loginType;
+
+	/**
+	 * 载荷：账号id（整数为 Long 类型，字符串为 String 类型）
+	 */
+	public Object loginId;
+
+	/**
+	 * 载荷：登录设备类型
+	 */
+	public String device;
+
+	/**
+	 * 载荷：有效截止期 (13位时间戳，-1 代表永不过期)，没有此字段时为 null
+	 */
+	public Long eff;
+
+	/**
+	 * 完整的 jwt 对象，懒加载
+	 */
+	private volatile JWT jwt;
+
+	/**
+	 * 验签使用的原始字节（jwt 字符串的 ASCII 字节），以及 header、payload 两部分的结束位置，验签完成后释放
+	 */
+	byte[] raw;
+	int headerEnd;
+	int payloadEnd;
+
+	public SaJwtClaims(String token) {
+		this.token = token;
+	}
+
+	/**
+	 * 获取完整的 jwt 对象（第一次调用时才解析）
+	 *
+	 * @return /
+	 */
+	public JWT getJwt() {
+		JWT jwt = this.jwt;
+		if(jwt == null) {
+			jwt = JWT.of(token);
+			this.jwt = jwt;
+		}
+		return jwt;
+	}
+
+	/**
+	 * 获取完整的载荷（第一次调用时才解析）
+	 *
+	 * @return /
+	 */
+	public JSONObject getPayloads() {
+		return getJwt().getPayloads();
+	}
+
+	/**
+	 * 判断此 jwt 在指定时间是否已过期，没有 eff 字段时视为已过期
+	 *
+	 * @param now 当前时间戳
+	 * @return /
+	 */
+	public boolean isExpired(long now) {
+		long effTime = eff == null ? 0 : eff;
+		return effTime != SaJwtCodec.NEVER_EXPIRE && effTime < now;
+	}
+
+	@Override
+	public String toString() {
+		return "SaJwtClaims [loginType=" + loginType + ", loginId=" + loginId + ", device=" + device + ", eff=" + eff + ", kid=" + kid + "]";
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt.codec;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.jwt.SaJwtTemplate;
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.dev33.satoken.jwt.signer.SaJwtHmacSigner;
+import cn.hutool.jwt.signers.JWTSigner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Sa-Token 专用的 jwt 解码器
+ *
+ * <p>
+ *     只流式读取 Sa-Token 固定使用的 header（alg、kid）与载荷（loginType、loginId、device、eff）字段，不构建完整的 JSON 对象；
+ *     HMAC 算法直接在 header.payload 的原始字节上验签，并做常量时间比较。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtCodec {
+
+	private SaJwtCodec() {
+	}
+
+	/**
+	 * 永不过期
+	 */
+	public static final long NEVER_EXPIRE = SaTokenDao.NEVER_EXPIRE;
+
+	private static final byte[] ALG = ascii("alg");
+	private static final byte[] KID = ascii(SaJwtTemplate.KID);
+	private static final byte[] LOGIN_TYPE = ascii(SaJwtTemplate.LOGIN_TYPE);
+	private static final byte[] LOGIN_ID = ascii(SaJwtTemplate.LOGIN_ID);
+	private static final byte[] DEVICE = ascii(SaJwtTemplate.DEVICE);
+	private static final byte[] EFF = ascii(SaJwtTemplate.EFF);
+
+	/**
+	 * 解码 jwt（不验签）
+	 *
+	 * @param token jwt 字符串
+	 * @return /
+	 */
+	public static SaJwtClaims decode(String token) {
+		int headerEnd = token.indexOf('.');
+		int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+		if(headerEnd <= 0 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+			throw new SaJwtException("jwt 解析失败：" + token).setCode(SaJwtErrorCode.CODE_30201);
+		}
+
+		SaJwtClaims claims = new SaJwtClaims(token);
+		claims.raw = token.getBytes(StandardCharsets.ISO_8859_1);
+		claims.headerEnd = headerEnd;
+		claims.payloadEnd = payloadEnd;
+		try {
+			// header 
+			ByteBuffer header = decodeBase64(claims.raw, 0, headerEnd);
+			SaJwtJsonReader reader = new SaJwtJsonReader(header.array(), 0, header.limit());
+			reader.beginObject();
+			while (reader.nextKey()) {
+				if(reader.isKey(ALG)) {
+					claims.alg = reader.readString();
+				} else if(reader.isKey(KID)) {
+					claims.kid = reader.readString();
+				} else {
+					reader.skipValue();
+				}
+			}
+
+			// payload 
+			ByteBuffer payload = decodeBase64(claims.raw, headerEnd + 1, payloadEnd - headerEnd - 1);
+			reader = new SaJwtJsonReader(payload.array(), 0, payload.limit());
+			reader.beginObject();
+			while (reader.nextKey()) {
+				if(reader.isKey(LOGIN_TYPE)) {
+					claims.loginType = reader.readString();
+				} else if(reader.isKey(LOGIN_ID)) {
+					claims.loginId = reader.readValue();
+				} else if(reader.isKey(DEVICE)) {
+					claims.device = reader.readString();
+				} else if(reader.isKey(EFF)) {
+					claims.eff = reader.readLong();
+				} else {
+					reader.skipValue();
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			throw new SaJwtException("jwt 解析失败：" + token, e).setCode(SaJwtErrorCode.CODE_30201);
+		}
+		return claims;
+	}
+
+	/**
+	 * 校验 jwt 签名，header 中声明的算法必须与签名器一致
+	 *
+	 * @param claims 已解码的 jwt
+	 * @param signer 签名器
+	 * @return 签名是否有效
+	 */
+	public static boolean verify(SaJwtClaims claims, JWTSigner signer) {
+		byte[] raw = claims.raw;
+		if(raw == null || ! signer.getAlgorithmId().equals(claims.alg)) {
+			return false;
+		}
+		try {
+			if(signer instanceof SaJwtHmacSigner) {
+				byte[] signature = decodeBase64(raw, claims.payloadEnd + 1, raw.length - claims.payloadEnd - 1).array();
+				return ((SaJwtHmacSigner) signer).verify(raw, claims.payloadEnd, signature);
+			}
+			String token = claims.token;
+			return signer.verify(token.substring(0, claims.headerEnd),
+					token.substring(claims.headerEnd + 1, claims.payloadEnd),
+					token.substring(claims.payloadEnd + 1));
+		} catch (IllegalArgumentException e) {
+			return false;
+		} finally {
+			claims.raw = null;
+		}
+	}
+
+	/**
+	 * 对指定区间的 Base64 URL 字节解码，返回的 ByteBuffer 由数组支撑，有效数据为 [0, limit)
+	 */
+	static ByteBuffer decodeBase64(byte[] bytes, int offset, int length) {
+		ByteBuffer buffer = Base64.getUrlDecoder().decode(ByteBuffer.wrap(bytes, offset, length));
+		if(buffer.arrayOffset() != 0 || buffer.position() != 0) {
+			throw new IllegalArgumentException("unexpected buffer");
+		}
+		return buffer;
+	}
+
+	static byte[] ascii(String str) {
+		return str.getBytes(StandardCharsets.US_ASCII);
+	}
+
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt.codec;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 极简的流式 JSON 读取器：只用于逐个遍历 jwt header、payload 顶层对象的字段，不需要的字段直接跳过，不构建任何中间对象
+ *
+ * <p> 格式不正确时抛出 IllegalArgumentException </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtJsonReader {
+
+	private final byte[] bytes;
+	private final int end;
+	private int pos;
+
+	/**
+	 * 上一次 nextKey 读到的字段名所在区间
+	 */
+	private int keyStart;
+	private int keyEnd;
+
+	public SaJwtJsonReader(byte[] bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.pos = offset;
+		this.end = offset + length;
+	}
+
+	/**
+	 * 开始读取顶层对象
+	 */
+	public void beginObject() {
+		expect('{');
+	}
+
+	/**
+	 * 读取下一个字段名，读完所有字段时返回 false
+	 *
+	 * @return /
+	 */
+	public boolean nextKey() {
+		int c = peek();
+		if(c == ',') {
+			pos++;
+			c = peek();
+		}
+		if(c == '}') {
+			pos++;
+			return false;
+		}
+		expect('"');
+		keyStart = pos;
+		while (pos < end && bytes[pos] != '"') {
+			// 字段名中出现转义字符时，不可能是 Sa-Token 固定的字段，原样比较即可
+			if(bytes[pos] == '\\') {
+				pos++;
+			}
+			pos++;
+		}
+		keyEnd = pos;
+		expect('"');
+		expect(':');
+		return true;
+	}
+
+	/**
+	 * 判断上一次读到的字段名是否为指定名称
+	 *
+	 * @param name 字段名（ASCII 字节）
+	 * @return /
+	 */
+	public boolean isKey(byte[] name) {
+		if(keyEnd - keyStart != name.length) {
+			return false;
+		}
+		for (int i = 0; i < name.length; i++) {
+			if(bytes[keyStart + i] != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 读取一个值：字符串返回 String，整数返回 Long，小数返回 BigDecimal，布尔返回 Boolean，null 返回 null，对象与数组返回其原始 JSON 文本
+	 *
+	 * @return /
+	 */
+	public Object readValue() {
+		int c = peek();
+		if(c == '"') {
+			return readString();
+		}
+		if(c == '-' || (c >= '0' && c <= '9')) {
+			return readNumber();
+		}
+		int start = pos;
+		skipValue();
+		String text = new String(bytes, start, pos - start, StandardCharsets.UTF_8);
+		switch (text) {
+			case "true": return Boolean.TRUE;
+			case "false": return Boolean.FALSE;
+			case "null": return null;
+			default: return text;
+		}
+	}
+
+	/**
+	 * 读取一个值，并转换为字符串
+	 *
+	 * @return /
+	 */
+	public String readString() {
+		if(peek() != '"') {
+			Object value = readValue();
+			return value == null ? null : value.toString();
+		}
+		pos++;
+		int start = pos;
+		boolean escaped = false;
+		while (pos < end && bytes[pos] != '"') {
+			if(bytes[pos] == '\\') {
+				escaped = true;
+				pos++;
+			}
+			pos++;
+		}
+		if(pos >= end) {
+			throw new IllegalArgumentException("unterminated string");
+		}
+		String str = new String(bytes, start, pos - start, StandardCharsets.UTF_8);
+		pos++;
+		return escaped ? unescape(str) : str;
+	}
+
+	/**
+	 * 读取一个值，并转换为 Long，不是整数时返回 null
+	 *
+	 * @return /
+	 */
+	public Long readLong() {
+		Object value = readValue();
+		if(value instanceof Long) {
+			return (Long) value;
+		}
+		if(value instanceof BigDecimal) {
+			return ((BigDecimal) value).longValue();
+		}
+		if(value instanceof String) {
+			try {
+				return Long.parseLong((String) value);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 跳过一个值（包括嵌套的对象与数组）
+	 */
+	public void skipValue() {
+		int c = peek();
+		if(c == '"') {
+			readString();
+			return;
+		}
+		if(c == '{' || c == '[') {
+			int depth = 0;
+			while (pos < end) {
+				byte b = bytes[pos];
+				if(b == '"') {
+					readString();
+					continue;
+				}
+				pos++;
+				if(b == '{' || b == '[') {
+					depth++;
+				} else if(b == '}' || b == ']') {
+					if(--depth == 0) {
+						return;
+					}
+				}
+			}
+			throw new IllegalArgumentException("unterminated value");
+		}
+		// 数字、true、false、null
+		int start = pos;
+		while (pos < end) {
+			byte b = bytes[pos];
+			if(b == ',' || b == '}' || b == ']' || b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+				break;
+			}
+			pos++;
+		}
+		if(pos == start) {
+			throw new IllegalArgumentException("missing value");
+		}
+	}
+
+	/**
+	 * 读取一个数字，整数部分直接累加，避免构建中间字符串
+	 */
+	protected Object readNumber() {
+		int start = pos;
+		boolean negative = bytes[pos] == '-';
+		if(negative) {
+			pos++;
+		}
+		long value = 0;
+		int digits = 0;
+		while (pos < end && bytes[pos] >= '0' && bytes[pos] <= '9') {
+			value = value * 10 + (bytes[pos] - '0');
+			digits++;
+			pos++;
+		}
+		if(digits == 0) {
+			throw new IllegalArgumentException("invalid number");
+		}
+		boolean integral = pos >= end || (bytes[pos] != '.' && bytes[pos] != 'e' && bytes[pos] != 'E');
+		// 超过 18 位时可能溢出，交给 BigDecimal 处理
+		if(integral && digits <= 18) {
+			return negative ? -value : value;
+		}
+		skipValue();
+		BigDecimal decimal = new BigDecimal(new String(bytes, start, pos - start, StandardCharsets.US_ASCII));
+		if(integral) {
+			try {
+				return decimal.longValueExact();
+			} catch (ArithmeticException e) {
+				return decimal;
+			}
+		}
+		return decimal;
+	}
+
+	protected int peek() {
+		while (pos < end) {
+			byte b = bytes[pos];
+			if(b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+				return b;
+			}
+			pos++;
+		}
+		throw new IllegalArgumentException("unexpected end of json");
+	}
+
+	protected void expect(char c) {
+		if(peek() != c) {
+			throw new IllegalArgumentException("expected '" + c + "' at " + pos);
+		}
+		pos++;
+	}
+
+	/**
+	 * 处理字符串中的转义字符
+	 */
+	protected static String unescape(String str) {
+		StringBuilder sb = new StringBuilder(str.length());
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if(c != '\\' || i == str.length() - 1) {
+				sb.append(c);
+				continue;
+			}
+			char next = str.charAt(++i);
+			switch (next) {
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'u':
+					if(i + 4 >= str.length()) {
+						throw new IllegalArgumentException("invalid unicode escape");
+					}
+					sb.append((char) Integer.parseInt(str.substring(i + 1, i + 5), 16));
+					i += 4;
+					break;
+				default: sb.append(next); break;
+			}
+		}
+		return sb.toString();
+	}
+
+}
@@ -41,4 +41,10 @@ public interface SaJwtErrorCode {
 	/** 登录时提供的账号id为空 */
 	int CODE_30206 = 30206;
 
+	/** 此 jwt 的 kid 未注册 */
+	int CODE_30207 = 30207;
+
+	/** jwt 签名算法或密钥配置错误 */
+	int CODE_30208 = 30208;
+
 }
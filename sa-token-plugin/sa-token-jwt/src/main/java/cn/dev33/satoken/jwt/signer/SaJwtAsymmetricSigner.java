@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt.signer;
+
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.hutool.jwt.signers.JWTSigner;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * 非对称签名器（ES256、EdDSA）
+ *
+ * <p>
+ *     每个线程各自持有已初始化好的签名、验签 Signature 对象。
+ *     <br> ES256 的签名在 JCA 中为 DER 编码，jwt 规范要求为定长的 R||S 拼接（64 字节），此类负责二者之间的转换。
+ *     <br> EdDSA 需要 JDK 15 及以上版本。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtAsymmetricSigner implements JWTSigner {
+
+	/**
+	 * ES256 签名中 R、S 各自的字节长度
+	 */
+	static final int ES256_PART_LENGTH = 32;
+
+	/**
+	 * 算法 id，如 ES256
+	 */
+	public final String algorithmId;
+
+	/**
+	 * JCA 算法名称，如 SHA256withECDSA
+	 */
+	public final String algorithm;
+
+	/**
+	 * 私钥（为 null 时此签名器只能用于验签）
+	 */
+	private final PrivateKey privateKey;
+
+	/**
+	 * 每个线程各自持有的签名对象
+	 */
+	private final ThreadLocal<Signature> signPool;
+
+	/**
+	 * 每个线程各自持有的验签对象
+	 */
+	private final ThreadLocal<Signature> verifyPool;
+
+	/**
+	 * @param algorithmId 算法 id：ES256、EdDSA
+	 * @param privateKey 私钥（为 null 时只能用于验签）
+	 * @param publicKey 公钥
+	 */
+	public SaJwtAsymmetricSigner(String algorithmId, PrivateKey privateKey, PublicKey publicKey) {
+		this.algorithmId = algorithmId;
+		this.algorithm = getJcaName(algorithmId);
+		this.privateKey = privateKey;
+		this.signPool = ThreadLocal.withInitial(() -> {
+			try {
+				Signature signature = Signature.getInstance(algorithm);
+				signature.initSign(privateKey);
+				return signature;
+			} catch (GeneralSecurityException e) {
+				throw new SaJwtException("jwt 签名器初始化失败：" + algorithmId, e).setCode(SaJwtErrorCode.CODE_30208);
+			}
+		});
+		this.verifyPool = ThreadLocal.withInitial(() -> {
+			try {
+				Signature signature = Signature.getInstance(algorithm);
+				signature.initVerify(publicKey);
+				return signature;
+			} catch (GeneralSecurityException e) {
+				throw new SaJwtException("jwt 签名器初始化失败：" + algorithmId, e).setCode(SaJwtErrorCode.CODE_30208);
+			}
+		});
+		// 立即初始化一次，密钥不可用时尽早报错
+		verifyPool.get();
+		if(privateKey != null) {
+			signPool.get();
+		}
+	}
+
+	/**
+	 * 获取算法 id 对应的 JCA 算法名称
+	 *
+	 * @param algorithmId 算法 id
+	 * @return /
+	 */
+	public static String getJcaName(String algorithmId) {
+		switch (algorithmId) {
+			case SaJwtSignerRegistry.ES256: return "SHA256withECDSA";
+			case SaJwtSignerRegistry.EDDSA: return "Ed25519";
+			default: throw new SaJwtException("不是非对称的 jwt 签名算法：" + algorithmId).setCode(SaJwtErrorCode.CODE_30208);
+		}
+	}
+
+	@Override
+	public String sign(String headerBase64, String payloadBase64) {
+		if(privateKey == null) {
+			throw new SaJwtException("此密钥没有配置私钥，只能用于验签").setCode(SaJwtErrorCode.CODE_30208);
+		}
+		Signature signature = signPool.get();
+		try {
+			update(signature, headerBase64, payloadBase64);
+			byte[] sign = signature.sign();
+			if(SaJwtSignerRegistry.ES256.equals(algorithmId)) {
+				sign = derToConcat(sign, ES256_PART_LENGTH);
+			}
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(sign);
+		} catch (GeneralSecurityException e) {
+			signPool.remove();
+			throw new SaJwtException("jwt 签名失败", e).setCode(SaJwtErrorCode.CODE_30208);
+		}
+	}
+
+	@Override
+	public boolean verify(String headerBase64, String payloadBase64, String signBase64) {
+		byte[] sign;
+		try {
+			sign = Base64.getUrlDecoder().decode(signBase64);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		if(SaJwtSignerRegistry.ES256.equals(algorithmId)) {
+			if(sign.length != ES256_PART_LENGTH * 2) {
+				return false;
+			}
+			sign = concatToDer(sign, ES256_PART_LENGTH);
+		}
+		Signature signature = verifyPool.get();
+		try {
+			update(signature, headerBase64, payloadBase64);
+			return signature.verify(sign);
+		} catch (GeneralSecurityException e) {
+			// 出现异常后 Signature 的内部状态不再可信，丢弃之
+			verifyPool.remove();
+			return false;
+		}
+	}
+
+	private static void update(Signature signature, String headerBase64, String payloadBase64) throws GeneralSecurityException {
+		signature.update(headerBase64.getBytes(StandardCharsets.UTF_8));
+		signature.update((byte) '.');
+		signature.update(payloadBase64.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	public String getAlgorithmId() {
+		return algorithmId;
+	}
+
+
+	// ------------------------ ECDSA 签名格式转换
+
+	/**
+	 * DER 编码的 ECDSA 签名 SEQUENCE { INTEGER r, INTEGER s } 转换为定长的 R||S 拼接
+	 *
+	 * @param der DER 编码的签名
+	 * @param partLength R、S 各自的字节长度
+	 * @return /
+	 */
+	public static byte[] derToConcat(byte[] der, int partLength) {
+		// 跳过 SEQUENCE 的标签与长度（长度超过 127 时为两个字节）
+		int offset = (der[1] & 0xff) == 0x81 ? 3 : 2;
+		int rLength = der[offset + 1];
+		int rStart = offset + 2;
+		int sLength = der[rStart + rLength + 1];
+		int sStart = rStart + rLength + 2;
+		byte[] concat = new byte[partLength * 2];
+		copyUnsigned(der, rStart, rLength, concat, 0, partLength);
+		copyUnsigned(der, sStart, sLength, concat, partLength, partLength);
+		return concat;
+	}
+
+	/**
+	 * 定长的 R||S 拼接转换为 DER 编码的 ECDSA 签名
+	 *
+	 * @param concat R||S 拼接的签名
+	 * @param partLength R、S 各自的字节长度
+	 * @return /
+	 */
+	public static byte[] concatToDer(byte[] concat, int partLength) {
+		byte[] r = toDerInteger(concat, 0, partLength);
+		byte[] s = toDerInteger(concat, partLength, partLength);
+		int length = 2 + r.length + 2 + s.length;
+		byte[] der = new byte[length < 128 ? length + 2 : length + 3];
+		int i = 0;
+		der[i++] = 0x30;
+		if(length >= 128) {
+			der[i++] = (byte) 0x81;
+		}
+		der[i++] = (byte) length;
+		der[i++] = 0x02;
+		der[i++] = (byte) r.length;
+		System.arraycopy(r, 0, der, i, r.length);
+		i += r.length;
+		der[i++] = 0x02;
+		der[i++] = (byte) s.length;
+		System.arraycopy(s, 0, der, i, s.length);
+		return der;
+	}
+
+	/**
+	 * 将 DER INTEGER 的内容（可能带有前导 0）右对齐拷贝到定长区域
+	 */
+	private static void copyUnsigned(byte[] src, int start, int length, byte[] dest, int destStart, int partLength) {
+		while (length > partLength && src[start] == 0) {
+			start++;
+			length--;
+		}
+		System.arraycopy(src, start, dest, destStart + partLength - length, length);
+	}
+
+	/**
+	 * 将无符号大整数编码为 DER INTEGER 的内容：去掉多余的前导 0，最高位为 1 时补一个 0
+	 */
+	private static byte[] toDerInteger(byte[] src, int start, int length) {
+		while (length > 1 && src[start] == 0) {
+			start++;
+			length--;
+		}
+		boolean pad = (src[start] & 0x80) != 0;
+		byte[] result = new byte[pad ? length + 1 : length];
+		System.arraycopy(src, start, result, pad ? 1 : 0, length);
+		return result;
+	}
+
+}
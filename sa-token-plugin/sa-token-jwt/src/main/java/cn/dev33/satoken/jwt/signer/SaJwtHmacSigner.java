@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt.signer;
+
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.hutool.jwt.signers.JWTSigner;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HMAC 系列签名器（HS256、HS384、HS512）
+ *
+ * <p>
+ *     每个线程持有一个已初始化好的 Mac 对象，重复签名、验签时不再重新创建 Mac、拷贝密钥；
+ *     验签时按字节做常量时间比较，不会因为比较提前结束而泄露签名内容。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtHmacSigner implements JWTSigner {
+
+	/**
+	 * 算法 id，如 HS256
+	 */
+	public final String algorithmId;
+
+	/**
+	 * JCA 算法名称，如 HmacSHA256
+	 */
+	public final String algorithm;
+
+	/**
+	 * 每个线程各自持有的 Mac 对象
+	 */
+	private final ThreadLocal<Mac> macPool;
+
+	/**
+	 * @param algorithmId 算法 id：HS256、HS384、HS512
+	 * @param secret 密钥
+	 */
+	public SaJwtHmacSigner(String algorithmId, byte[] secret) {
+		this.algorithmId = algorithmId;
+		this.algorithm = getJcaName(algorithmId);
+		SecretKeySpec keySpec = new SecretKeySpec(secret, algorithm);
+		this.macPool = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance(algorithm);
+				mac.init(keySpec);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new SaJwtException("jwt 签名器初始化失败：" + algorithmId, e).setCode(SaJwtErrorCode.CODE_30208);
+			}
+		});
+		// 立即初始化一次，密钥不可用时尽早报错
+		macPool.get();
+	}
+
+	/**
+	 * 获取算法 id 对应的 JCA 算法名称
+	 *
+	 * @param algorithmId 算法 id
+	 * @return /
+	 */
+	public static String getJcaName(String algorithmId) {
+		switch (algorithmId) {
+			case SaJwtSignerRegistry.HS256: return "HmacSHA256";
+			case SaJwtSignerRegistry.HS384: return "HmacSHA384";
+			case SaJwtSignerRegistry.HS512: return "HmacSHA512";
+			default: throw new SaJwtException("不是 HMAC 系列的 jwt 签名算法：" + algorithmId).setCode(SaJwtErrorCode.CODE_30208);
+		}
+	}
+
+	/**
+	 * 计算签名字节
+	 *
+	 * @param headerBase64 header 部分
+	 * @param payloadBase64 payload 部分
+	 * @return /
+	 */
+	protected byte[] signBytes(String headerBase64, String payloadBase64) {
+		Mac mac = macPool.get();
+		mac.update(headerBase64.getBytes(StandardCharsets.UTF_8));
+		mac.update((byte) '.');
+		mac.update(payloadBase64.getBytes(StandardCharsets.UTF_8));
+		return mac.doFinal();
+	}
+
+	@Override
+	public String sign(String headerBase64, String payloadBase64) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(signBytes(headerBase64, payloadBase64));
+	}
+
+	@Override
+	public boolean verify(String headerBase64, String payloadBase64, String signBase64) {
+		byte[] actual;
+		try {
+			actual = Base64.getUrlDecoder().decode(signBase64);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		return MessageDigest.isEqual(signBytes(headerBase64, payloadBase64), actual);
+	}
+
+	/**
+	 * 直接在原始字节上验签，避免构建中间字符串
+	 *
+	 * @param data 签名内容所在的字节数组
+	 * @param length 签名内容的长度（从下标 0 开始）
+	 * @param signature 待校验的签名
+	 * @return /
+	 */
+	public boolean verify(byte[] data, int length, byte[] signature) {
+		Mac mac = macPool.get();
+		mac.update(data, 0, length);
+		return MessageDigest.isEqual(mac.doFinal(), signature);
+	}
+
+	@Override
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	public String getAlgorithmId() {
+		return algorithmId;
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt.signer;
+
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.dev33.satoken.util.SaFoxUtil;
+import cn.hutool.jwt.signers.JWTSigner;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * 一把以 kid 标识的 jwt 密钥
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtKey {
+
+	/**
+	 * 密钥 id，签名时写入 jwt 的 header，验签时据此找到对应的密钥
+	 */
+	public final String kid;
+
+	/**
+	 * 此密钥对应的签名器
+	 */
+	public final JWTSigner signer;
+
+	public SaJwtKey(String kid, JWTSigner signer) {
+		this.kid = kid;
+		this.signer = signer;
+	}
+
+	/**
+	 * 创建一把 HMAC 密钥
+	 *
+	 * @param kid 密钥 id
+	 * @param algorithm 算法：HS256、HS384、HS512
+	 * @param secret 密钥
+	 * @return /
+	 */
+	public static SaJwtKey hmac(String kid, String algorithm, String secret) {
+		return new SaJwtKey(kid, new SaJwtHmacSigner(algorithm, secret.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * 创建一把非对称密钥
+	 *
+	 * @param kid 密钥 id
+	 * @param algorithm 算法：ES256、EdDSA
+	 * @param privateKey Base64 编码的 PKCS#8 私钥（为空时只能用于验签）
+	 * @param publicKey Base64 编码的 X.509 公钥
+	 * @return /
+	 */
+	public static SaJwtKey asymmetric(String kid, String algorithm, String privateKey, String publicKey) {
+		String keyAlgorithm = SaJwtSignerRegistry.ES256.equals(algorithm) ? "EC" : "Ed25519";
+		try {
+			KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm);
+			PrivateKey priKey = SaFoxUtil.isEmpty(privateKey) ? null :
+					keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey)));
+			PublicKey pubKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey)));
+			return new SaJwtKey(kid, new SaJwtAsymmetricSigner(algorithm, priKey, pubKey));
+		} catch (GeneralSecurityException | IllegalArgumentException e) {
+			throw new SaJwtException("jwt 密钥解析失败：" + kid, e).setCode(SaJwtErrorCode.CODE_30208);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SaJwtKey [kid=" + kid + ", algorithm=" + signer.getAlgorithmId() + "]";
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.jwt.signer;
+
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.hutool.jwt.signers.JWTSigner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * jwt 签名器注册表
+ *
+ * <p>
+ *     1、以 keyt 秘钥签名时，按 [算法 + 秘钥] 缓存签名器，相同秘钥不再重复创建；算法通过 setAlgorithm 配置，默认 HS256。
+ *     <br> 2、密钥轮换：通过 addKey 注册多把以 kid 标识的密钥，并通过 setCurrentKid 指定签名用的密钥，
+ *          新签发的 jwt 会在 header 中携带 kid，验签时根据 kid 找到对应的密钥；不携带 kid 的旧 jwt 仍然使用 keyt 验签。
+ *          因此轮换密钥时只需注册新密钥并切换 currentKid，旧 jwt 在过期之前依然有效，无需所有用户重新登录。
+ * </p>
+ *
+ * <pre>
+ *     SaJwtUtil.getSaJwtTemplate().getSignerRegistry()
+ *             .addKey(SaJwtKey.hmac("k2", SaJwtSignerRegistry.HS512, "new-secret-..."))
+ *             .setCurrentKid("k2");
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaJwtSignerRegistry {
+
+	/** 算法：HMAC SHA-256 */
+	public static final String HS256 = "HS256";
+
+	/** 算法：HMAC SHA-384 */
+	public static final String HS384 = "HS384";
+
+	/** 算法：HMAC SHA-512 */
+	public static final String HS512 = "HS512";
+
+	/** 算法：ECDSA P-256 SHA-256 */
+	public static final String ES256 = "ES256";
+
+	/** 算法：Ed25519（需要 JDK 15 及以上版本） */
+	public static final String EDDSA = "EdDSA";
+
+	/**
+	 * 以 keyt 秘钥签名时使用的算法（只能是 HMAC 系列算法）
+	 */
+	public String algorithm = HS256;
+
+	/**
+	 * 以 keyt 秘钥创建的签名器缓存，key 为 [算法:秘钥]
+	 */
+	public final Map<String, JWTSigner> signerCache = new ConcurrentHashMap<>();
+
+	/**
+	 * 所有以 kid 标识的密钥
+	 */
+	public final Map<String, SaJwtKey> keyMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 签名时使用的密钥 kid，为 null 时使用 keyt 秘钥签名
+	 */
+	public volatile String currentKid;
+
+	/**
+	 * 获取 keyt 秘钥对应的签名器
+	 *
+	 * @param keyt 秘钥
+	 * @return /
+	 */
+	public JWTSigner getSigner(String keyt) {
+		String algorithm = this.algorithm;
+		return signerCache.computeIfAbsent(algorithm + ":" + keyt,
+				k -> new SaJwtHmacSigner(algorithm, keyt.getBytes()));
+	}
+
+	/**
+	 * 获取指定 kid 的密钥，不存在时返回 null
+	 *
+	 * @param kid 密钥 id
+	 * @return /
+	 */
+	public SaJwtKey getKey(String kid) {
+		return keyMap.get(kid);
+	}
+
+	/**
+	 * 获取签名时使用的密钥，未指定时返回 null
+	 *
+	 * @return /
+	 */
+	public SaJwtKey getCurrentKey() {
+		String kid = currentKid;
+		return kid == null ? null : keyMap.get(kid);
+	}
+
+	/**
+	 * 注册一把密钥，kid 相同时覆盖
+	 *
+	 * @param key 密钥
+	 * @return 对象自身
+	 */
+	public SaJwtSignerRegistry addKey(SaJwtKey key) {
+		keyMap.put(key.kid, key);
+		return this;
+	}
+
+	/**
+	 * 移除一把密钥，此后携带此 kid 的 jwt 将无法通过验签（如已开启 SaJwtTemplate 跨请求缓存，请同时清除缓存）
+	 *
+	 * @param kid 密钥 id
+	 * @return 对象自身
+	 */
+	public SaJwtSignerRegistry removeKey(String kid) {
+		if(kid.equals(currentKid)) {
+			throw new SaJwtException("不可移除正在用于签名的密钥：" + kid).setCode(SaJwtErrorCode.CODE_30208);
+		}
+		keyMap.remove(kid);
+		return this;
+	}
+
+	/**
+	 * @return 以 keyt 秘钥签名时使用的算法
+	 */
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * @param algorithm 以 keyt 秘钥签名时使用的算法：HS256、HS384、HS512
+	 * @return 对象自身
+	 */
+	public SaJwtSignerRegistry setAlgorithm(String algorithm) {
+		// 提前校验算法是否受支持
+		SaJwtHmacSigner.getJcaName(algorithm);
+		this.algorithm = algorithm;
+		return this;
+	}
+
+	/**
+	 * @return 签名时使用的密钥 kid
+	 */
+	public String getCurrentKid() {
+		return currentKid;
+	}
+
+	/**
+	 * @param currentKid 签名时使用的密钥 kid（必须已注册），为 null 时使用 keyt 秘钥签名
+	 * @return 对象自身
+	 */
+	public SaJwtSignerRegistry setCurrentKid(String currentKid) {
+		if(currentKid != null && ! keyMap.containsKey(currentKid)) {
+			throw new SaJwtException("此 kid 尚未注册：" + currentKid).setCode(SaJwtErrorCode.CODE_30207);
+		}
+		this.currentKid = currentKid;
+		return this;
+	}
+
+}
@@ -61,6 +61,22 @@ public class SaOAuth2Config implements Serializable {
 	/** Past-Client-Token 保存的时间(单位：秒) 默认为 -1，代表延续 Client-Token有效期 */
 	public long pastClientTokenTimeout = -1;
 
+	/**
+	 * Client 信息在本地注册表中的缓存时间(单位：秒)，默认为 0，代表每次仍调用 getClientModel 获取最新的 Client 信息
+	 * （无论是否缓存，allowUrl、contractScope 的解析结果都会被复用，直到其内容发生变化）
+	 */
+	public long clientCacheTimeout = 0;
+
+	/**
+	 * 是否签发自包含的签名 Access-Token（资源服务器可在本地验签，校验时无需查询存储）
+	 */
+	public Boolean isSignedAccessToken = false;
+
+	/**
+	 * 签名 Access-Token 的秘钥（授权服务器与资源服务器需配置相同的值）
+	 */
+	public String accessTokenSecretKey;
+
 
 	/**
 	 * @return isCode
@@ -212,6 +228,54 @@ public class SaOAuth2Config implements Serializable {
 		return this;
 	}
 
+	/**
+	 * @return clientCacheTimeout
+	 */
+	public long getClientCacheTimeout() {
+		return clientCacheTimeout;
+	}
+
+	/**
+	 * @param clientCacheTimeout 要设置的 clientCacheTimeout
+	 * @return 对象自身
+	 */
+	public SaOAuth2Config setClientCacheTimeout(long clientCacheTimeout) {
+		this.clientCacheTimeout = clientCacheTimeout;
+		return this;
+	}
+
+	/**
+	 * @return isSignedAccessToken
+	 */
+	public Boolean getIsSignedAccessToken() {
+		return isSignedAccessToken;
+	}
+
+	/**
+	 * @param isSignedAccessToken 要设置的 isSignedAccessToken
+	 * @return 对象自身
+	 */
+	public SaOAuth2Config setIsSignedAccessToken(Boolean isSignedAccessToken) {
+		this.isSignedAccessToken = isSignedAccessToken;
+		return this;
+	}
+
+	/**
+	 * @return accessTokenSecretKey
+	 */
+	public String getAccessTokenSecretKey() {
+		return accessTokenSecretKey;
+	}
+
+	/**
+	 * @param accessTokenSecretKey 要设置的 accessTokenSecretKey
+	 * @return 对象自身
+	 */
+	public SaOAuth2Config setAccessTokenSecretKey(String accessTokenSecretKey) {
+		this.accessTokenSecretKey = accessTokenSecretKey;
+		return this;
+	}
+
 	
 	// -------------------- SaOAuth2Handle 所有回调函数 -------------------- 
 	
@@ -284,6 +348,8 @@ public class SaOAuth2Config implements Serializable {
 				+ ", isClient=" + isClient + ", isNewRefresh=" + isNewRefresh + ", codeTimeout=" + codeTimeout
 				+ ", accessTokenTimeout=" + accessTokenTimeout + ", refreshTokenTimeout=" + refreshTokenTimeout
 				+ ", clientTokenTimeout=" + clientTokenTimeout + ", pastClientTokenTimeout=" + pastClientTokenTimeout
+				+ ", clientCacheTimeout=" + clientCacheTimeout
+				+ ", isSignedAccessToken=" + isSignedAccessToken
 				+"]";
 	}
 	
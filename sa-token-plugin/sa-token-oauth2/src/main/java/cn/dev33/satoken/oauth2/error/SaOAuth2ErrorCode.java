@@ -110,4 +110,7 @@ public interface SaOAuth2ErrorCode {
 	/** 暂未开放凭证式模式 */
 	int CODE_30134 = 30134;
 	
+	/** 未配置签名 Access-Token 的秘钥，或秘钥不可用 */
+	int CODE_30135 = 30135;
+	
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.oauth2.logic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.dev33.satoken.oauth2.SaOAuth2Manager;
+import cn.dev33.satoken.oauth2.model.SaClientModel;
+import cn.dev33.satoken.oauth2.model.SaCompiledClient;
+
+/**
+ * Client 注册表：缓存每个 Client 的编译结果，使每次请求的 Client 校验只需一次哈希查找
+ *
+ * <p>
+ *     1、通过 register 注册的 Client 常驻内存，不再调用 {@link SaOAuth2Template#getClientModel(String)}。
+ *     <br> 2、其它 Client 在第一次使用时通过 getClientModel 加载，并按照 clientCacheTimeout 配置缓存；
+ *          缓存时间为 0 时每次都重新加载，但只要 contractScope、allowUrl 未变化，就复用之前的编译结果。
+ *     <br> 3、Client 信息发生变化时，调用 refresh(clientId) 或 remove(clientId) 使其立即重新加载。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2ClientRegistry {
+
+	/**
+	 * 加载 Client 信息的模板对象
+	 */
+	public final SaOAuth2Template template;
+
+	/**
+	 * 已编译的 Client，key 为 clientId
+	 */
+	public final Map<String, SaCompiledClient> clientMap = new ConcurrentHashMap<>();
+
+	public SaOAuth2ClientRegistry(SaOAuth2Template template) {
+		this.template = template;
+	}
+
+	/**
+	 * 获取编译后的 Client 信息，Client 不存在时返回 null
+	 * @param clientId 应用id
+	 * @return /
+	 */
+	public SaCompiledClient get(String clientId) {
+		if(clientId == null) {
+			return null;
+		}
+		SaCompiledClient compiled = clientMap.get(clientId);
+		long now = System.currentTimeMillis();
+		if(compiled != null && compiled.isAlive(now)) {
+			return compiled;
+		}
+		return load(clientId, compiled, now);
+	}
+
+	/**
+	 * 通过 getClientModel 加载 Client 信息，并编译（配置未变化时复用旧的编译结果）
+	 */
+	protected SaCompiledClient load(String clientId, SaCompiledClient old, long now) {
+		SaClientModel client = template.getClientModel(clientId);
+		if(client == null) {
+			if(old != null) {
+				clientMap.remove(clientId, old);
+			}
+			return null;
+		}
+		long timeout = SaOAuth2Manager.getConfig().getClientCacheTimeout();
+		long expireTime = timeout > 0 ? now + timeout * 1000 : (timeout == -1 ? -1 : 0);
+		SaCompiledClient compiled = (old != null && old.isCompiledFrom(client))
+				? new SaCompiledClient(old, client, expireTime)
+				: new SaCompiledClient(client, expireTime);
+		clientMap.put(clientId, compiled);
+		return compiled;
+	}
+
+	/**
+	 * 注册一个常驻内存的 Client（覆盖同 clientId 的已有数据）
+	 * @param client Client 信息
+	 * @return 对象自身
+	 */
+	public SaOAuth2ClientRegistry register(SaClientModel client) {
+		clientMap.put(client.clientId, new SaCompiledClient(client, -1));
+		return this;
+	}
+
+	/**
+	 * 移除一个 Client 的缓存，下次使用时重新通过 getClientModel 加载
+	 * @param clientId 应用id
+	 * @return 对象自身
+	 */
+	public SaOAuth2ClientRegistry remove(String clientId) {
+		clientMap.remove(clientId);
+		return this;
+	}
+
+	/**
+	 * 立即重新加载一个 Client（getClientModel 返回 null 时移除）
+	 * @param clientId 应用id
+	 * @return 重新加载后的 Client
+	 */
+	public SaCompiledClient refresh(String clientId) {
+		return load(clientId, clientMap.get(clientId), System.currentTimeMillis());
+	}
+
+	/**
+	 * 清空所有缓存
+	 */
+	public void clear() {
+		clientMap.clear();
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.oauth2.logic;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * Scope 注册表：为每个 Scope 分配一个位，将 Scope 列表表示为 long[] 位图，使 Scope 校验变为按字的与运算
+ *
+ * <p>
+ *     1、位的编号只在当前进程内有效，因此位图不参与序列化，由各节点按需从 scope 字符串计算。
+ *     <br> 2、scope 字符串 到 位图 的计算结果会被缓存（最多 maxCacheSize 条，超出时整体清空），相同的 scope 字符串只解析一次。
+ *     <br> 3、注册的 Scope 数量达到 maxScopeCount 后不再分配新位，此时 getBits 返回 null，调用方应退回到字符串比较。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2ScopeRegistry {
+
+	/**
+	 * 空位图
+	 */
+	public static final long[] EMPTY_BITS = new long[0];
+
+	/**
+	 * 最多注册的 Scope 数量
+	 */
+	public int maxScopeCount = 4096;
+
+	/**
+	 * scope 字符串 到 位图 的缓存最多存储的数量
+	 */
+	public int maxCacheSize = 4096;
+
+	/**
+	 * 已注册的 Scope，value 为其位编号
+	 */
+	public final Map<String, Integer> indexMap = new ConcurrentHashMap<>();
+
+	/**
+	 * scope 字符串 到 位图 的缓存
+	 */
+	public final Map<String, long[]> bitsCache = new ConcurrentHashMap<>();
+
+	/**
+	 * 获取一个 Scope 的位编号，未注册时立即注册
+	 * @param scope Scope
+	 * @return 位编号，注册表已满时返回 -1
+	 */
+	public int indexOf(String scope) {
+		Integer index = indexMap.get(scope);
+		return index != null ? index : register(scope);
+	}
+
+	protected synchronized int register(String scope) {
+		Integer index = indexMap.get(scope);
+		if(index != null) {
+			return index;
+		}
+		if(indexMap.size() >= maxScopeCount) {
+			return -1;
+		}
+		int newIndex = indexMap.size();
+		indexMap.put(scope, newIndex);
+		return newIndex;
+	}
+
+	/**
+	 * 获取 scope 字符串（多个用逗号隔开）对应的位图
+	 * @param scope scope 字符串
+	 * @return 位图，注册表已满时返回 null
+	 */
+	public long[] getBits(String scope) {
+		if(SaFoxUtil.isEmpty(scope)) {
+			return EMPTY_BITS;
+		}
+		long[] bits = bitsCache.get(scope);
+		if(bits != null) {
+			return bits;
+		}
+		bits = getBits(SaFoxUtil.convertStringToList(scope));
+		if(bits != null) {
+			if(bitsCache.size() >= maxCacheSize) {
+				bitsCache.clear();
+			}
+			bitsCache.put(scope, bits);
+		}
+		return bits;
+	}
+
+	/**
+	 * 获取多个 Scope 对应的位图
+	 * @param scopes Scope 数组
+	 * @return 位图，注册表已满时返回 null
+	 */
+	public long[] getBits(String... scopes) {
+		return getBits(Arrays.asList(scopes));
+	}
+
+	/**
+	 * 获取多个 Scope 对应的位图
+	 * @param scopes Scope 集合
+	 * @return 位图，注册表已满时返回 null
+	 */
+	public long[] getBits(Collection<String> scopes) {
+		long[] bits = EMPTY_BITS;
+		for (String scope : scopes) {
+			int index = indexOf(scope);
+			if(index == -1) {
+				return null;
+			}
+			int word = index >>> 6;
+			if(word >= bits.length) {
+				bits = Arrays.copyOf(bits, word + 1);
+			}
+			bits[word] |= 1L << index;
+		}
+		return bits;
+	}
+
+	/**
+	 * 判断：位图 have 是否包含位图 need 中的所有位（任意一方为 null 时返回 false）
+	 * @param have 拥有的 Scope 位图
+	 * @param need 需要的 Scope 位图
+	 * @return /
+	 */
+	public static boolean containsAll(long[] have, long[] need) {
+		if(have == null || need == null) {
+			return false;
+		}
+		for (int i = 0; i < need.length; i++) {
+			long h = i < have.length ? have[i] : 0L;
+			if((need[i] & ~h) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
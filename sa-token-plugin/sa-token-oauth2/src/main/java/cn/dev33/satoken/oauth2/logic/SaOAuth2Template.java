@@ -15,6 +15,7 @@
  */
 package cn.dev33.satoken.oauth2.logic;
 
+import java.util.Arrays;
 import java.util.List;
 
 import cn.dev33.satoken.SaManager;
@@ -29,7 +30,9 @@ import cn.dev33.satoken.oauth2.model.CodeModel;
 import cn.dev33.satoken.oauth2.model.RefreshTokenModel;
 import cn.dev33.satoken.oauth2.model.RequestAuthModel;
 import cn.dev33.satoken.oauth2.model.SaClientModel;
-import cn.dev33.satoken.strategy.SaStrategy;
+import cn.dev33.satoken.oauth2.model.SaCompiledClient;
+import cn.dev33.satoken.oauth2.token.SaOAuth2AccessTokenCodec;
+import cn.dev33.satoken.oauth2.token.SaOAuth2TokenDenyList;
 import cn.dev33.satoken.util.SaFoxUtil;
 
 /**
@@ -40,6 +43,31 @@ import cn.dev33.satoken.util.SaFoxUtil;
  */
 public class SaOAuth2Template {
 
+	/**
+	 * Client 注册表，缓存每个 Client 编译后的 Scope 集合与 URL 匹配器
+	 */
+	public SaOAuth2ClientRegistry clientRegistry = new SaOAuth2ClientRegistry(this);
+
+	/**
+	 * 令牌存储，令牌的签发、兑换、轮换通过它以原子方式执行
+	 */
+	public SaOAuth2TokenStore tokenStore = new SaOAuth2TokenStoreDefaultImpl();
+
+	/**
+	 * 签名 Access-Token 的拉黑名单
+	 */
+	public SaOAuth2TokenDenyList denyList = new SaOAuth2TokenDenyList();
+
+	/**
+	 * Scope 注册表，Scope 校验时以位图代替字符串列表（模型上缓存的位图与注册表绑定，请勿在运行期替换）
+	 */
+	public SaOAuth2ScopeRegistry scopeRegistry = new SaOAuth2ScopeRegistry();
+
+	/**
+	 * 签名 Access-Token 编解码器（按配置的秘钥懒加载）
+	 */
+	protected volatile SaOAuth2AccessTokenCodec accessTokenCodec;
+
 	// ------------------- 获取数据 (开发者必须重写的函数)
 	/**
 	 * 根据id获取Client信息
@@ -66,11 +94,19 @@ public class SaOAuth2Template {
 	 * @return ClientModel
 	 */
 	public SaClientModel checkClientModel(String clientId) {
-		SaClientModel clientModel = getClientModel(clientId);
-		if(clientModel == null) {
+		return checkCompiledClient(clientId).client;
+	}
+	/**
+	 * 根据id获取编译后的Client信息, 如果Client为空，则抛出异常
+	 * @param clientId 应用id
+	 * @return /
+	 */
+	public SaCompiledClient checkCompiledClient(String clientId) {
+		SaCompiledClient compiled = clientRegistry.get(clientId);
+		if(compiled == null) {
 			throw new SaOAuth2Exception("无效client_id: " + clientId).setCode(SaOAuth2ErrorCode.CODE_30105);
 		}
-		return clientModel;
+		return compiled;
 	}
 	/**
 	 * 获取 Access-Token，如果AccessToken为空则抛出异常
@@ -110,6 +146,13 @@ public class SaOAuth2Template {
 			return;
 		}
 		AccessTokenModel at = checkAccessToken(accessToken);
+		if(at.scopeBits == null) {
+			at.scopeBits = scopeRegistry.getBits(at.scope);
+		}
+		if(SaOAuth2ScopeRegistry.containsAll(at.scopeBits, scopeRegistry.getBits(scopes))) {
+			return;
+		}
+		// 校验不通过（或注册表已满）时，逐个比较，找出缺少的 Scope
 		List<String> scopeList = SaFoxUtil.convertStringToList(at.scope);
 		for (String scope : scopes) {
 			SaOAuth2Exception.throwBy( ! scopeList.contains(scope), "该 Access-Token 不具备 Scope：" + scope, SaOAuth2ErrorCode.CODE_30108);
@@ -125,6 +168,13 @@ public class SaOAuth2Template {
 			return;
 		}
 		ClientTokenModel ct = checkClientToken(clientToken);
+		if(ct.scopeBits == null) {
+			ct.scopeBits = scopeRegistry.getBits(ct.scope);
+		}
+		if(SaOAuth2ScopeRegistry.containsAll(ct.scopeBits, scopeRegistry.getBits(scopes))) {
+			return;
+		}
+		// 校验不通过（或注册表已满）时，逐个比较，找出缺少的 Scope
 		List<String> scopeList = SaFoxUtil.convertStringToList(ct.scope);
 		for (String scope : scopes) {
 			SaOAuth2Exception.throwBy( ! scopeList.contains(scope), "该 Client-Token 不具备 Scope：" + scope, SaOAuth2ErrorCode.CODE_30109);
@@ -154,20 +204,22 @@ public class SaOAuth2Template {
 	 * @return 授权码Model
 	 */
 	public CodeModel generateCode(RequestAuthModel ra) {
+		return tokenStore.atomic(splicingLockKey(ra.clientId, ra.loginId), () -> {
 
-		// 删除旧Code
-		deleteCode(getCodeValue(ra.clientId, ra.loginId));
+			// 删除旧Code
+			deleteCode(getCodeValue(ra.clientId, ra.loginId));
 
-		// 生成新Code
-		String code = randomCode(ra.clientId, ra.loginId, ra.scope);
-		CodeModel cm = new CodeModel(code, ra.clientId, ra.scope, ra.loginId, ra.redirectUri);
+			// 生成新Code
+			String code = randomCode(ra.clientId, ra.loginId, ra.scope);
+			CodeModel cm = new CodeModel(code, ra.clientId, ra.scope, ra.loginId, ra.redirectUri);
 
-		// 保存新Code
-		saveCode(cm);
-		saveCodeIndex(cm);
+			// 保存新Code
+			saveCode(cm);
+			saveCodeIndex(cm);
 
-		// 返回
-		return cm;
+			// 返回
+			return cm;
+		});
 	}
 	/**
 	 * 构建Model：Access-Token
@@ -180,28 +232,40 @@ public class SaOAuth2Template {
 		CodeModel cm = getCode(code);
 		SaOAuth2Exception.throwBy(cm == null, "无效code", SaOAuth2ErrorCode.CODE_30110);
 
-		// 2、删除旧Token
-		deleteAccessToken(getAccessTokenValue(cm.clientId, cm.loginId));
-		deleteRefreshToken(getRefreshTokenValue(cm.clientId, cm.loginId));
+		return tokenStore.atomic(splicingLockKey(cm.clientId, cm.loginId), () -> {
 
-		// 3、生成token
-		AccessTokenModel at = convertCodeToAccessToken(cm);
-		RefreshTokenModel rt = convertAccessTokenToRefreshToken(at);
-		at.refreshToken = rt.refreshToken;
-		at.refreshExpiresTime = rt.expiresTime;
+			// 1.5、一次读取 Code索引 与旧Token索引；Code索引已不指向此Code，说明它已被并发的请求兑换
+			List<String> values = SaManager.getSaTokenDao().getMulti(Arrays.asList(
+					splicingCodeIndexKey(cm.clientId, cm.loginId),
+					splicingAccessTokenIndexKey(cm.clientId, cm.loginId),
+					splicingRefreshTokenIndexKey(cm.clientId, cm.loginId)
+			));
+			SaOAuth2Exception.throwBy( ! code.equals(values.get(0)), "无效code", SaOAuth2ErrorCode.CODE_30110);
 
-		// 4、保存token
-		saveAccessToken(at);
-		saveAccessTokenIndex(at);
-		saveRefreshToken(rt);
-		saveRefreshTokenIndex(rt);
+			// 2、删除旧Token
+			deleteAccessToken(values.get(1));
+			deleteRefreshToken(values.get(2));
 
-		// 5、删除此Code
-		deleteCode(code);
-		deleteCodeIndex(cm.clientId, cm.loginId);
+			// 3、生成token
+			AccessTokenModel at = convertCodeToAccessToken(cm);
+			RefreshTokenModel rt = convertAccessTokenToRefreshToken(at);
+			at.refreshToken = rt.refreshToken;
+			at.refreshExpiresTime = rt.expiresTime;
 
-		// 6、返回 Access-Token
-		return at;
+			// 4、保存token
+			saveAccessToken(at);
+			saveAccessTokenIndex(at);
+			saveRefreshToken(rt);
+			saveRefreshTokenIndex(rt);
+
+			// 5、在持久层上原子地占用此Code（多个节点同时兑换同一个Code时只有一个可以成功，失败方的暂存写操作被放弃），然后删除此Code
+			SaOAuth2Exception.throwBy( ! consumeCode(code), "无效code", SaOAuth2ErrorCode.CODE_30110);
+			deleteCode(code);
+			deleteCodeIndex(cm.clientId, cm.loginId);
+
+			// 6、返回 Access-Token
+			return at;
+		});
 	}
 	/**
 	 * 刷新Model：根据 Refresh-Token 生成一个新的 Access-Token
@@ -211,32 +275,44 @@ public class SaOAuth2Template {
 	public AccessTokenModel refreshAccessToken(String refreshToken) {
 
 		// 获取 Refresh-Token 信息
-		RefreshTokenModel rt = getRefreshToken(refreshToken);
-		SaOAuth2Exception.throwBy(rt == null, "无效refresh_token: " + refreshToken, SaOAuth2ErrorCode.CODE_30111);
-		
-		// 如果配置了[每次刷新产生新的Refresh-Token]
-		if(checkClientModel(rt.clientId).getIsNewRefresh()) {
-			// 删除旧 Refresh-Token
-			deleteRefreshToken(rt.refreshToken);
-
-			// 创建并保持新的 Refresh-Token
-			rt = convertRefreshTokenToRefreshToken(rt);
-			saveRefreshToken(rt);
-			saveRefreshTokenIndex(rt);
-		}
+		RefreshTokenModel oldRt = getRefreshToken(refreshToken);
+		SaOAuth2Exception.throwBy(oldRt == null, "无效refresh_token: " + refreshToken, SaOAuth2ErrorCode.CODE_30111);
 
-		// 删除旧 Access-Token
-		deleteAccessToken(getAccessTokenValue(rt.clientId, rt.loginId));
+		return tokenStore.atomic(splicingLockKey(oldRt.clientId, oldRt.loginId), () -> {
+			RefreshTokenModel rt = oldRt;
 
-		// 生成新 Access-Token
-		AccessTokenModel at = convertRefreshTokenToAccessToken(rt);
+			// 一次读取 Refresh-Token索引 与旧 Access-Token索引；Refresh-Token索引已指向别的值，说明它已被并发的请求轮换
+			List<String> values = SaManager.getSaTokenDao().getMulti(Arrays.asList(
+					splicingRefreshTokenIndexKey(rt.clientId, rt.loginId),
+					splicingAccessTokenIndexKey(rt.clientId, rt.loginId)
+			));
+			SaOAuth2Exception.throwBy(values.get(0) != null && ! refreshToken.equals(values.get(0)),
+					"无效refresh_token: " + refreshToken, SaOAuth2ErrorCode.CODE_30111);
 
-		// 保存新 Access-Token
-		saveAccessToken(at);
-		saveAccessTokenIndex(at);
+			// 如果配置了[每次刷新产生新的Refresh-Token]
+			if(checkClientModel(rt.clientId).getIsNewRefresh()) {
+				// 删除旧 Refresh-Token
+				deleteRefreshToken(rt.refreshToken);
 
-		// 返回新 Access-Token
-		return at;
+				// 创建并保持新的 Refresh-Token
+				rt = convertRefreshTokenToRefreshToken(rt);
+				saveRefreshToken(rt);
+				saveRefreshTokenIndex(rt);
+			}
+
+			// 删除旧 Access-Token
+			deleteAccessToken(values.get(1));
+
+			// 生成新 Access-Token
+			AccessTokenModel at = convertRefreshTokenToAccessToken(rt);
+
+			// 保存新 Access-Token
+			saveAccessToken(at);
+			saveAccessTokenIndex(at);
+
+			// 返回新 Access-Token
+			return at;
+		});
 	}
 	/**
 	 * 构建Model：Access-Token (根据RequestAuthModel构建，用于隐藏式 and 密码式)
@@ -245,32 +321,39 @@ public class SaOAuth2Template {
 	 * @return Access-Token Model
 	 */
 	public AccessTokenModel generateAccessToken(RequestAuthModel ra, boolean isCreateRt) {
+		return tokenStore.atomic(splicingLockKey(ra.clientId, ra.loginId), () -> {
 
-		// 1、删除 旧Token
-		deleteAccessToken(getAccessTokenValue(ra.clientId, ra.loginId));
-		if(isCreateRt) {
-			deleteRefreshToken(getRefreshTokenValue(ra.clientId, ra.loginId));
-		}
+			// 1、删除 旧Token（一次读取两个索引）
+			List<String> values = SaManager.getSaTokenDao().getMulti(Arrays.asList(
+					splicingAccessTokenIndexKey(ra.clientId, ra.loginId),
+					splicingRefreshTokenIndexKey(ra.clientId, ra.loginId)
+			));
+			deleteAccessToken(values.get(0));
+			if(isCreateRt) {
+				deleteRefreshToken(values.get(1));
+			}
 
-		// 2、生成 新Access-Token
-		String newAtValue = randomAccessToken(ra.clientId, ra.loginId, ra.scope);
-		AccessTokenModel at = new AccessTokenModel(newAtValue, ra.clientId, ra.loginId, ra.scope);
-		at.openid = getOpenid(ra.clientId, ra.loginId);
-		at.expiresTime = System.currentTimeMillis() + (checkClientModel(ra.clientId).getAccessTokenTimeout() * 1000);
+			// 2、生成 新Access-Token
+			String newAtValue = randomAccessToken(ra.clientId, ra.loginId, ra.scope);
+			AccessTokenModel at = new AccessTokenModel(newAtValue, ra.clientId, ra.loginId, ra.scope);
+			at.openid = getOpenid(ra.clientId, ra.loginId);
+			at.expiresTime = System.currentTimeMillis() + (checkClientModel(ra.clientId).getAccessTokenTimeout() * 1000);
+			signAccessToken(at);
 
-		// 3、生成&保存 Refresh-Token
-		if(isCreateRt) {
-			RefreshTokenModel rt = convertAccessTokenToRefreshToken(at);
-			saveRefreshToken(rt);
-			saveRefreshTokenIndex(rt);
-		}
+			// 3、生成&保存 Refresh-Token
+			if(isCreateRt) {
+				RefreshTokenModel rt = convertAccessTokenToRefreshToken(at);
+				saveRefreshToken(rt);
+				saveRefreshTokenIndex(rt);
+			}
 
-		// 5、保存 新Access-Token
-		saveAccessToken(at);
-		saveAccessTokenIndex(at);
+			// 5、保存 新Access-Token
+			saveAccessToken(at);
+			saveAccessTokenIndex(at);
 
-		// 6、返回 新Access-Token
-		return at;
+			// 6、返回 新Access-Token
+			return at;
+		});
 	}
 	/**
 	 * 构建Model：Client-Token
@@ -279,30 +362,37 @@ public class SaOAuth2Template {
 	 * @return Client-Token Model
 	 */
 	public ClientTokenModel generateClientToken(String clientId, String scope) {
-		// 1、删掉旧 Past-Token
-		deleteClientToken(getPastTokenValue(clientId));
-
-		// 2、将旧Client-Token 标记为新 Past-Token
-		ClientTokenModel oldCt = getClientToken(getClientTokenValue(clientId));
-		savePastTokenIndex(oldCt);
-		
-		// 2.5、如果配置了 PastClientToken 的 ttl ，则需要更新一下 
-		SaClientModel cm = checkClientModel(clientId);
-		if(oldCt != null && cm.getPastClientTokenTimeout() != -1) {
-			oldCt.expiresTime = System.currentTimeMillis() + (cm.getPastClientTokenTimeout() * 1000);
-			saveClientToken(oldCt);
-		}
+		return tokenStore.atomic(splicingLockKey(clientId, null), () -> {
 
-		// 3、生成新Client-Token
-		ClientTokenModel ct = new ClientTokenModel(randomClientToken(clientId, scope), clientId, scope);
-		ct.expiresTime = System.currentTimeMillis() + (cm.getClientTokenTimeout() * 1000);
+			// 1、删掉旧 Past-Token（一次读取两个索引）
+			List<String> values = SaManager.getSaTokenDao().getMulti(Arrays.asList(
+					splicingPastTokenIndexKey(clientId),
+					splicingClientTokenIndexKey(clientId)
+			));
+			deleteClientToken(values.get(0));
 
-		// 3、保存新Client-Token 
-		saveClientToken(ct);
-		saveClientTokenIndex(ct);
+			// 2、将旧Client-Token 标记为新 Past-Token
+			ClientTokenModel oldCt = getClientToken(values.get(1));
+			savePastTokenIndex(oldCt);
 
-		// 4、返回
-		return ct;
+			// 2.5、如果配置了 PastClientToken 的 ttl ，则需要更新一下
+			SaClientModel cm = checkClientModel(clientId);
+			if(oldCt != null && cm.getPastClientTokenTimeout() != -1) {
+				oldCt.expiresTime = System.currentTimeMillis() + (cm.getPastClientTokenTimeout() * 1000);
+				saveClientToken(oldCt);
+			}
+
+			// 3、生成新Client-Token
+			ClientTokenModel ct = new ClientTokenModel(randomClientToken(clientId, scope), clientId, scope);
+			ct.expiresTime = System.currentTimeMillis() + (cm.getClientTokenTimeout() * 1000);
+
+			// 3、保存新Client-Token
+			saveClientToken(ct);
+			saveClientTokenIndex(ct);
+
+			// 4、返回
+			return ct;
+		});
 	}
 	/**
 	 * 构建URL：下放Code URL (Authorization Code 授权码)
@@ -363,7 +453,14 @@ public class SaOAuth2Template {
 	 * @return 是否已经授权
 	 */
 	public boolean isGrant(Object loginId, String clientId, String scope) {
-		List<String> grantScopeList = SaFoxUtil.convertStringToList(getGrantScope(clientId, loginId));
+		String grantScope = getGrantScope(clientId, loginId);
+		long[] grantBits = scopeRegistry.getBits(grantScope);
+		long[] scopeBits = scopeRegistry.getBits(scope);
+		if(grantBits != null && scopeBits != null) {
+			return SaOAuth2ScopeRegistry.containsAll(grantBits, scopeBits);
+		}
+		// 注册表已满时，退回到字符串比较
+		List<String> grantScopeList = SaFoxUtil.convertStringToList(grantScope);
 		List<String> scopeList = SaFoxUtil.convertStringToList(scope);
 		return scopeList.size() == 0 || grantScopeList.containsAll(scopeList);
 	}
@@ -373,9 +470,8 @@ public class SaOAuth2Template {
 	 * @param scope 权限(多个用逗号隔开)
 	 */
 	public void checkContract(String clientId, String scope) {
-		List<String> clientScopeList = SaFoxUtil.convertStringToList(checkClientModel(clientId).contractScope);
 		List<String> scopelist = SaFoxUtil.convertStringToList(scope);
-		if( ! clientScopeList.containsAll(scopelist)) {
+		if( ! checkCompiledClient(clientId).isContract(scopelist)) {
 			throw new SaOAuth2Exception("请求的Scope暂未签约").setCode(SaOAuth2ErrorCode.CODE_30112);
 		}
 	}
@@ -397,8 +493,7 @@ public class SaOAuth2Template {
 		}
 
 		// 3、是否在[允许地址列表]之中
-		List<String> allowList = SaFoxUtil.convertStringToList(checkClientModel(clientId).allowUrl);
-		if( ! SaStrategy.instance.hasElement.apply(allowList, url)) {
+		if( ! checkCompiledClient(clientId).isAllowUrl(url)) {
 			throw new SaOAuth2Exception("非法redirect_url：" + url).setCode(SaOAuth2ErrorCode.CODE_30114);
 		}
 	}
@@ -425,9 +520,8 @@ public class SaOAuth2Template {
 		// 先校验 clientSecret
 		SaClientModel cm = checkClientSecret(clientId, clientSecret);
 		// 再校验 是否签约 
-		List<String> clientScopeList = SaFoxUtil.convertStringToList(cm.contractScope);
 		List<String> scopelist = SaFoxUtil.convertStringToList(scopes);
-		if( ! clientScopeList.containsAll(scopelist)) {
+		if( ! checkCompiledClient(clientId).isContract(scopelist)) {
 			throw new SaOAuth2Exception("请求的Scope暂未签约").setCode(SaOAuth2ErrorCode.CODE_30116);
 		}
 		// 返回数据
@@ -515,6 +609,7 @@ public class SaOAuth2Template {
 		at.openid = getOpenid(cm.clientId, cm.loginId);
 		at.expiresTime = System.currentTimeMillis() + (checkClientModel(cm.clientId).getAccessTokenTimeout() * 1000);
 		// at.refreshExpiresTime = System.currentTimeMillis() + (checkClientModel(cm.clientId).getRefreshTokenTimeout() * 1000);
+		signAccessToken(at);
 		return at;
 	}
 	/**
@@ -550,6 +645,7 @@ public class SaOAuth2Template {
 		at.openid = rt.openid;
 		at.expiresTime = System.currentTimeMillis() + (checkClientModel(rt.clientId).getAccessTokenTimeout() * 1000);
 		at.refreshExpiresTime = rt.expiresTime;
+		signAccessToken(at);
 		return at;
 	}
 	/**
@@ -707,6 +803,15 @@ public class SaOAuth2Template {
 		if(accessToken == null) {
 			return null;
 		}
+		// 签名 Access-Token：本地验签，只在拉黑名单的本地缓存未命中时才查询存储
+		if(isSignedAccessToken(accessToken)) {
+			AccessTokenModel at = getAccessTokenCodec().decode(accessToken);
+			if(at == null || at.expiresTime < System.currentTimeMillis()
+					|| denyList.isDenied(SaOAuth2AccessTokenCodec.getTokenId(accessToken), at.expiresTime)) {
+				return null;
+			}
+			return at;
+		}
 		return (AccessTokenModel)SaManager.getSaTokenDao().getObject(splicingAccessTokenSaveKey(accessToken));
 	}
 	/**
@@ -793,12 +898,27 @@ public class SaOAuth2Template {
 	public void deleteCodeIndex(String clientId, Object loginId) {
 		SaManager.getSaTokenDao().delete(splicingCodeIndexKey(clientId, loginId));
 	}
+	/**
+	 * 占用：Code（写入兑换标记，SET NX 原子执行，不经过管道暂存；同一个Code只有第一次占用可以成功）
+	 * @param code 值
+	 * @return 是否占用成功
+	 */
+	public boolean consumeCode(String code) {
+		return SaManager.getSaTokenDao().setIfAbsent(splicingCodeConsumedKey(code), code, SaOAuth2Manager.getConfig().getCodeTimeout());
+	}
 	/**
 	 * 删除：Access-Token
 	 * @param accessToken 值
 	 */
 	public void deleteAccessToken(String accessToken) {
 		if(accessToken != null) {
+			// 签名 Access-Token 在本地即可通过校验，需同时将其拉黑
+			if(isSignedAccessToken(accessToken)) {
+				AccessTokenModel at = getAccessTokenCodec().decode(accessToken);
+				if(at != null) {
+					denyList.deny(SaOAuth2AccessTokenCodec.getTokenId(accessToken), at.expiresTime);
+				}
+			}
 			SaManager.getSaTokenDao().deleteObject(splicingAccessTokenSaveKey(accessToken));
 		}
 	}
@@ -900,7 +1020,49 @@ public class SaOAuth2Template {
 		return SaFoxUtil.getRandomString(60);
 	}
 
+	// ------------------- 签名 Access-Token
+	/**
+	 * 判断：指定 Access-Token 是否需要按照签名格式校验（已开启 isSignedAccessToken，且值为签名格式）
+	 * @param accessToken Access-Token 值
+	 * @return /
+	 */
+	public boolean isSignedAccessToken(String accessToken) {
+		return SaOAuth2Manager.getConfig().getIsSignedAccessToken() && SaOAuth2AccessTokenCodec.isSignedToken(accessToken);
+	}
+	/**
+	 * 签名：已开启 isSignedAccessToken 时，将 Access-Token 的值替换为自包含的签名 Access-Token
+	 * @param at Access-Token Model（需已设置好到期时间）
+	 */
+	public void signAccessToken(AccessTokenModel at) {
+		if(SaOAuth2Manager.getConfig().getIsSignedAccessToken()) {
+			at.accessToken = getAccessTokenCodec().encode(at);
+		}
+	}
+	/**
+	 * 获取签名 Access-Token 编解码器，秘钥变化时重新创建
+	 * @return /
+	 */
+	public SaOAuth2AccessTokenCodec getAccessTokenCodec() {
+		String secretKey = SaOAuth2Manager.getConfig().getAccessTokenSecretKey();
+		SaOAuth2Exception.throwBy(SaFoxUtil.isEmpty(secretKey), "未配置签名 Access-Token 的秘钥：accessTokenSecretKey", SaOAuth2ErrorCode.CODE_30135);
+		SaOAuth2AccessTokenCodec codec = accessTokenCodec;
+		if(codec == null || ! codec.secretKey.equals(secretKey)) {
+			codec = new SaOAuth2AccessTokenCodec(secretKey);
+			accessTokenCodec = codec;
+		}
+		return codec;
+	}
+
 	// ------------------- 拼接key
+	/**
+	 * 拼接key：令牌签发时的互斥键（不会被持久化）
+	 * @param clientId 应用id
+	 * @param loginId 账号id（Client-Token 签发时为 null）
+	 * @return key
+	 */
+	public String splicingLockKey(String clientId, Object loginId) {
+		return clientId + ":" + loginId;
+	}
 	/**
 	 * 拼接key：Code持久化
 	 * @param code 授权码
@@ -918,6 +1080,14 @@ public class SaOAuth2Template {
 	public String splicingCodeIndexKey(String clientId, Object loginId) {
 		return SaManager.getConfig().getTokenName() + ":oauth2:code-index:" + clientId + ":" + loginId;
 	}
+	/**
+	 * 拼接key：Code 兑换标记
+	 * @param code 授权码
+	 * @return key
+	 */
+	public String splicingCodeConsumedKey(String code) {
+		return SaManager.getConfig().getTokenName() + ":oauth2:code-consumed:" + code;
+	}
 	/**
 	 * 拼接key：Access-Token持久化
 	 * @param accessToken accessToken
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.oauth2.logic;
+
+import java.util.function.Supplier;
+
+/**
+ * Sa-Token-OAuth2 令牌存储：负责令牌签发、兑换、轮换时的原子性
+ *
+ * <p>
+ *     一次签发涉及 Code、Access-Token、Refresh-Token 及其索引等多个 key 的读写，
+ *     通过此接口执行时，这些写操作作为一个整体提交，不会因中途失败而残留孤立的索引
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public interface SaOAuth2TokenStore {
+
+	/**
+	 * 以原子方式执行一次令牌签发或轮换
+	 *
+	 * <p> 同一个 lockKey 的调用互斥执行；fun 中通过 SaManager.getSaTokenDao() 进行的写操作在 fun 执行完毕后一次性提交，fun 抛出异常时全部放弃 </p>
+	 *
+	 * @param lockKey 互斥键（一般为 clientId + loginId）
+	 * @param fun 要执行的签发逻辑
+	 * @param <T> 返回值类型
+	 * @return fun 的返回值
+	 */
+	<T> T atomic(String lockKey, Supplier<T> fun);
+
+}
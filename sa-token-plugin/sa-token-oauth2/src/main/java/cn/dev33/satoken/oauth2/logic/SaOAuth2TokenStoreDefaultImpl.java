@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.oauth2.logic;
+
+import java.util.function.Supplier;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDaoPipeline;
+
+/**
+ * Sa-Token-OAuth2 令牌存储 默认实现：基于现有的 SaTokenDao
+ *
+ * <p>
+ *     1、本机内按 lockKey 分段加锁，同一账号在同一 Client 下的签发串行执行。
+ *     <br> 2、写操作暂存在原子管道作用域中，结束时通过 {@link cn.dev33.satoken.dao.SaTokenDao#batchAtomic(java.util.List)} 一次性提交
+ *          （Redis 实现为 MULTI/EXEC，一次网络往返；Redis 集群模式下 MULTI/EXEC 不能跨 slot，退化为普通的管道批量提交）。
+ *     <br> 3、分段锁只在本机内有效，多个节点之间的互斥由各流程自行保证，例如兑换 Code 时以 SET NX 写入兑换标记，只有一个节点可以成功。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2TokenStoreDefaultImpl implements SaOAuth2TokenStore {
+
+	/**
+	 * 分段锁
+	 */
+	protected final Object[] locks;
+
+	public SaOAuth2TokenStoreDefaultImpl() {
+		this(64);
+	}
+
+	/**
+	 * @param lockCount 分段锁数量
+	 */
+	public SaOAuth2TokenStoreDefaultImpl(int lockCount) {
+		locks = new Object[lockCount];
+		for (int i = 0; i < lockCount; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	@Override
+	public <T> T atomic(String lockKey, Supplier<T> fun) {
+		synchronized (getLock(lockKey)) {
+			SaTokenDaoPipeline pipeline = SaManager.getSaTokenDao().openAtomicPipeline();
+			try {
+				return fun.get();
+			} catch (RuntimeException | Error e) {
+				pipeline.discard();
+				throw e;
+			} finally {
+				pipeline.close();
+			}
+		}
+	}
+
+	/**
+	 * 获取 lockKey 对应的分段锁
+	 * @param lockKey 互斥键
+	 * @return /
+	 */
+	protected Object getLock(String lockKey) {
+		return locks[(lockKey.hashCode() & 0x7fffffff) % locks.length];
+	}
+
+}
@@ -49,6 +49,11 @@ public class ClientTokenModel implements Serializable {
 	 */
 	public String scope;  
 
+	/**
+	 * 授权范围的位图（由 SaOAuth2ScopeRegistry 按需计算，位编号只在当前进程内有效，因此不参与序列化；修改 scope 后需将其置为 null）
+	 */
+	public transient long[] scopeBits;
+
 	public ClientTokenModel() {}
 	
 	/**
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.oauth2.model;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import cn.dev33.satoken.strategy.SaStrategy;
+import cn.dev33.satoken.util.SaElementMatcher;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * 编译后的 Client 信息：签约的 Scope 解析为哈希集合，允许授权的 URL 列表编译为匹配器
+ *
+ * <p> 由 {@link cn.dev33.satoken.oauth2.logic.SaOAuth2ClientRegistry} 创建并缓存，每次请求校验时无需再解析字符串 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaCompiledClient {
+
+	/**
+	 * 原始 Client 信息
+	 */
+	public final SaClientModel client;
+
+	/**
+	 * 签约的所有 Scope
+	 */
+	public final Set<String> contractScopeSet;
+
+	/**
+	 * 允许授权的 URL 列表
+	 */
+	public final List<String> allowUrlList;
+
+	/**
+	 * 允许授权的 URL 匹配器
+	 */
+	public final SaElementMatcher allowUrlMatcher;
+
+	/**
+	 * 编译时的 contractScope、allowUrl 原始字符串，用于判断 Client 配置是否发生变化
+	 */
+	final String contractScope;
+	final String allowUrl;
+
+	/**
+	 * 缓存到期时间（13位时间戳，0 代表不缓存 Client 信息本身，-1 代表永不过期）
+	 */
+	public final long expireTime;
+
+	/**
+	 * 编译一个 Client
+	 * @param client Client 信息
+	 * @param expireTime 缓存到期时间
+	 */
+	public SaCompiledClient(SaClientModel client, long expireTime) {
+		this.client = client;
+		this.contractScope = client.contractScope;
+		this.allowUrl = client.allowUrl;
+		this.contractScopeSet = new HashSet<>(SaFoxUtil.convertStringToList(client.contractScope));
+		this.allowUrlList = SaFoxUtil.convertStringToList(client.allowUrl);
+		this.allowUrlMatcher = new SaElementMatcher(allowUrlList);
+		this.expireTime = expireTime;
+	}
+
+	/**
+	 * 复用已有的编译结果，替换 Client 信息（contractScope、allowUrl 未变化时使用）
+	 * @param compiled 已有的编译结果
+	 * @param client 新的 Client 信息
+	 * @param expireTime 缓存到期时间
+	 */
+	public SaCompiledClient(SaCompiledClient compiled, SaClientModel client, long expireTime) {
+		this.client = client;
+		this.contractScope = compiled.contractScope;
+		this.allowUrl = compiled.allowUrl;
+		this.contractScopeSet = compiled.contractScopeSet;
+		this.allowUrlList = compiled.allowUrlList;
+		this.allowUrlMatcher = compiled.allowUrlMatcher;
+		this.expireTime = expireTime;
+	}
+
+	/**
+	 * 判断：此编译结果是否可以用于指定的 Client 信息（contractScope、allowUrl 均未变化）
+	 * @param client Client 信息
+	 * @return /
+	 */
+	public boolean isCompiledFrom(SaClientModel client) {
+		return Objects.equals(contractScope, client.contractScope) && Objects.equals(allowUrl, client.allowUrl);
+	}
+
+	/**
+	 * 判断：缓存是否仍然有效
+	 * @param now 当前时间戳
+	 * @return /
+	 */
+	public boolean isAlive(long now) {
+		return expireTime == -1 || expireTime > now;
+	}
+
+	/**
+	 * 判断：是否签约了指定的所有 Scope
+	 * @param scopes Scope 集合
+	 * @return /
+	 */
+	public boolean isContract(Collection<String> scopes) {
+		return contractScopeSet.containsAll(scopes);
+	}
+
+	/**
+	 * 判断：指定 URL 是否在允许授权的 URL 列表中（支持 * 号通配符）
+	 *
+	 * <p> hasElement 策略被重写时交由该策略判断，使自定义的匹配规则同样作用于 redirect_url 校验 </p>
+	 *
+	 * @param url 不带查询参数的 URL
+	 * @return /
+	 */
+	public boolean isAllowUrl(String url) {
+		if( ! SaStrategy.instance.isDefaultHasElement()) {
+			return SaStrategy.instance.hasElement.apply(allowUrlList, url);
+		}
+		return allowUrlMatcher.match(url);
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.oauth2.token;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.oauth2.error.SaOAuth2ErrorCode;
+import cn.dev33.satoken.oauth2.exception.SaOAuth2Exception;
+import cn.dev33.satoken.oauth2.model.AccessTokenModel;
+import cn.dev33.satoken.session.codec.SaBinaryReader;
+import cn.dev33.satoken.session.codec.SaBinaryWriter;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * 签名 Access-Token 编解码器：将 clientId、loginId、scope、openid、到期时间编码进 Token 本身，并以 HmacSHA256 签名
+ *
+ * <p>
+ *     格式为 base64url(payload).base64url(签名)，资源服务器只需持有相同的秘钥即可在本地验签，无需查询存储。
+ *     <br> payload 中包含一个随机数，签名部分因此可以作为 Token 的唯一标识（用于拉黑名单）。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2AccessTokenCodec {
+
+	/**
+	 * payload 格式版本号
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * 签名算法
+	 */
+	public static final String ALGORITHM = "HmacSHA256";
+
+	/**
+	 * 签名秘钥
+	 */
+	public final String secretKey;
+
+	/**
+	 * 每个线程各自持有的 Mac 对象
+	 */
+	private final ThreadLocal<Mac> macPool;
+
+	/**
+	 * @param secretKey 签名秘钥
+	 */
+	public SaOAuth2AccessTokenCodec(String secretKey) {
+		this.secretKey = secretKey;
+		SecretKeySpec keySpec = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+		this.macPool = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance(ALGORITHM);
+				mac.init(keySpec);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new SaOAuth2Exception("签名 Access-Token 的秘钥不可用：" + e.getMessage()).setCode(SaOAuth2ErrorCode.CODE_30135);
+			}
+		});
+		macPool.get();
+	}
+
+	/**
+	 * 判断：指定值是否为签名 Access-Token 的格式（随机生成的 Access-Token 不包含 . 号）
+	 * @param accessToken Access-Token 值
+	 * @return /
+	 */
+	public static boolean isSignedToken(String accessToken) {
+		return accessToken != null && accessToken.indexOf('.') > 0;
+	}
+
+	/**
+	 * 获取签名 Access-Token 的唯一标识（即其签名部分）
+	 * @param accessToken 签名 Access-Token
+	 * @return /
+	 */
+	public static String getTokenId(String accessToken) {
+		return accessToken.substring(accessToken.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * 编码：将 Access-Token 信息编码为签名 Access-Token
+	 * @param at Access-Token 信息
+	 * @return 签名 Access-Token
+	 */
+	public String encode(AccessTokenModel at) {
+		SaBinaryWriter writer = new SaBinaryWriter(128);
+		writer.writeByte(VERSION);
+		writer.writeString(SaFoxUtil.getRandomString(12));
+		writer.writeString(at.clientId);
+		writer.writeString(at.loginId == null ? null : String.valueOf(at.loginId));
+		writer.writeString(at.scope);
+		writer.writeString(at.openid);
+		writer.writeZigZagLong(at.expiresTime);
+		String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(writer.toByteArray());
+		return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(payload));
+	}
+
+	/**
+	 * 解码：验签并解析签名 Access-Token，格式不正确或签名无效时返回 null（不校验是否过期）
+	 *
+	 * <p> 解析出的 loginId 为字符串类型 </p>
+	 *
+	 * @param accessToken 签名 Access-Token
+	 * @return Access-Token 信息
+	 */
+	public AccessTokenModel decode(String accessToken) {
+		int dot = accessToken.lastIndexOf('.');
+		if(dot <= 0) {
+			return null;
+		}
+		String payload = accessToken.substring(0, dot);
+		byte[] payloadBytes;
+		byte[] signature;
+		try {
+			payloadBytes = Base64.getUrlDecoder().decode(payload);
+			signature = Base64.getUrlDecoder().decode(accessToken.substring(dot + 1));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		if( ! MessageDigest.isEqual(sign(payload), signature)) {
+			return null;
+		}
+		try {
+			SaBinaryReader reader = new SaBinaryReader(payloadBytes);
+			if(reader.readByte() != VERSION) {
+				return null;
+			}
+			reader.readString();
+			AccessTokenModel at = new AccessTokenModel();
+			at.accessToken = accessToken;
+			at.clientId = reader.readString();
+			at.loginId = reader.readString();
+			at.scope = reader.readString();
+			at.openid = reader.readString();
+			at.expiresTime = reader.readZigZagLong();
+			return at;
+		} catch (SaTokenException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 计算签名
+	 * @param payload payload 部分
+	 * @return /
+	 */
+	protected byte[] sign(String payload) {
+		return macPool.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.oauth2.token;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaNearCacheChannel;
+import cn.dev33.satoken.fun.SaParamFunction;
+
+/**
+ * 签名 Access-Token 的拉黑名单：签名 Access-Token 无法从存储中删除，撤销时将其加入此名单
+ *
+ * <p>
+ *     1、名单写入 SaTokenDao（多个节点共享同一份数据），存活时间为 Token 的剩余有效期，过期后自动消失。
+ *     <br> 2、每个节点在本地缓存查询结果：已拉黑的记录保留到 Token 过期，未拉黑的记录保留 localTimeout 毫秒，
+ *          本地缓存最多 maxSize 条，超出时先清理过期记录，仍然超出则整体清空（清空只会导致回源，不影响正确性）。
+ *     <br> 3、配置了 channel 时，拉黑操作会广播给其它节点，使其立即生效，而不必等待本地缓存过期。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2TokenDenyList {
+
+	/**
+	 * 广播消息的前缀
+	 */
+	public static final String MESSAGE_PREFIX = "oauth2-deny:";
+
+	/**
+	 * 本地缓存最多存储的记录数量
+	 */
+	public int maxSize = 10000;
+
+	/**
+	 * "未拉黑"的查询结果在本地缓存的时间（单位：毫秒）
+	 */
+	public long localTimeout = 10000;
+
+	/**
+	 * 拉黑广播通道（为 null 时不广播）
+	 */
+	public SaNearCacheChannel channel;
+
+	/**
+	 * 本地缓存，key 为 Token 唯一标识
+	 */
+	public final Map<String, LocalEntry> localMap = new ConcurrentHashMap<>();
+
+	private final SaParamFunction<String> channelListener = this::onMessage;
+
+	/**
+	 * @param maxSize 本地缓存最多存储的记录数量
+	 * @return 对象自身
+	 */
+	public SaOAuth2TokenDenyList setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * @param localTimeout "未拉黑"的查询结果在本地缓存的时间（单位：毫秒）
+	 * @return 对象自身
+	 */
+	public SaOAuth2TokenDenyList setLocalTimeout(long localTimeout) {
+		this.localTimeout = localTimeout;
+		return this;
+	}
+
+	/**
+	 * 设置广播通道，并订阅其它节点的拉黑消息
+	 * @param channel 广播通道
+	 * @return 对象自身
+	 */
+	public SaOAuth2TokenDenyList setChannel(SaNearCacheChannel channel) {
+		if(this.channel != null) {
+			this.channel.unsubscribe(channelListener);
+		}
+		this.channel = channel;
+		if(channel != null) {
+			channel.subscribe(channelListener);
+		}
+		return this;
+	}
+
+	/**
+	 * 拉黑一个 Token
+	 * @param tokenId Token 唯一标识
+	 * @param expiresTime Token 到期时间（13位时间戳）
+	 */
+	public void deny(String tokenId, long expiresTime) {
+		long timeout = (expiresTime - System.currentTimeMillis()) / 1000 + 1;
+		if(timeout <= 0) {
+			return;
+		}
+		SaManager.getSaTokenDao().set(splicingDenyKey(tokenId), "1", timeout);
+		putLocal(tokenId, new LocalEntry(true, expiresTime));
+		if(channel != null) {
+			channel.publish(MESSAGE_PREFIX + tokenId + "@" + expiresTime);
+		}
+	}
+
+	/**
+	 * 判断：指定 Token 是否已被拉黑
+	 * @param tokenId Token 唯一标识
+	 * @param expiresTime Token 到期时间（13位时间戳）
+	 * @return /
+	 */
+	public boolean isDenied(String tokenId, long expiresTime) {
+		long now = System.currentTimeMillis();
+		LocalEntry entry = localMap.get(tokenId);
+		if(entry != null && entry.expireTime >= now) {
+			return entry.denied;
+		}
+		boolean denied = SaManager.getSaTokenDao().get(splicingDenyKey(tokenId)) != null;
+		putLocal(tokenId, new LocalEntry(denied, denied ? expiresTime : Math.min(expiresTime, now + localTimeout)));
+		return denied;
+	}
+
+	/**
+	 * 写入本地缓存
+	 */
+	protected void putLocal(String tokenId, LocalEntry entry) {
+		if(localMap.size() >= maxSize && ! localMap.containsKey(tokenId)) {
+			long now = System.currentTimeMillis();
+			localMap.entrySet().removeIf(e -> e.getValue().expireTime < now);
+			if(localMap.size() >= maxSize) {
+				localMap.clear();
+			}
+		}
+		// 已拉黑的记录不会被"未拉黑"的结果覆盖
+		localMap.merge(tokenId, entry, (old, e) -> old.denied && ! e.denied ? old : e);
+	}
+
+	/**
+	 * 收到其它节点的拉黑消息，格式为：oauth2-deny:tokenId@expiresTime
+	 *
+	 * @param message 消息内容
+	 */
+	protected void onMessage(String message) {
+		int index = message.lastIndexOf('@');
+		if( ! message.startsWith(MESSAGE_PREFIX) || index == -1) {
+			return;
+		}
+		try {
+			long expiresTime = Long.parseLong(message.substring(index + 1));
+			putLocal(message.substring(MESSAGE_PREFIX.length(), index), new LocalEntry(true, expiresTime));
+		} catch (NumberFormatException e) {
+			// 格式不正确的消息直接忽略
+		}
+	}
+
+	/**
+	 * 清空本地缓存
+	 */
+	public void clearLocal() {
+		localMap.clear();
+	}
+
+	/**
+	 * 拼接key：拉黑记录
+	 * @param tokenId Token 唯一标识
+	 * @return key
+	 */
+	public String splicingDenyKey(String tokenId) {
+		return SaManager.getConfig().getTokenName() + ":oauth2:access-token-deny:" + tokenId;
+	}
+
+	/**
+	 * 本地缓存的一条查询结果
+	 */
+	public static class LocalEntry {
+
+		/** 是否已拉黑 */
+		public final boolean denied;
+
+		/** 本条记录的到期时间（13位时间戳） */
+		public final long expireTime;
+
+		public LocalEntry(boolean denied, long expireTime) {
+			this.denied = denied;
+			this.expireTime = expireTime;
+		}
+
+	}
+
+}
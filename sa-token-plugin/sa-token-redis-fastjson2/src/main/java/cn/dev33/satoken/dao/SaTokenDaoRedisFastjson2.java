@@ -15,19 +15,33 @@
  */
 package cn.dev33.satoken.dao;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
 import com.alibaba.fastjson2.JSON;
 
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.strategy.SaStrategy;
 import cn.dev33.satoken.util.SaFoxUtil;
@@ -41,6 +55,31 @@ import cn.dev33.satoken.util.SaFoxUtil;
 @Component
 public class SaTokenDaoRedisFastjson2 implements SaTokenDao {
 
+	/**
+	 * Lua 脚本：修改 value 并保持其剩余存活时间不变，key 不存在时不做任何处理（一次网络往返，原子执行）
+	 */
+	public static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+			"local ttl = redis.call('pttl', KEYS[1]) " +
+			"if ttl == -2 then return 0 end " +
+			"if ttl == -1 then redis.call('set', KEYS[1], ARGV[1]) " +
+			"else redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) end " +
+			"return 1", Long.class);
+
+	/**
+	 * Lua 脚本：仅当 value 与指定值相等时删除此 key（一次网络往返，原子执行）
+	 */
+	public static final RedisScript<Long> DELETE_IF_EQUALS_SCRIPT = new DefaultRedisScript<>(
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+			"return 0", Long.class);
+
+	/**
+	 * Lua 脚本：执行一次 SCAN cursor MATCH pattern COUNT count，返回 [下一页游标, 本页数据]
+	 */
+	@SuppressWarnings("rawtypes")
+	public static final RedisScript<List> SCAN_SCRIPT = new DefaultRedisScript<>(
+			"return redis.call('scan', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])", List.class);
+
+
 	/**
 	 * String 读写专用
 	 */
@@ -117,17 +156,29 @@ public class SaTokenDaoRedisFastjson2 implements SaTokenDao {
 		}
 	}
 
+	/**
+	 * 仅当 key 不存在时写入Value，并设定存活时间 (单位: 秒)，对应 SET NX EX 命令
+	 */
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return false;
+		}
+		Boolean success;
+		if(timeout == SaTokenDao.NEVER_EXPIRE) {
+			success = stringRedisTemplate.opsForValue().setIfAbsent(key, value);
+		} else {
+			success = stringRedisTemplate.opsForValue().setIfAbsent(key, value, timeout, TimeUnit.SECONDS);
+		}
+		return Boolean.TRUE.equals(success);
+	}
+
 	/**
 	 * 修改指定key-value键值对 (过期时间不变) 
 	 */
 	@Override
 	public void update(String key, String value) {
-		long expire = getTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.set(key, value, expire);
+		stringRedisTemplate.execute(UPDATE_SCRIPT, Collections.singletonList(key), value);
 	}
 	
 	/**
@@ -138,6 +189,18 @@ public class SaTokenDaoRedisFastjson2 implements SaTokenDao {
 		stringRedisTemplate.delete(key);
 	}
 
+	/**
+	 * 仅当 value 与指定值相等时删除，对应一段 get 比较后 del 的 Lua 脚本
+	 */
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		if(value == null) {
+			return false;
+		}
+		Long result = stringRedisTemplate.execute(DELETE_IF_EQUALS_SCRIPT, Collections.singletonList(key), value);
+		return result != null && result > 0;
+	}
+
 	/**
 	 * 获取Value的剩余存活时间 (单位: 秒) 
 	 */
@@ -153,13 +216,7 @@ public class SaTokenDaoRedisFastjson2 implements SaTokenDao {
 	public void updateTimeout(String key, long timeout) {
 		// 判断是否想要设置为永久
 		if(timeout == SaTokenDao.NEVER_EXPIRE) {
-			long expire = getTimeout(key);
-			if(expire == SaTokenDao.NEVER_EXPIRE) {
-				// 如果其已经被设置为永久，则不作任何处理 
-			} else {
-				// 如果尚未被设置为永久，那么再次set一次
-				this.set(key, this.get(key), timeout);
-			}
+			stringRedisTemplate.persist(key);
 			return;
 		}
 		stringRedisTemplate.expire(key, timeout, TimeUnit.SECONDS);
@@ -205,12 +262,7 @@ public class SaTokenDaoRedisFastjson2 implements SaTokenDao {
 	 */
 	@Override
 	public void updateObject(String key, Object object) {
-		long expire = getObjectTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.setObject(key, object, expire);
+		objectRedisTemplate.execute(UPDATE_SCRIPT, Collections.singletonList(key), JSON.toJSONString(object));
 	}
 
 	/**
@@ -236,13 +288,7 @@ public class SaTokenDaoRedisFastjson2 implements SaTokenDao {
 	public void updateObjectTimeout(String key, long timeout) {
 		// 判断是否想要设置为永久
 		if(timeout == SaTokenDao.NEVER_EXPIRE) {
-			long expire = getObjectTimeout(key);
-			if(expire == SaTokenDao.NEVER_EXPIRE) {
-				// 如果其已经被设置为永久，则不作任何处理 
-			} else {
-				// 如果尚未被设置为永久，那么再次set一次
-				this.setObject(key, this.getObject(key), timeout);
-			}
+			objectRedisTemplate.persist(key);
 			return;
 		}
 		objectRedisTemplate.expire(key, timeout, TimeUnit.SECONDS);
@@ -251,14 +297,184 @@ public class SaTokenDaoRedisFastjson2 implements SaTokenDao {
 
 	
 	/**
-	 * 搜索数据 
+	 * 批量获取Value (一次网络往返)
+	 */
+	@Override
+	public List<String> getMulti(List<String> keys) {
+		return stringRedisTemplate.opsForValue().multiGet(keys);
+	}
+
+	/**
+	 * 批量获取Object (一次网络往返)
+	 */
+	@Override
+	public List<Object> getObjectMulti(List<String> keys) {
+		return new ArrayList<>(objectRedisTemplate.opsForValue().multiGet(keys));
+	}
+
+	/**
+	 * 批量执行写操作 (通过 Redis 管道一次性发送)
+	 */
+	@Override
+	public void batch(List<SaTokenDaoOperation> operations) {
+		if(operations.isEmpty()) {
+			return;
+		}
+		RedisSerializer<String> stringSerializer = stringRedisTemplate.getStringSerializer();
+		stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (SaTokenDaoOperation op : operations) {
+				byte[] key = stringSerializer.serialize(op.key);
+				switch (op.type) {
+					case SET:
+						if( ! op.isValidTimeout()) {
+							break;
+						}
+						byte[] value = op.object ? stringSerializer.serialize(JSON.toJSONString(op.value)) : stringSerializer.serialize((String) op.value);
+						// 判断是否为永不过期
+						if(op.timeout == SaTokenDao.NEVER_EXPIRE) {
+							connection.stringCommands().set(key, value);
+						} else {
+							connection.stringCommands().setEx(key, op.timeout, value);
+						}
+						break;
+					case UPDATE:
+						// 与 update、updateObject 相同，通过脚本原子地保持剩余存活时间
+						byte[] updateValue = op.object ? stringSerializer.serialize(JSON.toJSONString(op.value)) : stringSerializer.serialize((String) op.value);
+						connection.scriptingCommands().eval(UPDATE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8), ReturnType.INTEGER, 1, key, updateValue);
+						break;
+					case DELETE:
+						connection.keyCommands().del(key);
+						break;
+					case EXPIRE:
+						// 判断是否想要设置为永久
+						if(op.timeout == SaTokenDao.NEVER_EXPIRE) {
+							connection.keyCommands().persist(key);
+						} else {
+							connection.keyCommands().expire(key, op.timeout);
+						}
+						break;
+					default:
+						break;
+				}
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * 搜索数据（通过 SCAN 命令分批遍历，不会像 KEYS 命令一样长时间阻塞 Redis）
 	 */
 	@Override
 	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-		Set<String> keys = stringRedisTemplate.keys(prefix + "*" + keyword + "*");
+		// SCAN 命令可能返回重复的 key，需去重
+		Set<String> keys = new LinkedHashSet<>();
+		scanIterator(prefix, keyword, SaScanResult.DEFAULT_COUNT).forEachRemaining(keys::add);
 		List<String> list = new ArrayList<>(keys);
 		return SaFoxUtil.searchList(list, start, size, sortType);
 	}
-	
+
+	/**
+	 * 游标式搜索数据（SCAN 命令，返回 Redis 原生游标，每页只执行一次 SCAN）
+	 *
+	 * <p> 集群模式下按分片依次遍历每个主节点，游标格式见 {@link SaScanResult#toClusterCursor(int, String)} </p>
+	 */
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		String pattern = prefix + "*" + keyword + "*";
+		List<RedisClusterNode> masters = stringRedisTemplate.execute((RedisCallback<List<RedisClusterNode>>) connection ->
+				connection instanceof RedisClusterConnection ? getScanMasters((RedisClusterConnection) connection) : null);
+		if(masters == null) {
+			String start = SaScanResult.isStartCursor(cursor) ? SaScanResult.START_CURSOR : cursor;
+			return scanNode(null, pattern, start, count);
+		}
+		if(masters.isEmpty()) {
+			return new SaScanResult(null, null);
+		}
+
+		// 定位游标所在的分片
+		int index = 0;
+		String nodeCursor = SaScanResult.START_CURSOR;
+		if( ! SaScanResult.isStartCursor(cursor)) {
+			int slot = SaScanResult.parseClusterSlot(cursor);
+			nodeCursor = SaScanResult.parseClusterNodeCursor(cursor);
+			index = -1;
+			for (int i = 0; i < masters.size(); i++) {
+				if(masters.get(i).servesSlot(slot)) {
+					index = i;
+					break;
+				}
+			}
+			if(index == -1) {
+				throw new SaTokenException("无效的游标：" + cursor).setCode(SaErrorCode.CODE_12501);
+			}
+		}
+
+		// 在此分片上执行一次 SCAN，分片遍历完毕后，下一页从下一个分片的起始游标开始
+		RedisClusterNode node = masters.get(index);
+		SaScanResult result = scanNode(getRoutingKey(node), pattern, nodeCursor, count);
+		if( ! result.isFinished()) {
+			return new SaScanResult(result.list, SaScanResult.toClusterCursor(getMinSlot(node), result.cursor));
+		}
+		if(index + 1 < masters.size()) {
+			return new SaScanResult(result.list, SaScanResult.toClusterCursor(getMinSlot(masters.get(index + 1)), SaScanResult.START_CURSOR));
+		}
+		return result;
+	}
+
+	/**
+	 * 在一个节点上执行一次 SCAN 命令（集群模式下通过路由 key 将脚本发送到指定分片的主节点）
+	 *
+	 * @param routingKey 路由 key，非集群模式下填 null
+	 * @param pattern 匹配模式
+	 * @param cursor 此节点上的 SCAN 游标
+	 * @param count COUNT 参数
+	 * @return /
+	 */
+	protected SaScanResult scanNode(String routingKey, String pattern, String cursor, int count) {
+		List<String> keys = routingKey == null ? Collections.emptyList() : Collections.singletonList(routingKey);
+		List<?> reply = stringRedisTemplate.execute(SCAN_SCRIPT, keys, cursor, pattern, String.valueOf(count));
+		return SaScanResult.ofReply(reply);
+	}
+
+	/**
+	 * 获取集群中所有负责槽位的主节点，按其负责的最小槽位排序
+	 */
+	protected List<RedisClusterNode> getScanMasters(RedisClusterConnection connection) {
+		List<RedisClusterNode> masters = new ArrayList<>();
+		for (RedisClusterNode node : connection.clusterGetNodes()) {
+			if(node.isMaster() && getMinSlot(node) >= 0) {
+				masters.add(node);
+			}
+		}
+		masters.sort(Comparator.comparingInt(this::getMinSlot));
+		return masters;
+	}
+
+	/**
+	 * 获取节点负责的最小槽位，不负责任何槽位时返回 -1
+	 */
+	protected int getMinSlot(RedisClusterNode node) {
+		int min = -1;
+		if(node.getSlotRange() != null) {
+			for (int slot : node.getSlotRange().getSlotsArray()) {
+				if(min == -1 || slot < min) {
+					min = slot;
+				}
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * 获取一个落在此节点槽位上的 key，用于将脚本路由到此节点
+	 */
+	protected String getRoutingKey(RedisClusterNode node) {
+		for (int i = 0; ; i++) {
+			String key = "sa-token:scan-routing:" + i;
+			if(node.servesSlot(ClusterSlotHashUtil.calculateSlot(key))) {
+				return key;
+			}
+		}
+	}
 	
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+
+/**
+ * 近端缓存失效广播通道 [ Redis pub/sub 实现 ]
+ *
+ * <p> 使用示例：</p>
+ * <pre>
+ *     SaNearCacheChannel channel = new SaNearCacheChannelForRedis(connectionFactory);
+ *     SaManager.setSaTokenDao(new SaTokenDaoForNearCache(SaManager.getSaTokenDao(), channel));
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaNearCacheChannelForRedis implements SaNearCacheChannel {
+
+	/**
+	 * 默认使用的频道名称
+	 */
+	public static final String DEFAULT_TOPIC = "satoken:near-cache:invalidate";
+
+	/**
+	 * 频道
+	 */
+	public ChannelTopic topic;
+
+	/**
+	 * 发送消息专用
+	 */
+	public StringRedisTemplate stringRedisTemplate;
+
+	/**
+	 * 接收消息专用
+	 */
+	public RedisMessageListenerContainer container;
+
+	/**
+	 * 订阅函数 -> Redis 监听器 的映射，方便取消订阅
+	 */
+	private final Map<SaParamFunction<String>, MessageListener> listenerMap = new ConcurrentHashMap<>();
+
+	public SaNearCacheChannelForRedis(RedisConnectionFactory connectionFactory) {
+		this(connectionFactory, DEFAULT_TOPIC);
+	}
+
+	public SaNearCacheChannelForRedis(RedisConnectionFactory connectionFactory, String topic) {
+		this.topic = new ChannelTopic(topic);
+
+		StringRedisTemplate stringTemplate = new StringRedisTemplate();
+		stringTemplate.setConnectionFactory(connectionFactory);
+		stringTemplate.afterPropertiesSet();
+		this.stringRedisTemplate = stringTemplate;
+
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.afterPropertiesSet();
+		container.start();
+		this.container = container;
+	}
+
+	@Override
+	public void publish(String message) {
+		stringRedisTemplate.convertAndSend(topic.getTopic(), message);
+	}
+
+	@Override
+	public void subscribe(SaParamFunction<String> listener) {
+		MessageListener messageListener = (message, pattern) -> listener.run(new String(message.getBody(), StandardCharsets.UTF_8));
+		listenerMap.put(listener, messageListener);
+		container.addMessageListener(messageListener, topic);
+	}
+
+	@Override
+	public void unsubscribe(SaParamFunction<String> listener) {
+		MessageListener messageListener = listenerMap.remove(listener);
+		if(messageListener != null) {
+			container.removeMessageListener(messageListener, topic);
+		}
+	}
+
+}
@@ -15,19 +15,37 @@
  */
 package cn.dev33.satoken.dao;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionHashMapper;
 import cn.dev33.satoken.util.SaFoxUtil;
 
 /**
@@ -39,6 +57,31 @@ import cn.dev33.satoken.util.SaFoxUtil;
 @Component
 public class SaTokenDaoRedis implements SaTokenDao {
 
+	/**
+	 * Lua 脚本：修改 value 并保持其剩余存活时间不变，key 不存在时不做任何处理（一次网络往返，原子执行）
+	 */
+	public static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+			"local ttl = redis.call('pttl', KEYS[1]) " +
+			"if ttl == -2 then return 0 end " +
+			"if ttl == -1 then redis.call('set', KEYS[1], ARGV[1]) " +
+			"else redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) end " +
+			"return 1", Long.class);
+
+	/**
+	 * Lua 脚本：仅当 value 与指定值相等时删除此 key（一次网络往返，原子执行）
+	 */
+	public static final RedisScript<Long> DELETE_IF_EQUALS_SCRIPT = new DefaultRedisScript<>(
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+			"return 0", Long.class);
+
+	/**
+	 * Lua 脚本：执行一次 SCAN cursor MATCH pattern COUNT count，返回 [下一页游标, 本页数据]
+	 */
+	@SuppressWarnings("rawtypes")
+	public static final RedisScript<List> SCAN_SCRIPT = new DefaultRedisScript<>(
+			"return redis.call('scan', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])", List.class);
+
+
 	/**
 	 * String 读写专用
 	 */
@@ -49,6 +92,17 @@ public class SaTokenDaoRedis implements SaTokenDao {
 	 */
 	public RedisTemplate<String, Object> objectRedisTemplate;
 
+	/**
+	 * 是否以 Hash 结构存储 SaSession（默认 false）
+	 *
+	 * <p>
+	 *     开启后 SaSession 的固定字段、每个挂载数据、Token 签名列表各占 Hash 的一个 field，
+	 *     写入、删除挂载数据时只修改对应的 field，不再整体序列化、重写整个 SaSession，多个线程修改不同的 key 也不会互相覆盖。
+	 *     <br> 注意：开启后请不要再通过 getObject 读取 SaSession；开启之前已存储的旧数据仍可正常读取，并会在下一次写入时转换为 Hash 结构。
+	 * </p>
+	 */
+	public boolean sessionHashMode = false;
+
 	/**
 	 * 标记：当前 redis 连接信息是否已初始化成功
 	 */
@@ -112,17 +166,29 @@ public class SaTokenDaoRedis implements SaTokenDao {
 		}
 	}
 
+	/**
+	 * 仅当 key 不存在时写入Value，并设定存活时间 (单位: 秒)，对应 SET NX EX 命令
+	 */
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return false;
+		}
+		Boolean success;
+		if(timeout == SaTokenDao.NEVER_EXPIRE) {
+			success = stringRedisTemplate.opsForValue().setIfAbsent(key, value);
+		} else {
+			success = stringRedisTemplate.opsForValue().setIfAbsent(key, value, timeout, TimeUnit.SECONDS);
+		}
+		return Boolean.TRUE.equals(success);
+	}
+
 	/**
 	 * 修改指定key-value键值对 (过期时间不变) 
 	 */
 	@Override
 	public void update(String key, String value) {
-		long expire = getTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.set(key, value, expire);
+		stringRedisTemplate.execute(UPDATE_SCRIPT, Collections.singletonList(key), value);
 	}
 	
 	/**
@@ -133,6 +199,18 @@ public class SaTokenDaoRedis implements SaTokenDao {
 		stringRedisTemplate.delete(key);
 	}
 
+	/**
+	 * 仅当 value 与指定值相等时删除，对应一段 get 比较后 del 的 Lua 脚本
+	 */
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		if(value == null) {
+			return false;
+		}
+		Long result = stringRedisTemplate.execute(DELETE_IF_EQUALS_SCRIPT, Collections.singletonList(key), value);
+		return result != null && result > 0;
+	}
+
 	/**
 	 * 获取Value的剩余存活时间 (单位: 秒) 
 	 */
@@ -148,13 +226,7 @@ public class SaTokenDaoRedis implements SaTokenDao {
 	public void updateTimeout(String key, long timeout) {
 		// 判断是否想要设置为永久
 		if(timeout == SaTokenDao.NEVER_EXPIRE) {
-			long expire = getTimeout(key);
-			if(expire == SaTokenDao.NEVER_EXPIRE) {
-				// 如果其已经被设置为永久，则不作任何处理 
-			} else {
-				// 如果尚未被设置为永久，那么再次set一次
-				this.set(key, this.get(key), timeout);
-			}
+			stringRedisTemplate.persist(key);
 			return;
 		}
 		stringRedisTemplate.expire(key, timeout, TimeUnit.SECONDS);
@@ -174,6 +246,10 @@ public class SaTokenDaoRedis implements SaTokenDao {
 	 */
 	@Override
 	public void setObject(String key, Object object, long timeout) {
+		if(sessionHashMode && object instanceof SaSession) {
+			setSession((SaSession) object, timeout);
+			return;
+		}
 		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
 			return;
 		}
@@ -190,12 +266,11 @@ public class SaTokenDaoRedis implements SaTokenDao {
 	 */
 	@Override
 	public void updateObject(String key, Object object) {
-		long expire = getObjectTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
+		if(sessionHashMode && object instanceof SaSession) {
+			updateSession((SaSession) object);
 			return;
 		}
-		this.setObject(key, object, expire);
+		objectRedisTemplate.execute(UPDATE_SCRIPT, Collections.singletonList(key), object);
 	}
 
 	/**
@@ -221,29 +296,442 @@ public class SaTokenDaoRedis implements SaTokenDao {
 	public void updateObjectTimeout(String key, long timeout) {
 		// 判断是否想要设置为永久
 		if(timeout == SaTokenDao.NEVER_EXPIRE) {
-			long expire = getObjectTimeout(key);
-			if(expire == SaTokenDao.NEVER_EXPIRE) {
-				// 如果其已经被设置为永久，则不作任何处理 
-			} else {
-				// 如果尚未被设置为永久，那么再次set一次
-				this.setObject(key, this.getObject(key), timeout);
-			}
+			objectRedisTemplate.persist(key);
 			return;
 		}
 		objectRedisTemplate.expire(key, timeout, TimeUnit.SECONDS);
 	}
 
 
-	
+	// ------------------------ Session 读写操作（开启 sessionHashMode 时以 Hash 结构存储）
+
+	/**
+	 * 获取 SaSession，如无返空
+	 */
+	@Override
+	public SaSession getSession(String sessionId) {
+		if( ! sessionHashMode) {
+			return (SaSession) getObject(sessionId);
+		}
+		Map<String, Object> fieldMap;
+		try {
+			fieldMap = objectRedisTemplate.<String, Object>opsForHash().entries(sessionId);
+		} catch (DataAccessException e) {
+			// 开启 sessionHashMode 之前以 Object 形式存储的旧数据
+			return (SaSession) getObject(sessionId);
+		}
+		if(fieldMap == null || fieldMap.isEmpty()) {
+			return null;
+		}
+		return SaSessionHashMapper.fillSession(new SaSession(), fieldMap);
+	}
+
+	/**
+	 * 写入 SaSession，并设定存活时间 (单位: 秒)
+	 */
+	@Override
+	public void setSession(SaSession session, long timeout) {
+		if( ! sessionHashMode) {
+			setObject(session.getId(), session, timeout);
+			return;
+		}
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		evalSessionScript(SaSessionHashMapper.SET_SCRIPT, session.getId(), String.valueOf(timeout), SaSessionHashMapper.toFieldMap(session));
+	}
+
 	/**
-	 * 搜索数据 
+	 * 更新 SaSession (过期时间不变)
+	 */
+	@Override
+	public void updateSession(SaSession session) {
+		if( ! sessionHashMode) {
+			updateObject(session.getId(), session);
+			return;
+		}
+		evalSessionScript(SaSessionHashMapper.UPDATE_SCRIPT, session.getId(), null, SaSessionHashMapper.toFieldMap(session));
+	}
+
+	/**
+	 * 获取 SaSession 上的一个挂载数据 (Hash 模式下只读取这一个 field)
+	 */
+	@Override
+	public Object getSessionField(String sessionId, String key) {
+		if(sessionHashMode) {
+			try {
+				return objectRedisTemplate.opsForHash().get(sessionId, SaSessionHashMapper.dataField(key));
+			} catch (DataAccessException e) {
+				// 旧数据，走整体读取
+			}
+		}
+		return SaTokenDao.super.getSessionField(sessionId, key);
+	}
+
+	/**
+	 * 同步 SaSession 的一个挂载数据 (Hash 模式下只写入这一个 field)
+	 */
+	@Override
+	public void updateSessionField(SaSession session, String key, Object value) {
+		if( ! sessionHashMode) {
+			updateSession(session);
+			return;
+		}
+		updateSessionFieldOrAll(session, SaSessionHashMapper.dataField(key), value);
+	}
+
+	/**
+	 * 删除 SaSession 的一个挂载数据 (Hash 模式下只删除这一个 field)
+	 */
+	@Override
+	public void deleteSessionField(SaSession session, String key) {
+		if( ! sessionHashMode) {
+			updateSession(session);
+			return;
+		}
+		Map<String, Object> args = Collections.singletonMap(SaSessionHashMapper.dataField(key), null);
+		if( ! evalSessionScript(SaSessionHashMapper.FIELD_DELETE_SCRIPT, session.getId(), null, args)) {
+			updateSession(session);
+		}
+	}
+
+	/**
+	 * 同步 SaSession 的 Token 签名列表 (Hash 模式下只写入这一个 field)
+	 */
+	@Override
+	public void updateSessionTokenSignList(SaSession session) {
+		if( ! sessionHashMode) {
+			updateSession(session);
+			return;
+		}
+		updateSessionFieldOrAll(session, SaSessionHashMapper.FIELD_TOKEN_SIGN_LIST, SaSessionHashMapper.tokenSignListValue(session));
+	}
+
+	/**
+	 * 写入一个 field，Session 尚不是 Hash 结构时（旧数据）整体写入
+	 */
+	protected void updateSessionFieldOrAll(SaSession session, String field, Object value) {
+		if( ! evalSessionScript(SaSessionHashMapper.FIELD_SET_SCRIPT, session.getId(), null, Collections.singletonMap(field, value))) {
+			updateSession(session);
+		}
+	}
+
+	/**
+	 * 执行 Session 相关的 Lua 脚本
+	 *
+	 * @param script 脚本
+	 * @param sessionId sessionId
+	 * @param firstArg 排在 field、value 之前的参数，null 代表没有
+	 * @param fieldMap field、value 集合（value 为 null 时只写入 field）
+	 * @return 脚本是否返回 1
+	 */
+	protected boolean evalSessionScript(String script, String sessionId, String firstArg, Map<String, Object> fieldMap) {
+		byte[][] keysAndArgs = sessionScriptArgs(sessionId, firstArg, fieldMap);
+		Long result = objectRedisTemplate.execute((RedisCallback<Long>) connection ->
+				connection.scriptingCommands().eval(script.getBytes(StandardCharsets.UTF_8), ReturnType.INTEGER, 1, keysAndArgs));
+		return result != null && result == 1;
+	}
+
+	/**
+	 * 组装 Lua 脚本的参数：[sessionId, firstArg, field1, value1, field2, value2 ...]
+	 */
+	@SuppressWarnings("unchecked")
+	protected byte[][] sessionScriptArgs(String sessionId, String firstArg, Map<String, Object> fieldMap) {
+		RedisSerializer<String> stringSerializer = stringRedisTemplate.getStringSerializer();
+		RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) objectRedisTemplate.getHashValueSerializer();
+		List<byte[]> list = new ArrayList<>(fieldMap.size() * 2 + 2);
+		list.add(stringSerializer.serialize(sessionId));
+		if(firstArg != null) {
+			list.add(stringSerializer.serialize(firstArg));
+		}
+		for (Map.Entry<String, Object> entry : fieldMap.entrySet()) {
+			list.add(stringSerializer.serialize(entry.getKey()));
+			if(entry.getValue() != null) {
+				list.add(valueSerializer.serialize(entry.getValue()));
+			}
+		}
+		return list.toArray(new byte[0][]);
+	}
+
+
+	/**
+	 * 批量获取Value (一次网络往返)
+	 */
+	@Override
+	public List<String> getMulti(List<String> keys) {
+		return stringRedisTemplate.opsForValue().multiGet(keys);
+	}
+
+	/**
+	 * 批量获取Object (一次网络往返)
+	 */
+	@Override
+	public List<Object> getObjectMulti(List<String> keys) {
+		return objectRedisTemplate.opsForValue().multiGet(keys);
+	}
+
+	/**
+	 * 批量执行写操作 (通过 Redis 管道一次性发送)
+	 */
+	@Override
+	public void batch(List<SaTokenDaoOperation> operations) {
+		executeBatch(operations, false);
+	}
+
+	/**
+	 * 原子批量执行写操作 (以 MULTI/EXEC 包裹，同样通过 Redis 管道一次性发送)
+	 *
+	 * <p> 集群模式下 MULTI/EXEC 无法跨 slot（且客户端不支持），退化为普通的管道批量执行，不保证原子性 </p>
+	 */
+	@Override
+	public void batchAtomic(List<SaTokenDaoOperation> operations) {
+		executeBatch(operations, true);
+	}
+
+	/**
+	 * 开启 sessionHashMode 时，批量写操作支持以 HSET、HDEL 修改 SaSession 的部分字段
+	 */
+	@Override
+	public boolean supportSessionFieldOperation() {
+		return sessionHashMode;
+	}
+
+	protected void executeBatch(List<SaTokenDaoOperation> operations, boolean atomic) {
+		if(operations.isEmpty()) {
+			return;
+		}
+		RedisSerializer<String> stringSerializer = stringRedisTemplate.getStringSerializer();
+		@SuppressWarnings("unchecked")
+		RedisSerializer<Object> objectSerializer = (RedisSerializer<Object>) objectRedisTemplate.getValueSerializer();
+		List<SaTokenDaoOperation> fallbackList = new ArrayList<>();
+		List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			boolean multi = atomic && ! (connection instanceof RedisClusterConnection);
+			if(multi) {
+				connection.multi();
+			}
+			for (int i = 0; i < operations.size(); i++) {
+				SaTokenDaoOperation op = operations.get(i);
+				byte[] key = stringSerializer.serialize(op.key);
+				switch (op.type) {
+					case SET:
+						if( ! op.isValidTimeout()) {
+							break;
+						}
+						if(sessionHashMode && op.value instanceof SaSession) {
+							byte[][] keysAndArgs = sessionScriptArgs(op.key, String.valueOf(op.timeout), SaSessionHashMapper.toFieldMap((SaSession) op.value));
+							connection.scriptingCommands().eval(SaSessionHashMapper.SET_SCRIPT.getBytes(StandardCharsets.UTF_8), ReturnType.INTEGER, 1, keysAndArgs);
+							break;
+						}
+						byte[] value = op.object ? objectSerializer.serialize(op.value) : stringSerializer.serialize((String) op.value);
+						// 判断是否为永不过期
+						if(op.timeout == SaTokenDao.NEVER_EXPIRE) {
+							connection.stringCommands().set(key, value);
+						} else {
+							connection.stringCommands().setEx(key, op.timeout, value);
+						}
+						break;
+					case UPDATE:
+						// 与 update、updateObject 相同，通过脚本原子地保持剩余存活时间
+						if(sessionHashMode && op.value instanceof SaSession) {
+							byte[][] keysAndArgs = sessionScriptArgs(op.key, null, SaSessionHashMapper.toFieldMap((SaSession) op.value));
+							connection.scriptingCommands().eval(SaSessionHashMapper.UPDATE_SCRIPT.getBytes(StandardCharsets.UTF_8), ReturnType.INTEGER, 1, keysAndArgs);
+							break;
+						}
+						byte[] updateValue = op.object ? objectSerializer.serialize(op.value) : stringSerializer.serialize((String) op.value);
+						connection.scriptingCommands().eval(UPDATE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8), ReturnType.INTEGER, 1, key, updateValue);
+						break;
+					case DELETE:
+						connection.keyCommands().del(key);
+						break;
+					case EXPIRE:
+						// 判断是否想要设置为永久
+						if(op.timeout == SaTokenDao.NEVER_EXPIRE) {
+							connection.keyCommands().persist(key);
+						} else {
+							connection.keyCommands().expire(key, op.timeout);
+						}
+						break;
+					case SESSION_FIELD:
+						if( ! sessionHashMode) {
+							fallbackList.add(op);
+							break;
+						}
+						// 旧格式数据返回 -(序号 + 1)，以便提交之后找出这条操作
+						byte[][] fieldArgs = sessionFieldScriptArgs(op, -(i + 1));
+						connection.scriptingCommands().eval(SaSessionHashMapper.FIELD_BATCH_SCRIPT.getBytes(StandardCharsets.UTF_8), ReturnType.INTEGER, 1, fieldArgs);
+						break;
+					default:
+						break;
+				}
+			}
+			if(multi) {
+				connection.exec();
+			}
+			return null;
+		});
+		// 旧格式（非 Hash 结构）的 SaSession 无法在脚本中按字段修改，提交之后再单独整体写入（不在同一事务中）
+		collectSessionFieldFallback(results, operations, fallbackList);
+		for (SaTokenDaoOperation op : fallbackList) {
+			updateSession((SaSession) op.value);
+		}
+	}
+
+	/**
+	 * 组装 FIELD_BATCH_SCRIPT 的参数：[sessionId, 旧格式数据的返回值, 写入数量, 要写入的 field、value ..., 要删除的 field ...]
+	 */
+	@SuppressWarnings("unchecked")
+	protected byte[][] sessionFieldScriptArgs(SaTokenDaoOperation op, long legacyResult) {
+		RedisSerializer<String> stringSerializer = stringRedisTemplate.getStringSerializer();
+		RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) objectRedisTemplate.getHashValueSerializer();
+		List<byte[]> setList = new ArrayList<>();
+		List<byte[]> deleteList = new ArrayList<>();
+		for (Map.Entry<String, Object> entry : op.fieldMap.entrySet()) {
+			if(entry.getValue() == null) {
+				deleteList.add(stringSerializer.serialize(entry.getKey()));
+			} else {
+				setList.add(stringSerializer.serialize(entry.getKey()));
+				setList.add(valueSerializer.serialize(entry.getValue()));
+			}
+		}
+		List<byte[]> list = new ArrayList<>(setList.size() + deleteList.size() + 3);
+		list.add(stringSerializer.serialize(op.key));
+		list.add(stringSerializer.serialize(String.valueOf(legacyResult)));
+		list.add(stringSerializer.serialize(String.valueOf(setList.size() / 2)));
+		list.addAll(setList);
+		list.addAll(deleteList);
+		return list.toArray(new byte[0][]);
+	}
+
+	/**
+	 * 从批量写操作的返回值中找出 FIELD_BATCH_SCRIPT 返回负数（旧格式数据）的操作，事务中的返回值嵌套在 EXEC 的结果中
+	 */
+	protected void collectSessionFieldFallback(List<?> results, List<SaTokenDaoOperation> operations, List<SaTokenDaoOperation> fallbackList) {
+		if(results == null) {
+			return;
+		}
+		for (Object result : results) {
+			if(result instanceof List) {
+				collectSessionFieldFallback((List<?>) result, operations, fallbackList);
+			} else if(result instanceof Long && (Long) result < 0) {
+				fallbackList.add(operations.get((int) -((Long) result) - 1));
+			}
+		}
+	}
+
+	/**
+	 * 搜索数据（通过 SCAN 命令分批遍历，不会像 KEYS 命令一样长时间阻塞 Redis）
 	 */
 	@Override
 	public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-		Set<String> keys = stringRedisTemplate.keys(prefix + "*" + keyword + "*");
+		// SCAN 命令可能返回重复的 key，需去重
+		Set<String> keys = new LinkedHashSet<>();
+		scanIterator(prefix, keyword, SaScanResult.DEFAULT_COUNT).forEachRemaining(keys::add);
 		List<String> list = new ArrayList<>(keys);
 		return SaFoxUtil.searchList(list, start, size, sortType);
 	}
-	
+
+	/**
+	 * 游标式搜索数据（SCAN 命令，返回 Redis 原生游标，每页只执行一次 SCAN）
+	 *
+	 * <p> 集群模式下按分片依次遍历每个主节点，游标格式见 {@link SaScanResult#toClusterCursor(int, String)} </p>
+	 */
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		String pattern = prefix + "*" + keyword + "*";
+		List<RedisClusterNode> masters = stringRedisTemplate.execute((RedisCallback<List<RedisClusterNode>>) connection ->
+				connection instanceof RedisClusterConnection ? getScanMasters((RedisClusterConnection) connection) : null);
+		if(masters == null) {
+			String start = SaScanResult.isStartCursor(cursor) ? SaScanResult.START_CURSOR : cursor;
+			return scanNode(null, pattern, start, count);
+		}
+		if(masters.isEmpty()) {
+			return new SaScanResult(null, null);
+		}
+
+		// 定位游标所在的分片
+		int index = 0;
+		String nodeCursor = SaScanResult.START_CURSOR;
+		if( ! SaScanResult.isStartCursor(cursor)) {
+			int slot = SaScanResult.parseClusterSlot(cursor);
+			nodeCursor = SaScanResult.parseClusterNodeCursor(cursor);
+			index = -1;
+			for (int i = 0; i < masters.size(); i++) {
+				if(masters.get(i).servesSlot(slot)) {
+					index = i;
+					break;
+				}
+			}
+			if(index == -1) {
+				throw new SaTokenException("无效的游标：" + cursor).setCode(SaErrorCode.CODE_12501);
+			}
+		}
+
+		// 在此分片上执行一次 SCAN，分片遍历完毕后，下一页从下一个分片的起始游标开始
+		RedisClusterNode node = masters.get(index);
+		SaScanResult result = scanNode(getRoutingKey(node), pattern, nodeCursor, count);
+		if( ! result.isFinished()) {
+			return new SaScanResult(result.list, SaScanResult.toClusterCursor(getMinSlot(node), result.cursor));
+		}
+		if(index + 1 < masters.size()) {
+			return new SaScanResult(result.list, SaScanResult.toClusterCursor(getMinSlot(masters.get(index + 1)), SaScanResult.START_CURSOR));
+		}
+		return result;
+	}
+
+	/**
+	 * 在一个节点上执行一次 SCAN 命令（集群模式下通过路由 key 将脚本发送到指定分片的主节点）
+	 *
+	 * @param routingKey 路由 key，非集群模式下填 null
+	 * @param pattern 匹配模式
+	 * @param cursor 此节点上的 SCAN 游标
+	 * @param count COUNT 参数
+	 * @return /
+	 */
+	protected SaScanResult scanNode(String routingKey, String pattern, String cursor, int count) {
+		List<String> keys = routingKey == null ? Collections.emptyList() : Collections.singletonList(routingKey);
+		List<?> reply = stringRedisTemplate.execute(SCAN_SCRIPT, keys, cursor, pattern, String.valueOf(count));
+		return SaScanResult.ofReply(reply);
+	}
+
+	/**
+	 * 获取集群中所有负责槽位的主节点，按其负责的最小槽位排序
+	 */
+	protected List<RedisClusterNode> getScanMasters(RedisClusterConnection connection) {
+		List<RedisClusterNode> masters = new ArrayList<>();
+		for (RedisClusterNode node : connection.clusterGetNodes()) {
+			if(node.isMaster() && getMinSlot(node) >= 0) {
+				masters.add(node);
+			}
+		}
+		masters.sort(Comparator.comparingInt(this::getMinSlot));
+		return masters;
+	}
+
+	/**
+	 * 获取节点负责的最小槽位，不负责任何槽位时返回 -1
+	 */
+	protected int getMinSlot(RedisClusterNode node) {
+		int min = -1;
+		if(node.getSlotRange() != null) {
+			for (int slot : node.getSlotRange().getSlotsArray()) {
+				if(min == -1 || slot < min) {
+					min = slot;
+				}
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * 获取一个落在此节点槽位上的 key，用于将脚本路由到此节点
+	 */
+	protected String getRoutingKey(RedisClusterNode node) {
+		for (int i = 0; ; i++) {
+			String key = "sa-token:scan-routing:" + i;
+			if(node.servesSlot(ClusterSlotHashUtil.calculateSlot(key))) {
+				return key;
+			}
+		}
+	}
 	
 }
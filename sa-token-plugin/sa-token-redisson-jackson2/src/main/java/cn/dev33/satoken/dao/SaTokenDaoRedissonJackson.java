@@ -15,12 +15,21 @@
  */
 package cn.dev33.satoken.dao;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -28,9 +37,15 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import org.redisson.api.RBatch;
 import org.redisson.api.RBucket;
 import org.redisson.api.RBucketAsync;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.api.redisnode.RedisClusterMaster;
+import org.redisson.api.redisnode.RedisNodes;
 import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.cluster.ClusterSlotRange;
 import org.redisson.codec.JsonJacksonCodec;
+import org.redisson.connection.CRC16;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -42,6 +57,8 @@ import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
 
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.strategy.SaStrategy;
 import cn.dev33.satoken.util.SaFoxUtil;
 
@@ -54,6 +71,33 @@ import cn.dev33.satoken.util.SaFoxUtil;
  */
 public class SaTokenDaoRedissonJackson implements SaTokenDao {
 
+	/**
+	 * Lua 脚本：修改 value 并保持其剩余存活时间不变，key 不存在时不做任何处理（一次网络往返，原子执行）
+	 */
+	public static final String UPDATE_SCRIPT =
+			"local ttl = redis.call('pttl', KEYS[1]) " +
+			"if ttl == -2 then return 0 end " +
+			"if ttl == -1 then redis.call('set', KEYS[1], ARGV[1]) " +
+			"else redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) end " +
+			"return 1";
+
+	/**
+	 * Lua 脚本：仅当 value 与指定值相等时删除此 key（一次网络往返，原子执行）
+	 */
+	public static final String DELETE_IF_EQUALS_SCRIPT =
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+			"return 0";
+
+	/**
+	 * Lua 脚本：执行一次 SCAN cursor MATCH pattern COUNT count，返回 [下一页游标, 本页数据]
+	 */
+	public static final String SCAN_SCRIPT = "return redis.call('scan', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])";
+
+	/**
+	 * Redis 集群的槽位总数
+	 */
+	public static final int SLOT_COUNT = 16384;
+
 	public static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
 	public static final String DATE_PATTERN = "yyyy-MM-dd";
 	public static final String TIME_PATTERN = "HH:mm:ss";
@@ -144,17 +188,28 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 		}
 	}
 
+	/**
+	 * 仅当 key 不存在时写入Value，并设定存活时间 (单位: 秒)，对应 SET NX EX 命令
+	 */
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return false;
+		}
+		RBucket<String> bucket = redissonClient.getBucket(key, codec);
+		if(timeout == SaTokenDao.NEVER_EXPIRE) {
+			return bucket.setIfAbsent(value);
+		}
+		return bucket.setIfAbsent(value, Duration.ofSeconds(timeout));
+	}
+
 	/**
 	 * 修修改指定key-value键值对 (过期时间不变) 
 	 */
 	@Override
 	public void update(String key, String value) {
-		long expire = getTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.set(key, value, expire);
+		redissonClient.getScript(codec).eval(key, RScript.Mode.READ_WRITE, UPDATE_SCRIPT,
+				RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), value);
 	}
 	
 	/**
@@ -165,6 +220,19 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 		redissonClient.getBucket(key, codec).delete();
 	}
 
+	/**
+	 * 仅当 value 与指定值相等时删除，对应一段 get 比较后 del 的 Lua 脚本
+	 */
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		if(value == null) {
+			return false;
+		}
+		Long result = redissonClient.getScript(codec).eval(key, RScript.Mode.READ_WRITE, DELETE_IF_EQUALS_SCRIPT,
+				RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), value);
+		return result != null && result > 0;
+	}
+
 	/**
 	 * 获取Value的剩余存活时间 (单位: 秒) 
 	 */
@@ -180,18 +248,12 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 	 */
 	@Override
 	public void updateTimeout(String key, long timeout) {
+		RBucket<String> rBucket = redissonClient.getBucket(key, codec);
 		// 判断是否想要设置为永久
 		if(timeout == SaTokenDao.NEVER_EXPIRE) {
-			long expire = getTimeout(key);
-			if(expire == SaTokenDao.NEVER_EXPIRE) {
-				// 如果其已经被设置为永久，则不作任何处理 
-			} else {
-				// 如果尚未被设置为永久，那么再次set一次
-				this.set(key, this.get(key), timeout);
-			}
+			rBucket.clearExpire();
 			return;
 		}
-		RBucket<String> rBucket = redissonClient.getBucket(key, codec);
 		rBucket.expire(Duration.ofSeconds(timeout));
 	}
 	
@@ -233,12 +295,8 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 	 */
 	@Override
 	public void updateObject(String key, Object object) {
-		long expire = getObjectTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.setObject(key, object, expire);
+		redissonClient.getScript(codec).eval(key, RScript.Mode.READ_WRITE, UPDATE_SCRIPT,
+				RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), object);
 	}
 
 	/**
@@ -264,22 +322,88 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 	 */
 	@Override
 	public void updateObjectTimeout(String key, long timeout) {
+		RBucket<Object> rBucket = redissonClient.getBucket(key, codec);
 		// 判断是否想要设置为永久
 		if(timeout == SaTokenDao.NEVER_EXPIRE) {
-			long expire = getObjectTimeout(key);
-			if(expire == SaTokenDao.NEVER_EXPIRE) {
-				// 如果其已经被设置为永久，则不作任何处理 
-			} else {
-				// 如果尚未被设置为永久，那么再次set一次
-				this.setObject(key, this.getObject(key), timeout);
-			}
+			rBucket.clearExpire();
 			return;
 		}
-		RBucket<Object> rBucket = redissonClient.getBucket(key, codec);
 		rBucket.expire(Duration.ofSeconds(timeout));
 	}
 
 	
+	/**
+	 * 批量获取Value (一次网络往返)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<String> getMulti(List<String> keys) {
+		RBatch batch = redissonClient.createBatch();
+		for (String key : keys) {
+			batch.getBucket(key, codec).getAsync();
+		}
+		return (List<String>) batch.execute().getResponses();
+	}
+
+	/**
+	 * 批量获取Object (一次网络往返)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<Object> getObjectMulti(List<String> keys) {
+		RBatch batch = redissonClient.createBatch();
+		for (String key : keys) {
+			batch.getBucket(key, codec).getAsync();
+		}
+		return (List<Object>) batch.execute().getResponses();
+	}
+
+	/**
+	 * 批量执行写操作 (通过 RBatch 一次性发送)
+	 */
+	@Override
+	public void batch(List<SaTokenDaoOperation> operations) {
+		if(operations.isEmpty()) {
+			return;
+		}
+		RBatch batch = redissonClient.createBatch();
+		for (SaTokenDaoOperation op : operations) {
+			RBucketAsync<Object> bucket = batch.getBucket(op.key, codec);
+			switch (op.type) {
+				case SET:
+					if( ! op.isValidTimeout()) {
+						break;
+					}
+					// 判断是否为永不过期
+					if(op.timeout == SaTokenDao.NEVER_EXPIRE) {
+						bucket.setAsync(op.value);
+					} else {
+						bucket.setAsync(op.value, op.timeout, TimeUnit.SECONDS);
+					}
+					break;
+				case UPDATE:
+					// 与 update、updateObject 相同，通过脚本原子地保持剩余存活时间
+					batch.getScript(codec).evalAsync(op.key, RScript.Mode.READ_WRITE, UPDATE_SCRIPT,
+							RScript.ReturnType.INTEGER, Collections.<Object>singletonList(op.key), op.value);
+					break;
+				case DELETE:
+					bucket.deleteAsync();
+					break;
+				case EXPIRE:
+					// 判断是否想要设置为永久
+					if(op.timeout == SaTokenDao.NEVER_EXPIRE) {
+						bucket.clearExpireAsync();
+					} else {
+						bucket.expireAsync(Duration.ofSeconds(op.timeout));
+					}
+					break;
+				default:
+					break;
+			}
+		}
+		batch.execute();
+	}
+
 	/**
 	 * 搜索数据 
 	 */
@@ -289,4 +413,129 @@ public class SaTokenDaoRedissonJackson implements SaTokenDao {
 		List<String> list = stream.collect(Collectors.toList());
 		return SaFoxUtil.searchList(list, start, size, sortType);
 	}
+
+	/**
+	 * 游标式搜索数据（SCAN 命令，返回 Redis 原生游标，每页只执行一次 SCAN）
+	 *
+	 * <p> 集群模式下按分片依次遍历每个主节点，游标格式见 {@link SaScanResult#toClusterCursor(int, String)} </p>
+	 */
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		String pattern = prefix + "*" + keyword + "*";
+		if( ! redissonClient.getConfig().isClusterConfig()) {
+			String start = SaScanResult.isStartCursor(cursor) ? SaScanResult.START_CURSOR : cursor;
+			return scanNode(null, pattern, start, count);
+		}
+		List<List<ClusterSlotRange>> shards = getScanShards();
+		if(shards.isEmpty()) {
+			return new SaScanResult(null, null);
+		}
+
+		// 定位游标所在的分片
+		int index = 0;
+		String nodeCursor = SaScanResult.START_CURSOR;
+		if( ! SaScanResult.isStartCursor(cursor)) {
+			int slot = SaScanResult.parseClusterSlot(cursor);
+			nodeCursor = SaScanResult.parseClusterNodeCursor(cursor);
+			index = -1;
+			for (int i = 0; i < shards.size(); i++) {
+				if(servesSlot(shards.get(i), slot)) {
+					index = i;
+					break;
+				}
+			}
+			if(index == -1) {
+				throw new SaTokenException("无效的游标：" + cursor).setCode(SaErrorCode.CODE_12501);
+			}
+		}
+
+		// 在此分片上执行一次 SCAN，分片遍历完毕后，下一页从下一个分片的起始游标开始
+		List<ClusterSlotRange> shard = shards.get(index);
+		SaScanResult result = scanNode(getRoutingKey(shard), pattern, nodeCursor, count);
+		if( ! result.isFinished()) {
+			return new SaScanResult(result.list, SaScanResult.toClusterCursor(shard.get(0).getStartSlot(), result.cursor));
+		}
+		if(index + 1 < shards.size()) {
+			return new SaScanResult(result.list, SaScanResult.toClusterCursor(shards.get(index + 1).get(0).getStartSlot(), SaScanResult.START_CURSOR));
+		}
+		return result;
+	}
+
+	/**
+	 * 在一个节点上执行一次 SCAN 命令（集群模式下通过路由 key 将脚本发送到指定分片）
+	 *
+	 * <p> 以 READ_WRITE 模式执行，保证每一页都在主节点上执行（SCAN 游标只在同一个节点上有效） </p>
+	 *
+	 * @param routingKey 路由 key，非集群模式下填 null
+	 * @param pattern 匹配模式
+	 * @param cursor 此节点上的 SCAN 游标
+	 * @param count COUNT 参数
+	 * @return /
+	 */
+	protected SaScanResult scanNode(String routingKey, String pattern, String cursor, int count) {
+		RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+		List<Object> reply;
+		if(routingKey == null) {
+			reply = script.eval(RScript.Mode.READ_WRITE, SCAN_SCRIPT, RScript.ReturnType.MULTI,
+					Collections.emptyList(), cursor, pattern, String.valueOf(count));
+		} else {
+			reply = script.eval(routingKey, RScript.Mode.READ_WRITE, SCAN_SCRIPT, RScript.ReturnType.MULTI,
+					Collections.<Object>singletonList(routingKey), cursor, pattern, String.valueOf(count));
+		}
+		return SaScanResult.ofReply(reply);
+	}
+
+	/**
+	 * 获取集群的所有分片（每个分片为其负责的槽位区间），按负责的最小槽位排序
+	 */
+	protected List<List<ClusterSlotRange>> getScanShards() {
+		Iterator<RedisClusterMaster> iterator = redissonClient.getRedisNodes(RedisNodes.CLUSTER).getMasters().iterator();
+		if( ! iterator.hasNext()) {
+			return Collections.emptyList();
+		}
+		// 任意一个主节点返回的都是整个集群的槽位分配，同一分片的多个槽位区间对应同一组节点
+		Map<Set<String>, List<ClusterSlotRange>> shardMap = new HashMap<>();
+		for (Map.Entry<ClusterSlotRange, Set<String>> entry : iterator.next().clusterSlots().entrySet()) {
+			shardMap.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+		}
+		List<List<ClusterSlotRange>> shards = new ArrayList<>(shardMap.values());
+		for (List<ClusterSlotRange> shard : shards) {
+			shard.sort(Comparator.comparingInt(ClusterSlotRange::getStartSlot));
+		}
+		shards.sort(Comparator.comparingInt(shard -> shard.get(0).getStartSlot()));
+		return shards;
+	}
+
+	/**
+	 * 判断分片是否负责指定槽位
+	 */
+	protected boolean servesSlot(List<ClusterSlotRange> shard, int slot) {
+		for (ClusterSlotRange range : shard) {
+			if(slot >= range.getStartSlot() && slot <= range.getEndSlot()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 获取一个落在此分片槽位上的 key，用于将脚本路由到此分片
+	 */
+	protected String getRoutingKey(List<ClusterSlotRange> shard) {
+		for (int i = 0; ; i++) {
+			String key = "sa-token:scan-routing:" + i;
+			if(servesSlot(shard, CRC16.crc16(key.getBytes(StandardCharsets.UTF_8)) % SLOT_COUNT)) {
+				return key;
+			}
+		}
+	}
+
+	/**
+	 * 惰性遍历所有符合条件的数据（RKeys 按批次执行 SCAN，用完一批才去加载下一批）
+	 */
+	@Override
+	public Iterator<String> scanIterator(String prefix, String keyword, int count) {
+		return redissonClient.getKeys().getKeysStreamByPattern(prefix + "*" + keyword + "*", count).iterator();
+	}
+	
 }
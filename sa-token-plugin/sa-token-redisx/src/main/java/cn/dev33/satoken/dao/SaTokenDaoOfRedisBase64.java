@@ -18,8 +18,13 @@ package cn.dev33.satoken.dao;
 import cn.dev33.satoken.util.SaFoxUtil;
 import org.noear.redisx.RedisClient;
 import org.noear.redisx.plus.RedisBucket;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.params.SetParams;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
@@ -31,6 +36,25 @@ import java.util.Set;
  * @since 1.34.0
  */
 public class SaTokenDaoOfRedisBase64 implements SaTokenDao {
+
+    /**
+     * Lua 脚本：修改 value 并保持其剩余存活时间不变，key 不存在时不做任何处理（一次网络往返，原子执行）
+     */
+    public static final String UPDATE_SCRIPT =
+            "local ttl = redis.call('pttl', KEYS[1]) " +
+            "if ttl == -2 then return 0 end " +
+            "if ttl == -1 then redis.call('set', KEYS[1], ARGV[1]) " +
+            "else redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) end " +
+            "return 1";
+
+    /**
+     * Lua 脚本：仅当 value 与指定值相等时删除此 key（一次网络往返，原子执行）
+     */
+    public static final String DELETE_IF_EQUALS_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+            "return 0";
+
+    private final RedisClient redisClient;
     private final RedisBucket redisBucket;
 
     public SaTokenDaoOfRedisBase64(Properties props) {
@@ -38,7 +62,8 @@ public class SaTokenDaoOfRedisBase64 implements SaTokenDao {
     }
 
     public SaTokenDaoOfRedisBase64(RedisClient redisClient) {
-        redisBucket = redisClient.getBucket();
+        this.redisClient = redisClient;
+        this.redisBucket = redisClient.getBucket();
     }
 
 
@@ -60,13 +85,27 @@ public class SaTokenDaoOfRedisBase64 implements SaTokenDao {
         }
     }
 
+    /**
+     * 仅当 key 不存在时写入Value，并设定存活时间 (单位: 秒)，对应 SET NX EX 命令
+     */
+    @Override
+    public boolean setIfAbsent(String key, String value, long timeout) {
+        if (timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE) {
+            return false;
+        }
+        SetParams params = SetParams.setParams().nx();
+        if (timeout != SaTokenDao.NEVER_EXPIRE) {
+            params.ex(timeout);
+        }
+        return "OK".equals(redisClient.openAndGet(session -> session.jedis().set(key, value, params)));
+    }
+
     /**
      * 修改指定key-value键值对 (过期时间不变)
      */
     @Override
     public void update(String key, String value) {
-        long expire = getTimeout(key);
-        this.set(key, value, expire);
+        evalUpdate(key, value);
     }
 
     /**
@@ -77,6 +116,18 @@ public class SaTokenDaoOfRedisBase64 implements SaTokenDao {
         redisBucket.remove(key);
     }
 
+    /**
+     * 仅当 value 与指定值相等时删除，对应一段 get 比较后 del 的 Lua 脚本
+     */
+    @Override
+    public boolean deleteIfEquals(String key, String value) {
+        if (value == null) {
+            return false;
+        }
+        Object result = redisClient.openAndGet(session -> session.jedis().eval(DELETE_IF_EQUALS_SCRIPT, Collections.singletonList(key), Collections.singletonList(value)));
+        return result instanceof Long && (Long) result > 0;
+    }
+
     /**
      * 获取Value的剩余存活时间 (单位: 秒)
      */
@@ -90,9 +141,8 @@ public class SaTokenDaoOfRedisBase64 implements SaTokenDao {
      */
     @Override
     public void updateTimeout(String key, long timeout) {
-        if (redisBucket.exists(key)) {
-            redisBucket.delay(key, (int) timeout);
-        }
+        // timeout=-1 时 delay 会执行 persist；key 不存在时 expire/persist 均不做任何处理，无需事先判断
+        redisBucket.delay(key, (int) timeout);
     }
 
 
@@ -119,8 +169,7 @@ public class SaTokenDaoOfRedisBase64 implements SaTokenDao {
      */
     @Override
     public void updateObject(String key, Object object) {
-        long expire = getObjectTimeout(key);
-        this.setObject(key, object, expire);
+        evalUpdate(key, redisClient.serializer().encode(object));
     }
 
     /**
@@ -144,19 +193,38 @@ public class SaTokenDaoOfRedisBase64 implements SaTokenDao {
      */
     @Override
     public void updateObjectTimeout(String key, long timeout) {
-        if (redisBucket.exists(key)) {
-            redisBucket.delay(key, (int) timeout);
-        }
+        redisBucket.delay(key, (int) timeout);
+    }
+
+
+    /**
+     * 执行原子更新脚本
+     */
+    protected void evalUpdate(String key, String value) {
+        redisClient.open(session -> session.jedis().eval(UPDATE_SCRIPT, Collections.singletonList(key), Collections.singletonList(value)));
     }
 
 
     /**
-     * 搜索数据
+     * 搜索数据（通过 SCAN 命令分批遍历，不会像 KEYS 命令一样长时间阻塞 Redis）
      */
     @Override
     public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-        Set<String> keys = redisBucket.keys(prefix + "*" + keyword + "*");
-        List<String> list = new ArrayList<String>(keys);
+        // SCAN 命令可能返回重复的 key，需去重
+        Set<String> keys = new LinkedHashSet<>();
+        scanIterator(prefix, keyword, SaScanResult.DEFAULT_COUNT).forEachRemaining(keys::add);
+        List<String> list = new ArrayList<>(keys);
         return SaFoxUtil.searchList(list, start, size, sortType);
     }
+
+    /**
+     * 游标式搜索数据（SCAN 命令）
+     */
+    @Override
+    public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+        String start = SaScanResult.isStartCursor(cursor) ? SaScanResult.START_CURSOR : cursor;
+        ScanParams params = new ScanParams().match(prefix + "*" + keyword + "*").count(count);
+        ScanResult<String> result = redisClient.openAndGet(session -> session.jedis().scan(start, params));
+        return new SaScanResult(result.getResult(), result.getCursor());
+    }
 }
\ No newline at end of file
@@ -25,7 +25,6 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import cn.dev33.satoken.annotation.SaIgnore;
 import cn.dev33.satoken.strategy.SaStrategy;
 import cn.dev33.satoken.util.SaTokenConsts;
 
@@ -83,7 +82,7 @@ public class SaCheckAspect {
 		Method method = signature.getMethod();
 		
 		// 如果此 Method 或其所属 Class 标注了 @SaIgnore，则忽略掉鉴权 
-		if(SaStrategy.instance.isAnnotationPresent.apply(method, SaIgnore.class)) {
+		if(SaStrategy.instance.getCheckMethodPlan(method).ignore) {
 			// ... 
 		} else {
 			// 注解鉴权 
@@ -17,12 +17,14 @@ package cn.dev33.satoken.config;
 
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-import cn.dev33.satoken.sso.error.SaSsoErrorCode;
-import cn.dev33.satoken.sso.exception.SaSsoException;
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.sso.slo.SaSsoSloResult;
 import cn.dev33.satoken.util.SaFoxUtil;
 import cn.dev33.satoken.util.SaResult;
 
@@ -64,6 +66,31 @@ public class SaSsoConfig implements Serializable {
 	 */
 	public Boolean isHttp = false; 
 
+	/**
+	 * 单点注销时，并发通知 Client 端的线程数 
+	 */
+	public int sloConcurrency = 8;
+
+	/**
+	 * 单点注销时，通知每个 Client 端的超时时间 (单位: 毫秒，<=0 代表不限制) 
+	 */
+	public long sloTimeout = 5000;
+
+	/**
+	 * 单点注销时，是否先完成 Server 端注销，再在后台异步通知 Client 端 
+	 */
+	public Boolean sloAsync = false;
+
+	/**
+	 * 异步单点注销时，通知 Client 端失败后的最大重试次数 
+	 */
+	public int sloRetryCount = 2;
+
+	/**
+	 * 异步单点注销时，第一次重试前的等待时间 (单位: 毫秒)，之后每次重试的等待时间翻倍 
+	 */
+	public long sloRetryInterval = 1000;
+
 	
 	// ----------------- Client端相关配置 
 
@@ -210,6 +237,86 @@ public class SaSsoConfig implements Serializable {
 		return this;
 	}
 
+	/**
+	 * @return 单点注销时，并发通知 Client 端的线程数 
+	 */
+	public int getSloConcurrency() {
+		return sloConcurrency;
+	}
+
+	/**
+	 * @param sloConcurrency 单点注销时，并发通知 Client 端的线程数 
+	 * @return 对象自身 
+	 */
+	public SaSsoConfig setSloConcurrency(int sloConcurrency) {
+		this.sloConcurrency = sloConcurrency;
+		return this;
+	}
+
+	/**
+	 * @return 单点注销时，通知每个 Client 端的超时时间 (单位: 毫秒，<=0 代表不限制) 
+	 */
+	public long getSloTimeout() {
+		return sloTimeout;
+	}
+
+	/**
+	 * @param sloTimeout 单点注销时，通知每个 Client 端的超时时间 (单位: 毫秒，<=0 代表不限制) 
+	 * @return 对象自身 
+	 */
+	public SaSsoConfig setSloTimeout(long sloTimeout) {
+		this.sloTimeout = sloTimeout;
+		return this;
+	}
+
+	/**
+	 * @return 单点注销时，是否先完成 Server 端注销，再在后台异步通知 Client 端 
+	 */
+	public Boolean getSloAsync() {
+		return sloAsync;
+	}
+
+	/**
+	 * @param sloAsync 单点注销时，是否先完成 Server 端注销，再在后台异步通知 Client 端 
+	 * @return 对象自身 
+	 */
+	public SaSsoConfig setSloAsync(Boolean sloAsync) {
+		this.sloAsync = sloAsync;
+		return this;
+	}
+
+	/**
+	 * @return 异步单点注销时，通知 Client 端失败后的最大重试次数 
+	 */
+	public int getSloRetryCount() {
+		return sloRetryCount;
+	}
+
+	/**
+	 * @param sloRetryCount 异步单点注销时，通知 Client 端失败后的最大重试次数 
+	 * @return 对象自身 
+	 */
+	public SaSsoConfig setSloRetryCount(int sloRetryCount) {
+		this.sloRetryCount = sloRetryCount;
+		return this;
+	}
+
+	/**
+	 * @return 异步单点注销时，第一次重试前的等待时间 (单位: 毫秒)，之后每次重试的等待时间翻倍 
+	 */
+	public long getSloRetryInterval() {
+		return sloRetryInterval;
+	}
+
+	/**
+	 * @param sloRetryInterval 异步单点注销时，第一次重试前的等待时间 (单位: 毫秒)，之后每次重试的等待时间翻倍 
+	 * @return 对象自身 
+	 */
+	public SaSsoConfig setSloRetryInterval(long sloRetryInterval) {
+		this.sloRetryInterval = sloRetryInterval;
+		return this;
+	}
+
 	/**
 	 * @return 当前 Client 名称标识，用于和 ticket 码的互相锁定 
 	 */
@@ -345,6 +452,11 @@ public class SaSsoConfig implements Serializable {
 				+ ", allowUrl=" + allowUrl 
 				+ ", isSlo=" + isSlo
 				+ ", isHttp=" + isHttp
+				+ ", sloConcurrency=" + sloConcurrency
+				+ ", sloTimeout=" + sloTimeout
+				+ ", sloAsync=" + sloAsync
+				+ ", sloRetryCount=" + sloRetryCount
+				+ ", sloRetryInterval=" + sloRetryInterval
 				+ ", client=" + client 
 				+ ", authUrl=" + authUrl 
 				+ ", checkTicketUrl=" + checkTicketUrl
@@ -430,11 +542,20 @@ public class SaSsoConfig implements Serializable {
 	public BiFunction<Object, String, Object> ticketResultHandle = null;
 
 	/**
-	 * SSO-Client端：发送Http请求的处理函数 
+	 * 默认的发送Http请求处理函数：交给 SaManager.getSaHttpTemplate() 发送，复用 keep-alive 长连接 
 	 */
-	public Function<String, String> sendHttp = url -> {
-		throw new SaSsoException("请配置 Http 请求处理器").setCode(SaSsoErrorCode.CODE_30010);
-	};
+	public static final Function<String, String> DEFAULT_SEND_HTTP = url -> SaManager.getSaHttpTemplate().get(url);
+
+	/**
+	 * SSO-Client端：发送Http请求的处理函数（默认使用 SaHttpTemplate，保持默认值时 SSO 模块还会使用其异步、流式解析能力）
+	 */
+	public Function<String, String> sendHttp = DEFAULT_SEND_HTTP;
+
+	/**
+	 * SSO-Server端：单点注销通知完所有 Client 端后的回调 
+	 * <p> 参数：loginId, 每个 Client 端的通知结果 
+	 */
+	public BiConsumer<Object, List<SaSsoSloResult>> sloResultHandle = null;
 
 
 	/**
@@ -501,4 +622,20 @@ public class SaSsoConfig implements Serializable {
 		return sendHttp;
 	}
 
+	/**
+	 * @param sloResultHandle SSO-Server端：单点注销通知完所有 Client 端后的回调 
+	 * @return 对象自身 
+	 */
+	public SaSsoConfig setSloResultHandle(BiConsumer<Object, List<SaSsoSloResult>> sloResultHandle) {
+		this.sloResultHandle = sloResultHandle;
+		return this;
+	}
+
+	/**
+	 * @return 函数 SSO-Server端：单点注销通知完所有 Client 端后的回调 
+	 */
+	public BiConsumer<Object, List<SaSsoSloResult>> getSloResultHandle() {
+		return sloResultHandle;
+	}
+
 }
@@ -23,6 +23,8 @@ import cn.dev33.satoken.sso.error.SaSsoErrorCode;
 import cn.dev33.satoken.sso.exception.SaSsoException;
 import cn.dev33.satoken.sso.name.ApiName;
 import cn.dev33.satoken.sso.name.ParamName;
+import cn.dev33.satoken.sso.slo.SaSsoSloDispatcher;
+import cn.dev33.satoken.sso.slo.SaSsoSloResult;
 import cn.dev33.satoken.stp.StpLogic;
 import cn.dev33.satoken.stp.StpUtil;
 import cn.dev33.satoken.strategy.SaStrategy;
@@ -30,6 +32,9 @@ import cn.dev33.satoken.util.SaFoxUtil;
 import cn.dev33.satoken.util.SaResult;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Sa-Token-SSO 单点登录模块
@@ -85,6 +90,35 @@ public class SaSsoTemplate {
 		return SaSsoManager.getConfig();
 	}
 
+	/**
+	 * 单点注销回调分发器，第一次使用时按 sloConcurrency 配置创建 
+	 */
+	public volatile SaSsoSloDispatcher sloDispatcher;
+
+	/**
+	 * 获取单点注销回调分发器 
+	 * @return /
+	 */
+	public SaSsoSloDispatcher getSloDispatcher() {
+		if(sloDispatcher == null) {
+			synchronized (this) {
+				if(sloDispatcher == null) {
+					sloDispatcher = new SaSsoSloDispatcher(getSsoConfig().getSloConcurrency());
+				}
+			}
+		}
+		return sloDispatcher;
+	}
+
+	/**
+	 * @param sloDispatcher 替换单点注销回调分发器 
+	 * @return 对象自身
+	 */
+	public SaSsoTemplate setSloDispatcher(SaSsoSloDispatcher sloDispatcher) {
+		this.sloDispatcher = sloDispatcher;
+		return this;
+	}
+
 	/**
 	 * 获取底层使用的 API 签名对象
 	 * @return /
@@ -335,6 +369,7 @@ public class SaSsoTemplate {
 	
 	/**
 	 * 指定账号单点注销 
+	 * <p> 所有 Client 端被并发通知，单个 Client 端超时或失败不影响其它 Client 端，也不影响 Server 端注销 </p>
 	 * @param loginId 指定账号 
 	 */
 	public void ssoLogout(Object loginId) {
@@ -345,18 +380,54 @@ public class SaSsoTemplate {
 			return;
 		}
 		
-		// step.1 遍历通知 Client 端注销会话 
+		// step.1 提前为所有回调地址拼接 loginId 与签名（签名依赖当前线程的配置，不放到异步线程中做） 
 		SaSsoConfig cfg = SaSsoManager.getConfig();
 		Set<String> urlSet = session.get(SaSsoConsts.SLO_CALLBACK_SET_KEY, HashSet::new);
+		List<String> urls = new ArrayList<>(urlSet.size());
 		for (String url : urlSet) {
-			url = joinLoginIdAndSign(url, loginId);
-			cfg.getSendHttp().apply(url);
+			urls.add(joinLoginIdAndSign(url, loginId));
 		}
+
+		// 异步模式：先完成 Server 端注销，再在后台通知 Client 端，失败时按退避间隔重试 
+		if(cfg.getSloAsync()) {
+			getStpLogic().logout(loginId);
+			notifySloCallback(urls, cfg.getSloRetryCount()).thenAccept(results -> handleSloResult(loginId, results));
+			return;
+		}
+
+		// step.2 并发通知 Client 端注销会话，等待所有 Client 端都有结果 
+		handleSloResult(loginId, notifySloCallback(urls, 0).join());
 		
-		// step.2 Server端注销 
+		// step.3 Server端注销 
 		getStpLogic().logout(loginId);
 	}
 
+	/**
+	 * 并发通知一组单点注销回调地址 
+	 * @param urls 回调地址（已拼接 loginId 与签名）
+	 * @param retryCount 失败后的最大重试次数 
+	 * @return 所有 Client 端都有结果后完成，结果顺序与 urls 一致 
+	 */
+	public CompletableFuture<List<SaSsoSloResult>> notifySloCallback(List<String> urls, int retryCount) {
+		if(urls.isEmpty()) {
+			return CompletableFuture.completedFuture(new ArrayList<>());
+		}
+		SaSsoConfig cfg = SaSsoManager.getConfig();
+		return getSloDispatcher().dispatch(urls, cfg.getSendHttp(), cfg.getSloTimeout(), retryCount, cfg.getSloRetryInterval());
+	}
+
+	/**
+	 * 处理单点注销的通知结果，默认交给配置的 sloResultHandle 函数 
+	 * @param loginId 账号id 
+	 * @param results 每个 Client 端的通知结果 
+	 */
+	public void handleSloResult(Object loginId, List<SaSsoSloResult> results) {
+		BiConsumer<Object, List<SaSsoSloResult>> handle = SaSsoManager.getConfig().getSloResultHandle();
+		if(handle != null) {
+			handle.accept(loginId, results);
+		}
+	}
+
 	/**
 	 * 根据配置的 getData 地址，查询数据
 	 * @param paramMap 查询参数
@@ -378,6 +449,20 @@ public class SaSsoTemplate {
 		return SaSsoManager.getConfig().getSendHttp().apply(url);
 	}
 
+	/**
+	 * 根据自定义 path 地址，异步查询数据 （此方法需要配置 sa-token.sso.server-url 地址）
+	 * @param path 自定义 path
+	 * @param paramMap 查询参数
+	 * @return 查询结果
+	 */
+	public CompletableFuture<String> getDataAsync(String path, Map<String, Object> paramMap) {
+		String url = buildCustomPathUrl(path, paramMap);
+		if(SaSsoManager.getConfig().getSendHttp() == SaSsoConfig.DEFAULT_SEND_HTTP) {
+			return SaManager.getSaHttpTemplate().getAsync(url);
+		}
+		return CompletableFuture.supplyAsync(() -> SaSsoManager.getConfig().getSendHttp().apply(url));
+	}
+
 	
 	// ---------------------- 构建URL ---------------------- 
 
@@ -541,9 +626,34 @@ public class SaSsoTemplate {
 	 * @return 返回的结果 
 	 */
 	public SaResult request(String url) {
-		String body = SaSsoManager.getConfig().getSendHttp().apply(url);
-		Map<String, Object> map = SaManager.getSaJsonTemplate().parseJsonToMap(body);
-		return new SaResult(map);
+		return new SaResult(requestForMap(url));
+	}
+
+	/**
+	 * 异步发出请求，并返回 SaResult 结果 
+	 * @param url 请求地址 
+	 * @return 返回的结果 
+	 */
+	public CompletableFuture<SaResult> requestAsync(String url) {
+		// 使用默认的 sendHttp 时，直接交给 SaHttpTemplate 异步发送并流式解析 
+		if(SaSsoManager.getConfig().getSendHttp() == SaSsoConfig.DEFAULT_SEND_HTTP) {
+			return SaManager.getSaHttpTemplate().getForMapAsync(url).thenApply(SaResult::new);
+		}
+		return CompletableFuture.supplyAsync(() -> request(url));
+	}
+
+	/**
+	 * 发出请求，并将响应解析为 Map 
+	 * @param url 请求地址 
+	 * @return / 
+	 */
+	protected Map<String, Object> requestForMap(String url) {
+		Function<String, String> sendHttp = SaSsoManager.getConfig().getSendHttp();
+		// 使用默认的 sendHttp 时，响应流直接交给 JSON 转换器解析，不再先拼接为字符串 
+		if(sendHttp == SaSsoConfig.DEFAULT_SEND_HTTP) {
+			return SaManager.getSaHttpTemplate().getForMap(url);
+		}
+		return SaManager.getSaJsonTemplate().parseJsonToMap(sendHttp.apply(url));
 	}
 
 	/**
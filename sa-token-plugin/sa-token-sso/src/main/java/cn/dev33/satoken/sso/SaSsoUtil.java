@@ -18,6 +18,7 @@ package cn.dev33.satoken.sso;
 import cn.dev33.satoken.util.SaResult;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Sa-Token-SSO 单点登录模块 工具类
@@ -228,6 +229,15 @@ public class SaSsoUtil {
 		return ssoTemplate.request(url);
 	}
 
+	/**
+	 * 异步发出请求，并返回 SaResult 结果 
+	 * @param url 请求地址 
+	 * @return 返回的结果 
+	 */
+	public static CompletableFuture<SaResult> requestAsync(String url) {
+		return ssoTemplate.requestAsync(url);
+	}
+
 	/**
 	 * 给 paramMap 追加 sign 等参数，并序列化为kv字符串，拼接到url后面
 	 * @param url 请求地址
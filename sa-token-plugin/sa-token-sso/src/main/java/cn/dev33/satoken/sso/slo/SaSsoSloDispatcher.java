@@ -0,0 +1,219 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sso.slo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 单点注销回调分发器：并发通知所有 Client 端，每个请求单独计时，超时后不再等待
+ *
+ * <p>
+ *     1、请求在固定大小的线程池中并发执行，等待队列已满时该请求直接以“被拒绝”的失败结果完成（可按重试策略稍后重试），不会无限堆积，也不会占用调用方线程。
+ *     <br> 2、超时只是不再等待结果，并尝试中断执行请求的线程，能否真正中止取决于 sendHttp 函数是否响应中断。
+ *     <br> 3、失败的请求可以按指数退避的间隔重试：第 n 次重试前等待 retryInterval * 2^(n-1) 毫秒，重试的请求同样提交到线程池执行，计时线程只负责计时，不会执行 sendHttp。
+ *     <br> 4、所有线程均为守护线程，不会阻止 JVM 退出。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSsoSloDispatcher {
+
+	/**
+	 * 并发执行请求的线程数
+	 */
+	public final int concurrency;
+
+	/**
+	 * 执行请求的线程池，第一次使用时创建
+	 */
+	private volatile ExecutorService executor;
+
+	/**
+	 * 负责超时与重试计时的线程，第一次使用时创建
+	 */
+	private volatile ScheduledExecutorService scheduler;
+
+	/**
+	 * @param concurrency 并发执行请求的线程数
+	 */
+	public SaSsoSloDispatcher(int concurrency) {
+		this.concurrency = Math.max(concurrency, 1);
+	}
+
+	/**
+	 * 并发通知所有回调地址，返回的 CompletableFuture 在所有地址都有结果（成功、失败或超时）后完成，结果顺序与 urls 一致
+	 *
+	 * @param urls 回调地址（已拼接参数与签名）
+	 * @param sendHttp 发送 Http 请求的函数
+	 * @param timeout 每个请求的超时时间（单位: 毫秒，<=0 代表不限制）
+	 * @param retryCount 失败后的最大重试次数
+	 * @param retryInterval 第一次重试前的等待时间（单位: 毫秒）
+	 * @return /
+	 */
+	public CompletableFuture<List<SaSsoSloResult>> dispatch(List<String> urls, Function<String, String> sendHttp,
+			long timeout, int retryCount, long retryInterval) {
+		List<CompletableFuture<SaSsoSloResult>> futures = new ArrayList<>(urls.size());
+		for (String url : urls) {
+			futures.add(sendWithRetry(url, sendHttp, timeout, retryCount, retryInterval, 1));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+			List<SaSsoSloResult> list = new ArrayList<>(futures.size());
+			for (CompletableFuture<SaSsoSloResult> future : futures) {
+				list.add(future.join());
+			}
+			return list;
+		});
+	}
+
+	/**
+	 * 发送一次请求，失败时按退避间隔重试
+	 */
+	protected CompletableFuture<SaSsoSloResult> sendWithRetry(String url, Function<String, String> sendHttp,
+			long timeout, int retryCount, long retryInterval, int attempt) {
+		return send(url, sendHttp, timeout, attempt).thenCompose(result -> {
+			if(result.success || attempt > retryCount) {
+				return CompletableFuture.completedFuture(result);
+			}
+			long delay = retryInterval << Math.min(attempt - 1, 16);
+			return delay(delay).thenCompose(v -> sendWithRetry(url, sendHttp, timeout, retryCount, retryInterval, attempt + 1));
+		});
+	}
+
+	/**
+	 * 发送一次请求，超时后立即以超时结果完成
+	 */
+	protected CompletableFuture<SaSsoSloResult> send(String url, Function<String, String> sendHttp, long timeout, int attempt) {
+		CompletableFuture<SaSsoSloResult> future = new CompletableFuture<>();
+		long startTime = System.currentTimeMillis();
+		Future<?> task;
+		try {
+			task = getExecutor().submit(() -> {
+				try {
+					String body = sendHttp.apply(url);
+					future.complete(new SaSsoSloResult(url, true, false, body, null, attempt, System.currentTimeMillis() - startTime));
+				} catch (Throwable e) {
+					future.complete(new SaSsoSloResult(url, false, false, null, e, attempt, System.currentTimeMillis() - startTime));
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// 等待队列已满或分发器已被关闭：直接以失败结果完成，不在当前线程（可能是计时线程）中执行 sendHttp
+			future.complete(new SaSsoSloResult(url, false, false, null, e, attempt, 0));
+			return future;
+		}
+		if(timeout > 0 && ! future.isDone()) {
+			ScheduledFuture<?> timer = getScheduler().schedule(() -> {
+				if(future.complete(new SaSsoSloResult(url, false, true, null, null, attempt, System.currentTimeMillis() - startTime))) {
+					task.cancel(true);
+				}
+			}, timeout, TimeUnit.MILLISECONDS);
+			future.whenComplete((r, e) -> timer.cancel(false));
+		}
+		return future;
+	}
+
+	/**
+	 * 返回一个在指定时间后完成的 CompletableFuture
+	 */
+	protected CompletableFuture<Void> delay(long millis) {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		if(millis <= 0) {
+			future.complete(null);
+			return future;
+		}
+		getScheduler().schedule(() -> future.complete(null), millis, TimeUnit.MILLISECONDS);
+		return future;
+	}
+
+	/**
+	 * 获取执行请求的线程池
+	 *
+	 * @return /
+	 */
+	public ExecutorService getExecutor() {
+		if(executor == null) {
+			synchronized (this) {
+				if(executor == null) {
+					ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+							new LinkedBlockingQueue<>(concurrency * 64), newThreadFactory("sa-sso-slo-"),
+							new ThreadPoolExecutor.AbortPolicy());
+					pool.allowCoreThreadTimeOut(true);
+					executor = pool;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * 获取负责计时的线程
+	 *
+	 * @return /
+	 */
+	public ScheduledExecutorService getScheduler() {
+		if(scheduler == null) {
+			synchronized (this) {
+				if(scheduler == null) {
+					ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, newThreadFactory("sa-sso-slo-timer-"));
+					timer.setRemoveOnCancelPolicy(true);
+					scheduler = timer;
+				}
+			}
+		}
+		return scheduler;
+	}
+
+	/**
+	 * 关闭分发器，正在执行的请求会被中断（之后再次使用时会重新创建线程池）
+	 */
+	public synchronized void destroy() {
+		if(executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		if(scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * 创建守护线程的工厂
+	 */
+	protected static ThreadFactory newThreadFactory(String prefix) {
+		AtomicInteger index = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + index.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
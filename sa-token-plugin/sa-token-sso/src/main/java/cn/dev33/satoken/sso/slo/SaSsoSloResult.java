@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.sso.slo;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 单点注销时，通知一个 Client 端的结果
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSsoSloResult {
+
+	/**
+	 * 通知的回调地址（已拼接 loginId 与签名参数）
+	 */
+	public final String url;
+
+	/**
+	 * 是否通知成功（Http 请求正常返回）
+	 */
+	public final boolean success;
+
+	/**
+	 * 是否因为超时而失败
+	 */
+	public final boolean timeout;
+
+	/**
+	 * Client 端的响应内容，失败时为 null
+	 */
+	public final String body;
+
+	/**
+	 * 失败原因，成功或超时时为 null
+	 */
+	public final Throwable error;
+
+	/**
+	 * 共发送了几次请求（包括重试）
+	 */
+	public final int attempts;
+
+	/**
+	 * 最后一次请求的耗时（单位: 毫秒）
+	 */
+	public final long costTime;
+
+	public SaSsoSloResult(String url, boolean success, boolean timeout, String body, Throwable error, int attempts, long costTime) {
+		this.url = url;
+		this.success = success;
+		this.timeout = timeout;
+		this.body = body;
+		this.error = error;
+		this.attempts = attempts;
+		this.costTime = costTime;
+	}
+
+	/**
+	 * @return 通知的回调地址
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * @return 是否通知成功
+	 */
+	public boolean isSuccess() {
+		return success;
+	}
+
+	/**
+	 * @return 是否因为超时而失败
+	 */
+	public boolean isTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * @return Client 端的响应内容
+	 */
+	public String getBody() {
+		return body;
+	}
+
+	/**
+	 * @return 失败原因
+	 */
+	public Throwable getError() {
+		return error;
+	}
+
+	/**
+	 * @return 是否因为线程池等待队列已满（或分发器已被关闭）而被拒绝执行
+	 */
+	public boolean isRejected() {
+		return error instanceof RejectedExecutionException;
+	}
+
+	/**
+	 * @return 共发送了几次请求
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * @return 最后一次请求的耗时
+	 */
+	public long getCostTime() {
+		return costTime;
+	}
+
+	@Override
+	public String toString() {
+		return "SaSsoSloResult [url=" + url + ", success=" + success + ", timeout=" + timeout + ", error=" + error
+				+ ", attempts=" + attempts + ", costTime=" + costTime + "]";
+	}
+
+}
@@ -18,10 +18,16 @@ package cn.dev33.satoken.temp.jwt;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.temp.jwt.error.SaTempJwtErrorCode;
+import cn.dev33.satoken.temp.jwt.signer.SaTempJwtBuilder;
+import cn.dev33.satoken.temp.jwt.signer.SaTempJwtKey;
+import cn.dev33.satoken.temp.jwt.signer.SaTempJwtParser;
+import cn.dev33.satoken.temp.jwt.signer.SaTempJwtSignerRegistry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtBuilder;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+
+import java.security.Key;
 
 /**
  * jwt 相关操作工具类，封装一下
@@ -43,6 +49,11 @@ public class SaJwtUtil {
 
 	/** 当有效期被设为此值时，代表永不过期 */ 
 	public static final long NEVER_EXPIRE = SaTokenDao.NEVER_EXPIRE;
+
+	/**
+	 * 签名器注册表：签名算法、签名器复用、多密钥轮换
+	 */
+	public static SaTempJwtSignerRegistry signerRegistry = new SaTempJwtSignerRegistry();
 	
 	/**
 	 * 根据指定值创建 jwt-token
@@ -63,11 +74,18 @@ public class SaJwtUtil {
     	}
 
     	// 在这里你可以使用官方提供的claim方法构建载荷，也可以使用setPayload自定义载荷，但是两者不可一起使用 
-        JwtBuilder builder = Jwts.builder()
+        JwtBuilder builder = new SaTempJwtBuilder(signerRegistry)
         		// .setHeaderParam("typ", "JWT")
         		.claim(KEY_VALUE + key, value)
-        		.claim(KEY_EFF, eff)
-                .signWith(SignatureAlgorithm.HS256, keyt.getBytes());
+        		.claim(KEY_EFF, eff);
+
+        // 指定了签名密钥时，使用该密钥签名，并在 header 中写入 kid
+        SaTempJwtKey signKey = signerRegistry.getCurrentKey();
+        if(signKey != null) {
+        	builder.setHeaderParam(SaTempJwtSignerRegistry.KID, signKey.kid).signWith(signKey.algorithm, signKey.signKey);
+        } else {
+        	builder.signWith(signerRegistry.algorithm, signerRegistry.getSecretKey(signerRegistry.algorithm, keyt));
+        }
 
         // 生成jwt-token 
         return builder.compact();
@@ -81,8 +99,13 @@ public class SaJwtUtil {
      */
     public static Claims parseToken(String jwtToken, String keyt) {
     	// 解析出载荷
-        return Jwts.parser()
-				.setSigningKey(keyt.getBytes())
+        return new SaTempJwtParser(signerRegistry)
+				.setSigningKeyResolver(new SigningKeyResolverAdapter() {
+					@Override
+					public Key resolveSigningKey(JwsHeader header, Claims claims) {
+						return signerRegistry.resolveVerifyKey(header, keyt);
+					}
+				})
 				.parseClaimsJws(jwtToken).getBody();
     }
 
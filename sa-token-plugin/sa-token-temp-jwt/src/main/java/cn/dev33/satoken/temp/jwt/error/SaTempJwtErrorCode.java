@@ -32,4 +32,10 @@ public interface SaTempJwtErrorCode {
 	/** Token已超时 */
 	int CODE_30303 = 30303;
 
+	/** 此 jwt 的 kid 未注册 */
+	int CODE_30304 = 30304;
+
+	/** jwt 签名算法或密钥配置错误 */
+	int CODE_30305 = 30305;
+
 }
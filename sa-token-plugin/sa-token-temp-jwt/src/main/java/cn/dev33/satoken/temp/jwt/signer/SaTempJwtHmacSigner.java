@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.temp.jwt.signer;
+
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.temp.jwt.error.SaTempJwtErrorCode;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.crypto.JwtSignatureValidator;
+import io.jsonwebtoken.impl.crypto.JwtSigner;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HMAC 系列签名器，每个线程持有一个已初始化好的 Mac 对象，验签时做常量时间比较
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTempJwtHmacSigner implements JwtSigner, JwtSignatureValidator {
+
+	/**
+	 * 签名算法
+	 */
+	public final SignatureAlgorithm algorithm;
+
+	/**
+	 * 每个线程各自持有的 Mac 对象
+	 */
+	private final ThreadLocal<Mac> macPool;
+
+	/**
+	 * @param algorithm 签名算法：HS256、HS384、HS512
+	 * @param key 密钥
+	 */
+	public SaTempJwtHmacSigner(SignatureAlgorithm algorithm, Key key) {
+		if( ! algorithm.isHmac()) {
+			throw new SaTokenException("不是 HMAC 系列的 jwt 签名算法：" + algorithm).setCode(SaTempJwtErrorCode.CODE_30305);
+		}
+		this.algorithm = algorithm;
+		this.macPool = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance(algorithm.getJcaName());
+				mac.init(key);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new SaTokenException("jwt 签名器初始化失败：" + algorithm, e).setCode(SaTempJwtErrorCode.CODE_30305);
+			}
+		});
+		macPool.get();
+	}
+
+	@Override
+	public String sign(String jwtWithoutSignature) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(signBytes(jwtWithoutSignature));
+	}
+
+	@Override
+	public boolean isValid(String jwtWithoutSignature, String base64UrlEncodedSignature) {
+		byte[] actual;
+		try {
+			actual = Base64.getUrlDecoder().decode(base64UrlEncodedSignature);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		return MessageDigest.isEqual(signBytes(jwtWithoutSignature), actual);
+	}
+
+	/**
+	 * 计算签名字节
+	 *
+	 * @param jwtWithoutSignature header.payload 部分
+	 * @return /
+	 */
+	protected byte[] signBytes(String jwtWithoutSignature) {
+		return macPool.get().doFinal(jwtWithoutSignature.getBytes(StandardCharsets.US_ASCII));
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.temp.jwt.signer;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * 一把以 kid 标识的 jwt 密钥
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTempJwtKey {
+
+	/**
+	 * 密钥 id
+	 */
+	public final String kid;
+
+	/**
+	 * 签名算法
+	 */
+	public final SignatureAlgorithm algorithm;
+
+	/**
+	 * 签名使用的密钥（HMAC 算法为对称密钥，非对称算法为私钥，可以为 null 代表只能用于验签）
+	 */
+	public final Key signKey;
+
+	/**
+	 * 验签使用的密钥（HMAC 算法为对称密钥，非对称算法为公钥）
+	 */
+	public final Key verifyKey;
+
+	public SaTempJwtKey(String kid, SignatureAlgorithm algorithm, Key signKey, Key verifyKey) {
+		this.kid = kid;
+		this.algorithm = algorithm;
+		this.signKey = signKey;
+		this.verifyKey = verifyKey;
+	}
+
+	/**
+	 * 创建一把 HMAC 密钥
+	 *
+	 * @param kid 密钥 id
+	 * @param algorithm 签名算法：HS256、HS384、HS512
+	 * @param secret 密钥
+	 * @return /
+	 */
+	public static SaTempJwtKey hmac(String kid, SignatureAlgorithm algorithm, String secret) {
+		Key key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName());
+		return new SaTempJwtKey(kid, algorithm, key, key);
+	}
+
+	/**
+	 * 创建一把非对称密钥
+	 *
+	 * @param kid 密钥 id
+	 * @param algorithm 签名算法，如 ES256、RS256
+	 * @param privateKey 私钥（为 null 时只能用于验签）
+	 * @param publicKey 公钥
+	 * @return /
+	 */
+	public static SaTempJwtKey asymmetric(String kid, SignatureAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey) {
+		return new SaTempJwtKey(kid, algorithm, privateKey, publicKey);
+	}
+
+}
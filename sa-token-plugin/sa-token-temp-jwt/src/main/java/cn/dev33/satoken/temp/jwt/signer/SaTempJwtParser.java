@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.temp.jwt.signer;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.DefaultJwtParser;
+import io.jsonwebtoken.impl.crypto.JwtSignatureValidator;
+
+import java.security.Key;
+
+/**
+ * jwt 解析器，HMAC 算法复用签名器注册表中已初始化好的签名器
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTempJwtParser extends DefaultJwtParser {
+
+	/**
+	 * 签名器注册表
+	 */
+	public final SaTempJwtSignerRegistry registry;
+
+	public SaTempJwtParser(SaTempJwtSignerRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	protected JwtSignatureValidator createSignatureValidator(SignatureAlgorithm alg, Key key) {
+		if(alg.isHmac()) {
+			return registry.getHmacSigner(alg, key);
+		}
+		return super.createSignatureValidator(alg, key);
+	}
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.temp.jwt.signer;
+
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.temp.jwt.error.SaTempJwtErrorCode;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 临时 jwt 签名器注册表
+ *
+ * <p>
+ *     1、HMAC 算法的签名器按 [算法 + 密钥] 缓存，每个线程复用已初始化好的 Mac 对象。
+ *     <br> 2、以 keyt 秘钥签名时使用的算法通过 setAlgorithm 配置，默认 HS256。
+ *     <br> 3、密钥轮换：通过 addKey 注册多把以 kid 标识的密钥（支持 HMAC 与 ES256 等非对称算法），setCurrentKid 指定签名用的密钥；
+ *          验签时根据 header 中的 kid 找到对应密钥，不带 kid 的 jwt 仍使用 keyt 秘钥验签。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTempJwtSignerRegistry {
+
+	/**
+	 * header key：密钥 id
+	 */
+	public static final String KID = "kid";
+
+	/**
+	 * 以 keyt 秘钥签名时使用的算法（只能是 HMAC 系列算法）
+	 */
+	public SignatureAlgorithm algorithm = SignatureAlgorithm.HS256;
+
+	/**
+	 * HMAC 签名器缓存，key 为 [算法:密钥]
+	 */
+	public final Map<String, SaTempJwtHmacSigner> hmacSignerCache = new ConcurrentHashMap<>();
+
+	/**
+	 * 所有以 kid 标识的密钥
+	 */
+	public final Map<String, SaTempJwtKey> keyMap = new ConcurrentHashMap<>();
+
+	/**
+	 * 签名时使用的密钥 kid，为 null 时使用 keyt 秘钥签名
+	 */
+	public volatile String currentKid;
+
+	/**
+	 * 获取 HMAC 签名器
+	 *
+	 * @param algorithm 签名算法
+	 * @param key 密钥
+	 * @return /
+	 */
+	public SaTempJwtHmacSigner getHmacSigner(SignatureAlgorithm algorithm, Key key) {
+		String cacheKey = algorithm.getValue() + ":" + Base64.getEncoder().encodeToString(key.getEncoded());
+		return hmacSignerCache.computeIfAbsent(cacheKey, k -> new SaTempJwtHmacSigner(algorithm, key));
+	}
+
+	/**
+	 * 获取 keyt 秘钥对应的密钥对象
+	 *
+	 * @param algorithm 签名算法
+	 * @param keyt 秘钥
+	 * @return /
+	 */
+	public Key getSecretKey(SignatureAlgorithm algorithm, String keyt) {
+		return new SecretKeySpec(keyt.getBytes(), algorithm.getJcaName());
+	}
+
+	/**
+	 * 根据 jwt 的 header 获取验签使用的密钥
+	 *
+	 * @param header jwt 的 header
+	 * @param keyt 秘钥
+	 * @return /
+	 */
+	public Key resolveVerifyKey(JwsHeader<?> header, String keyt) {
+		SignatureAlgorithm headerAlgorithm = SignatureAlgorithm.forName(header.getAlgorithm());
+		String kid = header.getKeyId();
+
+		// 不带 kid 时使用 keyt 秘钥，只接受 HMAC 系列算法
+		if(kid == null) {
+			if( ! headerAlgorithm.isHmac()) {
+				throw new SaTokenException("jwt 签名算法无效：" + headerAlgorithm).setCode(SaTempJwtErrorCode.CODE_30305);
+			}
+			return getSecretKey(headerAlgorithm, keyt);
+		}
+
+		// 带 kid 时，header 中声明的算法必须与注册的密钥一致，防止算法混淆攻击
+		SaTempJwtKey key = keyMap.get(kid);
+		if(key == null) {
+			throw new SaTokenException("jwt kid 未注册：" + kid).setCode(SaTempJwtErrorCode.CODE_30304);
+		}
+		if(key.algorithm != headerAlgorithm) {
+			throw new SaTokenException("jwt 签名算法与 kid 不匹配：" + kid).setCode(SaTempJwtErrorCode.CODE_30305);
+		}
+		return key.verifyKey;
+	}
+
+	/**
+	 * 获取签名时使用的密钥，未指定时返回 null
+	 *
+	 * @return /
+	 */
+	public SaTempJwtKey getCurrentKey() {
+		String kid = currentKid;
+		return kid == null ? null : keyMap.get(kid);
+	}
+
+	/**
+	 * 获取指定 kid 的密钥，不存在时返回 null
+	 *
+	 * @param kid 密钥 id
+	 * @return /
+	 */
+	public SaTempJwtKey getKey(String kid) {
+		return keyMap.get(kid);
+	}
+
+	/**
+	 * 注册一把密钥，kid 相同时覆盖
+	 *
+	 * @param key 密钥
+	 * @return 对象自身
+	 */
+	public SaTempJwtSignerRegistry addKey(SaTempJwtKey key) {
+		keyMap.put(key.kid, key);
+		return this;
+	}
+
+	/**
+	 * 移除一把密钥，此后携带此 kid 的 jwt 将无法通过验签
+	 *
+	 * @param kid 密钥 id
+	 * @return 对象自身
+	 */
+	public SaTempJwtSignerRegistry removeKey(String kid) {
+		if(kid.equals(currentKid)) {
+			throw new SaTokenException("不可移除正在用于签名的密钥：" + kid).setCode(SaTempJwtErrorCode.CODE_30305);
+		}
+		keyMap.remove(kid);
+		return this;
+	}
+
+	/**
+	 * @return 以 keyt 秘钥签名时使用的算法
+	 */
+	public SignatureAlgorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * @param algorithm 以 keyt 秘钥签名时使用的算法：HS256、HS384、HS512
+	 * @return 对象自身
+	 */
+	public SaTempJwtSignerRegistry setAlgorithm(SignatureAlgorithm algorithm) {
+		if( ! algorithm.isHmac()) {
+			throw new SaTokenException("不是 HMAC 系列的 jwt 签名算法：" + algorithm).setCode(SaTempJwtErrorCode.CODE_30305);
+		}
+		this.algorithm = algorithm;
+		return this;
+	}
+
+	/**
+	 * @return 签名时使用的密钥 kid
+	 */
+	public String getCurrentKid() {
+		return currentKid;
+	}
+
+	/**
+	 * @param currentKid 签名时使用的密钥 kid（必须已注册），为 null 时使用 keyt 秘钥签名
+	 * @return 对象自身
+	 */
+	public SaTempJwtSignerRegistry setCurrentKid(String currentKid) {
+		if(currentKid != null) {
+			SaTempJwtKey key = keyMap.get(currentKid);
+			if(key == null) {
+				throw new SaTokenException("此 kid 尚未注册：" + currentKid).setCode(SaTempJwtErrorCode.CODE_30304);
+			}
+			if(key.signKey == null) {
+				throw new SaTokenException("此密钥没有配置私钥，只能用于验签：" + currentKid).setCode(SaTempJwtErrorCode.CODE_30305);
+			}
+		}
+		this.currentKid = currentKid;
+		return this;
+	}
+
+}
@@ -15,6 +15,7 @@
  */
 package cn.dev33.satoken.jboot;
 
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.util.SaFoxUtil;
@@ -24,8 +25,13 @@ import io.jboot.exception.JbootIllegalConfigException;
 import io.jboot.support.redis.JbootRedisConfig;
 import io.jboot.utils.ConfigUtil;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.params.SetParams;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +43,23 @@ import java.util.concurrent.ConcurrentHashMap;
 @SuppressWarnings({"unchecked", "rawtypes"})
 public class SaTokenCacheDao implements SaTokenDao {
 
+    /**
+     * Lua 脚本：修改 value 并保持其剩余存活时间不变，key 不存在时不做任何处理（一次网络往返，原子执行）
+     */
+    public static final String UPDATE_SCRIPT =
+            "local ttl = redis.call('pttl', KEYS[1]) " +
+            "if ttl == -2 then return 0 end " +
+            "if ttl == -1 then redis.call('set', KEYS[1], ARGV[1]) " +
+            "else redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) end " +
+            "return 1";
+
+    /**
+     * Lua 脚本：仅当 value 与指定值相等时删除此 key（一次网络往返，原子执行）
+     */
+    public static final String DELETE_IF_EQUALS_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+            "return 0";
+
     protected SaRedisCache saRedisCache;
     protected JbootSerializer serializer;
 
@@ -105,14 +128,34 @@ public class SaTokenCacheDao implements SaTokenDao {
         }
     }
 
+    /**
+     * 仅当 key 不存在时写入Value，并设定存活时间 (单位: 秒)，对应 SET NX EX 命令
+     */
+    @Override
+    public boolean setIfAbsent(String key, String value, long timeout) {
+        if (timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE) {
+            return false;
+        }
+        SetParams params = SetParams.setParams().nx();
+        if (timeout != SaTokenDao.NEVER_EXPIRE) {
+            params.ex(timeout);
+        }
+        Jedis jedis = saRedisCache.getJedis();
+        try {
+            return "OK".equals(jedis.set(key, value, params));
+        } finally {
+            saRedisCache.returnResource(jedis);
+        }
+    }
+
     @Override
     public void update(String key, String value) {
-        long expire = getTimeout(key);
-        // -2 = 无此键
-        if (expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-            return;
+        Jedis jedis = saRedisCache.getJedis();
+        try {
+            jedis.eval(UPDATE_SCRIPT, Collections.singletonList(key), Collections.singletonList(value));
+        } finally {
+            saRedisCache.returnResource(jedis);
         }
-        this.set(key, value, expire);
     }
 
     @Override
@@ -125,6 +168,23 @@ public class SaTokenCacheDao implements SaTokenDao {
         }
     }
 
+    /**
+     * 仅当 value 与指定值相等时删除，对应一段 get 比较后 del 的 Lua 脚本
+     */
+    @Override
+    public boolean deleteIfEquals(String key, String value) {
+        if (value == null) {
+            return false;
+        }
+        Jedis jedis = saRedisCache.getJedis();
+        try {
+            Object result = jedis.eval(DELETE_IF_EQUALS_SCRIPT, Collections.singletonList(key), Collections.singletonList(value));
+            return result instanceof Long && (Long) result > 0;
+        } finally {
+            saRedisCache.returnResource(jedis);
+        }
+    }
+
     @Override
     public long getTimeout(String key) {
         Jedis jedis = saRedisCache.getJedis();
@@ -137,20 +197,14 @@ public class SaTokenCacheDao implements SaTokenDao {
 
     @Override
     public void updateTimeout(String key, long timeout) {
-        //判断是否想要设置为永久
-        if (timeout == SaTokenDao.NEVER_EXPIRE) {
-            long expire = getTimeout(key);
-            if (expire == SaTokenDao.NEVER_EXPIRE) {
-                // 如果其已经被设置为永久，则不作任何处理
-            } else {
-                // 如果尚未被设置为永久，那么再次set一次
-                this.set(key, this.get(key), timeout);
-            }
-            return;
-        }
         Jedis jedis = saRedisCache.getJedis();
         try {
-            jedis.expire(key, timeout);
+            // 判断是否想要设置为永久
+            if (timeout == SaTokenDao.NEVER_EXPIRE) {
+                jedis.persist(key);
+            } else {
+                jedis.expire(key, timeout);
+            }
         } finally {
             saRedisCache.returnResource(jedis);
         }
@@ -185,12 +239,12 @@ public class SaTokenCacheDao implements SaTokenDao {
 
     @Override
     public void updateObject(String key, Object object) {
-        long expire = getObjectTimeout(key);
-        // -2 = 无此键
-        if (expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-            return;
+        Jedis jedis = saRedisCache.getJedis();
+        try {
+            jedis.eval(UPDATE_SCRIPT.getBytes(), Collections.singletonList(keyToBytes(key)), Collections.singletonList(valueToBytes(object)));
+        } finally {
+            saRedisCache.returnResource(jedis);
         }
-        this.setObject(key, object, expire);
     }
 
     @Override
@@ -215,20 +269,14 @@ public class SaTokenCacheDao implements SaTokenDao {
 
     @Override
     public void updateObjectTimeout(String key, long timeout) {
-        //判断是否想要设置为永久
-        if (timeout == SaTokenDao.NEVER_EXPIRE) {
-            long expire = getObjectTimeout(key);
-            if (expire == SaTokenDao.NEVER_EXPIRE) {
-                // 如果其已经被设置为永久，则不作任何处理
-            } else {
-                // 如果尚未被设置为永久，那么再次set一次
-                this.setObject(key, this.getObject(key), timeout);
-            }
-            return;
-        }
         Jedis jedis = saRedisCache.getJedis();
         try {
-            jedis.expire(keyToBytes(key), timeout);
+            // 判断是否想要设置为永久
+            if (timeout == SaTokenDao.NEVER_EXPIRE) {
+                jedis.persist(keyToBytes(key));
+            } else {
+                jedis.expire(keyToBytes(key), timeout);
+            }
         } finally {
             saRedisCache.returnResource(jedis);
         }
@@ -266,11 +314,23 @@ public class SaTokenCacheDao implements SaTokenDao {
 
     @Override
     public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+        // SCAN 命令可能返回重复的 key，需去重
+        Set<String> keys = new LinkedHashSet<>();
+        scanIterator(prefix, keyword, SaScanResult.DEFAULT_COUNT).forEachRemaining(keys::add);
+        List<String> list = new ArrayList<>(keys);
+        return SaFoxUtil.searchList(list, start, size, sortType);
+    }
+
+    /**
+     * 游标式搜索数据（SCAN 命令）
+     */
+    @Override
+    public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+        String start = SaScanResult.isStartCursor(cursor) ? SaScanResult.START_CURSOR : cursor;
         Jedis jedis = saRedisCache.getJedis();
         try {
-            Set<String> keys = jedis.keys(prefix + "*" + keyword + "*");
-            List<String> list = new ArrayList<>(keys);
-            return SaFoxUtil.searchList(list, start, size, sortType);
+            ScanResult<String> result = jedis.scan(start, new ScanParams().match(prefix + "*" + keyword + "*").count(count));
+            return new SaScanResult(result.getResult(), result.getCursor());
         } finally {
             saRedisCache.returnResource(jedis);
         }
@@ -15,19 +15,42 @@
  */
 package cn.dev33.satoken.jfinal;
 
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.util.SaFoxUtil;
 import com.jfinal.plugin.redis.Cache;
 import com.jfinal.plugin.redis.Redis;
 import com.jfinal.plugin.redis.serializer.ISerializer;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.params.SetParams;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 public class SaTokenDaoRedis implements SaTokenDao {
 
+    /**
+     * Lua 脚本：修改 value 并保持其剩余存活时间不变，key 不存在时不做任何处理（一次网络往返，原子执行）
+     */
+    public static final String UPDATE_SCRIPT =
+            "local ttl = redis.call('pttl', KEYS[1]) " +
+            "if ttl == -2 then return 0 end " +
+            "if ttl == -1 then redis.call('set', KEYS[1], ARGV[1]) " +
+            "else redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) end " +
+            "return 1";
+
+    /**
+     * Lua 脚本：仅当 value 与指定值相等时删除此 key（一次网络往返，原子执行）
+     */
+    public static final String DELETE_IF_EQUALS_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+            "return 0";
+
     protected Cache redis;
     protected ISerializer serializer;
     /**
@@ -73,17 +96,37 @@ public class SaTokenDaoRedis implements SaTokenDao {
         }
     }
 
+    /**
+     * 仅当 key 不存在时写入Value，并设定存活时间 (单位: 秒)，对应 SET NX EX 命令
+     */
+    @Override
+    public boolean setIfAbsent(String key, String value, long timeout) {
+        if (timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE) {
+            return false;
+        }
+        SetParams params = SetParams.setParams().nx();
+        if (timeout != SaTokenDao.NEVER_EXPIRE) {
+            params.ex(timeout);
+        }
+        Jedis jedis = getJedis();
+        try {
+            return "OK".equals(jedis.set(key, value, params));
+        } finally {
+            close(jedis);
+        }
+    }
+
     /**
      * 修改指定key-value键值对 (过期时间不变)
      */
     @Override
     public void update(String key, String value) {
-        long expire = getTimeout(key);
-        // -2 = 无此键
-        if (expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-            return;
+        Jedis jedis = getJedis();
+        try {
+            jedis.eval(UPDATE_SCRIPT, Collections.singletonList(key), Collections.singletonList(value));
+        } finally {
+            close(jedis);
         }
-        this.set(key, value, expire);
     }
 
     /**
@@ -99,6 +142,23 @@ public class SaTokenDaoRedis implements SaTokenDao {
         }
     }
 
+    /**
+     * 仅当 value 与指定值相等时删除，对应一段 get 比较后 del 的 Lua 脚本
+     */
+    @Override
+    public boolean deleteIfEquals(String key, String value) {
+        if (value == null) {
+            return false;
+        }
+        Jedis jedis = getJedis();
+        try {
+            Object result = jedis.eval(DELETE_IF_EQUALS_SCRIPT, Collections.singletonList(key), Collections.singletonList(value));
+            return result instanceof Long && (Long) result > 0;
+        } finally {
+            close(jedis);
+        }
+    }
+
     /**
      * 获取Value的剩余存活时间 (单位: 秒)
      */
@@ -117,20 +177,14 @@ public class SaTokenDaoRedis implements SaTokenDao {
      */
     @Override
     public void updateTimeout(String key, long timeout) {
-        //判断是否想要设置为永久
-        if (timeout == SaTokenDao.NEVER_EXPIRE) {
-            long expire = getTimeout(key);
-            if (expire == SaTokenDao.NEVER_EXPIRE) {
-                // 如果其已经被设置为永久，则不作任何处理
-            } else {
-                // 如果尚未被设置为永久，那么再次set一次
-                this.set(key, this.get(key), timeout);
-            }
-            return;
-        }
         Jedis jedis = getJedis();
         try {
-            jedis.expire(key, timeout);
+            // 判断是否想要设置为永久
+            if (timeout == SaTokenDao.NEVER_EXPIRE) {
+                jedis.persist(key);
+            } else {
+                jedis.expire(key, timeout);
+            }
         } finally {
             close(jedis);
         }
@@ -174,12 +228,12 @@ public class SaTokenDaoRedis implements SaTokenDao {
      */
     @Override
     public void updateObject(String key, Object object) {
-        long expire = getObjectTimeout(key);
-        // -2 = 无此键
-        if (expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-            return;
+        Jedis jedis = getJedis();
+        try {
+            jedis.eval(UPDATE_SCRIPT.getBytes(), Collections.singletonList(keyToBytes(key)), Collections.singletonList(valueToBytes(object)));
+        } finally {
+            close(jedis);
         }
-        this.setObject(key, object, expire);
     }
 
     /**
@@ -210,35 +264,46 @@ public class SaTokenDaoRedis implements SaTokenDao {
      */
     @Override
     public void updateObjectTimeout(String key, long timeout) {
-        //判断是否想要设置为永久
-        if (timeout == SaTokenDao.NEVER_EXPIRE) {
-            long expire = getObjectTimeout(key);
-            if (expire == SaTokenDao.NEVER_EXPIRE) {
-                // 如果其已经被设置为永久，则不作任何处理
-            } else {
-                // 如果尚未被设置为永久，那么再次set一次
-                this.setObject(key, this.getObject(key), timeout);
-            }
-            return;
-        }
         Jedis jedis = getJedis();
         try {
-            jedis.expire(keyToBytes(key), timeout);
+            // 判断是否想要设置为永久
+            if (timeout == SaTokenDao.NEVER_EXPIRE) {
+                jedis.persist(keyToBytes(key));
+            } else {
+                jedis.expire(keyToBytes(key), timeout);
+            }
         } finally {
             close(jedis);
         }
     }
 
     /**
-     * 搜索数据
+     * 搜索数据（通过 SCAN 命令分批遍历，不会像 KEYS 命令一样长时间阻塞 Redis）
      */
     @Override
     public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-        Set<String> keys = redis.keys(prefix + "*" + keyword + "*");
+        // SCAN 命令可能返回重复的 key，需去重
+        Set<String> keys = new LinkedHashSet<>();
+        scanIterator(prefix, keyword, SaScanResult.DEFAULT_COUNT).forEachRemaining(keys::add);
         List<String> list = new ArrayList<>(keys);
         return SaFoxUtil.searchList(list, start, size, sortType);
     }
 
+    /**
+     * 游标式搜索数据（SCAN 命令）
+     */
+    @Override
+    public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+        String start = SaScanResult.isStartCursor(cursor) ? SaScanResult.START_CURSOR : cursor;
+        Jedis jedis = getJedis();
+        try {
+            ScanResult<String> result = jedis.scan(start, new ScanParams().match(prefix + "*" + keyword + "*").count(count));
+            return new SaScanResult(result.getResult(), result.getCursor());
+        } finally {
+            close(jedis);
+        }
+    }
+
     public Jedis getJedis() {
         return redis.getJedis();
     }
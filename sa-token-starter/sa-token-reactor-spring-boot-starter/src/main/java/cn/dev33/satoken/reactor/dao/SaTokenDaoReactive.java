@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.reactor.dao;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Sa-Token 持久层接口（响应式版）
+ *
+ * <p>
+ *     与 SaTokenDao 的字符串读写部分一一对应，所有方法均返回 Mono，不会阻塞调用线程，
+ *     适合在 WebFlux 的事件循环线程中完成登录校验、活跃度校验等高频操作。
+ * </p>
+ *
+ * <p> 约定：get 查不到值时返回 Mono.empty()；过期时间的单位为秒，-1 代表永不过期，-2 代表没有这个值 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public interface SaTokenDaoReactive {
+
+	/**
+	 * 获取 Value，如无返空
+	 *
+	 * @param key 键名称
+	 * @return value
+	 */
+	Mono<String> get(String key);
+
+	/**
+	 * 写入 Value，并设定存活时间（单位: 秒）
+	 *
+	 * @param key 键名称
+	 * @param value 值
+	 * @param timeout 数据有效期（值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储）
+	 * @return /
+	 */
+	Mono<Void> set(String key, String value, long timeout);
+
+	/**
+	 * 更新 Value（过期时间不变）
+	 *
+	 * @param key 键名称
+	 * @param value 值
+	 * @return /
+	 */
+	Mono<Void> update(String key, String value);
+
+	/**
+	 * 删除 Value
+	 *
+	 * @param key 键名称
+	 * @return /
+	 */
+	Mono<Void> delete(String key);
+
+	/**
+	 * 获取 Value 的剩余存活时间（单位: 秒）
+	 *
+	 * @param key 指定 key
+	 * @return 这个 key 的剩余存活时间
+	 */
+	Mono<Long> getTimeout(String key);
+
+	/**
+	 * 修改 Value 的剩余存活时间（单位: 秒）
+	 *
+	 * @param key 指定 key
+	 * @param timeout 过期时间（单位: 秒）
+	 * @return /
+	 */
+	Mono<Void> updateTimeout(String key, long timeout);
+
+}
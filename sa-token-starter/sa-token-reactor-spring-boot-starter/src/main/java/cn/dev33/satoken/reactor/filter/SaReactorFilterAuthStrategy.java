@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.reactor.filter;
+
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactor 全局过滤器 - 响应式认证策略封装，方便 lambda 表达式风格调用
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+@FunctionalInterface
+public interface SaReactorFilterAuthStrategy {
+
+	/**
+	 * 执行方法，返回的 Mono 以异常结束时代表认证未通过
+	 * @param exchange 本次请求的 ServerWebExchange
+	 * @return /
+	 */
+	Mono<Void> run(ServerWebExchange exchange);
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.reactor.dao;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Sa-Token 持久层接口（响应式版），对同步 SaTokenDao 的适配实现
+ *
+ * <p>
+ *     所有同步调用都被调度到 scheduler 上执行，避免阻塞事件循环线程。
+ *     被包装的是纯内存的 SaTokenDaoDefaultImpl 时，不会产生任何阻塞，此时直接在当前线程执行。
+ * </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoReactiveForBlocking implements SaTokenDaoReactive {
+
+	/**
+	 * 被包装的同步 SaTokenDao
+	 */
+	public SaTokenDao target;
+
+	/**
+	 * 执行同步调用的调度器，为 null 时代表直接在当前线程执行
+	 */
+	public Scheduler scheduler;
+
+	public SaTokenDaoReactiveForBlocking(SaTokenDao target) {
+		this(target, target instanceof SaTokenDaoDefaultImpl ? null : Schedulers.boundedElastic());
+	}
+
+	public SaTokenDaoReactiveForBlocking(SaTokenDao target, Scheduler scheduler) {
+		this.target = target;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Mono<String> get(String key) {
+		return schedule(Mono.fromCallable(() -> target.get(key)));
+	}
+
+	@Override
+	public Mono<Void> set(String key, String value, long timeout) {
+		return schedule(Mono.fromRunnable(() -> target.set(key, value, timeout)));
+	}
+
+	@Override
+	public Mono<Void> update(String key, String value) {
+		return schedule(Mono.fromRunnable(() -> target.update(key, value)));
+	}
+
+	@Override
+	public Mono<Void> delete(String key) {
+		return schedule(Mono.fromRunnable(() -> target.delete(key)));
+	}
+
+	@Override
+	public Mono<Long> getTimeout(String key) {
+		return schedule(Mono.fromCallable(() -> target.getTimeout(key)));
+	}
+
+	@Override
+	public Mono<Void> updateTimeout(String key, long timeout) {
+		return schedule(Mono.fromRunnable(() -> target.updateTimeout(key, timeout)));
+	}
+
+	/**
+	 * 将一个同步调用调度到 scheduler 上执行
+	 */
+	protected <T> Mono<T> schedule(Mono<T> mono) {
+		return scheduler == null ? mono : mono.subscribeOn(scheduler);
+	}
+
+}
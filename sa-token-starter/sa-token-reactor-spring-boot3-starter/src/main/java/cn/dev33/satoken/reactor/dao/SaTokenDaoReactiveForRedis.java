@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.reactor.dao;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * Sa-Token 持久层接口（响应式版），基于 ReactiveStringRedisTemplate 的 Redis 实现（底层为 Lettuce 响应式客户端）
+ *
+ * <p> 数据格式与 sa-token-redis、sa-token-redis-jackson 的字符串部分完全一致，可与同步 DAO 共用同一个 Redis 库 </p>
+ *
+ * <p> 使用示例：</p>
+ * <pre>
+ *     StpLogicReactive stpReactive = new StpLogicReactive(StpUtil.getStpLogic(), new SaTokenDaoReactiveForRedis(connectionFactory));
+ * </pre>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoReactiveForRedis implements SaTokenDaoReactive {
+
+	/**
+	 * Lua 脚本：修改 value 并保持其剩余存活时间不变，key 不存在时不做任何处理（一次网络往返，原子执行）
+	 */
+	public static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+			"local ttl = redis.call('pttl', KEYS[1]) " +
+			"if ttl == -2 then return 0 end " +
+			"if ttl == -1 then redis.call('set', KEYS[1], ARGV[1]) " +
+			"else redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) end " +
+			"return 1", Long.class);
+
+	/**
+	 * String 专用
+	 */
+	public ReactiveStringRedisTemplate stringRedisTemplate;
+
+	public SaTokenDaoReactiveForRedis(ReactiveRedisConnectionFactory connectionFactory) {
+		this(new ReactiveStringRedisTemplate(connectionFactory));
+	}
+
+	public SaTokenDaoReactiveForRedis(ReactiveStringRedisTemplate stringRedisTemplate) {
+		this.stringRedisTemplate = stringRedisTemplate;
+	}
+
+	@Override
+	public Mono<String> get(String key) {
+		return stringRedisTemplate.opsForValue().get(key);
+	}
+
+	@Override
+	public Mono<Void> set(String key, String value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return Mono.empty();
+		}
+		// 判断是否为永不过期
+		if(timeout == SaTokenDao.NEVER_EXPIRE) {
+			return stringRedisTemplate.opsForValue().set(key, value).then();
+		}
+		return stringRedisTemplate.opsForValue().set(key, value, Duration.ofSeconds(timeout)).then();
+	}
+
+	@Override
+	public Mono<Void> update(String key, String value) {
+		return stringRedisTemplate.execute(UPDATE_SCRIPT, Collections.singletonList(key), Collections.singletonList(value)).then();
+	}
+
+	@Override
+	public Mono<Void> delete(String key) {
+		return stringRedisTemplate.delete(key).then();
+	}
+
+	@Override
+	public Mono<Long> getTimeout(String key) {
+		// 直接使用 TTL 命令，以便区分 -1（永不过期）与 -2（不存在）
+		ByteBuffer rawKey = ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+		return stringRedisTemplate.execute(connection -> connection.keyCommands().ttl(rawKey))
+				.next()
+				.defaultIfEmpty(SaTokenDao.NOT_VALUE_EXPIRE);
+	}
+
+	@Override
+	public Mono<Void> updateTimeout(String key, long timeout) {
+		// 判断是否想要设置为永久
+		if(timeout == SaTokenDao.NEVER_EXPIRE) {
+			return stringRedisTemplate.persist(key).then();
+		}
+		return stringRedisTemplate.expire(key, Duration.ofSeconds(timeout)).then();
+	}
+
+}
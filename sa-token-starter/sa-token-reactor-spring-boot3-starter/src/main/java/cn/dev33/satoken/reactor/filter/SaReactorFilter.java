@@ -25,6 +25,7 @@ import cn.dev33.satoken.reactor.context.SaReactorHolder;
 import cn.dev33.satoken.reactor.context.SaReactorSyncHolder;
 import cn.dev33.satoken.reactor.error.SaReactorSpringBootErrorCode;
 import cn.dev33.satoken.router.SaRouter;
+import cn.dev33.satoken.router.SaRouterStaff;
 import cn.dev33.satoken.util.SaTokenConsts;
 import org.springframework.core.annotation.Order;
 import org.springframework.web.server.ServerWebExchange;
@@ -105,6 +106,12 @@ public class SaReactorFilter implements SaFilter, WebFilter {
 	 */
 	public SaFilterAuthStrategy beforeAuth = r -> {};
 
+	/**
+	 * 响应式认证函数：在 [认证函数] 通过后执行，返回的 Mono 以异常结束时代表认证未通过，同样受 includeList 与 excludeList 的限制
+	 *      <b>此函数在同步上下文中被调用，但其返回的 Mono 在事件循环中异步执行，适合搭配 StpLogicReactive 进行非阻塞的登录与权限校验</b>
+	 */
+	public SaReactorFilterAuthStrategy reactiveAuth = null;
+
 	@Override
 	public SaReactorFilter setAuth(SaFilterAuthStrategy auth) {
 		this.auth = auth;
@@ -123,6 +130,16 @@ public class SaReactorFilter implements SaFilter, WebFilter {
 		return this;
 	}
 
+	/**
+	 * 写入[响应式认证函数]
+	 * @param reactiveAuth /
+	 * @return 对象自身
+	 */
+	public SaReactorFilter setReactiveAuth(SaReactorFilterAuthStrategy reactiveAuth) {
+		this.reactiveAuth = reactiveAuth;
+		return this;
+	}
+
 	
 	// ------------------------ filter
 
@@ -132,6 +149,9 @@ public class SaReactorFilter implements SaFilter, WebFilter {
 		// 写入WebFilterChain对象 
 		exchange.getAttributes().put(SaReactorHolder.CHAIN_KEY, chain);
 		
+		// 响应式认证函数返回的 Mono
+		Mono<Void> reactiveAuthMono = null;
+
 		// ---------- 全局认证处理 
 		try {
 			// 写入全局上下文 (同步) 
@@ -139,31 +159,79 @@ public class SaReactorFilter implements SaFilter, WebFilter {
 			
 			// 执行全局过滤器
 			beforeAuth.run(null);
-			SaRouter.match(includeList).notMatch(excludeList).check(r -> {
+			SaRouterStaff staff = SaRouter.match(includeList).notMatch(excludeList).check(r -> {
 				auth.run(null);
 			});
+
+			// 组装响应式认证函数（此处只是组装，真正执行是在下面的 Mono 链中）
+			if(reactiveAuth != null && staff.isHit()) {
+				reactiveAuthMono = reactiveAuth.run(exchange);
+			}
 			
 		} catch (StopMatchException e) {
 			// StopMatchException 异常代表：停止匹配，进入Controller
 
 		} catch (Throwable e) {
-			// 1. 获取异常处理策略结果 
-			String result = (e instanceof BackResultException) ? e.getMessage() : String.valueOf(error.run(e));
-			
-			// 2. 写入输出流
-			// 		请注意此处默认 Content-Type 为 text/plain，如果需要返回 JSON 信息，需要在 return 前自行设置 Content-Type 为 application/json
-			// 		例如：SaHolder.getResponse().setHeader("Content-Type", "application/json;charset=UTF-8");
-			if(exchange.getResponse().getHeaders().getFirst(SaTokenConsts.CONTENT_TYPE_KEY) == null) {
-				exchange.getResponse().getHeaders().set(SaTokenConsts.CONTENT_TYPE_KEY, SaTokenConsts.CONTENT_TYPE_TEXT_PLAIN);
-			}
-			return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(result.getBytes())));
+			return writeErrorResult(exchange, e);
 			
 		} finally {
 			// 清除上下文 
 			SaReactorSyncHolder.clearContext();
 		}
 
-		// ---------- 执行
+		// ---------- 执行响应式认证函数，通过后再继续执行
+		if(reactiveAuthMono != null) {
+			return reactiveAuthMono
+					.then(Mono.just(true))
+					.onErrorResume(e -> {
+						// StopMatchException 异常代表：停止匹配，进入Controller
+						if(e instanceof StopMatchException) {
+							return Mono.just(true);
+						}
+						// 异常处理策略中可能会用到上下文，此处需要重新写入
+						SaReactorSyncHolder.setContext(exchange);
+						try {
+							return writeErrorResult(exchange, e).then(Mono.just(false));
+						} catch (Throwable e2) {
+							return Mono.error(e2);
+						} finally {
+							SaReactorSyncHolder.clearContext();
+						}
+					})
+					.flatMap(pass -> pass ? doFilter(exchange, chain) : Mono.empty());
+		}
+
+		return doFilter(exchange, chain);
+	}
+
+	/**
+	 * 认证未通过时：执行异常处理策略，并将结果写入输出流
+	 *
+	 * @param exchange /
+	 * @param e 异常
+	 * @return /
+	 */
+	protected Mono<Void> writeErrorResult(ServerWebExchange exchange, Throwable e) {
+		// 1. 获取异常处理策略结果 
+		String result = (e instanceof BackResultException) ? e.getMessage() : String.valueOf(error.run(e));
+		
+		// 2. 写入输出流
+		// 		请注意此处默认 Content-Type 为 text/plain，如果需要返回 JSON 信息，需要在 return 前自行设置 Content-Type 为 application/json
+		// 		例如：SaHolder.getResponse().setHeader("Content-Type", "application/json;charset=UTF-8");
+		if(exchange.getResponse().getHeaders().getFirst(SaTokenConsts.CONTENT_TYPE_KEY) == null) {
+			exchange.getResponse().getHeaders().set(SaTokenConsts.CONTENT_TYPE_KEY, SaTokenConsts.CONTENT_TYPE_TEXT_PLAIN);
+		}
+		return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(result.getBytes())));
+	}
+
+	/**
+	 * 认证通过：继续执行过滤器链
+	 *
+	 * @param exchange /
+	 * @param chain /
+	 * @return /
+	 */
+	protected Mono<Void> doFilter(ServerWebExchange exchange, WebFilterChain chain) {
 
 		// 写入全局上下文 (同步) 
 		SaReactorSyncHolder.setContext(exchange);
@@ -0,0 +1,481 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.reactor.stp;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.context.SaTokenContextForThreadLocalStorage;
+import cn.dev33.satoken.context.SaTokenContextForThreadLocalStorage.Box;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.NotLoginException;
+import cn.dev33.satoken.exception.NotPermissionException;
+import cn.dev33.satoken.exception.NotRoleException;
+import cn.dev33.satoken.reactor.dao.SaTokenDaoReactive;
+import cn.dev33.satoken.reactor.dao.SaTokenDaoReactiveForBlocking;
+import cn.dev33.satoken.stp.StpLogic;
+import cn.dev33.satoken.util.SaFoxUtil;
+import cn.dev33.satoken.util.SaValue2Box;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static cn.dev33.satoken.exception.NotLoginException.*;
+
+/**
+ * Sa-Token 权限认证，响应式校验逻辑
+ *
+ * <p>
+ *     对 StpLogic 中登录校验、活跃度校验、权限/角色校验的非阻塞实现，数据读写通过 SaTokenDaoReactive 完成，
+ *     StpInterface 的调用被调度到 scheduler 上执行，整个过程不会阻塞 WebFlux 的事件循环线程。
+ *     在 scheduler 上执行的同步调用会带上发起校验时的 Sa-Token 上下文，因此 StpInterface 中依然可以读取当前请求。
+ * </p>
+ *
+ * <p>
+ *     只有被包装的对象恰好是 StpLogic 本身时，才会使用非阻塞的登录校验；被包装的是其子类（例如 jwt 模式的 StpLogicJwtForStateless）时，
+ *     子类可能重写了 token 的解析与校验方式，此时登录校验会改为调用 StpLogic 的同步方法，在 scheduler 上执行。
+ * </p>
+ *
+ * <p> 使用示例（在 SaReactorFilter 中）：</p>
+ * <pre>
+ *     StpLogicReactive stpReactive = new StpLogicReactive(StpUtil.getStpLogic(), new SaTokenDaoReactiveForRedis(connectionFactory));
+ *     return new SaReactorFilter()
+ *         .addInclude("/**")
+ *         .setReactiveAuth(exchange -> stpReactive.checkPermission("user.add"));
+ * </pre>
+ *
+ * <p> 注意：不支持 [ 临时身份切换 ]，token 的 key、有效期等配置均读取自被包装的 StpLogic </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class StpLogicReactive {
+
+	/**
+	 * 被包装的 StpLogic
+	 */
+	public StpLogic stpLogic;
+
+	/**
+	 * 响应式持久层，为 null 时使用 SaManager.getSaTokenDao() 的适配实现
+	 */
+	public SaTokenDaoReactive saTokenDao;
+
+	/**
+	 * 调用 StpInterface 时使用的调度器
+	 */
+	public Scheduler scheduler = Schedulers.boundedElastic();
+
+	/**
+	 * 最近一次创建的适配实现，及其包装的同步 SaTokenDao
+	 */
+	private volatile SaTokenDaoReactiveForBlocking adapter;
+
+	public StpLogicReactive(StpLogic stpLogic) {
+		this(stpLogic, null);
+	}
+
+	public StpLogicReactive(StpLogic stpLogic, SaTokenDaoReactive saTokenDao) {
+		this.stpLogic = stpLogic;
+		this.saTokenDao = saTokenDao;
+	}
+
+	/**
+	 * 获取响应式持久层
+	 *
+	 * @return /
+	 */
+	public SaTokenDaoReactive getSaTokenDao() {
+		if(saTokenDao != null) {
+			return saTokenDao;
+		}
+		SaTokenDao dao = SaManager.getSaTokenDao();
+		SaTokenDaoReactiveForBlocking adapter = this.adapter;
+		if(adapter == null || adapter.target != dao) {
+			adapter = new SaTokenDaoReactiveForBlocking(dao);
+			this.adapter = adapter;
+		}
+		return adapter;
+	}
+
+
+	// ------------------- 登录校验 -------------------
+
+	/**
+	 * 检验当前会话是否已经登录，如未登录，则以 NotLoginException 结束
+	 * <p> 注意：当前请求的 token 在调用此方法时立即读取，因此需要在同步上下文有效时调用（例如 SaReactorFilter 的 reactiveAuth 函数中） </p>
+	 *
+	 * @return 账号id
+	 */
+	public Mono<Object> checkLogin() {
+		String tokenValue;
+		try {
+			tokenValue = stpLogic.getTokenValue(true);
+		} catch (NotLoginException e) {
+			return Mono.error(e);
+		}
+		return checkLogin(tokenValue);
+	}
+
+	/**
+	 * 检验指定 token 是否已经登录，如未登录，则以 NotLoginException 结束
+	 *
+	 * @param tokenValue 指定 token
+	 * @return 账号id
+	 */
+	public Mono<Object> checkLogin(String tokenValue) {
+		String loginType = stpLogic.loginType;
+
+		// 1、如果前端没有提交 token，则抛出异常: 未能读取到有效 token
+		if(SaFoxUtil.isEmpty(tokenValue)) {
+			return Mono.error(NotLoginException.newInstance(loginType, NOT_TOKEN, NOT_TOKEN_MESSAGE, null).setCode(SaErrorCode.CODE_11011));
+		}
+
+		// 2、被包装的是 StpLogic 的子类时，按照子类的逻辑校验
+		if( ! isNonBlockingSupported()) {
+			return callWithContext(currentBox(), () -> checkLoginBySync(tokenValue));
+		}
+
+		// 3、查找此 token 对应的 loginId，如果找不到则抛出：token 无效
+		return getSaTokenDao().get(stpLogic.splicingKeyTokenValue(tokenValue))
+				.switchIfEmpty(Mono.defer(() -> Mono.error(NotLoginException.newInstance(loginType, INVALID_TOKEN, INVALID_TOKEN_MESSAGE, tokenValue).setCode(SaErrorCode.CODE_11012))))
+				.flatMap(loginId -> {
+					// 4、token 指向的是各种异常标记
+					NotLoginException e = checkLoginIdValue(loginId, tokenValue);
+					if(e != null) {
+						return Mono.error(e);
+					}
+
+					// 5、检查此 token 是否已被冻结，并按照配置自动续签
+					if( ! stpLogic.isOpenCheckActiveTimeout()) {
+						return Mono.just((Object) loginId);
+					}
+					Mono<Void> check = checkActiveTimeout(tokenValue);
+					if(stpLogic.getConfigOrGlobal().getAutoRenew()) {
+						check = check.then(updateLastActiveToNow(tokenValue));
+					}
+					return check.thenReturn((Object) loginId);
+				});
+	}
+
+
+	/**
+	 * 以同步方式校验指定 token，调用的都是 StpLogic 的方法，子类对其的重写均会生效
+	 *
+	 * @param tokenValue 指定 token
+	 * @return 账号id
+	 */
+	protected Object checkLoginBySync(String tokenValue) {
+		String loginId = stpLogic.getLoginIdNotHandle(tokenValue);
+		NotLoginException e = checkLoginIdValue(loginId, tokenValue);
+		if(e != null) {
+			throw e;
+		}
+		if(stpLogic.isOpenCheckActiveTimeout()) {
+			stpLogic.checkActiveTimeout(tokenValue);
+			if(stpLogic.getConfigOrGlobal().getAutoRenew()) {
+				stpLogic.updateLastActiveToNow(tokenValue);
+			}
+		}
+		return loginId;
+	}
+
+	/**
+	 * 检查 token 映射到的值是否为有效的 loginId
+	 *
+	 * @param loginId token 映射到的值
+	 * @param tokenValue token
+	 * @return 无效时返回对应的异常，有效时返回 null
+	 */
+	protected NotLoginException checkLoginIdValue(String loginId, String tokenValue) {
+		String loginType = stpLogic.loginType;
+		if(SaFoxUtil.isEmpty(loginId)) {
+			return (NotLoginException) NotLoginException.newInstance(loginType, INVALID_TOKEN, INVALID_TOKEN_MESSAGE, tokenValue).setCode(SaErrorCode.CODE_11012);
+		}
+		if(loginId.equals(NotLoginException.TOKEN_TIMEOUT)) {
+			return (NotLoginException) NotLoginException.newInstance(loginType, TOKEN_TIMEOUT, TOKEN_TIMEOUT_MESSAGE, tokenValue).setCode(SaErrorCode.CODE_11013);
+		}
+		if(loginId.equals(NotLoginException.BE_REPLACED)) {
+			return (NotLoginException) NotLoginException.newInstance(loginType, BE_REPLACED, BE_REPLACED_MESSAGE, tokenValue).setCode(SaErrorCode.CODE_11014);
+		}
+		if(loginId.equals(NotLoginException.KICK_OUT)) {
+			return (NotLoginException) NotLoginException.newInstance(loginType, KICK_OUT, KICK_OUT_MESSAGE, tokenValue).setCode(SaErrorCode.CODE_11015);
+		}
+		return null;
+	}
+
+	/**
+	 * 判断：能否使用非阻塞的登录校验（被包装的对象是 StpLogic 本身，而不是重写了校验逻辑的子类）
+	 *
+	 * @return /
+	 */
+	public boolean isNonBlockingSupported() {
+		return stpLogic.getClass() == StpLogic.class;
+	}
+
+
+	// ------------------- Active-Timeout 校验 -------------------
+
+	/**
+	 * 检查指定 token 是否已被冻结，如果是则以 NotLoginException 结束
+	 *
+	 * @param tokenValue 指定 token
+	 * @return /
+	 */
+	public Mono<Void> checkActiveTimeout(String tokenValue) {
+		return getTokenActiveTimeoutByToken(tokenValue).flatMap(activeTimeout -> {
+			if(activeTimeout == SaTokenDao.NOT_VALUE_EXPIRE) {
+				return Mono.error(NotLoginException.newInstance(stpLogic.loginType, TOKEN_FREEZE, TOKEN_FREEZE_MESSAGE, tokenValue).setCode(SaErrorCode.CODE_11016));
+			}
+			return Mono.empty();
+		});
+	}
+
+	/**
+	 * 获取指定 token 剩余活跃有效期（单位: 秒，返回 -1 代表永不冻结，-2 代表没有这个值或 token 已被冻结了）
+	 *
+	 * @param tokenValue 指定 token
+	 * @return /
+	 */
+	public Mono<Long> getTokenActiveTimeoutByToken(String tokenValue) {
+
+		// 如果全局配置了永不冻结, 则返回 -1
+		if( ! stpLogic.isOpenCheckActiveTimeout()) {
+			return Mono.just(SaTokenDao.NEVER_EXPIRE);
+		}
+
+		// 如果提供的 token 为 null，则返回 -2
+		if(SaFoxUtil.isEmpty(tokenValue)) {
+			return Mono.just(SaTokenDao.NOT_VALUE_EXPIRE);
+		}
+
+		SaTokenConfig config = stpLogic.getConfigOrGlobal();
+		return getSaTokenDao().get(stpLogic.splicingKeyLastActiveTime(tokenValue))
+				.map(lastActiveTimeString -> {
+					// 最后活跃时间 + 该 token 允许的时间差（动态 activeTimeout 时存储在同一个值中）
+					SaValue2Box box = new SaValue2Box(lastActiveTimeString);
+					long timeDiff = (System.currentTimeMillis() - box.getValue1AsLong()) / 1000;
+					Long allowTimeDiff = config.getDynamicActiveTimeout() ? box.getValue2AsLong(null) : null;
+					if(allowTimeDiff == null) {
+						allowTimeDiff = config.getActiveTimeout();
+					}
+					if(allowTimeDiff == SaTokenDao.NEVER_EXPIRE) {
+						return SaTokenDao.NEVER_EXPIRE;
+					}
+					long activeTimeout = allowTimeDiff - timeDiff;
+					return activeTimeout < 0 ? SaTokenDao.NOT_VALUE_EXPIRE : activeTimeout;
+				})
+				.defaultIfEmpty(SaTokenDao.NOT_VALUE_EXPIRE);
+	}
+
+	/**
+	 * 续签指定 token：将这个 token 的 [ 最后活跃时间 ] 更新为当前时间戳
+	 *
+	 * @param tokenValue 指定 token
+	 * @return /
+	 */
+	public Mono<Void> updateLastActiveToNow(String tokenValue) {
+		String key = stpLogic.splicingKeyLastActiveTime(tokenValue);
+		SaTokenDaoReactive dao = getSaTokenDao();
+		if( ! stpLogic.getConfigOrGlobal().getDynamicActiveTimeout()) {
+			return dao.update(key, String.valueOf(System.currentTimeMillis()));
+		}
+		// 动态 activeTimeout：保留原值中记录的 activeTimeout
+		return dao.get(key)
+				.flatMap(value -> dao.update(key, new SaValue2Box(System.currentTimeMillis(), new SaValue2Box(value).getValue2AsLong(null)).toString()));
+	}
+
+
+	// ------------------- 角色、权限校验 -------------------
+
+	/**
+	 * 获取：指定账号的权限码集合
+	 *
+	 * @param loginId 指定账号id
+	 * @return /
+	 */
+	public Mono<List<String>> getPermissionList(Object loginId) {
+		return getPermissionList(loginId, currentBox());
+	}
+
+	/**
+	 * 获取：指定账号的权限码集合，StpInterface 在指定的上下文中执行
+	 *
+	 * @param loginId 指定账号id
+	 * @param box 上下文，可以为 null
+	 * @return /
+	 */
+	protected Mono<List<String>> getPermissionList(Object loginId, Box box) {
+		return callWithContext(box, () -> stpLogic.getPermissionList(loginId));
+	}
+
+	/**
+	 * 获取：指定账号的角色集合
+	 *
+	 * @param loginId 指定账号id
+	 * @return /
+	 */
+	public Mono<List<String>> getRoleList(Object loginId) {
+		return getRoleList(loginId, currentBox());
+	}
+
+	/**
+	 * 获取：指定账号的角色集合，StpInterface 在指定的上下文中执行
+	 *
+	 * @param loginId 指定账号id
+	 * @param box 上下文，可以为 null
+	 * @return /
+	 */
+	protected Mono<List<String>> getRoleList(Object loginId, Box box) {
+		return callWithContext(box, () -> stpLogic.getRoleList(loginId));
+	}
+
+	/**
+	 * 判断：指定账号是否含有指定权限
+	 *
+	 * @param loginId 账号id
+	 * @param permission 权限码
+	 * @return /
+	 */
+	public Mono<Boolean> hasPermission(Object loginId, String permission) {
+		return hasPermission(loginId, permission, currentBox());
+	}
+
+	/**
+	 * 判断：指定账号是否含有指定权限，StpInterface 在指定的上下文中执行
+	 *
+	 * @param loginId 账号id
+	 * @param permission 权限码
+	 * @param box 上下文，可以为 null
+	 * @return /
+	 */
+	protected Mono<Boolean> hasPermission(Object loginId, String permission, Box box) {
+		return getPermissionList(loginId, box).map(list -> stpLogic.hasElement(list, permission)).defaultIfEmpty(false);
+	}
+
+	/**
+	 * 判断：指定账号是否含有指定角色标识
+	 *
+	 * @param loginId 账号id
+	 * @param role 角色标识
+	 * @return /
+	 */
+	public Mono<Boolean> hasRole(Object loginId, String role) {
+		return hasRole(loginId, role, currentBox());
+	}
+
+	/**
+	 * 判断：指定账号是否含有指定角色标识，StpInterface 在指定的上下文中执行
+	 *
+	 * @param loginId 账号id
+	 * @param role 角色标识
+	 * @param box 上下文，可以为 null
+	 * @return /
+	 */
+	protected Mono<Boolean> hasRole(Object loginId, String role, Box box) {
+		return getRoleList(loginId, box).map(list -> stpLogic.hasElement(list, role)).defaultIfEmpty(false);
+	}
+
+	/**
+	 * 校验：当前账号是否含有指定权限，如果验证未通过，则以 NotPermissionException 结束
+	 * <p> 注意：需要在同步上下文有效时调用，原因同 checkLogin() </p>
+	 *
+	 * @param permission 权限码
+	 * @return /
+	 */
+	public Mono<Void> checkPermission(String permission) {
+		// 上下文只在调用此方法的线程上有效，需要在此处取出，后续的回调可能运行在其它线程上
+		Box box = currentBox();
+		return checkLogin().flatMap(loginId -> hasPermission(loginId, permission, box)).flatMap(has -> has ? Mono.empty() :
+				Mono.error(new NotPermissionException(permission, stpLogic.loginType).setCode(SaErrorCode.CODE_11051)));
+	}
+
+	/**
+	 * 校验：当前账号是否含有指定角色标识，如果验证未通过，则以 NotRoleException 结束
+	 * <p> 注意：需要在同步上下文有效时调用，原因同 checkLogin() </p>
+	 *
+	 * @param role 角色标识
+	 * @return /
+	 */
+	public Mono<Void> checkRole(String role) {
+		Box box = currentBox();
+		return checkLogin().flatMap(loginId -> hasRole(loginId, role, box)).flatMap(has -> has ? Mono.empty() :
+				Mono.error(new NotRoleException(role, stpLogic.loginType).setCode(SaErrorCode.CODE_11041)));
+	}
+
+
+	// ------------------- 账号封禁校验 -------------------
+
+	/**
+	 * 校验：指定账号是否已被封禁，如果被封禁则以 DisableServiceException 结束
+	 *
+	 * @param loginId 账号id
+	 * @param services 指定服务，不填时校验默认服务
+	 * @return /
+	 */
+	public Mono<Void> checkDisable(Object loginId, String... services) {
+		return callWithContext(currentBox(), () -> {
+			if(services == null || services.length == 0) {
+				stpLogic.checkDisable(loginId);
+			} else {
+				stpLogic.checkDisable(loginId, services);
+			}
+			return null;
+		}).then();
+	}
+
+
+	// ------------------- 上下文传递 -------------------
+
+	/**
+	 * 获取当前线程上的 Sa-Token 上下文
+	 *
+	 * @return 不存在时返回 null
+	 */
+	protected Box currentBox() {
+		return SaTokenContextForThreadLocalStorage.getBox();
+	}
+
+	/**
+	 * 在 scheduler 上执行一个同步调用，执行期间将指定的上下文写入当前线程，结束后恢复
+	 *
+	 * @param box 上下文，为 null 时不写入
+	 * @param fun 同步调用，返回 null 时结果为空
+	 * @return /
+	 * @param <T> 返回值类型
+	 */
+	protected <T> Mono<T> callWithContext(Box box, Callable<T> fun) {
+		return Mono.fromCallable(() -> {
+			Box old = SaTokenContextForThreadLocalStorage.boxThreadLocal.get();
+			if(box != null) {
+				SaTokenContextForThreadLocalStorage.boxThreadLocal.set(box);
+			}
+			try {
+				return fun.call();
+			} finally {
+				if(old == null) {
+					SaTokenContextForThreadLocalStorage.clearBox();
+				} else {
+					SaTokenContextForThreadLocalStorage.boxThreadLocal.set(old);
+				}
+			}
+		}).subscribeOn(scheduler);
+	}
+
+}
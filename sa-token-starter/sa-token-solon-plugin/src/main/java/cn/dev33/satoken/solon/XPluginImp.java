@@ -21,9 +21,11 @@ import cn.dev33.satoken.basic.SaBasicUtil;
 import cn.dev33.satoken.config.SaTokenConfig;
 import cn.dev33.satoken.context.second.SaTokenSecondContextCreator;
 import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.http.SaHttpTemplate;
 import cn.dev33.satoken.json.SaJsonTemplate;
 import cn.dev33.satoken.listener.SaTokenEventCenter;
 import cn.dev33.satoken.listener.SaTokenListener;
+import cn.dev33.satoken.lock.SaAccountLock;
 import cn.dev33.satoken.log.SaLog;
 import cn.dev33.satoken.same.SaSameTemplate;
 import cn.dev33.satoken.sign.SaSignTemplate;
@@ -120,11 +122,21 @@ public class XPluginImp implements Plugin {
             SaManager.setSaJsonTemplate(bean);
         });
 
+        // Sa-Token Http 请求处理器 Bean
+        context.getBeanAsync(SaHttpTemplate.class, bean -> {
+            SaManager.setSaHttpTemplate(bean);
+        });
+
         // Sa-Token 参数签名算法 Bean
         context.getBeanAsync(SaSignTemplate.class, bean -> {
             SaManager.setSaSignTemplate(bean);
         });
 
+        // Sa-Token 账号会话锁 Bean
+        context.getBeanAsync(SaAccountLock.class, bean -> {
+            SaManager.setSaAccountLock(bean);
+        });
+
         // 自定义 StpLogic 对象 //容器层面只能有一个；要多个得自己在Util上处理
         context.getBeanAsync(StpLogic.class, bean -> {
             StpUtil.setStpLogic(bean);
@@ -15,6 +15,7 @@
  */
 package cn.dev33.satoken.solon.dao;
 
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.strategy.SaStrategy;
 import cn.dev33.satoken.util.SaFoxUtil;
@@ -31,8 +32,10 @@ import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
 import org.redisson.api.RBatch;
 import org.redisson.api.RBucket;
 import org.redisson.api.RBucketAsync;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
 import org.redisson.codec.JsonJacksonCodec;
 
 import java.time.Duration;
@@ -40,6 +43,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -53,6 +57,28 @@ import java.util.stream.Stream;
  */
 public class SaTokenDaoOfRedissonJackson implements SaTokenDao {
 
+	/**
+	 * Lua 脚本：修改 value 并保持其剩余存活时间不变，key 不存在时不做任何处理（一次网络往返，原子执行）
+	 */
+	public static final String UPDATE_SCRIPT =
+			"local ttl = redis.call('pttl', KEYS[1]) " +
+			"if ttl == -2 then return 0 end " +
+			"if ttl == -1 then redis.call('set', KEYS[1], ARGV[1]) " +
+			"else redis.call('set', KEYS[1], ARGV[1], 'PX', ttl) end " +
+			"return 1";
+
+	/**
+	 * Lua 脚本：仅当 value 与指定值相等时删除此 key（一次网络往返，原子执行）
+	 */
+	public static final String DELETE_IF_EQUALS_SCRIPT =
+			"if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+			"return 0";
+
+	/**
+	 * Lua 脚本：执行一次 SCAN cursor MATCH pattern COUNT count，返回 [下一页游标, 本页数据]
+	 */
+	public static final String SCAN_SCRIPT = "return redis.call('scan', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])";
+
 	public static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
 	public static final String DATE_PATTERN = "yyyy-MM-dd";
 	public static final String TIME_PATTERN = "HH:mm:ss";
@@ -143,17 +169,28 @@ public class SaTokenDaoOfRedissonJackson implements SaTokenDao {
 		}
 	}
 
+	/**
+	 * 仅当 key 不存在时写入Value，并设定存活时间 (单位: 秒)，对应 SET NX EX 命令
+	 */
+	@Override
+	public boolean setIfAbsent(String key, String value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return false;
+		}
+		RBucket<String> bucket = redissonClient.getBucket(key, codec);
+		if(timeout == SaTokenDao.NEVER_EXPIRE) {
+			return bucket.setIfAbsent(value);
+		}
+		return bucket.setIfAbsent(value, Duration.ofSeconds(timeout));
+	}
+
 	/**
 	 * 修修改指定key-value键值对 (过期时间不变) 
 	 */
 	@Override
 	public void update(String key, String value) {
-		long expire = getTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.set(key, value, expire);
+		redissonClient.getScript(codec).eval(key, RScript.Mode.READ_WRITE, UPDATE_SCRIPT,
+				RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), value);
 	}
 	
 	/**
@@ -164,6 +201,19 @@ public class SaTokenDaoOfRedissonJackson implements SaTokenDao {
 		redissonClient.getBucket(key, codec).delete();
 	}
 
+	/**
+	 * 仅当 value 与指定值相等时删除，对应一段 get 比较后 del 的 Lua 脚本
+	 */
+	@Override
+	public boolean deleteIfEquals(String key, String value) {
+		if(value == null) {
+			return false;
+		}
+		Long result = redissonClient.getScript(codec).eval(key, RScript.Mode.READ_WRITE, DELETE_IF_EQUALS_SCRIPT,
+				RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), value);
+		return result != null && result > 0;
+	}
+
 	/**
 	 * 获取Value的剩余存活时间 (单位: 秒) 
 	 */
@@ -179,18 +229,12 @@ public class SaTokenDaoOfRedissonJackson implements SaTokenDao {
 	 */
 	@Override
 	public void updateTimeout(String key, long timeout) {
+		RBucket<String> rBucket = redissonClient.getBucket(key, codec);
 		// 判断是否想要设置为永久
 		if(timeout == SaTokenDao.NEVER_EXPIRE) {
-			long expire = getTimeout(key);
-			if(expire == SaTokenDao.NEVER_EXPIRE) {
-				// 如果其已经被设置为永久，则不作任何处理 
-			} else {
-				// 如果尚未被设置为永久，那么再次set一次
-				this.set(key, this.get(key), timeout);
-			}
+			rBucket.clearExpire();
 			return;
 		}
-		RBucket<String> rBucket = redissonClient.getBucket(key, codec);
 		rBucket.expire(Duration.ofSeconds(timeout));
 	}
 	
@@ -232,12 +276,8 @@ public class SaTokenDaoOfRedissonJackson implements SaTokenDao {
 	 */
 	@Override
 	public void updateObject(String key, Object object) {
-		long expire = getObjectTimeout(key);
-		// -2 = 无此键 
-		if(expire == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		this.setObject(key, object, expire);
+		redissonClient.getScript(codec).eval(key, RScript.Mode.READ_WRITE, UPDATE_SCRIPT,
+				RScript.ReturnType.INTEGER, Collections.<Object>singletonList(key), object);
 	}
 
 	/**
@@ -263,18 +303,12 @@ public class SaTokenDaoOfRedissonJackson implements SaTokenDao {
 	 */
 	@Override
 	public void updateObjectTimeout(String key, long timeout) {
+		RBucket<Object> rBucket = redissonClient.getBucket(key, codec);
 		// 判断是否想要设置为永久
 		if(timeout == SaTokenDao.NEVER_EXPIRE) {
-			long expire = getObjectTimeout(key);
-			if(expire == SaTokenDao.NEVER_EXPIRE) {
-				// 如果其已经被设置为永久，则不作任何处理 
-			} else {
-				// 如果尚未被设置为永久，那么再次set一次
-				this.setObject(key, this.getObject(key), timeout);
-			}
+			rBucket.clearExpire();
 			return;
 		}
-		RBucket<Object> rBucket = redissonClient.getBucket(key, codec);
 		rBucket.expire(Duration.ofSeconds(timeout));
 	}
 
@@ -288,4 +322,15 @@ public class SaTokenDaoOfRedissonJackson implements SaTokenDao {
 		List<String> list = stream.collect(Collectors.toList());
 		return SaFoxUtil.searchList(list, start, size, sortType);
 	}
+
+	/**
+	 * 游标式搜索数据（SCAN 命令）
+	 */
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		String start = SaScanResult.isStartCursor(cursor) ? SaScanResult.START_CURSOR : cursor;
+		List<Object> reply = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_ONLY, SCAN_SCRIPT,
+				RScript.ReturnType.MULTI, Collections.emptyList(), start, prefix + "*" + keyword + "*", String.valueOf(count));
+		return SaScanResult.ofReply(reply);
+	}
 }
@@ -15,7 +15,6 @@
  */
 package cn.dev33.satoken.solon.integration;
 
-import cn.dev33.satoken.annotation.SaIgnore;
 import cn.dev33.satoken.exception.BackResultException;
 import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.exception.StopMatchException;
@@ -189,7 +188,7 @@ public class SaTokenFilter implements SaFilter, Filter { //之所以改名，为
 			Method method = action.method().getMethod();
 
 			// 如果此 Method 或其所属 Class 标注了 @SaIgnore，则忽略掉鉴权
-			if (SaStrategy.instance.isAnnotationPresent.apply(method, SaIgnore.class)) {
+			if (SaStrategy.instance.getCheckMethodPlan(method).ignore) {
 				return false;
 			}
 
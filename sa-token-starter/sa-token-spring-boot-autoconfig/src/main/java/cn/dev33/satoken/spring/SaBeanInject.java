@@ -29,9 +29,11 @@ import cn.dev33.satoken.config.SaTokenConfig;
 import cn.dev33.satoken.context.SaTokenContext;
 import cn.dev33.satoken.context.second.SaTokenSecondContextCreator;
 import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.http.SaHttpTemplate;
 import cn.dev33.satoken.json.SaJsonTemplate;
 import cn.dev33.satoken.listener.SaTokenEventCenter;
 import cn.dev33.satoken.listener.SaTokenListener;
+import cn.dev33.satoken.lock.SaAccountLock;
 import cn.dev33.satoken.log.SaLog;
 import cn.dev33.satoken.same.SaSameTemplate;
 import cn.dev33.satoken.sign.SaSignTemplate;
@@ -157,6 +159,26 @@ public class SaBeanInject {
 		SaManager.setSaJsonTemplate(saJsonTemplate);
 	}
 
+	/**
+	 * 注入自定义的 Http 请求处理器 Bean 
+	 * 
+	 * @param saHttpTemplate Http 请求处理器 
+	 */
+	@Autowired(required = false)
+	public void setSaHttpTemplate(SaHttpTemplate saHttpTemplate) {
+		SaManager.setSaHttpTemplate(saHttpTemplate);
+	}
+
+	/**
+	 * 注入自定义的 账号会话锁 Bean 
+	 * 
+	 * @param saAccountLock 账号会话锁 
+	 */
+	@Autowired(required = false)
+	public void setSaAccountLock(SaAccountLock saAccountLock) {
+		SaManager.setSaAccountLock(saAccountLock);
+	}
+
 	/**
 	 * 注入自定义的 参数签名 Bean 
 	 * 
@@ -18,9 +18,14 @@ package cn.dev33.satoken.spring.json;
 import cn.dev33.satoken.error.SaSpringBootErrorCode;
 import cn.dev33.satoken.exception.SaJsonConvertException;
 import cn.dev33.satoken.json.SaJsonTemplate;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.Map;
 
 /**
@@ -62,4 +67,20 @@ public class SaJsonTemplateForJackson implements SaJsonTemplate {
 		}
 	}
 
+	/**
+	 * 从输入流中边读取边解析为 Map，不先拼接为完整的字符串
+	 */
+	@Override
+	public Map<String, Object> parseJsonToMap(InputStream in, Charset charset) {
+		try {
+			// 输入流由调用方负责关闭 
+			Map<String, Object> map = objectMapper.readerFor(Map.class)
+					.without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+					.readValue(new InputStreamReader(in, charset));
+			return map;
+		} catch (IOException e) {
+			throw new SaJsonConvertException(e).setCode(SaSpringBootErrorCode.CODE_20104);
+		}
+	}
+
 }
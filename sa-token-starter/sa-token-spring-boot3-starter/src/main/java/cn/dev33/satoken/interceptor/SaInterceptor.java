@@ -20,7 +20,6 @@ import java.lang.reflect.Method;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import cn.dev33.satoken.annotation.SaIgnore;
 import cn.dev33.satoken.exception.BackResultException;
 import cn.dev33.satoken.exception.StopMatchException;
 import cn.dev33.satoken.fun.SaParamFunction;
@@ -101,7 +100,7 @@ public class SaInterceptor implements HandlerInterceptor {
 				Method method = ((HandlerMethod) handler).getMethod();
 
 				// 如果此 Method 或其所属 Class 标注了 @SaIgnore，则忽略掉鉴权 
-				if(SaStrategy.instance.isAnnotationPresent.apply(method, SaIgnore.class)) {
+				if(SaStrategy.instance.getCheckMethodPlan(method).ignore) {
 					// 注意这里直接就退出整个鉴权了，最底部的 auth.run() 路由拦截鉴权也被跳出了
 					return true;
 				}
@@ -0,0 +1,77 @@
+package com.pj.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.jwt.SaJwtTemplate;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.hutool.jwt.JWT;
+import cn.hutool.jwt.signers.JWTSigner;
+
+/**
+ * Sa-Token 整合 jwt：验签缓存 测试 
+ * 
+ * @author click33 
+ *
+ */
+public class JwtCacheTest {
+
+	// 验签次数计数的模板 
+	static class CountTemplate extends SaJwtTemplate {
+		int signerCount;
+		@Override
+		public JWTSigner createSigner(String keyt) {
+			signerCount++;
+			return super.createSigner(keyt);
+		}
+	}
+
+	// 测试：跨请求缓存命中后不再验签 
+    @Test
+    public void crossRequestCache() {
+    	CountTemplate template = new CountTemplate();
+    	template.setCacheMaxSize(100);
+    	String keyt = "abcdefghijklmnopqrstuvwxyz0123456789";
+    	String token = template.createToken("login", 10001, "PC", 600, null, keyt);
+    	template.signerCount = 0;
+
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(token, "login", keyt)), "10001");
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(token, "login", keyt)), "10001");
+    	Assertions.assertTrue(template.getTimeout(token, "login", keyt) > 590);
+    	Assertions.assertEquals(template.signerCount, 1);
+    	Assertions.assertEquals(template.cacheMap.size(), 1);
+
+    	// loginType 仍然每次校验 
+    	Assertions.assertThrows(SaJwtException.class, () -> template.getLoginId(token, "user", keyt));
+
+    	// 秘钥不同时不可命中缓存 
+    	Assertions.assertThrows(SaJwtException.class, () -> template.getLoginId(token, "login", keyt + "x"));
+
+    	// 伪造载荷、沿用原签名时不可命中缓存 
+    	String forged = template.createToken("login", 10002, "PC", 600, null, "another-key-0123456789abcdefghijk");
+    	String forgedToken = forged.substring(0, forged.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+    	Assertions.assertThrows(SaJwtException.class, () -> template.getLoginId(forgedToken, "login", keyt));
+
+    	template.clearCache();
+    	Assertions.assertEquals(template.cacheMap.size(), 0);
+    }
+
+	// 测试：已过期的 jwt 不进入缓存，超过上限时淘汰 
+    @Test
+    public void expireAndEvict() {
+    	SaJwtTemplate template = new SaJwtTemplate().setCacheMaxSize(4);
+    	String keyt = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    	String expired = template.generateToken(JWT.create().setPayload(SaJwtTemplate.LOGIN_TYPE, "login")
+    			.setPayload(SaJwtTemplate.EFF, System.currentTimeMillis() - 1000), keyt);
+    	Assertions.assertThrows(SaJwtException.class, () -> template.getPayloads(expired, "login", keyt));
+    	Assertions.assertEquals(template.cacheMap.size(), 0);
+
+    	for (int i = 0; i < 10; i++) {
+    		String token = template.createToken("login", i, "PC", 600, null, keyt);
+    		template.getLoginId(token, "login", keyt);
+    		Assertions.assertTrue(template.cacheMap.size() <= 4);
+    	}
+    }
+
+}
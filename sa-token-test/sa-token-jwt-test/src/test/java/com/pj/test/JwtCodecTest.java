@@ -0,0 +1,89 @@
+package com.pj.test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.jwt.SaJwtTemplate;
+import cn.dev33.satoken.jwt.codec.SaJwtClaims;
+import cn.dev33.satoken.jwt.codec.SaJwtCodec;
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+
+/**
+ * Sa-Token 整合 jwt：jwt 解码器 测试 
+ * 
+ * @author click33 
+ *
+ */
+public class JwtCodecTest {
+
+	static final String KEYT = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+	// 测试：只解码固定字段，跳过扩展数据 
+    @Test
+    public void decode() {
+    	SaJwtTemplate template = new SaJwtTemplate();
+    	Map<String, Object> deep = new HashMap<>();
+    	deep.put("a", Arrays.asList(1, 2));
+    	deep.put("b", "x\"}y");
+    	Map<String, Object> extra = new HashMap<>();
+    	extra.put("deep", deep);
+    	extra.put("name", "张三\n");
+    	String token = template.createToken("login", 10001L, "PC", 600, extra, KEYT);
+
+    	SaJwtClaims claims = SaJwtCodec.decode(token);
+    	Assertions.assertEquals(claims.alg, "HS256");
+    	Assertions.assertNull(claims.kid);
+    	Assertions.assertEquals(claims.loginType, "login");
+    	Assertions.assertEquals(claims.loginId, 10001L);
+    	Assertions.assertEquals(claims.device, "PC");
+    	Assertions.assertTrue(claims.eff > System.currentTimeMillis());
+    	Assertions.assertTrue(SaJwtCodec.verify(claims, template.createSigner(KEYT)));
+
+    	// 扩展数据仍可通过完整载荷读取 
+    	SaJwtClaims parsed = template.parseClaims(token, "login", KEYT, true);
+    	Assertions.assertEquals(parsed.getPayloads().getStr("name"), "张三\n");
+    	Assertions.assertEquals(template.getPayloads(token, "login", KEYT).getJSONObject("deep").getStr("b"), "x\"}y");
+
+    	// 字符串类型的账号id 
+    	String token2 = template.createToken("login", "user-1001", "PC", -1, null, KEYT);
+    	Assertions.assertEquals(template.getLoginId(token2, "login", KEYT), "user-1001");
+    	Assertions.assertEquals(template.getTimeout(token2, "login", KEYT), SaJwtTemplate.NEVER_EXPIRE);
+    }
+
+	// 测试：篡改、格式错误、算法不符 
+    @Test
+    public void reject() {
+    	SaJwtTemplate template = new SaJwtTemplate();
+    	String token = template.createToken("login", 10001, "PC", 600, null, KEYT);
+    	String[] parts = token.split("\\.");
+
+    	// 篡改载荷 
+    	String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8).replace("10001", "10002");
+    	String forged = parts[0] + "." + encode(payload) + "." + parts[2];
+    	SaJwtException e = Assertions.assertThrows(SaJwtException.class, () -> template.getLoginId(forged, "login", KEYT));
+    	Assertions.assertEquals(e.getCode(), SaJwtErrorCode.CODE_30202);
+
+    	// 声明为 none 算法 
+    	String none = encode("{\"alg\":\"none\"}") + "." + parts[1] + "." + parts[2];
+    	Assertions.assertThrows(SaJwtException.class, () -> template.getLoginId(none, "login", KEYT));
+
+    	// 格式错误 
+    	for (String bad : new String[] {"abc", "a.b", "a.b.c.d", parts[0] + ".%%%." + parts[2], encode("{\"alg\":") + "." + parts[1] + "." + parts[2]}) {
+    		e = Assertions.assertThrows(SaJwtException.class, () -> template.getLoginId(bad, "login", KEYT));
+    		Assertions.assertEquals(e.getCode(), SaJwtErrorCode.CODE_30201);
+    	}
+    	Assertions.assertEquals(template.getTimeout("abc", "login", KEYT), SaJwtTemplate.NOT_VALUE_EXPIRE);
+    }
+
+    static String encode(String str) {
+    	return Base64.getUrlEncoder().withoutPadding().encodeToString(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
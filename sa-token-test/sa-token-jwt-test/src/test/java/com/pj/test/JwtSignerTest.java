@@ -0,0 +1,136 @@
+package com.pj.test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.jwt.SaJwtTemplate;
+import cn.dev33.satoken.jwt.error.SaJwtErrorCode;
+import cn.dev33.satoken.jwt.exception.SaJwtException;
+import cn.dev33.satoken.jwt.signer.SaJwtKey;
+import cn.dev33.satoken.jwt.signer.SaJwtSignerRegistry;
+import cn.dev33.satoken.temp.jwt.SaJwtUtil;
+import cn.dev33.satoken.temp.jwt.error.SaTempJwtErrorCode;
+import cn.dev33.satoken.temp.jwt.signer.SaTempJwtKey;
+import cn.dev33.satoken.temp.jwt.signer.SaTempJwtSignerRegistry;
+import cn.hutool.jwt.JWT;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Sa-Token 整合 jwt：签名器注册表 测试 
+ * 
+ * @author click33 
+ *
+ */
+public class JwtSignerTest {
+
+	static final String KEYT = "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnopqrstuvwxyz01";
+
+	// 测试：相同秘钥复用签名器，可配置 HMAC 算法 
+    @Test
+    public void hmacAlgorithm() {
+    	SaJwtTemplate template = new SaJwtTemplate();
+    	Assertions.assertSame(template.createSigner(KEYT), template.createSigner(KEYT));
+
+    	template.getSignerRegistry().setAlgorithm(SaJwtSignerRegistry.HS512);
+    	String token = template.createToken("login", 10001, "PC", 600, null, KEYT);
+    	Assertions.assertEquals(JWT.of(token).getHeader("alg"), "HS512");
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(token, "login", KEYT)), "10001");
+
+    	// 篡改签名 
+    	String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+    	Assertions.assertThrows(SaJwtException.class, () -> template.getLoginId(forged, "login", KEYT));
+
+    	Assertions.assertThrows(SaJwtException.class, () -> template.getSignerRegistry().setAlgorithm("HS1024"));
+    }
+
+	// 测试：ES256 与 EdDSA 密钥 
+    @Test
+    public void asymmetric() throws Exception {
+    	SaJwtTemplate template = new SaJwtTemplate();
+    	KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+    	ec.initialize(256);
+    	KeyPair ecPair = ec.generateKeyPair();
+    	KeyPair edPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    	template.getSignerRegistry()
+    			.addKey(SaJwtKey.asymmetric("ec", SaJwtSignerRegistry.ES256, encode(ecPair.getPrivate().getEncoded()), encode(ecPair.getPublic().getEncoded())))
+    			.addKey(SaJwtKey.asymmetric("ed", SaJwtSignerRegistry.EDDSA, encode(edPair.getPrivate().getEncoded()), encode(edPair.getPublic().getEncoded())));
+
+    	template.getSignerRegistry().setCurrentKid("ec");
+    	String ecToken = template.createToken("login", 10001, "PC", 600, null, KEYT);
+    	JWT ecJwt = JWT.of(ecToken);
+    	Assertions.assertEquals(ecJwt.getHeader("alg"), "ES256");
+    	Assertions.assertEquals(ecJwt.getHeader("kid"), "ec");
+    	// ES256 签名为 64 字节的 R||S 格式 
+    	Assertions.assertEquals(Base64.getUrlDecoder().decode(ecToken.substring(ecToken.lastIndexOf('.') + 1)).length, 64);
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(ecToken, "login", KEYT)), "10001");
+
+    	template.getSignerRegistry().setCurrentKid("ed");
+    	String edToken = template.createToken("login", 10002, "PC", 600, null, KEYT);
+    	Assertions.assertEquals(JWT.of(edToken).getHeader("alg"), "EdDSA");
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(edToken, "login", KEYT)), "10002");
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(ecToken, "login", KEYT)), "10001");
+    }
+
+	// 测试：密钥轮换，旧 jwt 在移除密钥之前仍然有效 
+    @Test
+    public void rotation() {
+    	SaJwtTemplate template = new SaJwtTemplate();
+    	SaJwtSignerRegistry registry = template.getSignerRegistry();
+    	String legacy = template.createToken("login", 10000, "PC", 600, null, KEYT);
+
+    	registry.addKey(SaJwtKey.hmac("k1", SaJwtSignerRegistry.HS256, KEYT + "-k1")).setCurrentKid("k1");
+    	String token1 = template.createToken("login", 10001, "PC", 600, null, KEYT);
+    	registry.addKey(SaJwtKey.hmac("k2", SaJwtSignerRegistry.HS384, KEYT + "-k2")).setCurrentKid("k2");
+    	String token2 = template.createToken("login", 10002, "PC", 600, null, KEYT);
+
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(legacy, "login", KEYT)), "10000");
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(token1, "login", KEYT)), "10001");
+    	Assertions.assertEquals(String.valueOf(template.getLoginId(token2, "login", KEYT)), "10002");
+
+    	// 正在签名的密钥不可移除 
+    	Assertions.assertThrows(SaJwtException.class, () -> registry.removeKey("k2"));
+
+    	// 移除后，携带此 kid 的 jwt 不再有效 
+    	registry.removeKey("k1");
+    	SaJwtException e = Assertions.assertThrows(SaJwtException.class, () -> template.getLoginId(token1, "login", KEYT));
+    	Assertions.assertEquals(e.getCode(), SaJwtErrorCode.CODE_30207);
+    	Assertions.assertThrows(SaJwtException.class, () -> registry.setCurrentKid("k1"));
+    }
+
+	// 测试：临时 jwt 的算法配置与密钥轮换 
+    @Test
+    public void tempJwt() throws Exception {
+    	SaTempJwtSignerRegistry old = SaJwtUtil.signerRegistry;
+    	try {
+    		SaTempJwtSignerRegistry registry = new SaTempJwtSignerRegistry().setAlgorithm(SignatureAlgorithm.HS512);
+    		SaJwtUtil.signerRegistry = registry;
+    		String legacy = SaJwtUtil.createToken("shop", 1001, 600, KEYT);
+    		Assertions.assertEquals(SaJwtUtil.getValue("shop", legacy, KEYT), 1001);
+    		Assertions.assertEquals(registry.hmacSignerCache.size(), 1);
+
+    		KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+    		ec.initialize(256);
+    		KeyPair pair = ec.generateKeyPair();
+    		registry.addKey(SaTempJwtKey.asymmetric("ec", SignatureAlgorithm.ES256, pair.getPrivate(), pair.getPublic())).setCurrentKid("ec");
+    		String token = SaJwtUtil.createToken("shop", 1002, 600, KEYT);
+    		Assertions.assertEquals(SaJwtUtil.getValue("shop", token, KEYT), 1002);
+    		Assertions.assertEquals(SaJwtUtil.getValue("shop", legacy, KEYT), 1001);
+
+    		registry.setCurrentKid(null).removeKey("ec");
+    		SaTokenException e = Assertions.assertThrows(SaTokenException.class, () -> SaJwtUtil.getValue("shop", token, KEYT));
+    		Assertions.assertEquals(e.getCode(), SaTempJwtErrorCode.CODE_30304);
+    	} finally {
+    		SaJwtUtil.signerRegistry = old;
+    	}
+    }
+
+    static String encode(byte[] bytes) {
+    	return Base64.getEncoder().encodeToString(bytes);
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.reactor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.context.SaHolder;
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.context.SaTokenContextForThreadLocalStorage;
+import cn.dev33.satoken.context.model.SaStorage;
+import cn.dev33.satoken.exception.DisableServiceException;
+import cn.dev33.satoken.exception.NotLoginException;
+import cn.dev33.satoken.exception.NotPermissionException;
+import cn.dev33.satoken.jwt.StpLogicJwtForStateless;
+import cn.dev33.satoken.reactor.context.SaReactorSyncHolder;
+import cn.dev33.satoken.reactor.model.SaRequestForReactor;
+import cn.dev33.satoken.reactor.model.SaResponseForReactor;
+import cn.dev33.satoken.reactor.spring.SaTokenContextForSpringReactor;
+import cn.dev33.satoken.reactor.stp.StpLogicReactive;
+import cn.dev33.satoken.stp.StpInterface;
+import cn.dev33.satoken.stp.StpLogic;
+import reactor.core.publisher.Mono;
+
+/**
+ * StpLogicReactive 响应式校验 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class StpLogicReactiveTest {
+
+	static SaTokenContext oldContext;
+	static StpInterface oldStpInterface;
+
+	// 权限码从当前请求的 header 中读取，只有上下文被正确传递到 scheduler 线程上时才能读到
+	static class HeaderStpInterface implements StpInterface {
+		@Override
+		public List<String> getPermissionList(Object loginId, String loginType) {
+			String perm = SaHolder.getRequest().getHeader("x-perm");
+			return perm == null ? new ArrayList<>() : Collections.singletonList(perm);
+		}
+		@Override
+		public List<String> getRoleList(Object loginId, String loginType) {
+			return Collections.singletonList("admin");
+		}
+	}
+
+	@BeforeAll
+	public static void beforeAll() {
+		oldContext = SaManager.getSaTokenContext();
+		oldStpInterface = SaManager.getStpInterface();
+		SaManager.setSaTokenContext(new SaTokenContextForSpringReactor());
+		SaManager.setStpInterface(new HeaderStpInterface());
+	}
+
+	@AfterAll
+	public static void afterAll() {
+		SaManager.setSaTokenContext(oldContext);
+		SaManager.setStpInterface(oldStpInterface);
+	}
+
+	@AfterEach
+	public void afterEach() {
+		SaReactorSyncHolder.clearContext();
+	}
+
+	// 写入同步上下文：请求来自 MockServerHttpRequest，storage 用一个简单的 Map 代替
+	static void setRequest(String token, String perm) {
+		MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.get("/test");
+		if(token != null) {
+			builder.header(SaManager.getConfig().getTokenName(), token);
+		}
+		if(perm != null) {
+			builder.header("x-perm", perm);
+		}
+		SaTokenContextForThreadLocalStorage.setBox(
+				new SaRequestForReactor(builder.build()),
+				new SaResponseForReactor(new MockServerHttpResponse()),
+				new MapStorage());
+	}
+
+	static class MapStorage implements SaStorage {
+		final Map<String, Object> map = new HashMap<>();
+		@Override
+		public Object getSource() {
+			return map;
+		}
+		@Override
+		public Object get(String key) {
+			return map.get(key);
+		}
+		@Override
+		public SaStorage set(String key, Object value) {
+			map.put(key, value);
+			return this;
+		}
+		@Override
+		public SaStorage delete(String key) {
+			map.remove(key);
+			return this;
+		}
+	}
+
+	// 默认 StpLogic：非阻塞校验，各类异常标记均能识别
+	@Test
+	public void checkLogin() {
+		StpLogic stpLogic = new StpLogic("reactive-login");
+		StpLogicReactive reactive = new StpLogicReactive(stpLogic);
+		Assertions.assertTrue(reactive.isNonBlockingSupported());
+
+		String token = stpLogic.createLoginSession(10001);
+		Assertions.assertEquals("10001", reactive.checkLogin(token).block());
+
+		NotLoginException e = Assertions.assertThrows(NotLoginException.class, () -> reactive.checkLogin("xxxx").block());
+		Assertions.assertEquals(NotLoginException.INVALID_TOKEN, e.getType());
+
+		stpLogic.kickoutByTokenValue(token);
+		e = Assertions.assertThrows(NotLoginException.class, () -> reactive.checkLogin(token).block());
+		Assertions.assertEquals(NotLoginException.KICK_OUT, e.getType());
+
+		e = Assertions.assertThrows(NotLoginException.class, () -> reactive.checkLogin("").block());
+		Assertions.assertEquals(NotLoginException.NOT_TOKEN, e.getType());
+	}
+
+	// StpLogic 的子类（jwt 无状态模式，持久层中没有 token 映射）：委托给子类的校验逻辑
+	@Test
+	public void checkLoginJwtStateless() {
+		StpLogic stpLogic = new StpLogicJwtForStateless("reactive-jwt");
+		stpLogic.setConfig(new SaTokenConfig().setJwtSecretKey("reactive-test-secret-key-abcdefghijk"));
+		StpLogicReactive reactive = new StpLogicReactive(stpLogic);
+		Assertions.assertFalse(reactive.isNonBlockingSupported());
+
+		String token = stpLogic.createLoginSession(10002);
+		Assertions.assertEquals("10002", reactive.checkLogin(token).block());
+
+		NotLoginException e = Assertions.assertThrows(NotLoginException.class, () -> reactive.checkLogin(token + "x").block());
+		Assertions.assertEquals(NotLoginException.INVALID_TOKEN, e.getType());
+	}
+
+	// 权限、角色校验：StpInterface 在 scheduler 线程上执行时仍能读取到发起校验时的请求
+	@Test
+	public void checkPermissionWithContext() {
+		StpLogic stpLogic = new StpLogic("reactive-perm");
+		StpLogicReactive reactive = new StpLogicReactive(stpLogic);
+		String token = stpLogic.createLoginSession(10003);
+
+		// 在同步上下文有效时组装，上下文清除之后才真正执行
+		setRequest(token, "user.add");
+		Mono<Void> allow = reactive.checkPermission("user.add");
+		Mono<Void> deny = reactive.checkPermission("user.delete");
+		Mono<Void> role = reactive.checkRole("admin");
+		SaReactorSyncHolder.clearContext();
+
+		allow.block();
+		role.block();
+		Assertions.assertThrows(NotPermissionException.class, deny::block);
+
+		// 未提交 token
+		setRequest(null, "user.add");
+		Mono<Void> notLogin = reactive.checkPermission("user.add");
+		SaReactorSyncHolder.clearContext();
+		Assertions.assertThrows(NotLoginException.class, notLogin::block);
+	}
+
+	// 封禁校验委托给同步方法
+	@Test
+	public void checkDisable() {
+		StpLogic stpLogic = new StpLogic("reactive-disable");
+		StpLogicReactive reactive = new StpLogicReactive(stpLogic);
+		reactive.checkDisable(10004).block();
+
+		stpLogic.disable(10004, 60);
+		Assertions.assertThrows(DisableServiceException.class, () -> reactive.checkDisable(10004).block());
+		stpLogic.untieDisable(10004);
+	}
+
+}
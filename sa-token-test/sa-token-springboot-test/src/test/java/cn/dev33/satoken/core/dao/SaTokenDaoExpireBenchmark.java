@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.dao.SaTokenDaoForExpireQueue;
+
+/**
+ * SaTokenDaoDefaultImpl 与 SaTokenDaoForExpireQueue 内存占用、吞吐量、过期清理开销对比
+ *
+ * <p> 手动运行 main 方法即可（不参与单元测试），可通过第一个参数指定 key 数量，默认 100 万 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoExpireBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+		// 预热
+		run(new SaTokenDaoDefaultImpl(), 100000, false);
+		run(new SaTokenDaoForExpireQueue(), 100000, false);
+
+		run(new SaTokenDaoDefaultImpl(), count, true);
+		run(new SaTokenDaoForExpireQueue(), count, true);
+	}
+
+	/**
+	 * 写入 count 个 key（其中 1% 为 1 秒后过期，其余 1 小时后过期），统计写入、读取、过期清理的耗时与内存占用
+	 */
+	static void run(SaTokenDao dao, int count, boolean print) throws InterruptedException {
+		long memBefore = usedMemory();
+
+		long t1 = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			dao.set("satoken:login:token:" + i, String.valueOf(i), i % 100 == 0 ? 1 : 3600);
+		}
+		long t2 = System.nanoTime();
+		long memAfter = usedMemory();
+
+		for (int i = 0; i < count; i++) {
+			dao.get("satoken:login:token:" + i);
+		}
+		long t3 = System.nanoTime();
+
+		// 等待 1% 的 key 过期，然后统计一次定时清理的耗时
+		Thread.sleep(1100);
+		long t4 = System.nanoTime();
+		if(dao instanceof SaTokenDaoDefaultImpl) {
+			((SaTokenDaoDefaultImpl) dao).refreshDataMap();
+		} else {
+			((SaTokenDaoForExpireQueue) dao).refreshDataMap();
+		}
+		long t5 = System.nanoTime();
+
+		if(print) {
+			System.out.println(dao.getClass().getSimpleName() + " (" + count + " keys)");
+			System.out.println("    set   : " + (count * 1000L / Math.max(1, (t2 - t1) / 1000000)) + " ops/s");
+			System.out.println("    get   : " + (count * 1000L / Math.max(1, (t3 - t2) / 1000000)) + " ops/s");
+			System.out.println("    sweep : " + ((t5 - t4) / 1000000) + " ms");
+			System.out.println("    memory: " + ((memAfter - memBefore) / 1024 / 1024) + " MB");
+		}
+	}
+
+	static long usedMemory() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoForExpireQueue;
+import cn.dev33.satoken.session.SaSession;
+
+/**
+ * SaTokenDaoForExpireQueue 持久层 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForExpireQueueTest {
+
+	SaTokenDaoForExpireQueue dao = new SaTokenDaoForExpireQueue();
+
+	// 字符串存取
+    @Test
+    public void get() {
+    	dao.set("name", "zhangsan", 60);
+    	Assertions.assertEquals(dao.get("name"), "zhangsan");
+    	Assertions.assertTrue(dao.getTimeout("name") <= 60);
+    	Assertions.assertEquals(dao.getTimeout("name2"), -2);
+
+    	dao.update("name", "lisi");
+    	Assertions.assertEquals(dao.get("name"), "lisi");
+
+    	dao.updateTimeout("name", 100);
+    	Assertions.assertTrue(dao.getTimeout("name") > 60);
+    	Assertions.assertEquals(dao.get("name"), "lisi");
+    	Assertions.assertEquals(dao.expireQueue.size(), 1);
+
+    	dao.delete("name");
+    	Assertions.assertNull(dao.get("name"));
+    	Assertions.assertEquals(dao.expireQueue.size(), 0);
+
+    	// 不存在的 key 不做任何处理
+    	dao.update("mid", "zhang");
+    	dao.updateTimeout("mid", 100);
+    	Assertions.assertNull(dao.get("mid"));
+    }
+
+	// SaSession 存取、永久有效期
+    @Test
+    public void getSession() {
+    	SaSession session = new SaSession("session-1001");
+    	dao.setSession(session, -1);
+    	Assertions.assertEquals(dao.getSession("session-1001").getId(), session.getId());
+    	Assertions.assertEquals(dao.getSessionTimeout("session-1001"), SaTokenDao.NEVER_EXPIRE);
+    	// 永久数据不进入到期队列
+    	Assertions.assertEquals(dao.expireQueue.size(), 0);
+
+    	dao.updateSession(session);
+    	Assertions.assertEquals(dao.getSessionTimeout("session-1001"), SaTokenDao.NEVER_EXPIRE);
+
+    	dao.updateSessionTimeout("session-1001", 100);
+    	Assertions.assertTrue(dao.getSessionTimeout("session-1001") <= 100);
+    	Assertions.assertEquals(dao.expireQueue.size(), 1);
+
+    	dao.deleteSession("session-1001");
+    	Assertions.assertNull(dao.getSession("session-1001"));
+    }
+
+    // timeout为0或者小于-2时，不写入
+    @Test
+    public void test0Timeout() {
+    	dao.set("avatar", "1.jpg", 0);
+    	Assertions.assertNull(dao.get("avatar"));
+    	dao.set("avatar", "1.jpg", -9);
+    	Assertions.assertNull(dao.get("avatar"));
+    }
+
+    // 定时清理只处理过期数据
+    @Test
+    public void refreshDataMap() throws InterruptedException {
+    	for (int i = 0; i < 100; i++) {
+    		dao.set("long-" + i, "v", 60);
+		}
+    	for (int i = 0; i < 10; i++) {
+    		dao.set("short-" + i, "v", 1);
+    	}
+    	dao.set("never", "v", -1);
+    	Assertions.assertEquals(dao.refreshDataMap(), 0);
+
+    	Thread.sleep(1100);
+    	Assertions.assertEquals(dao.refreshDataMap(), 10);
+    	Assertions.assertEquals(dao.dataMap.size(), 101);
+    	Assertions.assertEquals(dao.expireQueue.size(), 100);
+    	Assertions.assertNull(dao.get("short-0"));
+    	Assertions.assertEquals(dao.get("never"), "v");
+    }
+
+    // 并发修改值与修改存活时间，不会丢失任何一次修改
+    @Test
+    public void concurrentUpdateAndTimeout() throws InterruptedException {
+    	dao.set("race", "0", 60);
+    	Thread updater = new Thread(() -> {
+    		for (int i = 1; i <= 20000; i++) {
+    			dao.update("race", String.valueOf(i));
+    		}
+    	});
+    	Thread renewer = new Thread(() -> {
+    		for (int i = 0; i < 20000; i++) {
+    			dao.updateTimeout("race", 120);
+    		}
+    	});
+    	updater.start();
+    	renewer.start();
+    	updater.join();
+    	renewer.join();
+    	Assertions.assertEquals(dao.get("race"), "20000");
+    	Assertions.assertTrue(dao.getTimeout("race") > 60);
+    	Assertions.assertEquals(dao.expireQueue.stream().filter(e -> e.key.equals("race")).count(), 1);
+    }
+
+}
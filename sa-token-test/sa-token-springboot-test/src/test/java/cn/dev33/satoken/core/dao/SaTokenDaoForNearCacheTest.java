@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.dao.SaNearCacheChannelForMemory;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.dao.SaTokenDaoForNearCache;
+import cn.dev33.satoken.dao.SaTokenDaoOperation;
+import cn.dev33.satoken.session.SaSession;
+
+/**
+ * SaTokenDaoForNearCache 近端缓存 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForNearCacheTest {
+
+	// 命中与未命中统计
+    @Test
+    public void hitAndMiss() {
+    	SaTokenDao remote = new SaTokenDaoDefaultImpl();
+    	remote.set("satoken:login:token:abc", "10001", 60);
+
+    	SaTokenDaoForNearCache dao = new SaTokenDaoForNearCache(remote);
+    	Assertions.assertEquals(dao.get("satoken:login:token:abc"), "10001");
+    	Assertions.assertEquals(dao.get("satoken:login:token:abc"), "10001");
+    	Assertions.assertEquals(dao.getMissCount(), 1);
+    	Assertions.assertEquals(dao.getHitCount(), 1);
+
+    	// 不存在的值不进入本地缓存
+    	Assertions.assertNull(dao.get("satoken:login:token:xyz"));
+    	Assertions.assertEquals(dao.getLocalSize(), 1);
+    }
+
+	// 写穿与本地同步
+    @Test
+    public void writeThrough() {
+    	SaTokenDao remote = new SaTokenDaoDefaultImpl();
+    	SaTokenDaoForNearCache dao = new SaTokenDaoForNearCache(remote);
+
+    	dao.set("name", "zhangsan", 60);
+    	Assertions.assertEquals(remote.get("name"), "zhangsan");
+    	Assertions.assertEquals(dao.get("name"), "zhangsan");
+    	Assertions.assertEquals(dao.getHitCount(), 1);
+
+    	dao.update("name", "lisi");
+    	Assertions.assertEquals(remote.get("name"), "lisi");
+    	Assertions.assertEquals(dao.get("name"), "lisi");
+
+    	dao.delete("name");
+    	Assertions.assertNull(remote.get("name"));
+    	Assertions.assertNull(dao.get("name"));
+
+    	// timeout=0 时不写入
+    	dao.set("age", "18", 0);
+    	Assertions.assertNull(dao.get("age"));
+    }
+
+	// SaSession 存取
+    @Test
+    public void session() {
+    	SaTokenDaoForNearCache dao = new SaTokenDaoForNearCache(new SaTokenDaoDefaultImpl());
+    	SaSession session = new SaSession("session-1001");
+    	session.set("name", "zhangsan");
+    	dao.setSession(session, 60);
+
+    	// 每次读取拿到的都是副本，修改副本不会影响本地缓存中的数据
+    	SaSession read1 = dao.getSession("session-1001");
+    	SaSession read2 = dao.getSession("session-1001");
+    	Assertions.assertNotSame(read1, session);
+    	Assertions.assertNotSame(read1, read2);
+    	Assertions.assertEquals(read1.get("name"), "zhangsan");
+    	read1.getDataMap().put("name", "lisi");
+    	Assertions.assertEquals(dao.getSession("session-1001").get("name"), "zhangsan");
+
+    	dao.deleteSession("session-1001");
+    	Assertions.assertNull(dao.getSession("session-1001"));
+    }
+
+	// 跨节点失效
+    @Test
+    public void invalidateAcrossNodes() {
+    	SaTokenDao remote = new SaTokenDaoDefaultImpl();
+    	SaNearCacheChannelForMemory channel = new SaNearCacheChannelForMemory();
+    	SaTokenDaoForNearCache node1 = new SaTokenDaoForNearCache(remote, channel);
+    	SaTokenDaoForNearCache node2 = new SaTokenDaoForNearCache(remote, channel);
+    	node1.init();
+    	node2.init();
+
+    	node1.set("satoken:login:token:abc", "10001", 60);
+    	Assertions.assertEquals(node2.get("satoken:login:token:abc"), "10001");
+
+    	// node1 修改后，node2 的本地缓存应被清除，再次读取时回源拿到新值（set、update 各广播一次）
+    	node1.update("satoken:login:token:abc", "-5");
+    	Assertions.assertEquals(node2.getInvalidateCount(), 2);
+    	Assertions.assertEquals(node1.getInvalidateCount(), 0);
+    	Assertions.assertEquals(node2.get("satoken:login:token:abc"), "-5");
+
+    	node1.delete("satoken:login:token:abc");
+    	Assertions.assertNull(node2.get("satoken:login:token:abc"));
+
+    	node1.destroy();
+    	node2.destroy();
+    	Assertions.assertEquals(channel.listenerList.size(), 0);
+    }
+
+	// 容量上限与本地过期
+    @Test
+    public void boundedAndExpire() throws InterruptedException {
+    	SaTokenDaoForNearCache dao = new SaTokenDaoForNearCache(new SaTokenDaoDefaultImpl()).setMaxSize(100);
+    	for (int i = 0; i < 300; i++) {
+    		dao.set("key-" + i, "value-" + i, 60);
+		}
+    	Assertions.assertTrue(dao.getLocalSize() <= 100);
+    	Assertions.assertTrue(dao.getEvictCount() > 0);
+    	Assertions.assertEquals(dao.get("key-0"), "value-0");
+
+    	dao.setLocalTimeout(50);
+    	dao.clearLocal();
+    	dao.get("key-1");
+    	Thread.sleep(100);
+    	dao.resetStats();
+    	dao.get("key-1");
+    	Assertions.assertEquals(dao.getMissCount(), 1);
+    }
+
+	// 回源写入本地缓存时，本地存活时间不超过远端剩余存活时间
+    @Test
+    public void localTimeoutCappedByRemote() throws InterruptedException {
+    	SaTokenDao remote = new SaTokenDaoDefaultImpl();
+    	remote.set("satoken:login:token:ttl", "10001", 1);
+
+    	SaTokenDaoForNearCache dao = new SaTokenDaoForNearCache(remote);
+    	Assertions.assertEquals(dao.get("satoken:login:token:ttl"), "10001");
+    	long expireTime = dao.localMap.get("satoken:login:token:ttl").expireTime;
+    	Assertions.assertTrue(expireTime <= System.currentTimeMillis() + 1000);
+    }
+
+	// 排除的 key 不进入本地缓存，写入时也不广播失效消息
+    @Test
+    public void excludeKeywords() {
+    	SaTokenDao remote = new SaTokenDaoDefaultImpl();
+    	SaNearCacheChannelForMemory channel = new SaNearCacheChannelForMemory();
+    	SaTokenDaoForNearCache node1 = new SaTokenDaoForNearCache(remote, channel);
+    	SaTokenDaoForNearCache node2 = new SaTokenDaoForNearCache(remote, channel);
+    	node1.init();
+    	node2.init();
+
+    	String key = "satoken:login:last-active:abc";
+    	node1.set(key, "1700000000000", 60);
+    	node1.update(key, "1700000000001");
+    	Assertions.assertEquals(node1.get(key), "1700000000001");
+    	Assertions.assertEquals(node1.getLocalSize(), 0);
+    	Assertions.assertEquals(node2.getInvalidateCount(), 0);
+
+    	node1.destroy();
+    	node2.destroy();
+    }
+
+	// 批量读写委托给远端，批量写入后每个受影响的 key 只失效、广播一次
+    @Test
+    public void batch() {
+    	SaTokenDao remote = new SaTokenDaoDefaultImpl();
+    	SaNearCacheChannelForMemory channel = new SaNearCacheChannelForMemory();
+    	SaTokenDaoForNearCache node1 = new SaTokenDaoForNearCache(remote, channel);
+    	SaTokenDaoForNearCache node2 = new SaTokenDaoForNearCache(remote, channel);
+    	node1.init();
+    	node2.init();
+
+    	remote.set("k1", "v1", 60);
+    	remote.set("k2", "v2", 60);
+    	Assertions.assertEquals(node2.get("k1"), "v1");
+    	Assertions.assertEquals(node2.getMulti(Arrays.asList("k1", "k2", "k3")), Arrays.asList("v1", "v2", null));
+    	Assertions.assertEquals(node2.getHitCount(), 1);
+
+    	node1.batch(Arrays.asList(
+    			SaTokenDaoOperation.set("k1", "v1-new", 60),
+    			SaTokenDaoOperation.updateTimeout("k1", 120),
+    			SaTokenDaoOperation.delete("k2")
+    	));
+    	Assertions.assertEquals(node2.getInvalidateCount(), 2);
+    	Assertions.assertEquals(node2.getMulti(Arrays.asList("k1", "k2")), Arrays.asList("v1-new", null));
+
+    	node2.get("k1");
+    	node1.batchAtomic(Arrays.asList(SaTokenDaoOperation.set("k1", "v1-atomic", 60)));
+    	Assertions.assertEquals(node2.get("k1"), "v1-atomic");
+
+    	node1.destroy();
+    	node2.destroy();
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.dao.SaScanResult;
+import cn.dev33.satoken.dao.SaTokenDaoForSearchIndex;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+
+/**
+ * SaTokenDaoForSearchIndex 前缀索引 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForSearchIndexTest {
+
+	// 按写入顺序正序、倒序分页
+    @Test
+    public void searchData() {
+    	SaTokenDaoForSearchIndex dao = new SaTokenDaoForSearchIndex();
+    	dao.set("satoken:login:token:a1", "10001", 60);
+    	dao.set("satoken:login:token:b2", "10002", 60);
+    	dao.set("satoken:login:session:10001", "s", 60);
+
+    	// 第一次搜索时建立索引，之后的写入同步进入索引
+    	Assertions.assertEquals(dao.searchData("satoken:login:token:", "", 0, -1, true), Arrays.asList("satoken:login:token:a1", "satoken:login:token:b2"));
+    	Assertions.assertEquals(dao.indexMap.size(), 1);
+    	dao.set("satoken:login:token:c3", "10003", 60);
+    	dao.set("satoken:login:token:d4", "10004", 60);
+
+    	Assertions.assertEquals(dao.searchData("satoken:login:token:", "", 1, 2, true), Arrays.asList("satoken:login:token:b2", "satoken:login:token:c3"));
+    	Assertions.assertEquals(dao.searchData("satoken:login:token:", "", 0, 2, false), Arrays.asList("satoken:login:token:d4", "satoken:login:token:c3"));
+    	Assertions.assertEquals(dao.searchData("satoken:login:token:", "b", 0, -1, true), Arrays.asList("satoken:login:token:b2"));
+
+    	// 覆盖写入保持原位置，删除、过期后从索引中移除
+    	dao.set("satoken:login:token:a1", "10001", 60);
+    	dao.delete("satoken:login:token:b2");
+    	dao.set("satoken:login:token:c3", "10003", -3);
+    	Assertions.assertEquals(dao.searchData("satoken:login:token:", "", 0, -1, true), Arrays.asList("satoken:login:token:a1", "satoken:login:token:c3", "satoken:login:token:d4"));
+    	dao.expireMap.put("satoken:login:token:c3", System.currentTimeMillis() - 1000);
+    	Assertions.assertEquals(dao.searchData("satoken:login:token:", "", 0, -1, true), Arrays.asList("satoken:login:token:a1", "satoken:login:token:d4"));
+    	Assertions.assertEquals(dao.indexMap.get("satoken:login:token:").size(), 2);
+
+    	// 关闭自动建立索引时，未注册的前缀回退到全量遍历
+    	dao.autoIndex = false;
+    	Assertions.assertEquals(dao.searchData("satoken:login:session:", "", 0, -1, true), Arrays.asList("satoken:login:session:10001"));
+    	Assertions.assertNull(dao.indexMap.get("satoken:login:session:"));
+    }
+
+	// 游标式搜索：以写入序号作为游标
+    @Test
+    public void scanData() {
+    	SaTokenDaoForSearchIndex dao = new SaTokenDaoForSearchIndex().addIndex("k:");
+    	for (int i = 0; i < 10; i++) {
+    		dao.set("k:" + i, "v", 60);
+    	}
+
+    	List<String> list = new ArrayList<>();
+    	SaScanResult result = dao.scanData("k:", "", null, 4);
+    	list.addAll(result.list);
+    	Assertions.assertEquals(result.list.size(), 4);
+    	dao.delete("k:4");
+    	while ( ! result.isFinished()) {
+    		result = dao.scanData("k:", "", result.cursor, 4);
+    		list.addAll(result.list);
+    	}
+    	Assertions.assertEquals(list, Arrays.asList("k:0", "k:1", "k:2", "k:3", "k:5", "k:6", "k:7", "k:8", "k:9"));
+
+    	// 无效游标
+    	SaTokenException e = Assertions.assertThrows(SaTokenException.class, () -> dao.scanData("k:", "", "abc", 4));
+    	Assertions.assertEquals(e.getCode(), SaErrorCode.CODE_12501);
+    	Assertions.assertThrows(SaTokenException.class, () -> dao.scanData("k:", "", "-1", 4));
+    }
+
+	// 只为属于索引前缀的 key 分配写入序号
+    @Test
+    public void sequenceOnlyForIndexedKeys() {
+    	SaTokenDaoForSearchIndex dao = new SaTokenDaoForSearchIndex().addIndex("k:");
+    	dao.set("k:1", "v", 60);
+    	dao.set("other:1", "v", 60);
+    	Assertions.assertTrue(dao.sequenceMap.containsKey("k:1"));
+    	Assertions.assertFalse(dao.sequenceMap.containsKey("other:1"));
+
+    	// 之后建立的索引会补齐已存在的 key
+    	dao.addIndex("other:");
+    	Assertions.assertTrue(dao.sequenceMap.containsKey("other:1"));
+    	Assertions.assertEquals(dao.searchData("other:", "", 0, -1, true), Arrays.asList("other:1"));
+    }
+
+}
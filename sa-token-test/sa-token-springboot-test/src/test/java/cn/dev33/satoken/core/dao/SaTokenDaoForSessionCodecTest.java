@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.dao.SaTokenDaoForSessionCodec;
+import cn.dev33.satoken.dao.SaTokenDaoOperation;
+import cn.dev33.satoken.dao.SaTokenDaoPipeline;
+import cn.dev33.satoken.session.SaSession;
+
+/**
+ * SaTokenDaoForSessionCodec 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoForSessionCodecTest {
+
+	static SaSession newSession(String id) {
+		SaSession session = new SaSession();
+		session.setId(id);
+		session.setLoginId(10001);
+		session.set("name", "张三");
+		return session;
+	}
+
+	// Session 读写
+    @Test
+    public void session() {
+    	SaTokenDaoDefaultImpl target = new SaTokenDaoDefaultImpl();
+    	SaTokenDao dao = new SaTokenDaoForSessionCodec(target);
+
+    	dao.setSession(newSession("s1"), 60);
+    	// 底层存储的是编码后的字符串
+    	Assertions.assertTrue(target.get("s1") instanceof String);
+
+    	SaSession s = dao.getSession("s1");
+    	Assertions.assertEquals(s.getLoginId(), 10001);
+    	Assertions.assertEquals(s.get("name"), "张三");
+    	Assertions.assertTrue(dao.getSessionTimeout("s1") > 50);
+
+    	s.set("age", 18);
+    	dao.updateSession(s);
+    	Assertions.assertEquals(dao.getSession("s1").get("age"), 18);
+
+    	dao.updateSessionTimeout("s1", 120);
+    	Assertions.assertTrue(dao.getSessionTimeout("s1") > 110);
+
+    	dao.deleteSession("s1");
+    	Assertions.assertNull(dao.getSession("s1"));
+    	Assertions.assertEquals(dao.getSessionTimeout("s1"), SaTokenDao.NOT_VALUE_EXPIRE);
+
+    	// 其它数据原样委托
+    	dao.set("k1", "v1", 60);
+    	dao.setObject("k2", 2, 60);
+    	Assertions.assertEquals(dao.get("k1"), "v1");
+    	Assertions.assertEquals(dao.getObject("k2"), 2);
+    }
+
+    // 兼容旧格式的数据
+    @Test
+    public void legacy() {
+    	SaTokenDaoDefaultImpl target = new SaTokenDaoDefaultImpl();
+    	SaTokenDao dao = new SaTokenDaoForSessionCodec(target);
+
+    	target.setSession(newSession("s2"), 60);
+    	SaSession s = dao.getSession("s2");
+    	Assertions.assertEquals(s.get("name"), "张三");
+
+    	// 再次写入后转换为新格式
+    	dao.updateSession(s);
+    	Assertions.assertTrue(target.getObject("s2") instanceof String);
+    	Assertions.assertEquals(dao.getSession("s2").get("name"), "张三");
+    }
+
+    // 管道作用域与批量写操作
+    @Test
+    public void pipeline() {
+    	SaTokenDaoDefaultImpl target = new SaTokenDaoDefaultImpl();
+    	SaTokenDao dao = new SaTokenDaoForSessionCodec(target);
+
+    	try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+    		pipeline.setSession(newSession("s3"), 60);
+    		Assertions.assertNull(target.get("s3"));
+    		Assertions.assertEquals(pipeline.getSession("s3").get("name"), "张三");
+    	}
+    	Assertions.assertTrue(target.getObject("s3") instanceof String);
+    	Assertions.assertEquals(dao.getSession("s3").get("name"), "张三");
+
+    	List<SaTokenDaoOperation> operations = Arrays.asList(
+    			SaTokenDaoOperation.setObject("s4", newSession("s4"), 60),
+    			SaTokenDaoOperation.set("k4", "v4", 60)
+    	);
+    	dao.batch(operations);
+    	Assertions.assertTrue(target.getObject("s4") instanceof String);
+    	Assertions.assertEquals(dao.getSession("s4").getLoginId(), 10001);
+    	Assertions.assertEquals(dao.get("k4"), "v4");
+    }
+
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.dao.SaTokenDaoOperation;
+import cn.dev33.satoken.dao.SaTokenDaoPipeline;
+import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.listener.SaTokenListener;
+import cn.dev33.satoken.listener.SaTokenListenerForSimple;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.StpLogic;
+import cn.dev33.satoken.stp.StpUtil;
+
+/**
+ * SaTokenDao 批量操作与管道作用域 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoPipelineTest {
+
+	// 记录 batch 调用次数的持久层
+	static class CountDao extends SaTokenDaoDefaultImpl {
+		int batchCount;
+		int operationCount;
+		@Override
+		public void batch(List<SaTokenDaoOperation> operations) {
+			batchCount++;
+			operationCount += operations.size();
+			super.batch(operations);
+		}
+		int batchAtomicCount;
+		@Override
+		public void batchAtomic(List<SaTokenDaoOperation> operations) {
+			batchAtomicCount++;
+			super.batchAtomic(operations);
+		}
+	}
+
+	// 支持字段级操作的持久层：记录提交的操作
+	static class FieldDao extends CountDao {
+		List<SaTokenDaoOperation> operations = new ArrayList<>();
+		@Override
+		public void batch(List<SaTokenDaoOperation> operations) {
+			this.operations.addAll(operations);
+			super.batch(operations);
+		}
+		@Override
+		public boolean supportSessionFieldOperation() {
+			return true;
+		}
+	}
+
+	// 批量操作的默认实现
+    @Test
+    public void multi() {
+    	SaTokenDao dao = new SaTokenDaoDefaultImpl();
+    	Map<String, String> map = new LinkedHashMap<>();
+    	map.put("k1", "v1");
+    	map.put("k2", "v2");
+    	dao.setMulti(map, 60);
+    	dao.setObject("k3", 3, 60);
+
+    	Assertions.assertEquals(dao.getMulti(Arrays.asList("k1", "k2", "k4")), Arrays.asList("v1", "v2", null));
+    	Assertions.assertEquals(dao.getObjectMulti(Arrays.asList("k3")).get(0), 3);
+
+    	// 每个 key 可指定各自的存活时间
+    	dao.batch(Arrays.asList(
+    			SaTokenDaoOperation.set("k5", "v5", SaTokenDao.NEVER_EXPIRE),
+    			SaTokenDaoOperation.updateTimeout("k1", 120),
+    			SaTokenDaoOperation.deleteObject("k3")
+    	));
+    	Assertions.assertEquals(dao.getTimeout("k5"), SaTokenDao.NEVER_EXPIRE);
+    	Assertions.assertTrue(dao.getTimeout("k1") > 60);
+    	Assertions.assertNull(dao.getObject("k3"));
+
+    	dao.deleteMulti(Arrays.asList("k1", "k2"));
+    	Assertions.assertNull(dao.get("k1"));
+    	Assertions.assertNull(dao.get("k2"));
+    }
+
+	// 管道作用域：写操作暂存、读己之写、关闭时一次性提交
+    @Test
+    public void pipeline() {
+    	CountDao dao = new CountDao();
+    	dao.set("k1", "v1", 60);
+
+    	try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+    		pipeline.set("k2", "v2", 60);
+    		pipeline.update("k1", "v1-new");
+    		pipeline.update("k9", "v9");
+    		pipeline.delete("k1");
+    		pipeline.set("k1", "v1-again", 30);
+
+    		// 作用域内可以读到暂存的数据，底层持久层尚未写入
+    		Assertions.assertEquals(pipeline.get("k1"), "v1-again");
+    		Assertions.assertEquals(pipeline.getTimeout("k1"), 30);
+    		Assertions.assertEquals(pipeline.getMulti(Arrays.asList("k1", "k2")), Arrays.asList("v1-again", "v2"));
+    		Assertions.assertNull(pipeline.get("k9"));
+    		Assertions.assertNull(dao.get("k2"));
+    		Assertions.assertEquals(dao.get("k1"), "v1");
+
+    		// 同一个 key 只保留最后一次写操作（update 暂存为 UPDATE 操作，不读取剩余存活时间，提交时 k9 不存在则不生效）
+    		Assertions.assertEquals(pipeline.getPendingSize(), 3);
+
+    		// 嵌套作用域加入外层作用域
+    		try (SaTokenDaoPipeline inner = dao.openPipeline()) {
+    			Assertions.assertSame(inner, pipeline);
+    			inner.updateTimeout("k2", SaTokenDao.NEVER_EXPIRE);
+    		}
+    		Assertions.assertEquals(dao.batchCount, 0);
+    	}
+
+    	Assertions.assertEquals(dao.batchCount, 1);
+    	Assertions.assertEquals(dao.operationCount, 3);
+    	Assertions.assertEquals(dao.get("k1"), "v1-again");
+    	Assertions.assertNull(dao.get("k9"));
+    	Assertions.assertEquals(dao.getTimeout("k2"), SaTokenDao.NEVER_EXPIRE);
+    	Assertions.assertNull(SaTokenDaoPipeline.current());
+    }
+
+	// 管道作用域：update 暂存为 UPDATE 操作，提交时保持底层持久层当前的剩余存活时间
+    @Test
+    public void pipelineUpdate() {
+    	FieldDao dao = new FieldDao();
+    	dao.set("k1", "v1", 60);
+    	dao.setObject("o1", 1, 60);
+
+    	try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+    		pipeline.update("k1", "v1-new");
+    		pipeline.updateObject("o1", 2);
+    		pipeline.update("k9", "v9");
+    		Assertions.assertEquals(pipeline.get("k1"), "v1-new");
+    		Assertions.assertEquals(pipeline.getObject("o1"), 2);
+    		Assertions.assertNull(pipeline.get("k9"));
+    		Assertions.assertEquals(pipeline.getMulti(Arrays.asList("k1", "k9")), Arrays.asList("v1-new", null));
+    		Assertions.assertEquals(pipeline.getObjectMulti(Arrays.asList("o1")).get(0), 2);
+    		Assertions.assertFalse(pipeline.deleteIfEquals("k9", "v9"));
+    		Assertions.assertEquals(dao.get("k1"), "v1");
+
+    		// 暂存之后、提交之前，其它线程修改了剩余存活时间，提交时不会被覆盖
+    		dao.updateTimeout("k1", 300);
+    	}
+    	Assertions.assertEquals(dao.operations.get(0).type, SaTokenDaoOperation.Type.UPDATE);
+    	Assertions.assertEquals(dao.get("k1"), "v1-new");
+    	Assertions.assertTrue(dao.getTimeout("k1") > 200);
+    	Assertions.assertEquals(dao.getObject("o1"), 2);
+    	Assertions.assertNull(dao.get("k9"));
+
+    	// UPDATE 之后再修改存活时间，合并为一次 SET；key 不存在时不做处理
+    	try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+    		pipeline.update("k1", "v1-again");
+    		pipeline.updateTimeout("k1", 30);
+    		pipeline.update("k9", "v9");
+    		pipeline.updateTimeout("k9", 30);
+    		Assertions.assertEquals(pipeline.getTimeout("k1"), 30);
+    	}
+    	Assertions.assertEquals(dao.get("k1"), "v1-again");
+    	Assertions.assertTrue(dao.getTimeout("k1") <= 30);
+    	Assertions.assertNull(dao.get("k9"));
+    }
+
+	// 原子管道作用域：通过 batchAtomic 提交，discard 后不提交任何写操作
+    @Test
+    public void atomicPipeline() {
+    	CountDao dao = new CountDao();
+    	try (SaTokenDaoPipeline pipeline = dao.openAtomicPipeline()) {
+    		pipeline.set("k1", "v1", 60);
+    		pipeline.setObject("k2", 2, 60);
+    	}
+    	Assertions.assertEquals(dao.batchAtomicCount, 1);
+    	Assertions.assertEquals(dao.get("k1"), "v1");
+    	Assertions.assertEquals(dao.getObject("k2"), 2);
+
+    	// 加入普通作用域时，将其升级为原子提交
+    	dao.batchAtomicCount = 0;
+    	try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+    		pipeline.delete("k1");
+    		try (SaTokenDaoPipeline inner = dao.openAtomicPipeline()) {
+    			Assertions.assertSame(inner, pipeline);
+    		}
+    	}
+    	Assertions.assertEquals(dao.batchAtomicCount, 1);
+    	Assertions.assertNull(dao.get("k1"));
+
+    	// 放弃暂存的写操作
+    	dao.batchCount = 0;
+    	dao.batchAtomicCount = 0;
+    	try (SaTokenDaoPipeline pipeline = dao.openAtomicPipeline()) {
+    		pipeline.set("k3", "v3", 60);
+    		pipeline.discard();
+    	}
+    	Assertions.assertEquals(dao.batchAtomicCount, 0);
+    	Assertions.assertEquals(dao.batchCount, 0);
+    	Assertions.assertNull(dao.get("k3"));
+    }
+
+	// SaManager 在作用域内返回管道对象，SaSession 的写操作同样被暂存
+    @Test
+    public void pipelineSession() {
+    	CountDao dao = new CountDao();
+    	SaTokenDao old = SaManager.getSaTokenDao();
+    	SaManager.setSaTokenDao(dao);
+    	try {
+    		dao.pipeline(() -> {
+    			Assertions.assertTrue(SaManager.getSaTokenDao() instanceof SaTokenDaoPipeline);
+    			SaSession session = new SaSession("session-1001");
+    			SaManager.getSaTokenDao().setSession(session, 60);
+    			session.set("name", "zhangsan");
+    			session.set("age", 18);
+    			Assertions.assertNull(dao.getSession("session-1001"));
+    		});
+    		Assertions.assertSame(SaManager.getSaTokenDao(), dao);
+    		Assertions.assertEquals(dao.operationCount, 1);
+    		Assertions.assertEquals(dao.getSession("session-1001").get("age"), 18);
+
+    		// 登录、注销各自只提交一次
+    		dao.batchCount = 0;
+    		String token = StpUtil.createLoginSession(10001);
+    		Assertions.assertEquals(dao.batchCount, 1);
+    		Assertions.assertEquals(StpUtil.getLoginIdByToken(token), "10001");
+
+    		dao.batchCount = 0;
+    		StpUtil.logout(10001);
+    		Assertions.assertEquals(dao.batchCount, 1);
+    		Assertions.assertNull(StpUtil.getLoginIdByToken(token));
+    		Assertions.assertNull(StpUtil.getSessionByLoginId(10001, false));
+    	} finally {
+    		SaManager.setSaTokenDao(old);
+    	}
+    }
+
+	// 持久层支持字段级操作时，管道作用域内对 SaSession 单个字段的修改按字段合并提交
+    @Test
+    public void pipelineSessionField() {
+    	FieldDao dao = new FieldDao();
+    	SaTokenDao old = SaManager.getSaTokenDao();
+    	SaManager.setSaTokenDao(dao);
+    	try {
+    		SaSession session = new SaSession("session-field-1");
+    		dao.setSession(session, 60);
+    		try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+    			session.set("name", "zhang");
+    			session.set("age", 18);
+    			session.delete("age");
+    			session.addTokenSign("token-1", "PC");
+    			Assertions.assertEquals(pipeline.getPendingSize(), 1);
+    			Assertions.assertSame(pipeline.getSession("session-field-1"), session);
+    			Assertions.assertEquals(pipeline.getSessionTimeout("session-field-1"), dao.getSessionTimeout("session-field-1"));
+    		}
+    		Assertions.assertEquals(dao.batchCount, 1);
+    		Assertions.assertEquals(dao.operations.size(), 1);
+    		SaTokenDaoOperation op = dao.operations.get(0);
+    		Assertions.assertEquals(op.type, SaTokenDaoOperation.Type.SESSION_FIELD);
+    		Assertions.assertEquals(op.key, "session-field-1");
+    		Assertions.assertEquals(new ArrayList<>(op.fieldMap.keySet()), Arrays.asList("#name", "#age", "$tokenSignList"));
+    		Assertions.assertEquals(op.fieldMap.get("#name"), "zhang");
+    		Assertions.assertNull(op.fieldMap.get("#age"));
+    		Assertions.assertEquals(dao.getSession("session-field-1").get("name"), "zhang");
+
+    		// 同时修改存活时间：合并为整体写入
+    		dao.operations.clear();
+    		try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+    			session.set("name", "li");
+    			pipeline.updateSessionTimeout("session-field-1", 120);
+    		}
+    		Assertions.assertEquals(dao.operations.size(), 1);
+    		Assertions.assertEquals(dao.operations.get(0).type, SaTokenDaoOperation.Type.SET);
+    		Assertions.assertEquals(dao.operations.get(0).timeout, 120);
+    		Assertions.assertEquals(dao.getSession("session-field-1").get("name"), "li");
+
+    		// 已暂存删除：字段修改不再生效
+    		dao.operations.clear();
+    		try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+    			pipeline.deleteSession("session-field-1");
+    			session.set("name", "wang");
+    		}
+    		Assertions.assertEquals(dao.operations.size(), 1);
+    		Assertions.assertEquals(dao.operations.get(0).type, SaTokenDaoOperation.Type.DELETE);
+    		Assertions.assertNull(dao.getSession("session-field-1"));
+    	} finally {
+    		SaManager.setSaTokenDao(old);
+    	}
+    }
+
+	// 暂存中有 DELETE 时，setIfAbsent 先提交这个 DELETE，再在底层持久层上原子执行
+    @Test
+    public void setIfAbsentAfterDelete() {
+    	CountDao dao = new CountDao();
+    	dao.set("lock", "old", 60);
+    	try (SaTokenDaoPipeline pipeline = SaTokenDaoPipeline.open(dao)) {
+    		pipeline.delete("lock");
+    		Assertions.assertEquals(dao.get("lock"), "old");
+
+    		Assertions.assertTrue(pipeline.setIfAbsent("lock", "a", 60));
+    		Assertions.assertEquals(dao.get("lock"), "a");
+
+    		// 其它节点此时抢占同一个 key 会失败
+    		Assertions.assertFalse(dao.setIfAbsent("lock", "b", 60));
+    		Assertions.assertFalse(pipeline.setIfAbsent("lock", "c", 60));
+    		Assertions.assertEquals(pipeline.getPendingSize(), 0);
+    	}
+    	Assertions.assertEquals(dao.get("lock"), "a");
+    }
+
+	// afterCommit 回调在最外层作用域提交后执行，discard 时一并放弃
+    @Test
+    public void afterCommit() {
+    	CountDao dao = new CountDao();
+    	List<String> list = new ArrayList<>();
+    	try (SaTokenDaoPipeline pipeline = SaTokenDaoPipeline.open(dao)) {
+    		pipeline.set("k1", "v1", 60);
+    		try (SaTokenDaoPipeline inner = SaTokenDaoPipeline.open(dao)) {
+    			inner.afterCommit(() -> list.add("inner:" + dao.get("k1")));
+    		}
+    		Assertions.assertTrue(list.isEmpty());
+    	}
+    	Assertions.assertEquals(list, Arrays.asList("inner:v1"));
+
+    	list.clear();
+    	try (SaTokenDaoPipeline pipeline = SaTokenDaoPipeline.open(dao)) {
+    		pipeline.set("k2", "v2", 60);
+    		pipeline.afterCommit(() -> list.add("k2"));
+    		pipeline.discard();
+    	}
+    	Assertions.assertTrue(list.isEmpty());
+    	Assertions.assertNull(dao.get("k2"));
+    }
+
+	// 注销事件在写操作提交之后发布，中途抛出异常时放弃已暂存的写操作
+    @Test
+    public void logoutEventAfterCommit() {
+    	CountDao dao = new CountDao();
+    	SaTokenDao old = SaManager.getSaTokenDao();
+    	SaManager.setSaTokenDao(dao);
+    	List<String> list = new ArrayList<>();
+    	SaTokenListener listener = new SaTokenListenerForSimple() {
+    		@Override
+    		public void doLogout(String loginType, Object loginId, String tokenValue) {
+    			list.add(tokenValue + ":" + (SaTokenDaoPipeline.current() == null) + ":" + StpUtil.getLoginIdByToken(tokenValue));
+    		}
+    	};
+    	SaTokenEventCenter.registerListener(listener);
+    	try {
+    		String token = StpUtil.createLoginSession(10002);
+    		StpUtil.logout(10002);
+    		Assertions.assertEquals(list, Arrays.asList(token + ":true:null"));
+
+    		// 注销过程中抛出异常：不发布事件，也不提交一半的数据
+    		list.clear();
+    		StpLogic stpLogic = new StpLogic("login-discard") {
+    			@Override
+    			public void deleteTokenSession(String tokenValue) {
+    				throw new IllegalStateException("mock error");
+    			}
+    		};
+    		String token2 = stpLogic.createLoginSession(10002);
+    		Assertions.assertThrows(IllegalStateException.class, () -> stpLogic.logout(10002));
+    		Assertions.assertTrue(list.isEmpty());
+    		Assertions.assertEquals(stpLogic.getLoginIdByToken(token2), "10002");
+    	} finally {
+    		SaManager.removeStpLogic("login-discard");
+    		SaTokenEventCenter.removeListener(listener);
+    		SaManager.setSaTokenDao(old);
+    	}
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.dao;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaScanResult;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.stp.StpUtil;
+
+/**
+ * SaTokenDao 游标式搜索 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaTokenDaoScanTest {
+
+	// 默认实现：以偏移量作为游标，逐页获取
+    @Test
+    public void scanData() {
+    	SaTokenDao dao = new SaTokenDaoDefaultImpl();
+    	for (int i = 0; i < 25; i++) {
+    		dao.set("scan:" + i, "v", 60);
+    	}
+    	dao.set("other:1", "v", 60);
+
+    	Set<String> keys = new HashSet<>();
+    	String cursor = null;
+    	int pages = 0;
+    	do {
+    		SaScanResult result = dao.scanData("scan:", "", cursor, 10);
+    		keys.addAll(result.getList());
+    		cursor = result.getCursor();
+    		pages++;
+    	} while ( ! SaScanResult.isStartCursor(cursor));
+    	Assertions.assertEquals(keys.size(), 25);
+    	Assertions.assertEquals(pages, 3);
+
+    	// 惰性迭代器
+    	Iterator<String> iterator = dao.scanIterator("scan:", "1", 4);
+    	List<String> list = new ArrayList<>();
+    	iterator.forEachRemaining(list::add);
+    	Assertions.assertEquals(list.size(), 12);
+    	Assertions.assertFalse(iterator.hasNext());
+    }
+
+	// StpLogic 的游标式分页：每页凑满 size 条，直至 cursor 为 null
+    @Test
+    public void searchTokenValue() {
+    	SaTokenDao old = SaManager.getSaTokenDao();
+    	SaManager.setSaTokenDao(new SaTokenDaoDefaultImpl());
+    	try {
+    		for (int i = 0; i < 7; i++) {
+    			StpUtil.createLoginSession(20000 + i);
+    		}
+
+    		SaScanResult page1 = StpUtil.searchTokenValue("", null, 5);
+    		Assertions.assertEquals(page1.getList().size(), 5);
+    		Assertions.assertFalse(page1.isFinished());
+
+    		SaScanResult page2 = StpUtil.searchTokenValue("", page1.getCursor(), 5);
+    		Assertions.assertEquals(page2.getList().size(), 2);
+    		Assertions.assertTrue(page2.isFinished());
+
+    		Set<String> all = new HashSet<>(page1.getList());
+    		all.addAll(page2.getList());
+    		Assertions.assertEquals(all.size(), 7);
+
+    		Assertions.assertEquals(StpUtil.searchSessionId("", null, 100).getList().size(), 7);
+    		Assertions.assertTrue(StpUtil.searchSessionId("", null, 100).isFinished());
+    	} finally {
+    		SaManager.setSaTokenDao(old);
+    	}
+    }
+
+	// Redis 集群模式下的游标：<分片槽位>:<此分片上的 SCAN 游标>
+    @Test
+    public void clusterCursor() {
+    	String cursor = SaScanResult.toClusterCursor(5461, "1792");
+    	Assertions.assertEquals(cursor, "5461:1792");
+    	Assertions.assertEquals(SaScanResult.parseClusterSlot(cursor), 5461);
+    	Assertions.assertEquals(SaScanResult.parseClusterNodeCursor(cursor), "1792");
+
+    	// 分片的第一页
+    	SaScanResult result = new SaScanResult(null, SaScanResult.toClusterCursor(0, SaScanResult.START_CURSOR));
+    	Assertions.assertFalse(result.isFinished());
+    	Assertions.assertEquals(SaScanResult.parseClusterSlot(result.getCursor()), 0);
+    	Assertions.assertEquals(SaScanResult.parseClusterNodeCursor(result.getCursor()), "0");
+
+    	for (String invalid : new String[]{ "abc", "5461", ":12", "5461:", "a:1", "1:b", "123456:1" }) {
+    		SaTokenException e = Assertions.assertThrows(SaTokenException.class, () -> SaScanResult.parseClusterSlot(invalid));
+    		Assertions.assertEquals(e.getCode(), SaErrorCode.CODE_12501);
+    	}
+
+    	// 偏移量游标
+    	Assertions.assertEquals(SaScanResult.parseOffset(null), 0);
+    	Assertions.assertEquals(SaScanResult.parseOffset("20"), 20);
+    	Assertions.assertEquals(Assertions.assertThrows(SaTokenException.class, () -> SaScanResult.parseOffset("abc")).getCode(), SaErrorCode.CODE_12501);
+    	Assertions.assertEquals(Assertions.assertThrows(SaTokenException.class, () -> SaScanResult.parseOffset("-1")).getCode(), SaErrorCode.CODE_12501);
+    }
+
+	// 每页数量必须大于 0
+    @Test
+    public void searchSizeMustBePositive() {
+    	SaTokenException e = Assertions.assertThrows(SaTokenException.class, () -> StpUtil.searchTokenValue("", null, 0));
+    	Assertions.assertEquals(e.getCode(), SaErrorCode.CODE_12502);
+    	Assertions.assertThrows(SaTokenException.class, () -> StpUtil.searchSessionId("", null, -1));
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.http.SaHttpTemplateDefaultImpl;
+import cn.dev33.satoken.json.SaJsonTemplate;
+import cn.dev33.satoken.json.SaJsonTemplateDefaultImpl;
+import cn.dev33.satoken.spring.json.SaJsonTemplateForJackson;
+import cn.dev33.satoken.sso.SaSsoTemplate;
+import cn.dev33.satoken.util.SaResult;
+
+/**
+ * Http 请求处理器 测试（使用进程内的 Http 服务端）
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaHttpTemplateTest {
+
+	static HttpServer server;
+	static String baseUrl;
+	static SaJsonTemplate oldJsonTemplate;
+
+	// 服务端记录的客户端端口，端口相同代表复用了同一个连接 
+	static Set<Integer> remotePorts = ConcurrentHashMap.newKeySet();
+
+	// 放行 /slow 请求 
+	static CountDownLatch slowLatch = new CountDownLatch(1);
+
+	@BeforeAll
+	public static void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/json", exchange -> {
+			remotePorts.add(exchange.getRemoteAddress().getPort());
+			write(exchange, 200, "{\"code\":200,\"msg\":\"ok\",\"data\":\"" + exchange.getRequestURI().getQuery() + "\"}");
+		});
+		server.createContext("/error", exchange -> write(exchange, 500, "server error"));
+		server.createContext("/slow", exchange -> {
+			try {
+				slowLatch.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			write(exchange, 200, "slow");
+		});
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+		oldJsonTemplate = SaManager.getSaJsonTemplate();
+		SaManager.setSaJsonTemplate(new SaJsonTemplateForJackson());
+	}
+
+	@AfterAll
+	public static void stop() {
+		server.stop(0);
+		SaManager.setSaJsonTemplate(oldJsonTemplate);
+	}
+
+	// 同步请求，同一主机复用连接 
+	@Test
+	public void get() {
+		SaHttpTemplateDefaultImpl http = new SaHttpTemplateDefaultImpl();
+		remotePorts.clear();
+		for (int i = 0; i < 5; i++) {
+			Map<String, Object> map = http.getForMap(baseUrl + "/json?n=" + i);
+			Assertions.assertEquals(map.get("data"), "n=" + i);
+		}
+		Assertions.assertEquals(http.get(baseUrl + "/json?n=x"), "{\"code\":200,\"msg\":\"ok\",\"data\":\"n=x\"}");
+		Assertions.assertEquals(remotePorts.size(), 1);
+
+		// 非 2xx 状态码，之后的请求不受影响 
+		SaTokenException e = Assertions.assertThrows(SaTokenException.class, () -> http.get(baseUrl + "/error"));
+		Assertions.assertEquals(e.getCode(), SaErrorCode.CODE_12302);
+		Assertions.assertEquals(http.getForMap(baseUrl + "/json?n=y").get("data"), "n=y");
+	}
+
+	// 异步请求 
+	@Test
+	public void async() {
+		SaHttpTemplateDefaultImpl http = new SaHttpTemplateDefaultImpl().setAsyncThreads(2);
+		Assertions.assertEquals(http.getForMapAsync(baseUrl + "/json?n=1").join().get("data"), "n=1");
+		Assertions.assertTrue(http.getAsync(baseUrl + "/json?n=2").join().contains("n=2"));
+	}
+
+	// 异步等待队列已满时直接以异常结束，不会无限堆积 
+	@Test
+	public void asyncQueueFull() {
+		SaHttpTemplateDefaultImpl http = new SaHttpTemplateDefaultImpl().setAsyncThreads(1).setAsyncQueueSize(1);
+		CompletableFuture<String> f1 = http.getAsync(baseUrl + "/slow");
+		CompletableFuture<String> f2 = http.getAsync(baseUrl + "/slow");
+		CompletableFuture<String> f3 = http.getAsync(baseUrl + "/slow");
+		CompletionException e = Assertions.assertThrows(CompletionException.class, f3::join);
+		Assertions.assertEquals(((SaTokenException) e.getCause()).getCode(), SaErrorCode.CODE_12301);
+		slowLatch.countDown();
+		Assertions.assertEquals(f1.join(), "slow");
+		Assertions.assertEquals(f2.join(), "slow");
+	}
+
+	// 从输入流读取 JSON 失败时使用 JSON 专属的错误码 
+	@Test
+	public void parseJsonStreamError() {
+		InputStream in = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("broken stream");
+			}
+		};
+		SaJsonTemplate jsonTemplate = new SaJsonTemplateDefaultImpl();
+		SaTokenException e = Assertions.assertThrows(SaTokenException.class, () -> jsonTemplate.parseJsonToMap(in, StandardCharsets.UTF_8));
+		Assertions.assertEquals(e.getCode(), SaErrorCode.CODE_10004);
+	}
+
+	// SSO 模块默认通过 SaHttpTemplate 发送请求 
+	@Test
+	public void sso() {
+		SaSsoTemplate template = new SaSsoTemplate();
+		SaResult result = template.request(baseUrl + "/json?n=sso");
+		Assertions.assertEquals(result.getCode(), 200);
+		Assertions.assertEquals(result.getData(), "n=sso");
+		Assertions.assertEquals(template.requestAsync(baseUrl + "/json?n=async").join().getData(), "n=async");
+	}
+
+	static void write(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.lock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.dao.SaTokenDaoForExpireQueue;
+import cn.dev33.satoken.dao.SaTokenDaoForSearchIndex;
+import cn.dev33.satoken.dao.SaTokenDaoPipeline;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.lock.SaAccountLockDefaultImpl;
+import cn.dev33.satoken.lock.SaAccountLockForDao;
+import cn.dev33.satoken.lock.SaAccountLockScope;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.TokenSign;
+import cn.dev33.satoken.stp.SaLoginModel;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * 账号会话锁 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaAccountLockTest {
+
+	// 同一账号并发登录，token 签名不丢失，且在线数量不超过 maxLoginCount
+	@Test
+	public void concurrentLogin() throws Exception {
+		StpLogic stpLogic = new StpLogic("lock-test");
+		stpLogic.setConfig(new SaTokenConfig().setIsConcurrent(true).setIsShare(false).setMaxLoginCount(5));
+
+		int threadCount = 8;
+		int loopCount = 20;
+		List<String> tokenList = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch end = new CountDownLatch(threadCount);
+		for (int i = 0; i < threadCount; i++) {
+			new Thread(() -> {
+				try {
+					start.await();
+					for (int j = 0; j < loopCount; j++) {
+						tokenList.add(stpLogic.createLoginSession(10201, new SaLoginModel()));
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					end.countDown();
+				}
+			}).start();
+		}
+		start.countDown();
+		end.await();
+		Assertions.assertEquals(threadCount * loopCount, tokenList.size());
+
+		// Account-Session 上恰好保留 5 个签名，且每个签名对应的 token 都仍然有效
+		SaSession session = stpLogic.getSessionByLoginId(10201, false);
+		List<TokenSign> signList = session.getTokenSignList();
+		Assertions.assertEquals(5, signList.size());
+		for (TokenSign sign : signList) {
+			Assertions.assertEquals("10201", stpLogic.getLoginIdNotHandle(sign.getValue()));
+		}
+
+		// 其余 token 全部被注销，不存在游离在签名列表之外的有效 token
+		int validCount = 0;
+		for (String token : tokenList) {
+			if("10201".equals(stpLogic.getLoginIdNotHandle(token))) {
+				validCount++;
+			}
+		}
+		Assertions.assertEquals(5, validCount);
+
+		stpLogic.logout(10201);
+		Assertions.assertNull(stpLogic.getSessionByLoginId(10201, false));
+	}
+
+	// 分段锁可重入，且持有期间其它线程无法获取同一账号的锁
+	@Test
+	public void defaultImplReentrant() throws Exception {
+		SaAccountLockDefaultImpl lock = new SaAccountLockDefaultImpl(16);
+		Assertions.assertEquals(16, lock.stripes.length);
+		Assertions.assertSame(lock.getStripe("login", 10001), lock.getStripe("login", "10001"));
+
+		try (SaAccountLockScope outer = lock.lock("login", 10001)) {
+			try (SaAccountLockScope inner = lock.lock("login", "10001")) {
+				Assertions.assertEquals(2, lock.getStripe("login", 10001).getHoldCount());
+				Assertions.assertEquals(2, lock.getHoldCount("login", 10001));
+			}
+			Assertions.assertFalse(tryLockInOtherThread(lock.getStripe("login", 10001)));
+		}
+		Assertions.assertTrue(tryLockInOtherThread(lock.getStripe("login", 10001)));
+	}
+
+	// 基于持久层的锁：重入时只写一次锁标记，最外层释放后删除
+	@Test
+	public void daoLockReentrant() {
+		SaAccountLockForDao lock = new SaAccountLockForDao();
+		String key = lock.splicingLockKey("login", 10002);
+
+		try (SaAccountLockScope outer = lock.lock("login", 10002)) {
+			String owner = SaManager.getSaTokenDao().get(key);
+			Assertions.assertNotNull(owner);
+			try (SaAccountLockScope inner = lock.lock("login", 10002)) {
+				Assertions.assertEquals(owner, SaManager.getSaTokenDao().get(key));
+				Assertions.assertEquals(2, lock.getHoldCount("login", 10002));
+			}
+			Assertions.assertEquals(owner, SaManager.getSaTokenDao().get(key));
+			Assertions.assertEquals(1, lock.getHoldCount("login", 10002));
+		}
+		Assertions.assertNull(SaManager.getSaTokenDao().get(key));
+		Assertions.assertEquals(0, lock.getHoldCount("login", 10002));
+	}
+
+	// 锁标记被其它节点持有时，等待超时后抛出异常
+	@Test
+	public void daoLockTimeout() {
+		SaAccountLockForDao lock = new SaAccountLockForDao();
+		lock.waitTimeout = 50;
+		String key = lock.splicingLockKey("login", 10003);
+
+		// 模拟其它节点写入的锁标记
+		SaManager.getSaTokenDao().set(key, "other-node", 10);
+		SaTokenException e = Assertions.assertThrows(SaTokenException.class, () -> lock.lock("login", 10003));
+		Assertions.assertEquals(SaErrorCode.CODE_11081, e.getCode());
+
+		// 获取失败时不应残留本地锁
+		Assertions.assertFalse(lock.localLock.getStripe("login", 10003).isLocked());
+
+		// 其它节点释放锁标记后即可获取，用完后锁标记被删除
+		SaManager.getSaTokenDao().delete(key);
+		lock.lock("login", 10003).close();
+		Assertions.assertNull(SaManager.getSaTokenDao().get(key));
+	}
+
+	// 锁标记在租期结束后被其它节点重新写入时，释放锁不会删除其它节点的锁标记
+	@Test
+	public void daoLockReleaseOtherOwner() {
+		SaAccountLockForDao lock = new SaAccountLockForDao();
+		String key = lock.splicingLockKey("login", 10004);
+
+		SaAccountLockScope scope = lock.lock("login", 10004);
+		SaManager.getSaTokenDao().set(key, "other-node", 10);
+		scope.close();
+		Assertions.assertEquals("other-node", SaManager.getSaTokenDao().get(key));
+		SaManager.getSaTokenDao().delete(key);
+	}
+
+	// deleteIfEquals：内存实现，值相等时才删除
+	@Test
+	public void deleteIfEquals() {
+		for (SaTokenDao dao : new SaTokenDao[]{ new SaTokenDaoDefaultImpl(), new SaTokenDaoForExpireQueue() }) {
+			dao.set("k1", "v1", 60);
+			Assertions.assertFalse(dao.deleteIfEquals("k1", "v2"));
+			Assertions.assertFalse(dao.deleteIfEquals("k1", null));
+			Assertions.assertEquals("v1", dao.get("k1"));
+			Assertions.assertTrue(dao.deleteIfEquals("k1", "v1"));
+			Assertions.assertNull(dao.get("k1"));
+			Assertions.assertEquals(SaTokenDao.NOT_VALUE_EXPIRE, dao.getTimeout("k1"));
+			Assertions.assertFalse(dao.deleteIfEquals("k1", "v1"));
+
+			// 删除后可以再次写入，且过期时间正常
+			Assertions.assertTrue(dao.setIfAbsent("k1", "v2", 60));
+			Assertions.assertTrue(dao.getTimeout("k1") > 50);
+		}
+	}
+
+	// deleteIfEquals：带搜索索引的实现，删除成功后同步清理索引与写入序号
+	@Test
+	public void deleteIfEqualsSearchIndex() {
+		SaTokenDaoForSearchIndex dao = new SaTokenDaoForSearchIndex();
+		dao.addIndex("lock:");
+		dao.set("lock:k1", "v1", 60);
+		Assertions.assertTrue(dao.sequenceMap.containsKey("lock:k1"));
+		Assertions.assertTrue(dao.deleteIfEquals("lock:k1", "v1"));
+		Assertions.assertFalse(dao.sequenceMap.containsKey("lock:k1"));
+		Assertions.assertTrue(dao.indexMap.get("lock:").isEmpty());
+	}
+
+	// deleteIfEquals：管道作用域内按暂存中的值比较，否则直接在底层持久层执行
+	@Test
+	public void deleteIfEqualsPipeline() {
+		SaTokenDao dao = new SaTokenDaoDefaultImpl();
+		dao.set("k1", "v1", 60);
+		dao.set("k2", "v2", 60);
+		try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+			// 暂存中没有此 key：直接在底层持久层执行
+			Assertions.assertFalse(pipeline.deleteIfEquals("k1", "v0"));
+			Assertions.assertTrue(pipeline.deleteIfEquals("k1", "v1"));
+			Assertions.assertNull(dao.get("k1"));
+
+			// 暂存中有 SET：按暂存中的值比较，相等时改为暂存 DELETE
+			pipeline.set("k2", "v2-new", 60);
+			Assertions.assertFalse(pipeline.deleteIfEquals("k2", "v2"));
+			Assertions.assertTrue(pipeline.deleteIfEquals("k2", "v2-new"));
+			Assertions.assertNull(pipeline.get("k2"));
+			Assertions.assertEquals("v2", dao.get("k2"));
+
+			// 暂存中有 DELETE：视为不存在
+			Assertions.assertFalse(pipeline.deleteIfEquals("k2", "v2"));
+		}
+		Assertions.assertNull(dao.get("k2"));
+	}
+
+	// 调用方已处于外层管道作用域时，锁内的写操作在释放锁之前提交
+	@Test
+	public void lockAccountFlushOuterPipeline() {
+		StpLogic stpLogic = new StpLogic("lock-flush-test");
+		try (SaTokenDaoPipeline pipeline = SaManager.getSaTokenDao().openPipeline()) {
+			String token = stpLogic.createLoginSession(10205, new SaLoginModel());
+			Assertions.assertEquals(0, pipeline.getPendingSize());
+			Assertions.assertEquals("10205", pipeline.target.get(stpLogic.splicingKeyTokenValue(token)));
+		}
+		stpLogic.logout(10205);
+	}
+
+	// 同一线程重入加锁时，内层锁释放不提交外层管道作用域，最外层锁释放时才提交
+	@Test
+	public void lockAccountReentrantNoFlush() {
+		StpLogic stpLogic = new StpLogic("lock-reentrant-flush-test");
+		try (SaTokenDaoPipeline pipeline = SaManager.getSaTokenDao().openPipeline()) {
+			try (SaAccountLockScope outer = stpLogic.lockAccount(10206)) {
+				pipeline.set("lock-reentrant-flush-test:k1", "v1", 60);
+				try (SaAccountLockScope inner = stpLogic.lockAccount(10206)) {
+					pipeline.set("lock-reentrant-flush-test:k2", "v2", 60);
+				}
+				Assertions.assertEquals(2, pipeline.getPendingSize());
+				Assertions.assertNull(pipeline.target.get("lock-reentrant-flush-test:k1"));
+			}
+			Assertions.assertEquals(0, pipeline.getPendingSize());
+			Assertions.assertEquals("v2", pipeline.target.get("lock-reentrant-flush-test:k2"));
+		}
+		SaManager.getSaTokenDao().delete("lock-reentrant-flush-test:k1");
+		SaManager.getSaTokenDao().delete("lock-reentrant-flush-test:k2");
+	}
+
+	// 在另一个线程中尝试获取锁，获取成功则立即释放
+	static boolean tryLockInOtherThread(ReentrantLock lock) throws InterruptedException {
+		AtomicBoolean result = new AtomicBoolean();
+		Thread t = new Thread(() -> {
+			if(lock.tryLock()) {
+				lock.unlock();
+				result.set(true);
+			}
+		});
+		t.start();
+		t.join();
+		return result.get();
+	}
+
+}
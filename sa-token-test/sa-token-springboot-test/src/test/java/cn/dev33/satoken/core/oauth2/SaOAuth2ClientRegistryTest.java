@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.oauth2;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.fun.strategy.SaHasElementFunction;
+import cn.dev33.satoken.oauth2.SaOAuth2Manager;
+import cn.dev33.satoken.oauth2.error.SaOAuth2ErrorCode;
+import cn.dev33.satoken.oauth2.exception.SaOAuth2Exception;
+import cn.dev33.satoken.oauth2.logic.SaOAuth2Template;
+import cn.dev33.satoken.oauth2.model.SaClientModel;
+import cn.dev33.satoken.oauth2.model.SaCompiledClient;
+import cn.dev33.satoken.strategy.SaStrategy;
+
+/**
+ * OAuth2 Client 注册表 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2ClientRegistryTest {
+
+	// 从 Map 中读取 Client，并记录读取次数
+	static class MapTemplate extends SaOAuth2Template {
+		Map<String, SaClientModel> clients = new HashMap<>();
+		int loadCount = 0;
+		@Override
+		public SaClientModel getClientModel(String clientId) {
+			loadCount++;
+			return clients.get(clientId);
+		}
+	}
+
+	static SaClientModel client(String contractScope, String allowUrl) {
+		return new SaClientModel("1001", "aaaa-bbbb", contractScope, allowUrl);
+	}
+
+	// 校验逻辑
+	@Test
+	public void testCheck() {
+		MapTemplate template = new MapTemplate();
+		template.clients.put("1001", client("userinfo,openid", "http://sa-token.cc/*, http://localhost:8080/cb"));
+
+		template.checkContract("1001", "userinfo");
+		template.checkContract("1001", "userinfo,openid");
+		SaOAuth2Exception e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkContract("1001", "userinfo,phone"));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30112, e.getCode());
+
+		template.checkRightUrl("1001", "http://sa-token.cc/a/b?x=1");
+		template.checkRightUrl("1001", "http://localhost:8080/cb?code=xx");
+		e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkRightUrl("1001", "http://localhost:8080/cb2"));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30114, e.getCode());
+		e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkRightUrl("1001", "not-a-url"));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30113, e.getCode());
+
+		Assertions.assertNotNull(template.checkClientSecretAndScope("1001", "aaaa-bbbb", "openid"));
+		e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkClientSecretAndScope("1001", "aaaa-bbbb", "phone"));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30116, e.getCode());
+
+		e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkClientModel("1002"));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30105, e.getCode());
+	}
+
+	// 重写 hasElement 策略后，redirect_url 校验同样使用自定义的匹配规则
+	@Test
+	public void testCustomHasElement() {
+		MapTemplate template = new MapTemplate();
+		template.clients.put("1001", client("userinfo", "http://sa-token.cc/*, http://localhost:8080/cb"));
+		template.checkRightUrl("1001", "http://sa-token.cc/cb");
+
+		SaHasElementFunction old = SaStrategy.instance.hasElement;
+		try {
+			// 自定义规则：只允许完全相同的地址
+			SaStrategy.instance.setHasElement((list, element) -> list.contains(element));
+			Assertions.assertFalse(SaStrategy.instance.isDefaultHasElement());
+			SaOAuth2Exception e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkRightUrl("1001", "http://sa-token.cc/cb"));
+			Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30114, e.getCode());
+			template.checkRightUrl("1001", "http://localhost:8080/cb?code=xx");
+		} finally {
+			SaStrategy.instance.setHasElement(old);
+		}
+		Assertions.assertTrue(SaStrategy.instance.isDefaultHasElement());
+		template.checkRightUrl("1001", "http://sa-token.cc/cb");
+	}
+
+	// 不缓存时：每次重新加载，但配置未变化则复用编译结果，配置变化则重新编译
+	@Test
+	public void testReuseCompiled() {
+		MapTemplate template = new MapTemplate();
+		template.clients.put("1001", client("userinfo", "http://sa-token.cc/*"));
+
+		SaCompiledClient c1 = template.checkCompiledClient("1001");
+		template.clients.put("1001", client("userinfo", "http://sa-token.cc/*"));
+		SaCompiledClient c2 = template.checkCompiledClient("1001");
+		Assertions.assertEquals(2, template.loadCount);
+		Assertions.assertNotSame(c1.client, c2.client);
+		Assertions.assertSame(c1.allowUrlMatcher, c2.allowUrlMatcher);
+		Assertions.assertSame(c1.contractScopeSet, c2.contractScopeSet);
+
+		template.clients.put("1001", client("userinfo,openid", "http://sa-token.cc/*"));
+		template.checkContract("1001", "openid");
+
+		// Client 被删除
+		template.clients.remove("1001");
+		Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkClientModel("1001"));
+		Assertions.assertFalse(template.clientRegistry.clientMap.containsKey("1001"));
+	}
+
+	// 缓存时间内不再重新加载，refresh 后立即生效
+	@Test
+	public void testCacheTimeout() {
+		long oldTimeout = SaOAuth2Manager.getConfig().getClientCacheTimeout();
+		try {
+			SaOAuth2Manager.getConfig().setClientCacheTimeout(60);
+			MapTemplate template = new MapTemplate();
+			template.clients.put("1001", client("userinfo", "http://sa-token.cc/*"));
+
+			template.checkContract("1001", "userinfo");
+			template.checkRightUrl("1001", "http://sa-token.cc/cb");
+			template.checkClientModel("1001");
+			Assertions.assertEquals(1, template.loadCount);
+
+			template.clients.put("1001", client("openid", "http://sa-token.cc/*"));
+			Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkContract("1001", "openid"));
+			template.clientRegistry.refresh("1001");
+			template.checkContract("1001", "openid");
+			Assertions.assertEquals(2, template.loadCount);
+		} finally {
+			SaOAuth2Manager.getConfig().setClientCacheTimeout(oldTimeout);
+		}
+	}
+
+	// 手动注册的 Client 常驻内存，不调用 getClientModel
+	@Test
+	public void testRegister() {
+		MapTemplate template = new MapTemplate();
+		template.clientRegistry.register(client("userinfo", "*"));
+		template.checkContract("1001", "userinfo");
+		template.checkRightUrl("1001", "https://any.com/cb");
+		Assertions.assertEquals(0, template.loadCount);
+
+		template.clientRegistry.remove("1001");
+		Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkClientModel("1001"));
+		Assertions.assertEquals(1, template.loadCount);
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.oauth2;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.oauth2.error.SaOAuth2ErrorCode;
+import cn.dev33.satoken.oauth2.exception.SaOAuth2Exception;
+import cn.dev33.satoken.oauth2.logic.SaOAuth2ScopeRegistry;
+import cn.dev33.satoken.oauth2.logic.SaOAuth2Template;
+import cn.dev33.satoken.oauth2.model.AccessTokenModel;
+import cn.dev33.satoken.oauth2.model.ClientTokenModel;
+import cn.dev33.satoken.oauth2.model.RequestAuthModel;
+import cn.dev33.satoken.oauth2.model.SaClientModel;
+
+/**
+ * OAuth2 Scope 位图 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2ScopeRegistryTest {
+
+	static class TestTemplate extends SaOAuth2Template {
+		@Override
+		public SaClientModel getClientModel(String clientId) {
+			return new SaClientModel().setClientId(clientId).setClientSecret("aaaa-bbbb").setContractScope("userinfo,openid").setAllowUrl("*");
+		}
+	}
+
+	// 位图计算与比较
+	@Test
+	public void testBits() {
+		SaOAuth2ScopeRegistry registry = new SaOAuth2ScopeRegistry();
+		long[] have = registry.getBits("userinfo,openid,phone");
+		Assertions.assertSame(have, registry.getBits("userinfo,openid,phone"));
+		Assertions.assertTrue(SaOAuth2ScopeRegistry.containsAll(have, registry.getBits("openid", "userinfo")));
+		Assertions.assertTrue(SaOAuth2ScopeRegistry.containsAll(have, registry.getBits("")));
+		Assertions.assertTrue(SaOAuth2ScopeRegistry.containsAll(registry.getBits((String) null), SaOAuth2ScopeRegistry.EMPTY_BITS));
+		Assertions.assertFalse(SaOAuth2ScopeRegistry.containsAll(have, registry.getBits("userinfo,email")));
+
+		// 超过 64 个 Scope 时使用多个字
+		for (int i = 0; i < 100; i++) {
+			registry.indexOf("scope-" + i);
+		}
+		long[] wide = registry.getBits("scope-99,userinfo");
+		Assertions.assertEquals(2, wide.length);
+		Assertions.assertFalse(SaOAuth2ScopeRegistry.containsAll(have, wide));
+		Assertions.assertTrue(SaOAuth2ScopeRegistry.containsAll(wide, registry.getBits("userinfo")));
+		Assertions.assertTrue(SaOAuth2ScopeRegistry.containsAll(registry.getBits("scope-98,scope-99,userinfo"), wide));
+	}
+
+	// 注册表已满时返回 null，缓存有上限
+	@Test
+	public void testLimit() {
+		SaOAuth2ScopeRegistry registry = new SaOAuth2ScopeRegistry();
+		registry.maxScopeCount = 2;
+		registry.maxCacheSize = 2;
+		Assertions.assertNotNull(registry.getBits("a,b"));
+		Assertions.assertNull(registry.getBits("a,c"));
+		Assertions.assertEquals(-1, registry.indexOf("c"));
+		Assertions.assertFalse(SaOAuth2ScopeRegistry.containsAll(registry.getBits("a,b"), null));
+		registry.getBits("a");
+		registry.getBits("b");
+		Assertions.assertTrue(registry.bitsCache.size() <= 2);
+	}
+
+	// 模板中的 Scope 校验
+	@Test
+	public void testTemplate() {
+		TestTemplate template = new TestTemplate();
+		RequestAuthModel ra = new RequestAuthModel();
+		ra.clientId = "scope-1001";
+		ra.loginId = 10001;
+		ra.scope = "userinfo,openid";
+		AccessTokenModel at = template.generateAccessToken(ra, false);
+		template.checkScope(at.accessToken, "userinfo");
+		template.checkScope(at.accessToken, "openid", "userinfo");
+		SaOAuth2Exception e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkScope(at.accessToken, "userinfo", "phone"));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30108, e.getCode());
+		Assertions.assertTrue(e.getMessage().endsWith("phone"));
+
+		ClientTokenModel ct = template.generateClientToken("scope-1001", "userinfo");
+		template.checkClientTokenScope(ct.clientToken, "userinfo");
+		e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkClientTokenScope(ct.clientToken, "openid"));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30109, e.getCode());
+
+		template.saveGrantScope("scope-1001", 10001, "userinfo,openid");
+		Assertions.assertTrue(template.isGrant(10001, "scope-1001", "openid"));
+		Assertions.assertTrue(template.isGrant(10001, "scope-1001", ""));
+		Assertions.assertFalse(template.isGrant(10001, "scope-1001", "openid,phone"));
+		Assertions.assertFalse(template.isGrant(10002, "scope-1001", "openid"));
+
+		// 注册表已满时退回到字符串比较，结果不变
+		TestTemplate fullTemplate = new TestTemplate();
+		fullTemplate.scopeRegistry.maxScopeCount = 0;
+		ra.clientId = "scope-1002";
+		AccessTokenModel at2 = fullTemplate.generateAccessToken(ra, false);
+		fullTemplate.checkScope(at2.accessToken, "userinfo");
+		Assertions.assertThrows(SaOAuth2Exception.class, () -> fullTemplate.checkScope(at2.accessToken, "phone"));
+		Assertions.assertTrue(fullTemplate.isGrant(10001, "scope-1001", "openid"));
+		Assertions.assertFalse(fullTemplate.isGrant(10001, "scope-1001", "phone"));
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.oauth2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaNearCacheChannelForMemory;
+import cn.dev33.satoken.oauth2.SaOAuth2Manager;
+import cn.dev33.satoken.oauth2.error.SaOAuth2ErrorCode;
+import cn.dev33.satoken.oauth2.exception.SaOAuth2Exception;
+import cn.dev33.satoken.oauth2.logic.SaOAuth2Template;
+import cn.dev33.satoken.oauth2.model.AccessTokenModel;
+import cn.dev33.satoken.oauth2.model.RequestAuthModel;
+import cn.dev33.satoken.oauth2.model.SaClientModel;
+import cn.dev33.satoken.oauth2.token.SaOAuth2AccessTokenCodec;
+import cn.dev33.satoken.oauth2.token.SaOAuth2TokenDenyList;
+
+/**
+ * 签名 Access-Token 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2SignedAccessTokenTest {
+
+	static class TestTemplate extends SaOAuth2Template {
+		@Override
+		public SaClientModel getClientModel(String clientId) {
+			return new SaClientModel().setClientId(clientId).setClientSecret("aaaa-bbbb").setContractScope("userinfo,openid").setAllowUrl("*");
+		}
+	}
+
+	@BeforeEach
+	public void enable() {
+		SaOAuth2Manager.getConfig().setIsSignedAccessToken(true).setAccessTokenSecretKey("signed-access-token-test-key");
+	}
+
+	@AfterEach
+	public void disable() {
+		SaOAuth2Manager.getConfig().setIsSignedAccessToken(false).setAccessTokenSecretKey(null);
+	}
+
+	static RequestAuthModel requestAuth(String clientId, Object loginId) {
+		RequestAuthModel ra = new RequestAuthModel();
+		ra.clientId = clientId;
+		ra.loginId = loginId;
+		ra.scope = "userinfo";
+		return ra;
+	}
+
+	// 编解码、篡改、换秘钥
+	@Test
+	public void testCodec() {
+		SaOAuth2AccessTokenCodec codec = new SaOAuth2AccessTokenCodec("key-1");
+		AccessTokenModel at = new AccessTokenModel(null, "1001", 10001, "userinfo,openid");
+		at.openid = "openid-xxx";
+		at.expiresTime = System.currentTimeMillis() + 60000;
+		String token = codec.encode(at);
+		Assertions.assertTrue(SaOAuth2AccessTokenCodec.isSignedToken(token));
+		Assertions.assertNotEquals(token, codec.encode(at));
+
+		AccessTokenModel parsed = codec.decode(token);
+		Assertions.assertEquals(token, parsed.accessToken);
+		Assertions.assertEquals("1001", parsed.clientId);
+		Assertions.assertEquals("10001", parsed.loginId);
+		Assertions.assertEquals("userinfo,openid", parsed.scope);
+		Assertions.assertEquals("openid-xxx", parsed.openid);
+		Assertions.assertEquals(at.expiresTime, parsed.expiresTime);
+
+		char c = token.charAt(3);
+		Assertions.assertNull(codec.decode(token.substring(0, 3) + (c == 'A' ? 'B' : 'A') + token.substring(4)));
+		Assertions.assertNull(codec.decode(token + "x"));
+		Assertions.assertNull(codec.decode("not-signed"));
+		Assertions.assertNull(new SaOAuth2AccessTokenCodec("key-2").decode(token));
+	}
+
+	// 资源服务器在本地校验，不依赖存储中的 Access-Token 数据
+	@Test
+	public void testLocalCheck() {
+		TestTemplate template = new TestTemplate();
+		AccessTokenModel at = template.generateAccessToken(template.generateCode(requestAuth("signed-1001", 10001)).code);
+		Assertions.assertTrue(SaOAuth2AccessTokenCodec.isSignedToken(at.accessToken));
+		Assertions.assertEquals(at.accessToken, template.getAccessTokenValue("signed-1001", 10001));
+
+		SaManager.getSaTokenDao().deleteObject(template.splicingAccessTokenSaveKey(at.accessToken));
+		AccessTokenModel checked = template.checkAccessToken(at.accessToken);
+		Assertions.assertEquals("signed-1001", checked.clientId);
+		Assertions.assertEquals("10001", checked.loginId);
+		template.checkScope(at.accessToken, "userinfo");
+		Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkScope(at.accessToken, "openid"));
+
+		// 未开启时按普通 Access-Token 查询存储
+		SaOAuth2Manager.getConfig().setIsSignedAccessToken(false);
+		Assertions.assertNull(template.getAccessToken(at.accessToken));
+	}
+
+	// 撤销、重新签发后，旧 Token 在所有节点失效
+	@Test
+	public void testRevoke() {
+		TestTemplate template = new TestTemplate();
+		TestTemplate otherNode = new TestTemplate();
+		AccessTokenModel at = template.generateAccessToken(requestAuth("signed-1002", 10002), false);
+		Assertions.assertNotNull(otherNode.getAccessToken(at.accessToken));
+
+		template.revokeAccessToken(at.accessToken);
+		SaOAuth2Exception e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.checkAccessToken(at.accessToken));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30106, e.getCode());
+
+		// 其它节点在本地缓存过期后回源读到拉黑记录
+		Assertions.assertNotNull(otherNode.getAccessToken(at.accessToken));
+		otherNode.denyList.clearLocal();
+		Assertions.assertNull(otherNode.getAccessToken(at.accessToken));
+
+		// 重新签发时旧 Token 被拉黑
+		AccessTokenModel at2 = template.generateAccessToken(requestAuth("signed-1002", 10002), false);
+		AccessTokenModel at3 = template.generateAccessToken(requestAuth("signed-1002", 10002), false);
+		Assertions.assertNull(template.getAccessToken(at2.accessToken));
+		Assertions.assertNotNull(template.getAccessToken(at3.accessToken));
+	}
+
+	// 通过广播通道，拉黑立即在其它节点生效
+	@Test
+	public void testDenyListChannel() {
+		SaNearCacheChannelForMemory channel = new SaNearCacheChannelForMemory();
+		SaOAuth2TokenDenyList node1 = new SaOAuth2TokenDenyList().setChannel(channel);
+		SaOAuth2TokenDenyList node2 = new SaOAuth2TokenDenyList().setLocalTimeout(60000).setChannel(channel);
+		long expiresTime = System.currentTimeMillis() + 60000;
+
+		Assertions.assertFalse(node2.isDenied("deny-test-1", expiresTime));
+		node1.deny("deny-test-1", expiresTime);
+		Assertions.assertTrue(node2.isDenied("deny-test-1", expiresTime));
+		node1.setChannel(null);
+		node2.setChannel(null);
+		Assertions.assertTrue(channel.listenerList.isEmpty());
+
+		// 本地缓存有上限，清空后回源仍能读到拉黑记录
+		SaOAuth2TokenDenyList small = new SaOAuth2TokenDenyList().setMaxSize(2);
+		small.isDenied("deny-test-2", expiresTime);
+		small.isDenied("deny-test-3", expiresTime);
+		small.isDenied("deny-test-1", expiresTime);
+		Assertions.assertTrue(small.localMap.size() <= 2);
+		Assertions.assertTrue(small.isDenied("deny-test-1", expiresTime));
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.oauth2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.oauth2.error.SaOAuth2ErrorCode;
+import cn.dev33.satoken.oauth2.exception.SaOAuth2Exception;
+import cn.dev33.satoken.oauth2.logic.SaOAuth2Template;
+import cn.dev33.satoken.oauth2.model.AccessTokenModel;
+import cn.dev33.satoken.oauth2.model.ClientTokenModel;
+import cn.dev33.satoken.oauth2.model.CodeModel;
+import cn.dev33.satoken.oauth2.model.RefreshTokenModel;
+import cn.dev33.satoken.oauth2.model.RequestAuthModel;
+import cn.dev33.satoken.oauth2.model.SaClientModel;
+
+/**
+ * OAuth2 令牌原子签发 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaOAuth2TokenStoreTest {
+
+	// 固定一个 Client，可模拟保存 Refresh-Token 时失败
+	static class TestTemplate extends SaOAuth2Template {
+		boolean failOnSaveRefreshToken;
+		@Override
+		public SaClientModel getClientModel(String clientId) {
+			return new SaClientModel()
+					.setClientId(clientId)
+					.setClientSecret("aaaa-bbbb")
+					.setContractScope("userinfo")
+					.setAllowUrl("*")
+					.setIsNewRefresh(true);
+		}
+		@Override
+		public void saveRefreshToken(RefreshTokenModel rt) {
+			if(failOnSaveRefreshToken) {
+				throw new IllegalStateException("模拟存储失败");
+			}
+			super.saveRefreshToken(rt);
+		}
+	}
+
+	static RequestAuthModel requestAuth(String clientId, Object loginId) {
+		RequestAuthModel ra = new RequestAuthModel();
+		ra.clientId = clientId;
+		ra.loginId = loginId;
+		ra.scope = "userinfo";
+		ra.redirectUri = "http://sa-token.cc";
+		return ra;
+	}
+
+	// Code 兑换 Access-Token，并且只能兑换一次
+	@Test
+	public void testExchangeCode() {
+		TestTemplate template = new TestTemplate();
+		CodeModel cm = template.generateCode(requestAuth("store-1001", 10001));
+		Assertions.assertEquals(cm.code, template.getCodeValue("store-1001", 10001));
+
+		AccessTokenModel at = template.generateAccessToken(cm.code);
+		Assertions.assertEquals(at.accessToken, template.getAccessTokenValue("store-1001", 10001));
+		Assertions.assertEquals(at.refreshToken, template.getRefreshTokenValue("store-1001", 10001));
+		Assertions.assertNotNull(template.getAccessToken(at.accessToken));
+		Assertions.assertNull(template.getCode(cm.code));
+		Assertions.assertNull(template.getCodeValue("store-1001", 10001));
+
+		SaOAuth2Exception e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.generateAccessToken(cm.code));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30110, e.getCode());
+
+		// 再次授权时，旧 Token 被删除
+		AccessTokenModel at2 = template.generateAccessToken(template.generateCode(requestAuth("store-1001", 10001)).code);
+		Assertions.assertNull(template.getAccessToken(at.accessToken));
+		Assertions.assertNull(template.getRefreshToken(at.refreshToken));
+		Assertions.assertNotNull(template.getAccessToken(at2.accessToken));
+	}
+
+	// 签发中途失败时，不写入任何数据，Code 仍然可用
+	@Test
+	public void testRollback() {
+		TestTemplate template = new TestTemplate();
+		CodeModel cm = template.generateCode(requestAuth("store-1002", 10002));
+
+		template.failOnSaveRefreshToken = true;
+		Assertions.assertThrows(IllegalStateException.class, () -> template.generateAccessToken(cm.code));
+		Assertions.assertNull(template.getAccessTokenValue("store-1002", 10002));
+		Assertions.assertNotNull(template.getCode(cm.code));
+		Assertions.assertEquals(cm.code, template.getCodeValue("store-1002", 10002));
+
+		template.failOnSaveRefreshToken = false;
+		Assertions.assertNotNull(template.generateAccessToken(cm.code));
+	}
+
+	// Code 已被其它节点兑换（兑换标记已存在）时兑换失败，且不写入任何数据
+	@Test
+	public void testExchangeCodeConsumed() {
+		TestTemplate template = new TestTemplate();
+		CodeModel cm = template.generateCode(requestAuth("store-1006", 10006));
+		SaManager.getSaTokenDao().set(template.splicingCodeConsumedKey(cm.code), cm.code, 60);
+
+		SaOAuth2Exception e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.generateAccessToken(cm.code));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30110, e.getCode());
+		Assertions.assertNull(template.getAccessTokenValue("store-1006", 10006));
+		Assertions.assertNull(template.getRefreshTokenValue("store-1006", 10006));
+
+		// 兑换成功后写入兑换标记
+		CodeModel cm2 = template.generateCode(requestAuth("store-1006", 10006));
+		template.generateAccessToken(cm2.code);
+		Assertions.assertFalse(template.consumeCode(cm2.code));
+	}
+
+	// Refresh-Token 轮换后，旧 Refresh-Token 不可再用
+	@Test
+	public void testRefresh() {
+		TestTemplate template = new TestTemplate();
+		AccessTokenModel at = template.generateAccessToken(template.generateCode(requestAuth("store-1003", 10003)).code);
+
+		AccessTokenModel at2 = template.refreshAccessToken(at.refreshToken);
+		Assertions.assertNotEquals(at.accessToken, at2.accessToken);
+		Assertions.assertNull(template.getAccessToken(at.accessToken));
+		Assertions.assertEquals(at2.accessToken, template.getAccessTokenValue("store-1003", 10003));
+		Assertions.assertNotEquals(at.refreshToken, template.getRefreshTokenValue("store-1003", 10003));
+
+		SaOAuth2Exception e = Assertions.assertThrows(SaOAuth2Exception.class, () -> template.refreshAccessToken(at.refreshToken));
+		Assertions.assertEquals(SaOAuth2ErrorCode.CODE_30111, e.getCode());
+	}
+
+	// 隐藏式、Client-Token 签发
+	@Test
+	public void testGenerate() {
+		TestTemplate template = new TestTemplate();
+		AccessTokenModel at = template.generateAccessToken(requestAuth("store-1004", 10004), true);
+		Assertions.assertEquals(at.accessToken, template.getAccessTokenValue("store-1004", 10004));
+		Assertions.assertNotNull(template.getRefreshTokenValue("store-1004", 10004));
+
+		ClientTokenModel ct = template.generateClientToken("store-1004", "userinfo");
+		ClientTokenModel ct2 = template.generateClientToken("store-1004", "userinfo");
+		Assertions.assertEquals(ct2.clientToken, template.getClientTokenValue("store-1004"));
+		Assertions.assertEquals(ct.clientToken, template.getPastTokenValue("store-1004"));
+	}
+
+	// 并发兑换同一个 Code，只有一个请求成功
+	@Test
+	public void testConcurrentExchange() throws InterruptedException {
+		TestTemplate template = new TestTemplate();
+		CodeModel cm = template.generateCode(requestAuth("store-1005", 10005));
+
+		int threadCount = 8;
+		AtomicInteger success = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			Thread t = new Thread(() -> {
+				try {
+					start.await();
+					template.generateAccessToken(cm.code);
+					success.incrementAndGet();
+				} catch (SaOAuth2Exception | InterruptedException e) {
+					// 兑换失败
+				}
+			});
+			t.start();
+			threads.add(t);
+		}
+		start.countDown();
+		for (Thread t : threads) {
+			t.join();
+		}
+		Assertions.assertEquals(1, success.get());
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.secure;
+
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.crypto.Cipher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.secure.SaCryptoProvider;
+import cn.dev33.satoken.secure.SaSecureUtil;
+
+/**
+ * SaCryptoProvider 加密对象复用 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaCryptoProviderTest {
+
+	// 同一线程复用同一个对象，不同线程各自持有
+	@Test
+	public void threadCache() throws Exception {
+		MessageDigest digest = SaCryptoProvider.getDigest("SHA-256");
+		Assertions.assertSame(digest, SaCryptoProvider.getDigest("SHA-256"));
+		Assertions.assertNotSame(digest, SaCryptoProvider.getDigest("MD5"));
+		Cipher cipher = SaCryptoProvider.getCipher("RSA");
+		Assertions.assertSame(cipher, SaCryptoProvider.getCipher("RSA"));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Assertions.assertNotSame(executor.submit(() -> SaCryptoProvider.getDigest("SHA-256")).get(), digest);
+		} finally {
+			executor.shutdown();
+		}
+
+		// 取出时已重置
+		digest.update("dirty".getBytes());
+		Assertions.assertEquals(SaSecureUtil.sha256("123456"), "8d969eef6ecad3c29a3a629280e686cf0c3f5d5a86aff3ca12020c923adc6c92");
+	}
+
+	// 密钥按照密钥字符串缓存
+	@Test
+	public void keyCache() throws Exception {
+		HashMap<String, String> map = SaSecureUtil.rsaGenerateKeyPair();
+		Assertions.assertSame(SaCryptoProvider.getRsaPublicKey(map.get("public")), SaCryptoProvider.getRsaPublicKey(map.get("public")));
+		Assertions.assertSame(SaCryptoProvider.getRsaPrivateKey(map.get("private")), SaCryptoProvider.getRsaPrivateKey(map.get("private")));
+		Assertions.assertSame(SaCryptoProvider.getAesKey("123456"), SaCryptoProvider.getAesKey("123456"));
+		Assertions.assertNotEquals(SaCryptoProvider.getAesKey("123456"), SaCryptoProvider.getAesKey("654321"));
+
+		// 清空后重新解析，结果一致
+		byte[] encoded = SaCryptoProvider.getAesKey("123456").getEncoded();
+		SaCryptoProvider.clearKeyCache();
+		Assertions.assertArrayEquals(SaCryptoProvider.getAesKey("123456").getEncoded(), encoded);
+	}
+
+	// 超过最大数量时整体清空
+	@Test
+	public void keyCacheLimit() throws Exception {
+		int old = SaCryptoProvider.maxKeyCacheSize;
+		SaCryptoProvider.maxKeyCacheSize = 2;
+		try {
+			SaCryptoProvider.clearKeyCache();
+			Object first = SaCryptoProvider.getAesKey("k1");
+			SaCryptoProvider.getAesKey("k2");
+			Assertions.assertSame(SaCryptoProvider.getAesKey("k1"), first);
+			SaCryptoProvider.getAesKey("k3");
+			Assertions.assertNotSame(SaCryptoProvider.getAesKey("k1"), first);
+		} finally {
+			SaCryptoProvider.maxKeyCacheSize = old;
+			SaCryptoProvider.clearKeyCache();
+		}
+	}
+
+	// 多线程并发加解密，结果正确
+	@Test
+	public void concurrent() throws Exception {
+		HashMap<String, String> map = SaSecureUtil.rsaGenerateKeyPair();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				String text = "text-" + i;
+				futures.add(executor.submit(() -> {
+					String aes = SaSecureUtil.aesDecrypt("key", SaSecureUtil.aesEncrypt("key", text));
+					String rsa = SaSecureUtil.rsaDecryptByPrivate(map.get("private"), SaSecureUtil.rsaEncryptByPublic(map.get("public"), text));
+					return text.equals(aes) && text.equals(rsa) && SaSecureUtil.md5(text).equals(SaSecureUtil.md5(text.getBytes()));
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				Assertions.assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
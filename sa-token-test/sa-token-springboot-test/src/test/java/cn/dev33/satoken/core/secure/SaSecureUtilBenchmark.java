@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.secure;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.function.Supplier;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.spec.SecretKeySpec;
+
+import cn.dev33.satoken.secure.SaSecureUtil;
+
+/**
+ * SaSecureUtil 复用 MessageDigest / Cipher / 密钥对象前后的吞吐量对比
+ *
+ * <p> 手动运行 main 方法即可（不参与单元测试），可通过第一个参数指定每项的调用次数，默认 20 万 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSecureUtilBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		String text = "satoken:login:token:Kx8nQvd1uW3oZc7TfYb2HsLm9gRpE5aJ0iNqVt4yXw6B";
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		HashMap<String, String> keyPair = SaSecureUtil.rsaGenerateKeyPair();
+		String publicKey = keyPair.get("public");
+
+		for (int round = 0; round < 2; round++) {
+			boolean print = round == 1;
+			run("sha256  legacy  ", count, print, () -> legacySha256(text));
+			run("sha256  cached  ", count, print, () -> SaSecureUtil.sha256(text));
+			run("sha256  byte[]  ", count, print, () -> SaSecureUtil.sha256(bytes));
+			run("md5     legacy  ", count, print, () -> legacyMd5(text));
+			run("md5     cached  ", count, print, () -> SaSecureUtil.md5(text));
+			run("aes     legacy  ", count / 10, print, () -> legacyAesEncrypt("123456", text));
+			run("aes     cached  ", count / 10, print, () -> SaSecureUtil.aesEncrypt("123456", text));
+			run("rsa-pub legacy  ", count / 100, print, () -> legacyRsaEncrypt(publicKey, text));
+			run("rsa-pub cached  ", count / 100, print, () -> SaSecureUtil.rsaEncryptByPublic(publicKey, text));
+		}
+	}
+
+	static void run(String name, int count, boolean print, Supplier<Object> fun) {
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			fun.get();
+		}
+		long cost = System.nanoTime() - start;
+		if(print) {
+			System.out.println(name + ": " + (count * 1000000000L / Math.max(1, cost)) + " ops/s");
+		}
+	}
+
+
+	// ------------------------ 复用之前的实现：每次调用都重新获取算法对象、重新解析密钥
+
+	static String legacySha256(String str) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			return toHex(messageDigest.digest(str.getBytes(StandardCharsets.UTF_8)));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static String legacyMd5(String str) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+			return toHex(messageDigest.digest(str.getBytes()));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static String legacyAesEncrypt(String key, String text) {
+		try {
+			KeyGenerator kg = KeyGenerator.getInstance("AES");
+			SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+			random.setSeed(key.getBytes());
+			kg.init(128, random);
+			SecretKeySpec keySpec = new SecretKeySpec(kg.generateKey().getEncoded(), "AES");
+			Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+			cipher.init(Cipher.ENCRYPT_MODE, keySpec);
+			return Base64.getEncoder().encodeToString(cipher.doFinal(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static byte[] legacyRsaEncrypt(String key, String text) {
+		try {
+			PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(key)));
+			Cipher cipher = Cipher.getInstance("RSA");
+			cipher.init(Cipher.ENCRYPT_MODE, publicKey);
+			return cipher.doFinal(text.getBytes());
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : bytes) {
+			String hex = Integer.toHexString(b & 0xFF);
+			if(hex.length() == 1) {
+				sb.append('0');
+			}
+			sb.append(hex);
+		}
+		return sb.toString();
+	}
+
+}
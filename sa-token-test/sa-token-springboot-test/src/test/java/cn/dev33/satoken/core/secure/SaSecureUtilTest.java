@@ -15,6 +15,8 @@
  */
 package cn.dev33.satoken.core.secure;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 
 import org.junit.jupiter.api.Assertions;
@@ -99,4 +101,35 @@ public class SaSecureUtilTest {
     	Assertions.assertEquals(text2, "Sa-Token 一个轻量级java权限认证框架");
     }
 
+    @Test
+    public void bytesAndBuffer() {
+    	String text = "Sa-Token 一个轻量级java权限认证框架";
+    	byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+    	// byte[] 与 ByteBuffer 版本与字符串版本结果一致
+    	Assertions.assertEquals(SaSecureUtil.sha1(bytes), SaSecureUtil.sha1(text));
+    	Assertions.assertEquals(SaSecureUtil.sha256(bytes), SaSecureUtil.sha256(text));
+    	Assertions.assertEquals(SaSecureUtil.sha384(bytes), SaSecureUtil.sha384(text));
+    	Assertions.assertEquals(SaSecureUtil.sha512(bytes), SaSecureUtil.sha512(text));
+    	Assertions.assertEquals(SaSecureUtil.md5("123456".getBytes()), "e10adc3949ba59abbe56e057f20f883e");
+    	Assertions.assertEquals(SaSecureUtil.sha256(ByteBuffer.wrap(bytes)), SaSecureUtil.sha256(text));
+    	Assertions.assertEquals(SaSecureUtil.md5(ByteBuffer.wrap("123456".getBytes())), "e10adc3949ba59abbe56e057f20f883e");
+
+    	// 直接内存缓冲区，只读取 position 至 limit 之间的数据
+    	ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 4);
+    	direct.put(new byte[] { 1, 2 }).put(bytes).flip();
+    	direct.position(2);
+    	Assertions.assertEquals(SaSecureUtil.sha1(direct), SaSecureUtil.sha1(text));
+    	Assertions.assertEquals(direct.remaining(), 0);
+
+    	// 连续调用，线程缓存的摘要对象不会残留上一次的数据
+    	Assertions.assertEquals(SaSecureUtil.sha256("123456"), "8d969eef6ecad3c29a3a629280e686cf0c3f5d5a86aff3ca12020c923adc6c92");
+    	Assertions.assertEquals(SaSecureUtil.sha256("123456"), "8d969eef6ecad3c29a3a629280e686cf0c3f5d5a86aff3ca12020c923adc6c92");
+
+    	// AES 字节数组版本
+    	byte[] encrypted = SaSecureUtil.aesEncrypt("123456", bytes);
+    	Assertions.assertArrayEquals(SaSecureUtil.aesDecrypt("123456", encrypted), bytes);
+    	Assertions.assertEquals(SaSecureUtil.aesDecrypt("123456", SaSecureUtil.aesEncrypt("123456", text)), text);
+    }
+
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.session;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.TokenSign;
+import cn.dev33.satoken.session.codec.SaBinaryReader;
+import cn.dev33.satoken.session.codec.SaBinaryWriter;
+import cn.dev33.satoken.session.codec.SaSessionBinaryCodec;
+
+/**
+ * SaSessionBinaryCodec 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSessionBinaryCodecTest {
+
+	public static class Profile implements Serializable {
+		private static final long serialVersionUID = 1L;
+		public String nickname;
+		public Profile(String nickname) {
+			this.nickname = nickname;
+		}
+	}
+
+	static SaSession newSession() {
+		SaSession session = new SaSession();
+		session.setId("satoken:login:session:10001");
+		session.setType("Account-Session");
+		session.setLoginType("login");
+		session.setLoginId(10001L);
+		session.setToken(null);
+		session.setCreateTime(1700000000000L);
+		session.getTokenSignList().add(new TokenSign("token-a", "PC", null));
+		session.getTokenSignList().add(new TokenSign("token-b", "APP", "标签"));
+		return session;
+	}
+
+	// 固定字段与各种类型的值
+    @Test
+    public void roundTrip() {
+    	SaSession session = newSession();
+    	Map<String, Object> map = new LinkedHashMap<>();
+    	map.put("a", 1);
+    	map.put("b", Arrays.asList("x", 2L));
+    	session.set("str", "中文 ascii");
+    	session.set("int", -5);
+    	session.set("long", Long.MIN_VALUE);
+    	session.set("bool", true);
+    	session.set("double", 3.14);
+    	session.set("float", -1.5f);
+    	session.set("short", (short) 7);
+    	session.set("byte", (byte) -1);
+    	session.set("char", 'Z');
+    	session.set("bytes", new byte[] {1, 2, 3});
+    	session.set("decimal", new BigDecimal("12.3400"));
+    	session.set("bigint", new BigInteger("123456789012345678901234567890"));
+    	session.set("date", new Date(1700000000123L));
+    	session.set("list", Arrays.asList(1, null, "c"));
+    	session.set("set", new LinkedHashSet<>(Arrays.asList("p", "q")));
+    	session.set("map", map);
+    	session.set("profile", new Profile("sa"));
+
+    	SaSessionBinaryCodec codec = new SaSessionBinaryCodec();
+    	byte[] bytes = codec.encode(session);
+    	Assertions.assertTrue(codec.isEncoded(bytes));
+    	SaSession s = codec.decode(bytes);
+
+    	Assertions.assertEquals(s.getId(), session.getId());
+    	Assertions.assertEquals(s.getType(), "Account-Session");
+    	Assertions.assertEquals(s.getLoginType(), "login");
+    	Assertions.assertEquals(s.getLoginId(), 10001L);
+    	Assertions.assertNull(s.getToken());
+    	Assertions.assertEquals(s.getCreateTime(), 1700000000000L);
+
+    	List<TokenSign> signs = s.getTokenSignList();
+    	Assertions.assertEquals(signs.size(), 2);
+    	Assertions.assertEquals(signs.get(0).getValue(), "token-a");
+    	Assertions.assertEquals(signs.get(0).getDevice(), "PC");
+    	Assertions.assertNull(signs.get(0).getTag());
+    	Assertions.assertEquals(signs.get(1).getTag(), "标签");
+
+    	Assertions.assertEquals(s.get("str"), "中文 ascii");
+    	Assertions.assertEquals(s.get("int"), -5);
+    	Assertions.assertEquals(s.get("long"), Long.MIN_VALUE);
+    	Assertions.assertEquals(s.get("bool"), true);
+    	Assertions.assertEquals(s.get("double"), 3.14);
+    	Assertions.assertEquals(s.get("float"), -1.5f);
+    	Assertions.assertEquals(s.get("short"), (short) 7);
+    	Assertions.assertEquals(s.get("byte"), (byte) -1);
+    	Assertions.assertEquals(s.get("char"), 'Z');
+    	Assertions.assertArrayEquals((byte[]) s.get("bytes"), new byte[] {1, 2, 3});
+    	Assertions.assertEquals(s.get("decimal"), new BigDecimal("12.3400"));
+    	Assertions.assertEquals(s.get("bigint"), new BigInteger("123456789012345678901234567890"));
+    	Assertions.assertEquals(s.get("date"), new Date(1700000000123L));
+    	Assertions.assertEquals(s.get("list"), Arrays.asList(1, null, "c"));
+    	Assertions.assertEquals(s.get("set"), new LinkedHashSet<>(Arrays.asList("p", "q")));
+    	Assertions.assertEquals(s.get("map"), map);
+    	Assertions.assertEquals(((Profile) s.get("profile")).nickname, "sa");
+    }
+
+    // 空 Session
+    @Test
+    public void emptySession() {
+    	SaSessionBinaryCodec codec = new SaSessionBinaryCodec();
+    	SaSession s = codec.decode(codec.encode(new SaSession()));
+    	Assertions.assertNull(s.getId());
+    	Assertions.assertNull(s.getLoginId());
+    	Assertions.assertEquals(s.getCreateTime(), 0);
+    	Assertions.assertEquals(s.getTokenSignList().size(), 0);
+    	Assertions.assertEquals(s.keys().size(), 0);
+    }
+
+    // 不支持的值类型、错误的数据
+    @Test
+    public void error() {
+    	SaSessionBinaryCodec codec = new SaSessionBinaryCodec();
+
+    	SaSession session = newSession();
+    	session.set("obj", new Object());
+    	SaTokenException e1 = Assertions.assertThrows(SaTokenException.class, () -> codec.encode(session));
+    	Assertions.assertEquals(e1.getCode(), SaErrorCode.CODE_12401);
+
+    	byte[] bytes = codec.encode(newSession());
+    	Assertions.assertFalse(codec.isEncoded(new byte[] {1, 2}));
+
+    	// 版本号不支持
+    	byte[] badVersion = bytes.clone();
+    	badVersion[1] = 99;
+    	SaTokenException e2 = Assertions.assertThrows(SaTokenException.class, () -> codec.decode(badVersion));
+    	Assertions.assertEquals(e2.getCode(), SaErrorCode.CODE_12402);
+
+    	// 数据被截断
+    	byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+    	SaTokenException e3 = Assertions.assertThrows(SaTokenException.class, () -> codec.decode(truncated));
+    	Assertions.assertEquals(e3.getCode(), SaErrorCode.CODE_12402);
+    }
+
+    // 变长整数边界值
+    @Test
+    public void varInt() {
+    	SaBinaryWriter writer = new SaBinaryWriter(16);
+    	long[] values = {0, 1, -1, 63, -64, 64, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+    	for (long v : values) {
+    		writer.writeZigZagLong(v);
+    	}
+    	writer.writeVarInt(Integer.MAX_VALUE);
+    	SaBinaryReader reader = new SaBinaryReader(writer.toByteArray());
+    	for (long v : values) {
+    		Assertions.assertEquals(reader.readZigZagLong(), v);
+    	}
+    	Assertions.assertEquals(reader.readVarInt(), Integer.MAX_VALUE);
+    	Assertions.assertEquals(reader.remaining(), 0);
+
+    	// 小数字只占 1 个字节
+    	Assertions.assertEquals(new SaBinaryWriter().writeZigZagLong(-64).size(), 1);
+    }
+
+}
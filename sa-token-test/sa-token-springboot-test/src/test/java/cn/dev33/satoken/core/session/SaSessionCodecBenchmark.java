@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+
+import cn.dev33.satoken.secure.SaBase64Util;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.TokenSign;
+import cn.dev33.satoken.session.codec.SaSessionBinaryCodec;
+
+/**
+ * SaSession 各种序列化方式的体积与吞吐量对比：
+ * JDK 序列化（SaTokenDaoRedis）、Jackson 带类型信息（SaTokenDaoRedisJackson）、二进制编码、二进制编码 + Base64（SaTokenDaoForSessionCodec）
+ *
+ * <p> 手动运行 main 方法即可（不参与单元测试），可通过第一个参数指定每轮编解码次数，默认 2 万 </p>
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSessionCodecBenchmark {
+
+	@JsonIgnoreProperties({"timeout"})
+	abstract static class IgnoreTimeout {
+	}
+
+	interface Codec {
+		byte[] encode(SaSession session) throws Exception;
+		SaSession decode(byte[] bytes) throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		SaSession session = newSession();
+
+		SaSessionBinaryCodec binary = new SaSessionBinaryCodec();
+		ObjectMapper mapper = new ObjectMapper();
+		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		mapper.addMixIn(SaSession.class, IgnoreTimeout.class);
+		mapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+
+		Codec jdk = new Codec() {
+			public byte[] encode(SaSession s) throws Exception {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+					oos.writeObject(s);
+				}
+				return out.toByteArray();
+			}
+			public SaSession decode(byte[] bytes) throws Exception {
+				try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+					return (SaSession) ois.readObject();
+				}
+			}
+		};
+		Codec jackson = new Codec() {
+			public byte[] encode(SaSession s) throws Exception {
+				return mapper.writeValueAsBytes(s);
+			}
+			public SaSession decode(byte[] bytes) throws Exception {
+				return mapper.readValue(bytes, SaSession.class);
+			}
+		};
+		Codec bin = new Codec() {
+			public byte[] encode(SaSession s) {
+				return binary.encode(s);
+			}
+			public SaSession decode(byte[] bytes) {
+				return binary.decode(bytes);
+			}
+		};
+		Codec binBase64 = new Codec() {
+			public byte[] encode(SaSession s) {
+				return SaBase64Util.encodeBytesToString(binary.encode(s)).getBytes();
+			}
+			public SaSession decode(byte[] bytes) {
+				return binary.decode(SaBase64Util.decodeStringToBytes(new String(bytes)));
+			}
+		};
+
+		// 预热
+		for (int i = 0; i < 2; i++) {
+			run("jdk", jdk, session, count / 4, false);
+			run("jackson", jackson, session, count / 4, false);
+			run("binary", bin, session, count / 4, false);
+			run("binary+base64", binBase64, session, count / 4, false);
+		}
+		run("jdk", jdk, session, count, true);
+		run("jackson", jackson, session, count, true);
+		run("binary", bin, session, count, true);
+		run("binary+base64", binBase64, session, count, true);
+	}
+
+	static void run(String name, Codec codec, SaSession session, int count, boolean print) throws Exception {
+		byte[] bytes = codec.encode(session);
+		long t1 = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			codec.encode(session);
+		}
+		long t2 = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			codec.decode(bytes);
+		}
+		long t3 = System.nanoTime();
+		if(print) {
+			System.out.println(name);
+			System.out.println("    size  : " + bytes.length + " bytes");
+			System.out.println("    encode: " + (count * 1000L / Math.max(1, (t2 - t1) / 1000000)) + " ops/s");
+			System.out.println("    decode: " + (count * 1000L / Math.max(1, (t3 - t2) / 1000000)) + " ops/s");
+		}
+	}
+
+	/**
+	 * 一个典型的 Account-Session：两个终端登录，挂载少量业务数据
+	 */
+	static SaSession newSession() {
+		SaSession session = new SaSession();
+		session.setId("satoken:login:session:10001");
+		session.setType("Account-Session");
+		session.setLoginType("login");
+		session.setLoginId("10001");
+		session.setCreateTime(System.currentTimeMillis());
+		session.getTokenSignList().add(new TokenSign("5f3c6c1a-5b7e-4a34-9b1f-4d2a7f0e8c11", "PC", null));
+		session.getTokenSignList().add(new TokenSign("a81d2e0b-77c4-4f6e-8e3a-1c9b5d6f2a40", "APP", null));
+		// 直接写入 dataMap，避免 set 方法触发持久层初始化
+		session.getDataMap().put("name", "张三");
+		session.getDataMap().put("age", 18);
+		session.getDataMap().put("roles", new ArrayList<>(Arrays.asList("admin", "user")));
+		session.getDataMap().put("lastLoginTime", System.currentTimeMillis());
+		return session;
+	}
+
+}
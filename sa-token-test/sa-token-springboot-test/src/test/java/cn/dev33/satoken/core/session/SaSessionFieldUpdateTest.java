@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.session;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.dao.SaTokenDaoForNearCache;
+import cn.dev33.satoken.dao.SaTokenDaoForSessionCodec;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionHashMapper;
+import cn.dev33.satoken.session.TokenSign;
+
+/**
+ * SaSession 字段级写入 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSessionFieldUpdateTest {
+
+	// 记录 Session 写入方式的持久层
+	static class RecordDao extends SaTokenDaoDefaultImpl {
+		List<String> calls = new ArrayList<>();
+		@Override
+		public void updateSession(SaSession session) {
+			calls.add("updateSession");
+			super.updateSession(session);
+		}
+		@Override
+		public void updateSessionField(SaSession session, String key, Object value) {
+			calls.add("field:" + key + "=" + value);
+			super.updateSessionField(session, key, value);
+		}
+		@Override
+		public void deleteSessionField(SaSession session, String key) {
+			calls.add("delete:" + key);
+			super.deleteSessionField(session, key);
+		}
+		@Override
+		public void updateSessionTokenSignList(SaSession session) {
+			calls.add("tokenSignList");
+			super.updateSessionTokenSignList(session);
+		}
+	}
+
+	// 模拟以 Hash 结构存储 Session 的持久层：每次读取都得到一个新对象，写入时只修改单个 field
+	static class HashDao extends SaTokenDaoDefaultImpl {
+		Map<String, Map<String, Object>> hashMap = new ConcurrentHashMap<>();
+		@Override
+		public SaSession getSession(String sessionId) {
+			Map<String, Object> fieldMap = hashMap.get(sessionId);
+			return fieldMap == null ? null : SaSessionHashMapper.fillSession(new SaSession(), fieldMap);
+		}
+		@Override
+		public void setSession(SaSession session, long timeout) {
+			hashMap.put(session.getId(), new ConcurrentHashMap<>(SaSessionHashMapper.toFieldMap(session)));
+		}
+		@Override
+		public void updateSession(SaSession session) {
+			hashMap.computeIfPresent(session.getId(), (k, v) -> new ConcurrentHashMap<>(SaSessionHashMapper.toFieldMap(session)));
+		}
+		@Override
+		public void updateSessionField(SaSession session, String key, Object value) {
+			hashMap.get(session.getId()).put(SaSessionHashMapper.dataField(key), value);
+		}
+		@Override
+		public void deleteSessionField(SaSession session, String key) {
+			hashMap.get(session.getId()).remove(SaSessionHashMapper.dataField(key));
+		}
+		@Override
+		public void updateSessionTokenSignList(SaSession session) {
+			hashMap.get(session.getId()).put(SaSessionHashMapper.FIELD_TOKEN_SIGN_LIST, SaSessionHashMapper.tokenSignListValue(session));
+		}
+	}
+
+	static SaSession newSession(String id) {
+		SaSession session = new SaSession();
+		session.setId(id);
+		session.setLoginId(10001);
+		return session;
+	}
+
+	// SaSession 的修改操作调用对应的字段级方法
+    @Test
+    public void routing() {
+    	RecordDao dao = new RecordDao();
+    	SaTokenDao old = SaManager.getSaTokenDao();
+    	SaManager.setSaTokenDao(dao);
+    	try {
+    		SaSession session = newSession("field-1");
+    		dao.setSession(session, 60);
+
+    		session.set("name", "张三");
+    		session.setByNull("name", "李四");
+    		session.setByNull("age", 18);
+    		session.delete("name");
+    		session.addTokenSign(new TokenSign("t1", "PC", null));
+    		session.removeTokenSign("t1");
+    		session.removeTokenSign("t-none");
+    		Assertions.assertEquals(dao.calls.toString(), "[field:name=张三, field:age=18, delete:name, tokenSignList, tokenSignList]");
+
+    		// 内存中存储的就是此对象，不需要整体重写
+    		Assertions.assertSame(dao.getSession("field-1"), session);
+
+    		// 存储的不是此对象时（例如近端缓存读出的副本），只把这一个字段同步到存储的对象上，与 Hash 结构的持久层行为一致
+    		dao.calls.clear();
+    		SaSession detached = newSession("field-1");
+    		detached.set("k", "v");
+    		detached.addTokenSign(new TokenSign("t2", "PC", null));
+    		Assertions.assertEquals(dao.calls.toString(), "[field:k=v, tokenSignList]");
+    		Assertions.assertSame(dao.getSession("field-1"), session);
+    		Assertions.assertEquals(session.get("k"), "v");
+    		Assertions.assertEquals(session.getTokenSignList().size(), 1);
+    		detached.delete("k");
+    		Assertions.assertNull(session.get("k"));
+
+    		// 清空等整体修改仍然走 updateSession
+    		dao.calls.clear();
+    		detached.clear();
+    		Assertions.assertEquals(dao.calls.toString(), "[updateSession]");
+    	} finally {
+    		SaManager.setSaTokenDao(old);
+    	}
+    }
+
+    // 字段级存储：不同实例修改不同的 key，互不覆盖
+    @Test
+    public void noLostUpdate() {
+    	HashDao dao = new HashDao();
+    	SaTokenDao old = SaManager.getSaTokenDao();
+    	SaManager.setSaTokenDao(dao);
+    	try {
+    		dao.setSession(newSession("field-2"), 60);
+    		SaSession s1 = dao.getSession("field-2");
+    		SaSession s2 = dao.getSession("field-2");
+    		s1.set("a", 1);
+    		s2.set("b", 2);
+    		s2.addTokenSign(new TokenSign("t2", "APP", null));
+
+    		SaSession s = dao.getSession("field-2");
+    		Assertions.assertEquals(s.get("a"), 1);
+    		Assertions.assertEquals(s.get("b"), 2);
+    		Assertions.assertEquals(s.getTokenSignList().size(), 1);
+    		Assertions.assertEquals(s.getLoginId(), 10001);
+    		Assertions.assertEquals(dao.getSessionField("field-2", "a"), 1);
+
+    		s1.delete("a");
+    		Assertions.assertNull(dao.getSession("field-2").get("a"));
+    		Assertions.assertEquals(dao.getSession("field-2").get("b"), 2);
+    	} finally {
+    		SaManager.setSaTokenDao(old);
+    	}
+    }
+
+    // 整体存储的持久层（默认实现）：字段级方法回退为 updateSession
+    @Test
+    public void defaultFallback() {
+    	SaTokenDaoDefaultImpl target = new SaTokenDaoDefaultImpl();
+    	SaTokenDao dao = new SaTokenDaoForSessionCodec(target);
+    	SaTokenDao old = SaManager.getSaTokenDao();
+    	SaManager.setSaTokenDao(dao);
+    	try {
+    		dao.setSession(newSession("field-3"), 60);
+    		dao.getSession("field-3").set("a", 1);
+    		Assertions.assertEquals(dao.getSession("field-3").get("a"), 1);
+    		Assertions.assertEquals(dao.getSessionField("field-3", "a"), 1);
+    	} finally {
+    		SaManager.setSaTokenDao(old);
+    	}
+    }
+
+    // 近端缓存装饰器将字段级写入委托给被装饰对象
+    @Test
+    public void nearCache() {
+    	RecordDao target = new RecordDao();
+    	SaTokenDaoForNearCache dao = new SaTokenDaoForNearCache(target);
+    	SaTokenDao old = SaManager.getSaTokenDao();
+    	SaManager.setSaTokenDao(dao);
+    	try {
+    		dao.setSession(newSession("field-4"), 60);
+    		dao.getSession("field-4").set("a", 1);
+    		Assertions.assertEquals(target.calls.toString(), "[field:a=1]");
+    		Assertions.assertEquals(dao.getSession("field-4").get("a"), 1);
+    	} finally {
+    		SaManager.setSaTokenDao(old);
+    	}
+    }
+
+    // Hash 映射
+    @Test
+    public void hashMapper() {
+    	SaSession session = newSession("field-5");
+    	session.setType("Account-Session");
+    	session.setCreateTime(1700000000000L);
+    	session.getTokenSignList().add(new TokenSign("t5", "PC", null));
+    	session.getDataMap().put("name", "张三");
+
+    	Map<String, Object> fieldMap = SaSessionHashMapper.toFieldMap(session);
+    	Assertions.assertEquals(fieldMap.get("$id"), "field-5");
+    	Assertions.assertEquals(fieldMap.get("#name"), "张三");
+    	Assertions.assertFalse(fieldMap.containsKey("$token"));
+
+    	// 模拟 JSON 反序列化后数字类型变化
+    	Map<String, Object> copy = new LinkedHashMap<>(fieldMap);
+    	copy.put("$createTime", 1700000000000.0);
+    	SaSession s = SaSessionHashMapper.fillSession(new SaSession(), copy);
+    	Assertions.assertEquals(s.getId(), "field-5");
+    	Assertions.assertEquals(s.getType(), "Account-Session");
+    	Assertions.assertEquals(s.getLoginId(), 10001);
+    	Assertions.assertNull(s.getToken());
+    	Assertions.assertEquals(s.getCreateTime(), 1700000000000L);
+    	Assertions.assertEquals(s.getTokenSignList().get(0).getValue(), "t5");
+    	Assertions.assertEquals(s.get("name"), "张三");
+    }
+
+}
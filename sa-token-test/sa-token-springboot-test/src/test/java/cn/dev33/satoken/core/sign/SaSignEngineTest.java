@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.sign;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.config.SaSignConfig;
+import cn.dev33.satoken.error.SaErrorCode;
+import cn.dev33.satoken.exception.SaSignException;
+import cn.dev33.satoken.secure.SaSecureUtil;
+import cn.dev33.satoken.sign.SaSignEngine;
+import cn.dev33.satoken.sign.SaSignTemplate;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * API 参数签名引擎 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSignEngineTest {
+
+	String secretKey = "SwqFmsKxcbq23";
+
+	Map<String, Object> createParams() {
+		Map<String, Object> map = new HashMap<>();
+		map.put("name", "zhang");
+		map.put("age", 18);
+		map.put("sex", "女");
+		map.put("empty", "");
+		map.put("sign", "xxx");
+		map.put("long", SaFoxUtil.getRandomString(2000));
+		return map;
+	}
+
+	// 按照旧方式拼接出的完整字符串
+	String fullStr(Map<String, Object> map) {
+		Map<String, Object> copy = new TreeMap<>(map);
+		copy.remove("sign");
+		return new SaSignTemplate().joinParamsDictSort(copy) + "&key=" + secretKey;
+	}
+
+	// 流式计算的结果与先拼接字符串再摘要的结果一致
+	@Test
+	public void sameAsJoin() {
+		Map<String, Object> map = createParams();
+		Assertions.assertEquals(new SaSignEngine("md5", secretKey, "key").sign(map, "sign"), SaSecureUtil.md5(fullStr(map)));
+		Assertions.assertEquals(new SaSignEngine("sha256", secretKey, "key").sign(map, "sign"), SaSecureUtil.sha256(fullStr(map)));
+		Assertions.assertEquals(new SaSignEngine("sha512", secretKey, "key").sign(map, "sign"), SaSecureUtil.sha512(fullStr(map)));
+
+		// TreeMap 直接遍历，结果一致
+		SaSignEngine engine = new SaSignEngine("md5", secretKey, "key");
+		Assertions.assertEquals(engine.sign(new TreeMap<>(map), "sign"), engine.sign(map, "sign"));
+
+		// 空参数
+		Assertions.assertEquals(engine.sign(new HashMap<>(), "sign"), SaSecureUtil.md5("&key=" + secretKey));
+	}
+
+	// hmac-sha256：以秘钥作为密钥，对参数字符串计算 HMAC
+	@Test
+	public void hmacSha256() throws Exception {
+		Map<String, Object> map = createParams();
+		Map<String, Object> copy = new TreeMap<>(map);
+		copy.remove("sign");
+		String paramsStr = new SaSignTemplate().joinParamsDictSort(copy);
+
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		StringBuilder expected = new StringBuilder();
+		for (byte b : mac.doFinal(paramsStr.getBytes(StandardCharsets.UTF_8))) {
+			expected.append(String.format("%02x", b));
+		}
+
+		SaSignEngine engine = new SaSignEngine(SaSignEngine.HMAC_SHA256, secretKey, "key");
+		Assertions.assertEquals(engine.sign(map, "sign"), expected.toString());
+		Assertions.assertEquals(engine.sign(paramsStr), expected.toString());
+		// 多次计算，结果一致
+		Assertions.assertEquals(engine.sign(map, "sign"), engine.sign(map, "sign"));
+	}
+
+	// 不支持的算法
+	@Test
+	public void unsupported() {
+		SaSignException e = Assertions.assertThrows(SaSignException.class, () -> new SaSignEngine("crc32", secretKey, "key"));
+		Assertions.assertEquals(e.getCode(), SaErrorCode.CODE_12204);
+	}
+
+	// 固定耗时比较
+	@Test
+	public void constantTimeEquals() {
+		Assertions.assertTrue(SaSignEngine.constantTimeEquals("abc", "abc"));
+		Assertions.assertFalse(SaSignEngine.constantTimeEquals("abc", "abd"));
+		Assertions.assertFalse(SaSignEngine.constantTimeEquals("abc", "abcd"));
+		Assertions.assertFalse(SaSignEngine.constantTimeEquals("abc", null));
+		Assertions.assertFalse(SaSignEngine.constantTimeEquals(null, null));
+	}
+
+	// SaSignTemplate：切换签名算法、校验签名、兼容重写 abstractStr 的子类
+	@Test
+	public void template() {
+		Map<String, Object> map = createParams();
+		SaSignConfig config = new SaSignConfig().setSecretKey(secretKey);
+		SaSignTemplate template = new SaSignTemplate().setSignConfig(config);
+		String md5Sign = template.createSign(map);
+		Assertions.assertEquals(md5Sign, SaSecureUtil.md5(fullStr(map)));
+		Assertions.assertTrue(template.isValidSign(map, md5Sign));
+
+		config.setSignAlgo(SaSignEngine.HMAC_SHA256);
+		String hmacSign = template.createSign(map);
+		Assertions.assertNotEquals(hmacSign, md5Sign);
+		Assertions.assertEquals(hmacSign.length(), 64);
+		Assertions.assertTrue(template.isValidSign(map, hmacSign));
+		Assertions.assertFalse(template.isValidSign(map, md5Sign));
+
+		// 更换秘钥后引擎随之重建
+		config.setSecretKey(secretKey + "-new");
+		Assertions.assertNotEquals(template.createSign(map), hmacSign);
+
+		// 子类重写 abstractStr 时仍然生效
+		SaSignTemplate custom = new SaSignTemplate() {
+			@Override
+			public String abstractStr(String fullStr) {
+				return SaSecureUtil.sha1(fullStr);
+			}
+		}.setSignConfig(new SaSignConfig().setSecretKey(secretKey));
+		Assertions.assertEquals(custom.createSign(map), SaSecureUtil.sha1(fullStr(map)));
+
+		// 子类重写 joinParams 时同样生效
+		SaSignTemplate customJoin = new SaSignTemplate() {
+			@Override
+			public String joinParams(Map<String, ?> paramsMap) {
+				return "prefix:" + super.joinParams(paramsMap);
+			}
+		}.setSignConfig(new SaSignConfig().setSecretKey(secretKey));
+		Assertions.assertEquals(customJoin.createSign(map), SaSecureUtil.md5("prefix:" + fullStr(map)));
+
+		// 子类重写 getSecretKey 时，默认流程同样使用重写后的秘钥
+		SaSignTemplate customKey = new SaSignTemplate() {
+			@Override
+			public String getSecretKey() {
+				return secretKey;
+			}
+		}.setSignConfig(new SaSignConfig().setSecretKey("other-key"));
+		Assertions.assertEquals(customKey.createSign(map), md5Sign);
+	}
+
+	// hmac-sha256 下，abstractStr(完整字符串) 与 createSign 的结果一致
+	@Test
+	public void hmacAbstractStr() {
+		Map<String, Object> map = createParams();
+		SaSignTemplate template = new SaSignTemplate().setSignConfig(new SaSignConfig().setSecretKey(secretKey).setSignAlgo(SaSignEngine.HMAC_SHA256));
+		Assertions.assertEquals(template.abstractStr(fullStr(map)), template.createSign(map));
+
+		// 重写 joinParamsDictSort 走拼接流程时，结果与默认流程一致
+		SaSignTemplate custom = new SaSignTemplate() {
+			@Override
+			public String joinParamsDictSort(Map<String, ?> paramsMap) {
+				return super.joinParamsDictSort(paramsMap);
+			}
+		}.setSignConfig(new SaSignConfig().setSecretKey(secretKey).setSignAlgo(SaSignEngine.HMAC_SHA256));
+		Assertions.assertEquals(custom.createSign(map), template.createSign(map));
+	}
+
+}
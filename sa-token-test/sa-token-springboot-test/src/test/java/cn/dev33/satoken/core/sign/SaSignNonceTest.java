@@ -0,0 +1,246 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.sign;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.config.SaSignConfig;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.dao.SaTokenDaoForExpireQueue;
+import cn.dev33.satoken.dao.SaTokenDaoPipeline;
+import cn.dev33.satoken.exception.SaSignException;
+import cn.dev33.satoken.sign.SaNonceFilter;
+import cn.dev33.satoken.sign.SaSignTemplate;
+
+/**
+ * nonce 原子校验与本地 nonce 过滤器 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSignNonceTest {
+
+	// 记录读写次数的持久层
+	static class CountDao extends SaTokenDaoDefaultImpl {
+		AtomicInteger getCount = new AtomicInteger();
+		AtomicInteger setIfAbsentCount = new AtomicInteger();
+		@Override
+		public String get(String key) {
+			getCount.incrementAndGet();
+			return super.get(key);
+		}
+		@Override
+		public boolean setIfAbsent(String key, String value, long timeout) {
+			setIfAbsentCount.incrementAndGet();
+			return super.setIfAbsent(key, value, timeout);
+		}
+	}
+
+	// setIfAbsent：内存实现
+	@Test
+	public void setIfAbsent() {
+		for (SaTokenDao dao : new SaTokenDao[]{ new SaTokenDaoDefaultImpl(), new SaTokenDaoForExpireQueue() }) {
+			Assertions.assertTrue(dao.setIfAbsent("k1", "v1", 60));
+			Assertions.assertFalse(dao.setIfAbsent("k1", "v2", 60));
+			Assertions.assertEquals(dao.get("k1"), "v1");
+			Assertions.assertTrue(dao.getTimeout("k1") > 50);
+
+			// 无效的存活时间不写入
+			Assertions.assertFalse(dao.setIfAbsent("k2", "v2", 0));
+			Assertions.assertNull(dao.get("k2"));
+
+			// 永不过期
+			Assertions.assertTrue(dao.setIfAbsent("k3", "v3", SaTokenDao.NEVER_EXPIRE));
+			Assertions.assertEquals(dao.getTimeout("k3"), SaTokenDao.NEVER_EXPIRE);
+
+			// 删除后可以再次写入
+			dao.delete("k1");
+			Assertions.assertTrue(dao.setIfAbsent("k1", "v2", 60));
+			Assertions.assertEquals(dao.get("k1"), "v2");
+		}
+	}
+
+	// setIfAbsent：已过期的数据视为不存在
+	@Test
+	public void setIfAbsentExpired() throws InterruptedException {
+		for (SaTokenDao dao : new SaTokenDao[]{ new SaTokenDaoDefaultImpl(), new SaTokenDaoForExpireQueue() }) {
+			Assertions.assertTrue(dao.setIfAbsent("k1", "v1", 1));
+			Thread.sleep(1100);
+			Assertions.assertTrue(dao.setIfAbsent("k1", "v2", 60));
+			Assertions.assertEquals(dao.get("k1"), "v2");
+		}
+	}
+
+	// setIfAbsent：管道作用域内暂存中有 SET 时返回 false，否则直接在底层持久层执行
+	@Test
+	public void setIfAbsentPipeline() {
+		SaTokenDao dao = new SaTokenDaoDefaultImpl();
+		dao.set("k1", "v1", 60);
+		try (SaTokenDaoPipeline pipeline = dao.openPipeline()) {
+			Assertions.assertFalse(pipeline.setIfAbsent("k1", "v2", 60));
+			Assertions.assertTrue(pipeline.setIfAbsent("k2", "v2", 60));
+			Assertions.assertEquals(dao.get("k2"), "v2");
+
+			pipeline.set("k3", "v3", 60);
+			Assertions.assertFalse(pipeline.setIfAbsent("k3", "v3-new", 60));
+
+			// 暂存中有 DELETE 时，先提交这个 DELETE，再直接在底层持久层执行
+			pipeline.delete("k1");
+			Assertions.assertTrue(pipeline.setIfAbsent("k1", "v1-new", 60));
+			Assertions.assertEquals(dao.get("k1"), "v1-new");
+		}
+		Assertions.assertEquals(dao.get("k1"), "v1-new");
+		Assertions.assertEquals(dao.get("k3"), "v3");
+	}
+
+	// 同一 nonce 并发校验，只有一个请求可以通过，且每次校验只访问一次持久层
+	@Test
+	public void checkNonceConcurrent() throws Exception {
+		CountDao dao = new CountDao();
+		SaTokenDao old = SaManager.getSaTokenDao();
+		SaManager.setSaTokenDao(dao);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			SaSignTemplate template = new SaSignTemplate().setSignConfig(new SaSignConfig().setSecretKey("key-123"));
+			CountDownLatch latch = new CountDownLatch(1);
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				futures.add(executor.submit(() -> {
+					latch.await();
+					try {
+						template.checkNonce("nonce-1001");
+						return true;
+					} catch (SaSignException e) {
+						return false;
+					}
+				}));
+			}
+			latch.countDown();
+			int passCount = 0;
+			for (Future<Boolean> future : futures) {
+				if(future.get(5, TimeUnit.SECONDS)) {
+					passCount++;
+				}
+			}
+			Assertions.assertEquals(passCount, 1);
+			Assertions.assertEquals(dao.setIfAbsentCount.get(), 16);
+			Assertions.assertEquals(dao.getCount.get(), 0);
+			Assertions.assertFalse(template.isValidNonce("nonce-1001"));
+		} finally {
+			executor.shutdownNow();
+			SaManager.setSaTokenDao(old);
+		}
+	}
+
+	// 开启本地 nonce 过滤器后，本机见过的 nonce 不再访问持久层
+	@Test
+	public void checkNonceFilter() {
+		CountDao dao = new CountDao();
+		SaTokenDao old = SaManager.getSaTokenDao();
+		SaManager.setSaTokenDao(dao);
+		try {
+			SaSignTemplate template = new SaSignTemplate().setSignConfig(new SaSignConfig().setSecretKey("key-123").setNonceFilterSize(1000));
+			Assertions.assertNotNull(template.getNonceFilter());
+			template.checkNonce("nonce-1001");
+			Assertions.assertEquals(dao.setIfAbsentCount.get(), 1);
+
+			for (int i = 0; i < 100; i++) {
+				Assertions.assertThrows(SaSignException.class, () -> template.checkNonce("nonce-1001"));
+			}
+			Assertions.assertFalse(template.isValidNonce("nonce-1001"));
+			Assertions.assertEquals(dao.setIfAbsentCount.get(), 1);
+			Assertions.assertEquals(dao.getCount.get(), 0);
+
+			// 其它节点使用过的 nonce（本机未见过），仍由持久层拦截，并记入本地过滤器
+			dao.set(template.splicingNonceSaveKey("nonce-1002"), "nonce-1002", 60);
+			Assertions.assertThrows(SaSignException.class, () -> template.checkNonce("nonce-1002"));
+			Assertions.assertEquals(dao.setIfAbsentCount.get(), 2);
+			Assertions.assertThrows(SaSignException.class, () -> template.checkNonce("nonce-1002"));
+			Assertions.assertEquals(dao.setIfAbsentCount.get(), 2);
+
+			// 未开启时不创建过滤器
+			Assertions.assertNull(new SaSignTemplate().setSignConfig(new SaSignConfig()).getNonceFilter());
+		} finally {
+			SaManager.setSaTokenDao(old);
+		}
+	}
+
+	// 签名无效的请求不占用 nonce
+	@Test
+	public void checkParamMapInvalidSign() {
+		SaSignTemplate template = new SaSignTemplate().setSignConfig(new SaSignConfig().setSecretKey("key-123"));
+		Map<String, String> map = toStringMap(template.addSignParams(new TreeMap<>()));
+		String sign = map.get(SaSignTemplate.sign);
+
+		map.put(SaSignTemplate.sign, "invalid-sign");
+		Assertions.assertThrows(SaSignException.class, () -> template.checkParamMap(map));
+
+		map.put(SaSignTemplate.sign, sign);
+		template.checkParamMap(map);
+		Assertions.assertThrows(SaSignException.class, () -> template.checkParamMap(map));
+	}
+
+	// 本地 nonce 过滤器：记录、误判率、轮换
+	@Test
+	public void nonceFilter() throws InterruptedException {
+		SaNonceFilter filter = new SaNonceFilter(10000, 0.001, 60000);
+		for (int i = 0; i < 10000; i++) {
+			filter.put("nonce-" + i);
+		}
+		for (int i = 0; i < 10000; i++) {
+			Assertions.assertTrue(filter.mightContain("nonce-" + i));
+		}
+		int falsePositive = 0;
+		for (int i = 10000; i < 20000; i++) {
+			if(filter.mightContain("nonce-" + i)) {
+				falsePositive++;
+			}
+		}
+		Assertions.assertTrue(falsePositive < 50, "误判次数过多：" + falsePositive);
+
+		filter.clear();
+		Assertions.assertFalse(filter.mightContain("nonce-1"));
+
+		// 经过一个轮换周期仍然记得，经过两个轮换周期后遗忘
+		SaNonceFilter shortFilter = new SaNonceFilter(100, 0.001, 200);
+		shortFilter.put("nonce-1");
+		Thread.sleep(250);
+		Assertions.assertTrue(shortFilter.mightContain("nonce-1"));
+		Thread.sleep(600);
+		Assertions.assertFalse(shortFilter.mightContain("nonce-1"));
+	}
+
+	static Map<String, String> toStringMap(Map<String, Object> map) {
+		Map<String, String> result = new TreeMap<>();
+		map.forEach((k, v) -> result.put(k, String.valueOf(v)));
+		return result;
+	}
+
+}
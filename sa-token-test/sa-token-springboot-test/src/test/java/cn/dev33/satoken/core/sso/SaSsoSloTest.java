@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.sso;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.config.SaSignConfig;
+import cn.dev33.satoken.config.SaSsoConfig;
+import cn.dev33.satoken.sso.SaSsoManager;
+import cn.dev33.satoken.sso.SaSsoTemplate;
+import cn.dev33.satoken.sso.slo.SaSsoSloDispatcher;
+import cn.dev33.satoken.sso.slo.SaSsoSloResult;
+import cn.dev33.satoken.stp.StpUtil;
+
+/**
+ * SSO 单点注销并发通知 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaSsoSloTest {
+
+	SaSsoConfig oldConfig;
+	SaSignConfig oldSignConfig;
+
+	@BeforeEach
+	public void before() {
+		oldConfig = SaSsoManager.getConfig();
+		oldSignConfig = SaManager.getSaSignTemplate().getSignConfig();
+		SaManager.getSaSignTemplate().setSignConfig(new SaSignConfig().setSecretKey("slo-secret-key"));
+	}
+
+	@AfterEach
+	public void after() {
+		SaSsoManager.setConfig(oldConfig);
+		SaManager.getSaSignTemplate().setSignConfig(oldSignConfig);
+	}
+
+	// 并发发送，单个请求超时不拖慢其它请求 
+	@Test
+	public void dispatch() {
+		SaSsoSloDispatcher dispatcher = new SaSsoSloDispatcher(4);
+		long start = System.currentTimeMillis();
+		List<SaSsoSloResult> results = dispatcher.dispatch(Arrays.asList("ok", "slow", "error"), url -> {
+			if(url.equals("slow")) {
+				sleep(3000);
+			}
+			if(url.equals("error")) {
+				throw new IllegalStateException("client down");
+			}
+			return "ok:" + url;
+		}, 300, 0, 0).join();
+		Assertions.assertTrue(System.currentTimeMillis() - start < 2000);
+
+		Assertions.assertTrue(results.get(0).success);
+		Assertions.assertEquals(results.get(0).body, "ok:ok");
+		Assertions.assertFalse(results.get(1).success);
+		Assertions.assertTrue(results.get(1).timeout);
+		Assertions.assertFalse(results.get(2).success);
+		Assertions.assertTrue(results.get(2).error instanceof IllegalStateException);
+		dispatcher.destroy();
+	}
+
+	// 失败后按退避间隔重试 
+	@Test
+	public void retry() {
+		SaSsoSloDispatcher dispatcher = new SaSsoSloDispatcher(2);
+		AtomicInteger count = new AtomicInteger();
+		SaSsoSloResult result = dispatcher.dispatch(Arrays.asList("a"), url -> {
+			if(count.incrementAndGet() < 3) {
+				throw new IllegalStateException("retry later");
+			}
+			return "ok";
+		}, 1000, 2, 10).join().get(0);
+		Assertions.assertTrue(result.success);
+		Assertions.assertEquals(result.attempts, 3);
+
+		// 超过重试次数后放弃 
+		count.set(-10);
+		result = dispatcher.dispatch(Arrays.asList("a"), url -> {
+			count.incrementAndGet();
+			throw new IllegalStateException("down");
+		}, 1000, 1, 10).join().get(0);
+		Assertions.assertFalse(result.success);
+		Assertions.assertEquals(result.attempts, 2);
+		dispatcher.destroy();
+	}
+
+	// 等待队列已满时直接返回被拒绝的结果，不在调用方线程中执行 sendHttp
+	@Test
+	public void rejected() {
+		SaSsoSloDispatcher dispatcher = new SaSsoSloDispatcher(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread caller = Thread.currentThread();
+		AtomicInteger callerRuns = new AtomicInteger();
+		List<String> urls = new ArrayList<>();
+		for (int i = 0; i < 1 + 64 + 3; i++) {
+			urls.add("u" + i);
+		}
+		CompletableFuture<List<SaSsoSloResult>> future = dispatcher.dispatch(urls, url -> {
+			if(Thread.currentThread() == caller) {
+				callerRuns.incrementAndGet();
+			}
+			await(release);
+			return "ok";
+		}, 0, 0, 0);
+		release.countDown();
+		List<SaSsoSloResult> results = future.join();
+		Assertions.assertEquals(callerRuns.get(), 0);
+		Assertions.assertEquals(results.stream().filter(SaSsoSloResult::isRejected).count(), 3);
+		Assertions.assertEquals(results.stream().filter(r -> r.success).count(), 65);
+		dispatcher.destroy();
+	}
+
+	// 同步模式：一个 Client 端失败不影响其它 Client 端与 Server 端注销 
+	@Test
+	public void ssoLogout() {
+		Set<String> calledUrls = ConcurrentHashMap.newKeySet();
+		AtomicReference<List<SaSsoSloResult>> resultRef = new AtomicReference<>();
+		SaSsoManager.setConfig(new SaSsoConfig()
+				.setSendHttp(url -> {
+					calledUrls.add(url);
+					if(url.startsWith("http://c2")) {
+						throw new IllegalStateException("client down");
+					}
+					return "ok";
+				})
+				.setSloResultHandle((loginId, results) -> resultRef.set(results)));
+
+		SaSsoTemplate template = new SaSsoTemplate();
+		StpUtil.createLoginSession(10001);
+		template.registerSloCallbackUrl(10001, "http://c1/sso/logoutCall");
+		template.registerSloCallbackUrl(10001, "http://c2/sso/logoutCall");
+		template.ssoLogout(10001);
+
+		Assertions.assertEquals(calledUrls.size(), 2);
+		for (String url : calledUrls) {
+			Assertions.assertTrue(url.contains("loginId=10001"));
+			Assertions.assertTrue(url.contains("sign="));
+		}
+		Assertions.assertEquals(resultRef.get().size(), 2);
+		Assertions.assertEquals(resultRef.get().stream().filter(r -> r.success).count(), 1);
+		Assertions.assertNull(StpUtil.getSessionByLoginId(10001, false));
+	}
+
+	// 异步模式：Server 端立即注销，Client 端在后台通知 
+	@Test
+	public void ssoLogoutAsync() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		AtomicReference<List<SaSsoSloResult>> resultRef = new AtomicReference<>();
+		SaSsoManager.setConfig(new SaSsoConfig()
+				.setSloAsync(true)
+				.setSloRetryInterval(10)
+				.setSendHttp(url -> {
+					await(release);
+					return "ok";
+				})
+				.setSloResultHandle((loginId, results) -> {
+					resultRef.set(results);
+					done.countDown();
+				}));
+
+		SaSsoTemplate template = new SaSsoTemplate();
+		StpUtil.createLoginSession(10002);
+		template.registerSloCallbackUrl(10002, "http://c1/sso/logoutCall");
+		template.ssoLogout(10002);
+
+		// Client 端尚未响应，Server 端已经注销 
+		Assertions.assertNull(StpUtil.getSessionByLoginId(10002, false));
+		Assertions.assertNull(resultRef.get());
+
+		release.countDown();
+		Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(resultRef.get().get(0).success);
+		template.getSloDispatcher().destroy();
+	}
+
+	static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
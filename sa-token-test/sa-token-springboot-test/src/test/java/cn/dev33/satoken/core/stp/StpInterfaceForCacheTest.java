@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.stp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.listener.SaTokenEventCenter;
+import cn.dev33.satoken.stp.StpInterface;
+import cn.dev33.satoken.stp.StpInterfaceForCache;
+
+/**
+ * StpInterfaceForCache 权限数据缓存 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class StpInterfaceForCacheTest {
+
+	// 记录加载次数的数据源
+	static class CountStpInterface implements StpInterface {
+		AtomicInteger count = new AtomicInteger();
+		@Override
+		public List<String> getPermissionList(Object loginId, String loginType) {
+			count.incrementAndGet();
+			return Arrays.asList("user.add", "user.delete");
+		}
+		@Override
+		public List<String> getRoleList(Object loginId, String loginType) {
+			count.incrementAndGet();
+			return Arrays.asList("admin");
+		}
+	}
+
+	// 未开启跨请求缓存时，每次都从数据源加载
+	@Test
+	public void noCache() {
+		CountStpInterface source = new CountStpInterface();
+		StpInterfaceForCache stpInterface = new StpInterfaceForCache(source);
+		stpInterface.getPermissionList(10001, "login");
+		stpInterface.getPermissionList(10001, "login");
+		Assertions.assertEquals(source.count.get(), 2);
+	}
+
+	// 跨请求缓存
+	@Test
+	public void timeoutCache() throws InterruptedException {
+		CountStpInterface source = new CountStpInterface();
+		StpInterfaceForCache stpInterface = new StpInterfaceForCache(source).setTimeout(100);
+		List<String> list = stpInterface.getPermissionList(10001, "login");
+		Assertions.assertSame(stpInterface.getPermissionList(10001, "login"), list);
+		Assertions.assertEquals(stpInterface.getRoleList(10001, "login").get(0), "admin");
+		Assertions.assertEquals(source.count.get(), 2);
+
+		// 不同账号类型分开缓存
+		stpInterface.getPermissionList(10001, "user");
+		Assertions.assertEquals(source.count.get(), 3);
+
+		// 过期后重新加载
+		Thread.sleep(150);
+		stpInterface.getPermissionList(10001, "login");
+		Assertions.assertEquals(source.count.get(), 4);
+	}
+
+	// 手动清除与事件清除
+	@Test
+	public void invalidate() {
+		CountStpInterface source = new CountStpInterface();
+		StpInterfaceForCache stpInterface = new StpInterfaceForCache(source).setTimeout(60000).registerListener();
+
+		stpInterface.getPermissionList(10001, "login");
+		stpInterface.invalidate("login", 10001);
+		stpInterface.getPermissionList(10001, "login");
+		Assertions.assertEquals(source.count.get(), 2);
+
+		// 注销、踢人下线时自动清除
+		SaTokenEventCenter.doLogout("login", 10001, "xxx-token");
+		stpInterface.getPermissionList(10001, "login");
+		Assertions.assertEquals(source.count.get(), 3);
+		SaTokenEventCenter.doKickout("login", 10001, "xxx-token");
+		stpInterface.getPermissionList(10001, "login");
+		Assertions.assertEquals(source.count.get(), 4);
+
+		// 其它账号不受影响
+		stpInterface.getPermissionList(10002, "login");
+		SaTokenEventCenter.doLogout("login", 10001, "xxx-token");
+		stpInterface.getPermissionList(10002, "login");
+		Assertions.assertEquals(source.count.get(), 5);
+
+		stpInterface.invalidateAll();
+		Assertions.assertEquals(stpInterface.cacheMap.size(), 0);
+
+		stpInterface.removeListener();
+		Assertions.assertFalse(SaTokenEventCenter.hasListener(stpInterface.listener));
+	}
+
+	// 加载期间缓存被清除时，加载结果不写入缓存；缓存的集合为只读视图
+	@Test
+	public void invalidateDuringLoad() {
+		StpInterfaceForCache[] holder = new StpInterfaceForCache[1];
+		CountStpInterface source = new CountStpInterface() {
+			@Override
+			public List<String> getPermissionList(Object loginId, String loginType) {
+				List<String> list = super.getPermissionList(loginId, loginType);
+				// 模拟加载过程中，其它线程修改了此账号的权限并清除缓存
+				if(count.get() == 1) {
+					holder[0].invalidate(loginType, loginId);
+				}
+				return list;
+			}
+		};
+		StpInterfaceForCache stpInterface = new StpInterfaceForCache(source).setTimeout(60000);
+		holder[0] = stpInterface;
+
+		stpInterface.getPermissionList(10001, "login");
+		Assertions.assertEquals(stpInterface.cacheMap.size(), 0);
+		List<String> list = stpInterface.getPermissionList(10001, "login");
+		Assertions.assertEquals(stpInterface.cacheMap.size(), 1);
+		Assertions.assertEquals(source.count.get(), 2);
+
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> list.add("user.update"));
+	}
+
+	// 数量上限
+	@Test
+	public void maxSize() {
+		StpInterfaceForCache stpInterface = new StpInterfaceForCache(new CountStpInterface()).setTimeout(60000).setMaxSize(100);
+		for (int i = 0; i < 300; i++) {
+			stpInterface.getPermissionList(i, "login");
+		}
+		Assertions.assertTrue(stpInterface.cacheMap.size() <= 100);
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.strategy;
+
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckOr;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+import cn.dev33.satoken.annotation.SaCheckRole;
+import cn.dev33.satoken.annotation.SaIgnore;
+import cn.dev33.satoken.fun.strategy.SaGetAnnotationFunction;
+import cn.dev33.satoken.strategy.SaCheckMethodPlan;
+import cn.dev33.satoken.strategy.SaStrategy;
+
+/**
+ * SaCheckMethodPlan 注解鉴权预编译计划 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaCheckMethodPlanTest {
+
+	@SaCheckLogin
+	static class UserController {
+		@SaCheckRole("admin")
+		@SaCheckPermission("user.add")
+		public void add() {}
+
+		@SaCheckOr(role = @SaCheckRole("admin"), permission = @SaCheckPermission("user.list"))
+		public void list() {}
+
+		@SaIgnore
+		public void info() {}
+	}
+
+	static class PublicController {
+		public void index() {}
+	}
+
+	// 编译结果
+	@Test
+	public void compile() throws NoSuchMethodException {
+		Method add = UserController.class.getMethod("add");
+		SaCheckMethodPlan plan = SaStrategy.instance.getCheckMethodPlan(add);
+		Assertions.assertFalse(plan.ignore);
+		Assertions.assertEquals(plan.steps.length, 3);
+
+		// 同一个 Method 复用同一份计划
+		Assertions.assertSame(SaStrategy.instance.getCheckMethodPlan(add), plan);
+
+		// SaCheckOr 编译为一个步骤
+		Assertions.assertEquals(SaStrategy.instance.getCheckMethodPlan(UserController.class.getMethod("list")).steps.length, 2);
+
+		// SaIgnore
+		Assertions.assertTrue(SaStrategy.instance.getCheckMethodPlan(UserController.class.getMethod("info")).ignore);
+
+		// 没有任何注解时，不需要执行任何步骤
+		SaCheckMethodPlan plan2 = SaStrategy.instance.getCheckMethodPlan(PublicController.class.getMethod("index"));
+		Assertions.assertEquals(plan2.steps.length, 0);
+		plan2.check();
+	}
+
+	// 重写策略后自动重新编译
+	@Test
+	public void stale() throws NoSuchMethodException {
+		Method add = UserController.class.getMethod("add");
+		SaCheckMethodPlan plan = SaStrategy.instance.getCheckMethodPlan(add);
+
+		SaGetAnnotationFunction oldGetAnnotation = SaStrategy.instance.getAnnotation;
+		try {
+			SaStrategy.instance.getAnnotation = (element, annotationClass) -> null;
+			Assertions.assertTrue(plan.isStale(SaStrategy.instance));
+			SaCheckMethodPlan plan2 = SaStrategy.instance.getCheckMethodPlan(add);
+			Assertions.assertNotSame(plan2, plan);
+			Assertions.assertEquals(plan2.steps.length, 0);
+		} finally {
+			SaStrategy.instance.getAnnotation = oldGetAnnotation;
+		}
+		Assertions.assertEquals(SaStrategy.instance.getCheckMethodPlan(add).steps.length, 3);
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020-2099 sa-token.cc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.dev33.satoken.core.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.dev33.satoken.util.SaElementMatcher;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * SaElementMatcher 测试
+ *
+ * @author click33
+ * @since 1.38.0
+ */
+public class SaElementMatcherTest {
+
+	// 基本匹配
+	@Test
+	public void match() {
+		SaElementMatcher matcher = new SaElementMatcher(Arrays.asList("user.add", "user.*", "order.*.read", "art-*-add-*", "**"));
+		Assertions.assertTrue(matcher.match("user.add"));
+		Assertions.assertTrue(matcher.match("user."));
+		Assertions.assertTrue(matcher.match("user.delete"));
+		Assertions.assertTrue(matcher.match("order.1.read"));
+		Assertions.assertTrue(matcher.match("order.1.2.read"));
+		Assertions.assertTrue(matcher.match("art-xx-add-1"));
+
+		SaElementMatcher matcher2 = new SaElementMatcher(Arrays.asList("user.add", "user-*", "order.*.read", "*.list"));
+		Assertions.assertTrue(matcher2.match("user-*"));
+		Assertions.assertTrue(matcher2.match("goods.list"));
+		Assertions.assertTrue(matcher2.match(".list"));
+		Assertions.assertFalse(matcher2.match("user"));
+		Assertions.assertFalse(matcher2.match("order.1.write"));
+		Assertions.assertFalse(matcher2.match("order.read"));
+		Assertions.assertFalse(matcher2.match("goods.lis"));
+		Assertions.assertFalse(matcher2.match(null));
+		Assertions.assertTrue(new SaElementMatcher(Arrays.asList("a", null)).match(null));
+	}
+
+	// 随机生成表达式，与 SaFoxUtil.vagueMatch 的结果逐个对比
+	@Test
+	public void sameAsVagueMatch() {
+		Random random = new Random(10001);
+		String alphabet = "ab.*";
+		for (int round = 0; round < 300; round++) {
+			List<String> list = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				list.add(randomString(random, alphabet, 6));
+			}
+			SaElementMatcher matcher = new SaElementMatcher(list);
+			for (int i = 0; i < 50; i++) {
+				String str = randomString(random, "ab.", 8);
+				boolean expected = false;
+				for (String patt : list) {
+					expected = expected || SaFoxUtil.vagueMatch(patt, str);
+				}
+				Assertions.assertEquals(expected, matcher.match(str), list + " -> " + str);
+				Assertions.assertEquals(expected, SaElementMatcher.match(list, str), list + " -> " + str);
+			}
+		}
+	}
+
+	// 同一个集合对象第二次出现时才进行编译
+	@Test
+	public void compileOnSecondUse() {
+		SaElementMatcher.clearCache();
+		List<String> list = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			list.add("module" + i + ".*");
+		}
+		Assertions.assertTrue(SaElementMatcher.match(list, "module99.add"));
+		Assertions.assertTrue(SaElementMatcher.match(list, "module1.add"));
+		Assertions.assertFalse(SaElementMatcher.match(list, "module100.add"));
+
+		// 元素数量变化后重新编译
+		list.add("module100.*");
+		Assertions.assertTrue(SaElementMatcher.match(list, "module100.add"));
+		Assertions.assertTrue(SaElementMatcher.match(list, "module100.add"));
+	}
+
+	// 大量 * 号且无法匹配的表达式，匹配耗时不会随 * 号数量指数增长
+	@Test
+	public void manyStarsNoMatch() {
+		SaElementMatcher matcher = new SaElementMatcher(Arrays.asList("*a*a*a*a*a*a*a*a*a*a*a*a*b", "http://*.sa-token.cc/*/*/*/*/*/x"));
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			sb.append('a');
+		}
+		String aaa = sb.toString();
+		String url = "http://a.sa-token.cc/" + aaa.replace("aaaa", "a/a/");
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+			Assertions.assertFalse(matcher.match(aaa));
+			Assertions.assertFalse(matcher.match(url));
+		});
+		Assertions.assertTrue(matcher.match(aaa + "b"));
+		Assertions.assertTrue(matcher.match("http://a.sa-token.cc/1/2/3/4/5/x"));
+	}
+
+	static String randomString(Random random, String alphabet, int maxLength) {
+		int length = random.nextInt(maxLength + 1);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return sb.toString();
+	}
+
+}